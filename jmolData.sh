@@ -0,0 +1,52 @@
+#!/bin/sh
+
+# JmolData -- Jmol with no display, for scripts and batch jobs:
+#
+#   jmolData.sh -s myscript.spt
+#
+# If JmolDataD.jsa, made by "ant jmoldata-cds" with this same Java (13 or
+# later), is next to JmolDataD.jar, its class-data sharing archive is used,
+# saving much of the time spent loading classes at each launch.
+# Set JMOL_CDS=off to launch without it.
+
+# Collect -D & -m options as java arguments
+command="java -Djava.awt.headless=true"
+while [ `echo $1 | egrep '^-D|^-m' | wc -l` != 0 ]; do
+	command="$command $1"
+	shift
+done
+
+# Determine installation location
+if [ "$JMOL_HOME" = "" ]; then
+	binDir=${0%/*}
+	if [ "$binDir" = "$0" ]; then
+		# Ran from local directory
+		binDir=$PWD
+	fi
+	# Resolve symlinks.
+	program="$0"
+	while [ -L "$program" ]; do
+		ls=`/bin/ls -ld "$program"`
+		link=`/usr/bin/expr "$ls" : '.*-> \(.*\)$'`
+		if /usr/bin/expr "$link" : '.*/.*' > /dev/null; then
+		program="$link"
+		else
+		program="`/usr/bin/dirname $program`/$link"
+		fi
+	done
+	binDir=`dirname $program`
+fi
+
+JMOL_HOME=${JMOL_HOME:-$binDir}
+libDir=${JMOL_HOME}/jars
+
+if [ ! -e ${JMOL_HOME}/JmolDataD.jar ]; then
+	echo "Jmol could not find its installed files."
+	exit
+fi
+
+if [ "$JMOL_CDS" != "off" -a -e ${JMOL_HOME}/JmolDataD.jsa ]; then
+	command="$command -XX:SharedArchiveFile=${JMOL_HOME}/JmolDataD.jsa"
+fi
+
+$command -Djmol.home="$JMOL_HOME" -jar ${JMOL_HOME}/JmolDataD.jar "$@"
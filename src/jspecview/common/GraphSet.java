@@ -1903,7 +1903,13 @@ class GraphSet implements XYScaleConverter {
 				: spec.fillColor);
 		int iFirst = viewData.getStartingPointIndex(index);
 		int iLast = viewData.getEndingPointIndex(index);
-		if (isContinuous && !pointsOnly) {
+		MinMaxPyramid mmp = (isIntegral || fillPeaks || pointsOnly
+				|| pendingIntegral != null
+				|| iLast - iFirst < MIN_POINTS_PER_COLUMN * xPixels ? null
+				: spec.getMinMaxPyramid());
+		if (mmp != null && mmp.isMonotonic()) {
+			drawPlotColumns(g, mmp, xyCoords, iFirst, iLast, isContinuous, yOffset);
+		} else if (isContinuous && !pointsOnly) {
 			iLast--;
 			// all graphics can do line to for now
 			boolean doLineTo = (isIntegral || pendingIntegral != null)
@@ -1999,14 +2005,106 @@ class GraphSet implements XYScaleConverter {
 				else
 				  g2d.drawLine(g, x1, y1, x1, y2);
 			}
-			if (!pointsOnly && getScale().isYZeroOnScale()) {
-				int y = yOffset + toPixelY(getScale().spectrumYRef);
-				if (y == fixY(y))
-					g2d.drawLine(g, xPixel1, y, xPixel0, y);
+		}
+		if (!isContinuous && !pointsOnly && getScale().isYZeroOnScale()) {
+			int y = yOffset + toPixelY(getScale().spectrumYRef);
+			if (y == fixY(y))
+				g2d.drawLine(g, xPixel1, y, xPixel0, y);
+		}
+	}
+
+	/**
+	 * spectra with more than this many points per pixel are drawn by column
+	 */
+	private final static int MIN_POINTS_PER_COLUMN = 4;
+
+	private final double[] minMaxTemp = new double[2];
+
+	/**
+	 * Draw a spectrum with many more points than pixels one pixel column at a
+	 * time, so that only O(xPixels) points are visited at any zoom. For a
+	 * continuous spectrum, the segments within a column together make a
+	 * vertical line from its minimum to its maximum, and one segment joins the
+	 * last point of a column to the first point of the next. For a stick
+	 * spectrum, the sticks in a column together make one line from the baseline.
+	 * The image is the same as drawing every point.
+	 * 
+	 * @param g
+	 * @param mmp
+	 * @param xyCoords
+	 * @param iFirst
+	 * @param iLast
+	 * @param isContinuous
+	 * @param yOffset
+	 */
+	private void drawPlotColumns(Object g, MinMaxPyramid mmp,
+			Coordinate[] xyCoords, int iFirst, int iLast, boolean isContinuous,
+			int yOffset) {
+		double[] minmax = minMaxTemp;
+		int yBase = (isContinuous ? 0
+				: fixY(yOffset + toPixelY(Math.max(getScale().minYOnScale, 0))));
+		int xPrev = 0;
+		int yPrev = Integer.MIN_VALUE;
+		for (int i = iFirst, j; i <= iLast; i = j + 1) {
+			int x = toPixelX(xyCoords[i].getXVal());
+			j = getLastPointInColumn(xyCoords, i, iLast, x);
+			mmp.getMinMax(i, j, minmax);
+			int y1 = (Double.isNaN(minmax[0]) ? Integer.MIN_VALUE : fixY(yOffset
+					+ toPixelY(minmax[0])));
+			int y2 = (y1 == Integer.MIN_VALUE ? y1 : fixY(yOffset
+					+ toPixelY(minmax[1])));
+			if (isContinuous) {
+				int y = toPixelY(xyCoords[i].getYVal());
+				if (y != Integer.MIN_VALUE && yPrev != Integer.MIN_VALUE) {
+					y = fixY(yOffset + y);
+					if ((x != xPrev || y != yPrev) && (y != yPrev || y != yPixel0))
+						g2d.drawLine(g, xPrev, yPrev, x, y);
+				}
+				if (y1 != y2)
+					g2d.drawLine(g, x, y1, x, y2);
+				y = toPixelY(xyCoords[j].getYVal());
+				yPrev = (y == Integer.MIN_VALUE ? y : fixY(yOffset + y));
+				xPrev = x;
+			} else if (y1 != Integer.MIN_VALUE) {
+				int ya = Math.min(yBase, Math.min(y1, y2));
+				int yb = Math.max(yBase, Math.max(y1, y2));
+				if (ya != yb || ya != yPixel0 && ya != yPixel1)
+					g2d.drawLine(g, x, ya, x, yb);
 			}
 		}
 	}
 
+	/**
+	 * Find the last point drawn in pixel column x, starting from point i, which
+	 * is in that column. X must be monotonic.
+	 * 
+	 * @param xyCoords
+	 * @param i
+	 * @param iLast
+	 * @param x
+	 * @return index of the last point in this column
+	 */
+	private int getLastPointInColumn(Coordinate[] xyCoords, int i, int iLast,
+			int x) {
+		int lo = i;
+		int hi = i + 1;
+		for (int step = 1; hi <= iLast
+				&& toPixelX(xyCoords[hi].getXVal()) == x; step *= 2) {
+			lo = hi;
+			hi = lo + step * 2;
+		}
+		if (hi > iLast + 1)
+			hi = iLast + 1;
+		while (hi - lo > 1) {
+			int mid = (lo + hi) / 2;
+			if (toPixelX(xyCoords[mid].getXVal()) == x)
+				lo = mid;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
 	/**
 	 * 
 	 * @param g
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package jspecview.common;
+
+/**
+ * Minimum and maximum Y values of a spectrum in blocks of 8, 16, 32, ...
+ * points, so that the Y range of any run of points can be found with
+ * O(log n) array reads. GraphSet uses this to draw a spectrum of millions of
+ * points one pixel column at a time; the Coordinate array remains the
+ * full-resolution data for integration, peak picking, and everything else.
+ *
+ * NaN values are ignored.
+ *
+ * The Coordinate objects can be changed in place (shifted, scaled, inverted),
+ * so isValidFor() checks the end points and the extreme points, which any of
+ * those operations will change.
+ */
+public class MinMaxPyramid {
+
+  private final static int LEAF_SIZE = 8;
+  private final static int LEAF_MASK = LEAF_SIZE - 1;
+
+  private Coordinate[] xyCoords;
+
+  /**
+   * level k holds blocks of LEAF_SIZE * 2^k points
+   */
+  private double[][] mins, maxs;
+
+  private int iMin, iMax;
+  private double yMin, yMax, x0, x1;
+  private boolean isMonotonic;
+
+  MinMaxPyramid(Coordinate[] xyCoords) {
+    this.xyCoords = xyCoords;
+    int n = xyCoords.length;
+    int nLevels = 0;
+    for (int len = n / LEAF_SIZE; len >= 1; len >>= 1)
+      nLevels++;
+    mins = new double[nLevels][];
+    maxs = new double[nLevels][];
+    iMin = iMax = -1;
+    yMin = Double.MAX_VALUE;
+    yMax = -Double.MAX_VALUE;
+    if (nLevels > 0) {
+      int len = n / LEAF_SIZE;
+      double[] lo = mins[0] = new double[len];
+      double[] hi = maxs[0] = new double[len];
+      for (int j = 0, i = 0; j < len; j++) {
+        double a = Double.MAX_VALUE, b = -Double.MAX_VALUE;
+        for (int k = 0; k < LEAF_SIZE; k++, i++) {
+          double y = xyCoords[i].getYVal();
+          if (y < a)
+            a = y;
+          if (y > b)
+            b = y;
+        }
+        lo[j] = a;
+        hi[j] = b;
+      }
+      for (int k = 1; k < nLevels; k++) {
+        double[] lo0 = mins[k - 1];
+        double[] hi0 = maxs[k - 1];
+        len = lo0.length / 2;
+        lo = mins[k] = new double[len];
+        hi = maxs[k] = new double[len];
+        for (int j = 0; j < len; j++) {
+          lo[j] = Math.min(lo0[j * 2], lo0[j * 2 + 1]);
+          hi[j] = Math.max(hi0[j * 2], hi0[j * 2 + 1]);
+        }
+      }
+    }
+    int dir = 0;
+    isMonotonic = true;
+    for (int i = 0; i < n; i++) {
+      if (i > 0 && isMonotonic) {
+        double dx = xyCoords[i].getXVal() - xyCoords[i - 1].getXVal();
+        if (dx > 0 ? dir < 0 : dx < 0 ? dir > 0 : dx != 0) {
+          // reversal, or NaN
+          isMonotonic = false;
+        } else if (dir == 0) {
+          dir = (dx > 0 ? 1 : dx < 0 ? -1 : 0);
+        }
+      }
+      double y = xyCoords[i].getYVal();
+      if (y < yMin) {
+        yMin = y;
+        iMin = i;
+      }
+      if (y > yMax) {
+        yMax = y;
+        iMax = i;
+      }
+    }
+    if (n > 0) {
+      x0 = xyCoords[0].getXVal();
+      x1 = xyCoords[n - 1].getXVal();
+    }
+  }
+
+  /**
+   * @return true if X never decreases or never increases, so that a pixel
+   *         column is a single run of points
+   */
+  boolean isMonotonic() {
+    return isMonotonic;
+  }
+
+  boolean isValidFor(Coordinate[] xy) {
+    int n = xy.length;
+    return (xy == xyCoords
+        && (n == 0 || xy[0].getXVal() == x0 && xy[n - 1].getXVal() == x1)
+        && (iMin < 0 || xy[iMin].getYVal() == yMin)
+        && (iMax < 0 || xy[iMax].getYVal() == yMax));
+  }
+
+  /**
+   * Find the minimum and maximum Y value for points i0 through i1, inclusive.
+   *
+   * @param i0
+   * @param i1
+   * @param minmax
+   *        filled with {min, max}; both NaN if there are no valid points
+   */
+  void getMinMax(int i0, int i1, double[] minmax) {
+    double a = Double.MAX_VALUE, b = -Double.MAX_VALUE;
+    for (int i = i0; i <= i1;) {
+      if ((i & LEAF_MASK) != 0 || i + LEAF_MASK > i1) {
+        double y = xyCoords[i++].getYVal();
+        if (y < a)
+          a = y;
+        if (y > b)
+          b = y;
+        continue;
+      }
+      // use the largest aligned block that fits
+      int k = 0;
+      int size = LEAF_SIZE;
+      while (k + 1 < mins.length && (i & (size * 2 - 1)) == 0
+          && i + size * 2 - 1 <= i1) {
+        size *= 2;
+        k++;
+      }
+      int j = i / size;
+      if (mins[k][j] < a)
+        a = mins[k][j];
+      if (maxs[k][j] > b)
+        b = maxs[k][j];
+      i += size;
+    }
+    if (a > b)
+      a = b = Double.NaN;
+    minmax[0] = a;
+    minmax[1] = b;
+  }
+
+}
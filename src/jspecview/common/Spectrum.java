@@ -64,6 +64,7 @@ public class Spectrum extends JDXDataObject {
   
   private boolean isForcedSubset;
   private boolean exportXAxisLeftToRight;
+  private MinMaxPyramid minMaxPyramid;
 
 
   
@@ -138,6 +139,21 @@ public class Spectrum extends JDXDataObject {
     return getCurrentSubSpectrum().xyCoords;
   }
 
+  /**
+   * Block minima and maxima of Y for the current subspectrum, for drawing
+   * large spectra; created when first needed and again whenever the
+   * coordinates have changed.
+   * 
+   * @return the MinMaxPyramid for getXYCoords()
+   */
+  MinMaxPyramid getMinMaxPyramid() {
+    Spectrum spec = getCurrentSubSpectrum();
+    if (spec.minMaxPyramid == null
+        || !spec.minMaxPyramid.isValidFor(spec.xyCoords))
+      spec.minMaxPyramid = new MinMaxPyramid(spec.xyCoords);
+    return spec.minMaxPyramid;
+  }
+
   
   public Lst<PeakInfo> getPeakList() {
     return peakList;
@@ -29,6 +29,7 @@ import java.util.Iterator;
 
 import org.jmol.util.Logger;
 
+import javajs.util.Lst;
 import javajs.util.SB;
 import jspecview.common.Coordinate;
 
@@ -216,6 +217,7 @@ public class JDXDecompressor implements Iterator<Double> {
     this.xFactor = xFactor;
     this.yFactor = yFactor;
     this.nPoints = nPoints;
+    labelLineNo = t.labelLineNo;
     debugging = Logger.isActiveLevel(Logger.LEVEL_DEBUGHIGH);
 
     //Logger.checkMemory();
@@ -232,6 +234,13 @@ public class JDXDecompressor implements Iterator<Double> {
   private int lineLen;
   private SB errorLog;
 
+  /**
+   * the data lines, if read ahead by readLines()
+   */
+  private String[] lines;
+  private int iLine;
+  private int labelLineNo;
+
   //private static final double FMINY = 0.6;
   //private static final double FMAXY = 1.4;
 
@@ -288,9 +297,9 @@ public class JDXDecompressor implements Iterator<Double> {
     int ipt = 0;
     double yval = 0;
     boolean haveWarned = false;
-    int lineNumber = t.labelLineNo;
+    int lineNumber = labelLineNo;
     try {
-      while ((line = t.readLineTrimmed()) != null && line.indexOf("##") < 0) {
+      while ((line = readLine()) != null && line.indexOf("##") < 0) {
         lineNumber++;
         if ((lineLen = line.length()) == 0)
           continue;
@@ -304,9 +313,8 @@ public class JDXDecompressor implements Iterator<Double> {
         if (debugging)
           logError("Line: " + lineNumber +  " isCP=" + isCheckPoint + "\t>>" + line + "<<\n x, xcheck " + x + " " + x/xFactor + " " + xcheck/xFactor + " " + deltaXcalc/xFactor);
         double y = yval * yFactor;
-        Coordinate point = new Coordinate().set(x, y);
         if (ipt == 0 || !isCheckPoint) {
-          addPoint(point, ipt++); // first data line only or not a checkpoint
+          addPoint(new Coordinate().set(x, y), ipt++); // first data line only or not a checkpoint
         } else if (ipt < nPoints) {
           // do check
           // DIF Y checkpoint means X value does not advance at start
@@ -315,7 +323,7 @@ public class JDXDecompressor implements Iterator<Double> {
           // Check for Y checkpoint error - Y values should correspond
           double lastY = xyCoords[ipt - 1].getYVal();
           if (y != lastY) {
-            xyCoords[ipt - 1] = point;
+            xyCoords[ipt - 1] = new Coordinate().set(x, y);
             logError(
                 lastLine + "\n" + line + "\nY-value Checkpoint Error! Line "
                     + lineNumber + " for y=" + y + " yLast=" + lastY);
@@ -379,6 +387,36 @@ public class JDXDecompressor implements Iterator<Double> {
     return xyCoords;
   }
 
+  /**
+   * Read all the lines of this table now, so that decompressData() can be run
+   * later, on another thread. The tokenizer is left just where
+   * decompressData() would have left it.
+   * 
+   * @return the number of lines read
+   * @throws IOException
+   */
+  int readLines() throws IOException {
+    Lst<String> list = new Lst<String>();
+    try {
+      String s;
+      while ((s = t.readLineTrimmed()) != null && s.indexOf("##") < 0)
+        list.addLast(s);
+    } finally {
+      // never read the tokenizer later, from another thread
+      lines = list.toArray(new String[list.size()]);
+    }
+    return lines.length;
+  }
+
+  private String readLine() throws IOException {
+    return (lines == null ? t.readLineTrimmed()
+        : iLine < lines.length ? lines[iLine++] : null);
+  }
+
+  int getNPoints() {
+    return nPoints;
+  }
+
   private void checkZeroFill(int ipt, double lastXExpected) {
     nptsFound = ipt;
     if (nPoints == nptsFound) {
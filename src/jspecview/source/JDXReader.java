@@ -32,6 +32,7 @@ import java.util.StringTokenizer;
 import org.jmol.api.GenericFileInterface;
 import org.jmol.api.JmolJDXMOLParser;
 import org.jmol.api.JmolJDXMOLReader;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.Logger;
 
 import javajs.api.Interface;
@@ -303,6 +304,8 @@ public class JDXReader implements JmolJDXMOLReader {
     isZipFile = (reader instanceof JSVZipReader);
     t = new JDXSourceStreamTokenizer((BufferedReader) reader);
     errorLog = new SB();
+    deferDecompression = (!isHeaderOnly && firstSpec <= 0 && lastSpec <= 0
+        && !isSimulation && !JSViewer.isJS && ParallelTasks.canRunShared());
     String label = null;
     String value = null;
     boolean isOK = false;
@@ -353,6 +356,7 @@ public class JDXReader implements JmolJDXMOLReader {
       if (isHeaderOnly && spectrum != null)
         addSpectrum(spectrum, false);
     }
+    flushDeferred();
     if (!isOK)
       throw new JSVException("##TITLE record not found");
     source.setErrorLog(errorLog.toString());
@@ -362,6 +366,8 @@ public class JDXReader implements JmolJDXMOLReader {
   private void processLabel(Spectrum spectrum, Lst<String[]> dataLDRTable,
                             String label, String value, boolean isHeaderOnly)
       throws JSVException {
+    if (spectrum == lastDeferredSpectrum)
+      flushDeferred();
     // when reading the header only (for example, as a plugin for 
     // the IUPAC FAIRSpec project reference Extractor), we read ALL the tags 
     // (particularly the vendor tags), just not the data, and no custom tags.
@@ -375,7 +381,10 @@ public class JDXReader implements JmolJDXMOLReader {
 
   String lastErrPath = null;
   private void logError(String err) {
-    errorLog.append(filePath == null || filePath.equals(lastErrPath) ? "" : filePath).append("\n").append(err).append("\n");
+    boolean addPath = (filePath != null && !filePath.equals(lastErrPath));
+    if (addPath && deferred != null)
+      pathLogPt = errorLog.length();
+    errorLog.append(addPath ? filePath : "").append("\n").append(err).append("\n");
     lastErrPath = filePath;
   }
 
@@ -422,6 +431,17 @@ public class JDXReader implements JmolJDXMOLReader {
   private String acdMolFile;
 
   private boolean addSpectrum(Spectrum spectrum, boolean forceSub) {
+    if (deferred != null) {
+      if (acdAssignments == null) {
+        Deferred d = new Deferred();
+        d.spec = spectrum;
+        d.forceSub = forceSub;
+        d.blockID = blockID;
+        deferred.addLast(d);
+        return true;
+      }
+      flushDeferred();
+    }
     if (!loadImaginary && spectrum.isImaginary()) {
       Logger
           .info("FileReader skipping imaginary spectrum -- use LOADIMAGINARY TRUE to load this spectrum.");
@@ -541,7 +561,7 @@ public class JDXReader implements JmolJDXMOLReader {
         if (value == null) {
           // ##END -- Process Block
 
-          if (spectrum.getXYCoords().length > 0
+          if (hasData(spectrum)
               && !addSpectrum(spectrum, forceSub))
             return source;
           spectrum = new Spectrum();
@@ -574,6 +594,7 @@ public class JDXReader implements JmolJDXMOLReader {
 
 
   private void addErrorLogSeparator() {
+    flushDeferred();
     if (errorLog.length() > 0
         && errorLog.lastIndexOf(ERROR_SEPARATOR) != errorLog.length()
             - ERROR_SEPARATOR.length())
@@ -1052,12 +1073,23 @@ public class JDXReader implements JmolJDXMOLReader {
     spec.setContinuous(true);
     JDXDecompressor decompressor = new JDXDecompressor(t, spec.fileFirstX,
         spec.fileLastX, spec.xFactor, spec.yFactor, spec.fileNPoints);
+    if (deferDecompression) {
+      deferDecompression(spec, decompressor, minMaxY);
+      return;
+    }
 
     long t = System.currentTimeMillis();
     Coordinate[] xyCoords = decompressor.decompressData(errorLog);
     if (Logger.debugging)
       Logger.debug(
           "decompression time = " + (System.currentTimeMillis() - t) + " ms");
+    finishDecompression(spec, decompressor, xyCoords, minMaxY, errPt);
+  }
+
+  private void finishDecompression(JDXDataObject spec,
+                                   JDXDecompressor decompressor,
+                                   Coordinate[] xyCoords, double[] minMaxY,
+                                   int errPt) {
     spec.setXYCoords(xyCoords);
     double d = decompressor.getMinY();
     if (minMaxY != null) {
@@ -1088,6 +1120,147 @@ public class JDXReader implements JmolJDXMOLReader {
 
   }
 
+  ////// parallel decompression //////
+
+  // When more than one processor is available, data tables are not
+  // decompressed as they are reached. Their lines are read ahead, and the
+  // table is queued, along with every later call to addSpectrum(). The queue
+  // is then decompressed in parallel, and everything is finished in file
+  // order -- before anything else can depend on the data, and at least every 
+  // MAX_DEFERRED tables -- so that the spectra and the error log are just 
+  // as for reading one table at a time. Each table has its own error log.
+
+  private final static int MAX_DEFERRED = 64;
+  private final static int MAX_DEFERRED_LINES = 500000;
+
+  /**
+   * a data table to decompress, or (decompressor == null) a spectrum to add
+   */
+  private static class Deferred {
+    JDXDataObject spec;
+    JDXDecompressor decompressor;
+    Coordinate[] xyCoords;
+    double[] minMaxY;
+    SB log;
+    int logPt;
+    boolean forceSub;
+    double blockID;
+  }
+
+  private boolean deferDecompression;
+  private Lst<Deferred> deferred;
+  private int nDeferredTables, nDeferredLines;
+  private JDXDataObject lastDeferredSpectrum;
+  private boolean pathLogged;
+  private int pathLogPt = -1;
+
+  private void deferDecompression(JDXDataObject spec,
+                                  JDXDecompressor decompressor,
+                                  double[] minMaxY) {
+    if (deferred == null) {
+      deferred = new Lst<Deferred>();
+      pathLogged = (lastErrPath != null);
+    }
+    try {
+      nDeferredLines += decompressor.readLines();
+    } catch (IOException e) {
+      logError("Error reading data table: " + e.getMessage());
+    }
+    Deferred d = new Deferred();
+    d.spec = spec;
+    d.decompressor = decompressor;
+    d.minMaxY = minMaxY;
+    d.log = new SB();
+    d.logPt = errorLog.length();
+    deferred.addLast(d);
+    lastDeferredSpectrum = spec;
+    if (++nDeferredTables >= MAX_DEFERRED
+        || nDeferredLines >= MAX_DEFERRED_LINES)
+      flushDeferred();
+  }
+
+  /**
+   * Decompress all waiting data tables and add their spectra, in order.
+   */
+  private void flushDeferred() {
+    if (deferred == null)
+      return;
+    Lst<Deferred> list = deferred;
+    deferred = null;
+    lastDeferredSpectrum = null;
+    nDeferredTables = nDeferredLines = 0;
+    Lst<Runnable> tasks = new Lst<Runnable>();
+    for (int i = 0, n = list.size(); i < n; i++) {
+      final Deferred d = list.get(i);
+      if (d.decompressor != null)
+        tasks.addLast(new Runnable() {
+          @Override
+          public void run() {
+            d.xyCoords = d.decompressor.decompressData(d.log);
+          }
+        });
+    }
+    ParallelTasks.runShared(tasks.toArray(new Runnable[tasks.size()]));
+    // The log so far is missing the decompression messages. Rebuild it in
+    // file order. Only the first message of the file carries the file path.
+    SB log = errorLog;
+    errorLog = new SB();
+    int pt = 0;
+    double id = blockID;
+    for (int i = 0, n = list.size(); i < n; i++) {
+      Deferred d = list.get(i);
+      if (d.decompressor == null) {
+        blockID = d.blockID;
+        addSpectrum((Spectrum) d.spec, d.forceSub);
+        continue;
+      }
+      copyLog(log, pt, d.logPt);
+      pt = d.logPt;
+      lastErrPath = (pathLogged ? filePath : null);
+      int errPt = errorLog.length();
+      errorLog.appendSB(d.log);
+      finishDecompression(d.spec, d.decompressor, d.xyCoords, d.minMaxY, errPt);
+      pathLogged |= (lastErrPath != null);
+    }
+    copyLog(log, pt, log.length());
+    blockID = id;
+    lastErrPath = (pathLogged ? filePath : null);
+    pathLogPt = -1;
+  }
+
+  /**
+   * Copy part of the log, dropping the file path that logError() wrote while
+   * tables were waiting if a decompression message now comes first.
+   * 
+   * @param log
+   * @param pt0
+   * @param pt1
+   */
+  private void copyLog(SB log, int pt0, int pt1) {
+    if (pathLogPt < pt0 || pathLogPt >= pt1) {
+      errorLog.append(log.substring2(pt0, pt1));
+      return;
+    }
+    errorLog.append(log.substring2(pt0, pathLogPt));
+    errorLog.append(log.substring2(pathLogged ? pathLogPt + filePath.length()
+        : pathLogPt, pt1));
+    pathLogged = true;
+  }
+
+  /**
+   * @param spec
+   * @return true if spec has data, or will have once decompressed
+   */
+  private boolean hasData(Spectrum spec) {
+    if (deferred != null)
+      for (int i = deferred.size(); --i >= 0;) {
+        Deferred d = deferred.get(i);
+        if (d.spec == spec && d.decompressor != null)
+          return d.decompressor.getNPoints() > 0;
+      }
+    return spec.getXYCoords().length > 0;
+  }
+
   public static void addHeader(Lst<String[]> table, String label, String value) {
     String[] entry = null;
     for (int i = 0; i < table.size(); i++)
@@ -1113,6 +1286,8 @@ public class JDXReader implements JmolJDXMOLReader {
     //        0         10        20        30        40        50        60        
     if (pt < 0)
       return false;
+    // these may change how addSpectrum() treats spectra that are waiting
+    flushDeferred();
     getMpr().set(this, filePath, null);
     try {
       reader = new BufferedReader(new StringReader(value));
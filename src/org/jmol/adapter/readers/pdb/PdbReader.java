@@ -1560,11 +1560,8 @@ public class PdbReader extends AtomSetCollectionReader {
     data[6] = 1; //U not B
     String serial = line.substring(6, 11).trim();
     if (!haveMappedSerials && asc.ac > 0) {
-      for (int i = asc.getAtomSetAtomIndex(asc.iSet); i < asc.ac; i++) {
-        int atomSerial = asc.atoms[i].atomSerial;
-        if (atomSerial != Integer.MIN_VALUE)
-          asc.atomSymbolicMap.put(""+ atomSerial, asc.atoms[i]);
-      }
+      for (int i = asc.getAtomSetAtomIndex(asc.iSet); i < asc.ac; i++)
+        asc.mapAtomSerial(asc.atoms[i]);
       haveMappedSerials = true;
     }
     Atom atom = asc.getAtomFromName(serial);
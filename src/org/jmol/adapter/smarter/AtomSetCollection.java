@@ -33,7 +33,10 @@ import org.jmol.adapter.smarter.XtalSymmetry.FileSymmetry;
 import org.jmol.api.Interface;
 import org.jmol.api.JmolAdapter;
 import org.jmol.util.BSUtil;
+import org.jmol.util.Int2ObjHash;
 import org.jmol.util.Logger;
+import org.jmol.util.NameDictionary;
+import org.jmol.util.Str2IntHash;
 import org.jmol.viewer.JC;
 
 import javajs.util.AU;
@@ -420,6 +423,8 @@ public class AtomSetCollection {
     atomSetCount = 0;
     atomSetNumbers = new int[16];
     atomSymbolicMap = new Hashtable<String, Atom>();
+    atomSerialMap = new Int2ObjHash<Atom>(16);
+    names = null;
     bonds = null;
     iSet = -1;
     readerList = null;
@@ -536,6 +541,10 @@ public class AtomSetCollection {
     }
     if (atomSetCount == 0)
       newAtomSet();
+    if (atom.atomName != null)
+      atom.atomName = names.intern(atom.atomName);
+    if (atom.group3 != null)
+      atom.group3 = names.intern(atom.group3);
     atom.index = ac;
     atoms[ac++] = atom;    
     atom.atomSetIndex = iSet;
@@ -550,13 +559,56 @@ public class AtomSetCollection {
   }
 
   public void addAtomWithMappedSerialNumber(Atom atom) {
-    int atomSerial = addAtom(atom).atomSerial;
-    if (atomSerial != Integer.MIN_VALUE)
-      atomSymbolicMap.put("" + atomSerial, atom);
+    mapAtomSerial(addAtom(atom));
+  }
+
+  /**
+   * Serial numbers are kept in their own int map rather than as strings in
+   * atomSymbolicMap; getAtomFromName() checks both.
+   * 
+   * @param atom
+   */
+  public void mapAtomSerial(Atom atom) {
+    if (atom.atomSerial != Integer.MIN_VALUE)
+      atomSerialMap.put(atom.atomSerial, atom);
+  }
+
+  public Atom getAtomFromSerial(int atomSerial) {
+    return atomSerialMap.get(atomSerial);
   }
 
   public Atom getAtomFromName(String atomName) {
-    return atomSymbolicMap.get(atomName);
+    Atom a = atomSymbolicMap.get(atomName);
+    if (a == null && atomSerialMap.size() > 0) {
+      int serial = getSerial(atomName);
+      if (serial != Integer.MIN_VALUE)
+        a = atomSerialMap.get(serial);
+    }
+    return a;
+  }
+
+  /**
+   * @param s
+   * @return the integer that s is the string form of, or Integer.MIN_VALUE;
+   *         "012" and "+12" do not count
+   */
+  private static int getSerial(String s) {
+    int n = s.length();
+    int i = (n > 1 && s.charAt(0) == '-' ? 1 : 0);
+    if (n == i || n - i > 10 || n - i > 1 && s.charAt(i) == '0'
+        || i == 1 && s.charAt(1) == '0')
+      return Integer.MIN_VALUE;
+    long v = 0;
+    for (int j = i; j < n; j++) {
+      char ch = s.charAt(j);
+      if (ch < '0' || ch > '9')
+        return Integer.MIN_VALUE;
+      v = v * 10 + (ch - '0');
+    }
+    if (i == 1)
+      v = -v;
+    return (v > Integer.MAX_VALUE || v <= Integer.MIN_VALUE ? Integer.MIN_VALUE
+        : (int) v);
   }
 
   public void setAtomMapAnyCase() {
@@ -573,7 +625,7 @@ public class AtomSetCollection {
   }
 
   public int getAtomIndex(String name) {
-    Atom a = atomSymbolicMap.get(name);
+    Atom a = getAtomFromName(name);
     if (a == null && atomMapAnyCase)
       a = atomSymbolicMap.get(name.toUpperCase());
     return (a == null ? -1 : a.index);
@@ -629,7 +681,7 @@ public class AtomSetCollection {
     if (structureCount == 0)
       return;
     bsStructuredModels = new BS();
-    Map<String, Integer> map = new Hashtable<String, Integer>();
+    Str2IntHash map = new Str2IntHash(structureCount);
     for (int i = 0; i < structureCount; i++) {
       Structure s = structures[i];
       if (s.modelStartEnd[0] == -1) {
@@ -640,15 +692,13 @@ public class AtomSetCollection {
       if (s.strandCount == 0)
         continue;
       String key = s.structureID + " " + s.modelStartEnd[0];
-      Integer v = map.get(key);
-      int count = (v == null ? 0 : v.intValue()) + 1;
-      map.put(key, Integer.valueOf(count));
+      int count = map.get(key);
+      map.put(key, count == Integer.MIN_VALUE ? 1 : count + 1);
     }
     for (int i = 0; i < structureCount; i++) {
       Structure s = structures[i];
       if (s.strandCount == 1)
-        s.strandCount = map.get(s.structureID + " " + s.modelStartEnd[0])
-            .intValue();
+        s.strandCount = map.get(s.structureID + " " + s.modelStartEnd[0]);
     }
   }
 
@@ -734,6 +784,13 @@ public class AtomSetCollection {
   int bondIndex0;
 
   public Map<String, Atom> atomSymbolicMap = new Hashtable<String, Atom>();
+  private Int2ObjHash<Atom> atomSerialMap = new Int2ObjHash<Atom>(16);
+
+  /**
+   * atom and group names, shared across the load so that each distinct name is
+   * held only once rather than once per atom
+   */
+  private NameDictionary names = new NameDictionary(256);
 
   public boolean haveUnitCell;
 
@@ -881,6 +938,7 @@ public class AtomSetCollection {
 
   private void clearMap() {
     atomSymbolicMap.clear();
+    atomSerialMap.clear();
     atomMapAnyCase = false;
   }
 
@@ -37,6 +37,7 @@ import org.jmol.symmetry.SymmetryOperation;
 import org.jmol.symmetry.UnitCell;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Logger;
+import org.jmol.util.Long2IntHash;
 import org.jmol.util.SimpleUnitCell;
 import org.jmol.util.Tensor;
 import org.jmol.util.Vibration;
@@ -479,7 +480,7 @@ public class XtalSymmetry {
             atomMap[atomSite] = asc.ac;
           atom1 = asc.newCloneAtom(atoms[iAtom]);
           atom1.bondingRadius = imt; // temporary only -- to distinguish transforms
-          asc.atomSymbolicMap.put("" + atom1.atomSerial, atom1);
+          asc.mapAtomSerial(atom1);
           if (asc.bsAtoms != null)
             asc.bsAtoms.set(atom1.index);
           atom1.atomSite = atomSite;
@@ -531,7 +532,8 @@ public class XtalSymmetry {
           }
           BS[] bsAll = (asc.structureCount == 1 ? asc.structures[0].bsAll
               : null);
-          Map<String, Integer> chainMap = new Hashtable<String, Integer>();
+          // chain and symmetry operator to new chain ID
+          Long2IntHash chainMap = new Long2IntHash(64);
           Map<Integer, Integer> knownMap = new Hashtable<Integer, Integer>();
           Map<Integer, int[]> knownAtomMap = (bsAll == null ? null
               : new Hashtable<Integer, int[]>());
@@ -539,26 +541,27 @@ public class XtalSymmetry {
           for (int i = atomMax, n = asc.ac; i < n; i++) {
             int ic = atoms[i].chainID;
             int isym = atoms[i].bsSymmetry.nextSetBit(0);
-            String ch0 = acr.vwr.getChainIDStr(ic);
-            String ch = (isym == 0 ? ch0 : ch0 + isym);
-            Integer known = chainMap.get(ch);
-            if (known == null) {
+            long key = ic * 0x100000000L + isym;
+            int k = chainMap.get(key);
+            if (k == Integer.MIN_VALUE) {
+              String ch0 = acr.vwr.getChainIDStr(ic);
+              String ch = (isym == 0 ? ch0 : ch0 + isym);
               if (assignABC && isym != 0) {
                 int pt = (firstNew < 200 ? bsChains.nextClearBit(firstNew)
                     : 200);
                 if (pt < 200) {
                   bsChains.set(pt);
                   // have A-Z or a-z
-                  known = Integer
-                      .valueOf(acr.vwr.getChainID("" + (char) pt, true));
+                  k = acr.vwr.getChainID("" + (char) pt, true);
                   firstNew = pt;
                 } else {
                   // 1auy will do this
                 }
               }
-              if (known == null)
-                known = Integer.valueOf(acr.vwr.getChainID(ch, true));
+              if (k == Integer.MIN_VALUE)
+                k = acr.vwr.getChainID(ch, true);
               if (ch != ch0) {
+                Integer known = Integer.valueOf(k);
                 knownMap.put(known, Integer.valueOf(ic));
                 if (bsAll != null) {
                   if (lastKnownAtom != null)
@@ -566,9 +569,9 @@ public class XtalSymmetry {
                   knownAtomMap.put(known, lastKnownAtom = new int[] { i, n });
                 }
               }
-              chainMap.put(ch, known);
+              chainMap.put(key, k);
             }
-            atoms[i].chainID = known.intValue();
+            atoms[i].chainID = k;
           }
           if (asc.structureCount > 0) {
             // update structures
@@ -607,8 +610,8 @@ public class XtalSymmetry {
         if (!addBonds && vConnect != null) {
           for (int i = vConnect.size(); --i >= 0;) {
             int[] bond = vConnect.get(i);
-            Atom a = asc.getAtomFromName("" + bond[0]);
-            Atom b = asc.getAtomFromName("" + bond[1]);
+            Atom a = asc.getAtomFromSerial(bond[0]);
+            Atom b = asc.getAtomFromSerial(bond[1]);
             // bondingRadius here just being used for BIOMT 
             if (a != null && b != null && a.bondingRadius != b.bondingRadius
                 && (bsAtoms == null
@@ -26,6 +26,7 @@
 package org.jmol.api;
 
 import org.jmol.util.Logger;
+import org.jmol.util.StartupProfile;
 import org.jmol.viewer.Viewer;
 
 public class Interface {
@@ -38,8 +39,12 @@ public class Interface {
    */
   public static Object getInterface(String name, Viewer vwr, String state) {
     try {
+      long t = StartupProfile.start();
       Class<?> x = Class.forName(name);
-      return (x == null ? null : x.newInstance());
+      Object o = (x == null ? null : x.newInstance());
+      if (t != 0)
+        StartupProfile.endClass(name, t);
+      return o;
     } catch (Exception e) {
       Logger.error("Interface.java Error creating instance for " + name
           + ": \n" + e);
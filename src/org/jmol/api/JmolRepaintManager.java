@@ -25,6 +25,12 @@ public interface JmolRepaintManager {
 
   void clear(int iShape);
 
+  void beginFrame();
+
+  void endFrame();
+
+  Map<String, Object> getRenderMetrics(boolean andReset);
+
   void render(GData gdata, ModelSet modelSet, boolean isFirstPass, int[] navMinMax);
 
   String renderExport(GData gdata, ModelSet modelSet, Map<String, Object> params);
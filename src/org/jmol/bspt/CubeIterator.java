@@ -58,7 +58,10 @@ public class CubeIterator {
 
   void set(Bspt bspt) {
     this.bspt = bspt;
-    stack = new Element[bspt.treeDepth];
+    if (stack == null || stack.length < bspt.treeDepth)
+      stack = new Element[bspt.treeDepth];
+    else
+      release();
   }
 
   /**
@@ -90,7 +93,9 @@ public class CubeIterator {
    * nulls internal references
    */
   public void release() {
-    set(bspt);
+    // called once per atom when autobonding; no need for a new stack
+    for (int i = stack.length; --i >= 0;)
+      stack[i] = null;
   }
 
   /**
@@ -0,0 +1,880 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.export;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import javajs.util.BS;
+import javajs.util.Lst;
+import javajs.util.MeasureD;
+import javajs.util.OC;
+import javajs.util.P3d;
+import javajs.util.Qd;
+import javajs.util.SB;
+import javajs.util.T3d;
+import javajs.util.V3d;
+
+import org.jmol.util.C;
+import org.jmol.util.Font;
+import org.jmol.util.GData;
+import org.jmol.util.Geodesic;
+import org.jmol.util.Int2IntHash;
+import org.jmol.util.Int2ObjHash;
+import org.jmol.viewer.Viewer;
+
+/**
+ * Binary glTF 2.0 (GLB) exporter.
+ *
+ * Unlike the text exporters, spheres, cylinders, and cones are not expanded
+ * into individual meshes. Each is an instance of one shared unit mesh, placed
+ * using the EXT_mesh_gpu_instancing extension (TRANSLATION, ROTATION, SCALE).
+ * Instances are grouped by color, each group getting its own material, so
+ * that colors appear in any viewer that supports the extension. Isosurfaces
+ * and other MeshSurface data go directly into the binary buffer as indexed
+ * triangles, and loose triangles (cartoons, polyhedra) are batched by color.
+ *
+ * Coordinates are in Angstroms, centered on the rotation center and scaled
+ * to meters by exportScale/1000, so the default exportScale of 10 gives 1 cm
+ * per Angstrom.
+ *
+ * Text and images are not exported.
+ *
+ */
+public class _GlbExporter extends __CartesianExporter {
+
+  private final static int MESH_SPHERE = 0;
+  private final static int MESH_CYLINDER = 1;
+  private final static int MESH_CYLINDER_CAPPED = 2;
+  private final static int MESH_CONE = 3;
+  private final static int MESH_COUNT = 4;
+
+  private final static int NDEG = 10;
+
+  private final static int GL_FLOAT = 5126;
+  private final static int GL_UNSIGNED_INT = 5125;
+  private final static int GL_UNSIGNED_BYTE = 5121;
+  private final static int GL_ARRAY_BUFFER = 34962;
+  private final static int GL_ELEMENT_ARRAY_BUFFER = 34963;
+
+  /**
+   * Instance or triangle data for one mesh and one color.
+   */
+  private class Batch {
+    int mesh;
+    short colix;
+    int stride;
+    int n;
+    float[] data;
+
+    Batch(int mesh, short colix, int stride) {
+      this.mesh = mesh;
+      this.colix = colix;
+      this.stride = stride;
+      data = new float[stride * 16];
+    }
+
+    int next() {
+      int pt = n++ * stride;
+      if (pt + stride > data.length) {
+        float[] d = new float[data.length * 2];
+        System.arraycopy(data, 0, d, 0, pt);
+        data = d;
+      }
+      return pt;
+    }
+  }
+
+  private OC bin;
+  private ByteArrayOutputStream bos;
+
+  private SB views, accessors, meshes, materials, nodes;
+  private int nViews, nAccessors, nMeshes, nMaterials, nNodes;
+
+  /**
+   * set when a node uses EXT_mesh_gpu_instancing, which must then be declared
+   */
+  private boolean haveInstancing;
+
+  private Int2IntHash htMaterials;
+  private Int2ObjHash<Batch> htBatches;
+  private Lst<Batch> batches;
+
+  /**
+   * accessors for the shared unit meshes, written only when first used:
+   * POSITION, NORMAL, indices
+   */
+  private int[][] sharedMeshes;
+
+  private double qx, qy, qz, qw;
+
+  public _GlbExporter() {
+    canCapCylinders = true;
+    lineWidthMad = 20;
+  }
+
+  @Override
+  protected void outputHeader() {
+    bin = new OC();
+    bin.setBigEndian(false);
+    bin.setParams(null, null, false, bos = new ByteArrayOutputStream());
+    views = new SB();
+    accessors = new SB();
+    meshes = new SB();
+    materials = new SB();
+    nodes = new SB();
+    htMaterials = new Int2IntHash(16);
+    htBatches = new Int2ObjHash<Batch>(32);
+    batches = new Lst<Batch>();
+    sharedMeshes = new int[MESH_COUNT][];
+  }
+
+  @Override
+  protected void output(String data) {
+    // not used
+  }
+
+  @Override
+  protected void output(T3d pt) {
+    // not used
+  }
+
+  ///////////// spheres, cylinders, cones -- instances of shared meshes
+
+  @Override
+  protected void outputSphere(P3d ptCenter, double radius, short colix,
+                              boolean checkRadius) {
+    qw = 1;
+    qx = qy = qz = 0;
+    addInstance(MESH_SPHERE, colix, ptCenter.x, ptCenter.y, ptCenter.z,
+        radius, radius, radius);
+  }
+
+  @Override
+  protected void outputEllipsoid(P3d ptCenter, P3d[] points, short colix) {
+    setFrame(ptCenter, points[1], points[3]);
+    addInstance(MESH_SPHERE, colix, ptCenter.x, ptCenter.y, ptCenter.z,
+        points[1].distance(ptCenter), points[3].distance(ptCenter),
+        points[5].distance(ptCenter));
+  }
+
+  @Override
+  protected boolean outputCylinder(P3d ptCenter, P3d pt1, P3d pt2,
+                                   short colix, byte endcaps, double radius,
+                                   P3d ptX, P3d ptY, boolean checkRadius) {
+    double height = pt1.distance(pt2);
+    if (radius < 0.01f || height == 0)
+      return false; // nucleic edges are 0.005d
+    int mesh = (endcaps == GData.ENDCAPS_FLAT ? MESH_CYLINDER_CAPPED
+        : MESH_CYLINDER);
+    if (ptX == null) {
+      setAxis(pt1, pt2);
+      addInstance(mesh, colix, (pt1.x + pt2.x) / 2, (pt1.y + pt2.y) / 2,
+          (pt1.z + pt2.z) / 2, radius, height, radius);
+    } else {
+      // arcs of ellipsoid rendering only; as for VRML
+      setFrame(ptCenter, ptY, pt1);
+      addInstance(mesh, colix, ptCenter.x, ptCenter.y, ptCenter.z,
+          ptY.distance(ptCenter) * 2, pt1.distance(ptCenter) * 2,
+          ptX.distance(ptCenter) * 2);
+      return true;
+    }
+    if (radius > 0.1d)
+      switch (endcaps) {
+      case GData.ENDCAPS_SPHERICAL:
+        outputSphere(pt1, radius * 1.01f, colix, checkRadius);
+        //$FALL-THROUGH$
+      case GData.ENDCAPS_FLAT_TO_SPHERICAL:
+      case GData.ENDCAPS_OPEN_TO_SPHERICAL:
+        outputSphere(pt2, radius * 1.01f, colix, checkRadius);
+        break;
+      }
+    return true;
+  }
+
+  @Override
+  protected void outputCone(P3d ptBase, P3d ptTip, double radius,
+                            short colix) {
+    setAxis(ptBase, ptTip);
+    addInstance(MESH_CONE, colix, (ptBase.x + ptTip.x) / 2,
+        (ptBase.y + ptTip.y) / 2, (ptBase.z + ptTip.z) / 2, radius,
+        ptBase.distance(ptTip), radius);
+  }
+
+  @Override
+  protected void outputCircle(P3d pt1, P3d pt2, double radius, short colix,
+                              boolean doFill) {
+    if (!doFill)
+      return; // rings not implemented
+    setAxis(pt1, pt2);
+    addInstance(MESH_CYLINDER_CAPPED, colix, (pt1.x + pt2.x) / 2,
+        (pt1.y + pt2.y) / 2, (pt1.z + pt2.z) / 2, radius, pt1.distance(pt2),
+        radius);
+  }
+
+  /**
+   * Set the instance rotation to the one taking the Y axis of the shared mesh
+   * to the direction pt1-->pt2.
+   *
+   * @param pt1
+   * @param pt2
+   */
+  private void setAxis(P3d pt1, P3d pt2) {
+    tempV1.sub2(pt2, pt1);
+    tempV1.normalize();
+    // shortest arc from (0,1,0): axis (0,1,0) x v, w = 1 + cos
+    double w = 1 + tempV1.y;
+    if (Double.isNaN(w)) {
+      qw = 1;
+      qx = qy = qz = 0;
+      return;
+    }
+    if (w < 1e-6) {
+      qx = 1;
+      qy = qz = qw = 0;
+      return;
+    }
+    double d = Math.sqrt(tempV1.z * tempV1.z + tempV1.x * tempV1.x + w * w);
+    qx = tempV1.z / d;
+    qy = 0;
+    qz = -tempV1.x / d;
+    qw = w / d;
+  }
+
+  private final P3d ptFrameX = new P3d();
+  private final P3d ptFrameY = new P3d();
+
+  private void setFrame(P3d ptCenter, P3d ptX, P3d ptY) {
+    ptFrameX.setT(ptX);
+    ptFrameY.setT(ptY);
+    Qd q = Qd.getQuaternionFrame(ptCenter, ptFrameX, ptFrameY);
+    if (Double.isNaN(q.q0)) {
+      qw = 1;
+      qx = qy = qz = 0;
+    } else {
+      qw = q.q0;
+      qx = q.q1;
+      qy = q.q2;
+      qz = q.q3;
+    }
+  }
+
+  private void addInstance(int mesh, short colix, double x, double y,
+                           double z, double sx, double sy, double sz) {
+    Batch b = getBatch(mesh, colix, 10);
+    int pt = b.next();
+    float[] d = b.data;
+    d[pt++] = (float) x;
+    d[pt++] = (float) y;
+    d[pt++] = (float) z;
+    d[pt++] = (float) qx;
+    d[pt++] = (float) qy;
+    d[pt++] = (float) qz;
+    d[pt++] = (float) qw;
+    d[pt++] = (float) sx;
+    d[pt++] = (float) sy;
+    d[pt] = (float) sz;
+  }
+
+  private Batch getBatch(int mesh, short colix, int stride) {
+    int key = mesh * 0x10000 + (colix & 0xFFFF);
+    Batch b = htBatches.get(key);
+    if (b == null) {
+      htBatches.put(key, b = new Batch(mesh, colix, stride));
+      batches.addLast(b);
+    }
+    return b;
+  }
+
+  ///////////// triangles and surfaces
+
+  @Override
+  protected void outputTriangle(T3d pt1, T3d pt2, T3d pt3, short colix) {
+    MeasureD.calcNormalizedNormal(pt1, pt2, pt3, tempV1, tempV2);
+    if (Double.isNaN(tempV1.x))
+      return;
+    // batched by color; mesh index MESH_COUNT indicates loose triangles
+    Batch b = getBatch(MESH_COUNT, colix, 18);
+    int pt = b.next();
+    float[] d = b.data;
+    pt = putVertex(d, pt, pt1, tempV1);
+    pt = putVertex(d, pt, pt2, tempV1);
+    putVertex(d, pt, pt3, tempV1);
+  }
+
+  private static int putVertex(float[] d, int pt, T3d p, T3d n) {
+    d[pt++] = (float) p.x;
+    d[pt++] = (float) p.y;
+    d[pt++] = (float) p.z;
+    d[pt++] = (float) n.x;
+    d[pt++] = (float) n.y;
+    d[pt++] = (float) n.z;
+    return pt;
+  }
+
+  @Override
+  protected void outputSurface(T3d[] vertices, T3d[] normals,
+                               short[] colixes, int[][] indices,
+                               short[] polygonColixes, int nVertices,
+                               int nPolygons, int nTriangles, BS bsPolygons,
+                               int faceVertexMax, short colix,
+                               Lst<Short> colorList,
+                               Map<Short, Integer> htColixes, P3d offset) {
+    if (polygonColixes != null) {
+      // face colors -- just a set of colored triangles
+      boolean isAll = (bsPolygons == null);
+      int i0 = (isAll ? nPolygons - 1 : bsPolygons.nextSetBit(0));
+      for (int i = i0; i >= 0; i = (isAll ? i - 1 : bsPolygons
+          .nextSetBit(i + 1))) {
+        int[] face = indices[i];
+        short c = polygonColixes[i];
+        outputSurfaceTriangle(vertices, face[0], face[1], face[2], offset, c);
+        if (faceVertexMax == 4 && face.length == 4)
+          outputSurfaceTriangle(vertices, face[0], face[2], face[3], offset, c);
+      }
+      return;
+    }
+    int[] map = new int[nVertices];
+    int n = 0;
+    for (int i = 0; i < nVertices; i++)
+      map[i] = (Double.isNaN(vertices[i].x) ? -1 : n++);
+    if (n == 0)
+      return;
+    boolean haveNormals = (normals != null);
+
+    // positions
+
+    double[] minmax = newMinMax();
+    int offset0 = bin.getByteCount();
+    for (int i = 0; i < nVertices; i++) {
+      if (map[i] < 0)
+        continue;
+      T3d v = vertices[i];
+      double x = v.x, y = v.y, z = v.z;
+      if (offset != null) {
+        x += offset.x;
+        y += offset.y;
+        z += offset.z;
+      }
+      writeFloat3MinMax(x, y, z, minmax);
+    }
+    int aPos = addAccessor(
+        addView(offset0, n * 12, GL_ARRAY_BUFFER),
+        GL_FLOAT, false, n, "VEC3", minmax);
+
+    // normals
+
+    int aNorm = -1;
+    if (haveNormals) {
+      offset0 = bin.getByteCount();
+      for (int i = 0; i < nVertices; i++) {
+        if (map[i] < 0)
+          continue;
+        T3d v = normals[i];
+        double d = Math.sqrt(v.x * v.x + v.y * v.y + v.z * v.z);
+        if (d == 0 || Double.isNaN(d)) {
+          writeFloat3(0, 0, 1);
+        } else {
+          writeFloat3(v.x / d, v.y / d, v.z / d);
+        }
+      }
+      aNorm = addAccessor(addView(offset0, n * 12, GL_ARRAY_BUFFER),
+          GL_FLOAT, false, n, "VEC3", null);
+    }
+
+    // vertex colors
+
+    int aColor = -1;
+    boolean isTranslucent = false;
+    if (colixes != null) {
+      offset0 = bin.getByteCount();
+      for (int i = 0; i < nVertices; i++) {
+        if (map[i] < 0)
+          continue;
+        if (C.isColixTranslucent(colixes[i]))
+          isTranslucent = true;
+        int argb = gdata.getColorArgbOrGray(colixes[i]);
+        double[] lin = getLinear();
+        bin.writeByteAsInt((int) Math.round(lin[(argb >> 16) & 0xFF] * 255));
+        bin.writeByteAsInt((int) Math.round(lin[(argb >> 8) & 0xFF] * 255));
+        bin.writeByteAsInt((int) Math.round(lin[argb & 0xFF] * 255));
+        bin.writeByteAsInt((int) Math.round((1 - C
+            .getColixTranslucencyFractional(colixes[i])) * 255));
+      }
+      aColor = addAccessor(addView(offset0, n * 4, GL_ARRAY_BUFFER),
+          GL_UNSIGNED_BYTE, true, n, "VEC4", null);
+    }
+
+    // triangle indices
+
+    offset0 = bin.getByteCount();
+    int nIndices = 0;
+    boolean isAll = (bsPolygons == null);
+    int i0 = (isAll ? nPolygons - 1 : bsPolygons.nextSetBit(0));
+    for (int i = i0; i >= 0; i = (isAll ? i - 1 : bsPolygons.nextSetBit(i + 1))) {
+      int[] face = indices[i];
+      int a = map[face[0]], b = map[face[1]], c = map[face[2]];
+      if (a >= 0 && b >= 0 && c >= 0) {
+        bin.writeInt(a);
+        bin.writeInt(b);
+        bin.writeInt(c);
+        nIndices += 3;
+      }
+      if (faceVertexMax == 4 && face.length == 4) {
+        int d = map[face[3]];
+        if (a >= 0 && c >= 0 && d >= 0) {
+          bin.writeInt(a);
+          bin.writeInt(c);
+          bin.writeInt(d);
+          nIndices += 3;
+        }
+      }
+    }
+    if (nIndices == 0)
+      return;
+    int aIndex = addAccessor(
+        addView(offset0, nIndices * 4, GL_ELEMENT_ARRAY_BUFFER),
+        GL_UNSIGNED_INT, false, nIndices, "SCALAR", null);
+    int mesh = addMesh(aPos, aNorm, aColor, aIndex,
+        getMaterial(colix, true, colixes != null, isTranslucent));
+    addNode(mesh, null);
+  }
+
+  private void outputSurfaceTriangle(T3d[] vertices, int i, int j, int k,
+                                     P3d offset, short colix) {
+    T3d a = vertices[i], b = vertices[j], c = vertices[k];
+    if (Double.isNaN(a.x) || Double.isNaN(b.x) || Double.isNaN(c.x))
+      return;
+    if (offset == null) {
+      outputTriangle(a, b, c, colix);
+      return;
+    }
+    tempP1.add2(a, offset);
+    tempP2.add2(b, offset);
+    tempP3.add2(c, offset);
+    outputTriangle(tempP1, tempP2, tempP3, colix);
+  }
+
+  @Override
+  protected void outputFace(int[] is, int[] coordMap, int faceVertexMax) {
+    // not used
+  }
+
+  @Override
+  protected void outputTextPixel(P3d pt, int argb) {
+    // text is not exported
+  }
+
+  @Override
+  void plotText(int x, int y, int z, short colix, String text, Font font3d) {
+    // text is not exported
+  }
+
+  ///////////// finalization
+
+  @Override
+  protected String finalizeOutput() {
+    for (int i = 0, nb = batches.size(); i < nb; i++) {
+      Batch b = batches.get(i);
+      if (b.mesh == MESH_COUNT)
+        outputTriangleBatch(b);
+      else
+        outputInstanceBatch(b);
+    }
+    batches = null;
+    htBatches = null;
+    byte[] json = getJSON().getBytes();
+    int jsonLength = (json.length + 3) & ~3;
+    int binLength = bin.getByteCount();
+    while ((binLength & 3) != 0) {
+      bin.writeByteAsInt(0);
+      binLength++;
+    }
+    int total = 12 + 8 + jsonLength + (binLength == 0 ? 0 : 8 + binLength);
+    out.setBigEndian(false);
+    out.writeInt(0x46546C67); // "glTF"
+    out.writeInt(2);
+    out.writeInt(total);
+    out.writeInt(jsonLength);
+    out.writeInt(0x4E4F534A); // "JSON"
+    out.write(json, 0, json.length);
+    for (int i = json.length; i < jsonLength; i++)
+      out.writeByteAsInt(0x20);
+    if (binLength > 0) {
+      out.writeInt(binLength);
+      out.writeInt(0x004E4942); // "BIN\0"
+      byte[] b = bos.toByteArray();
+      out.write(b, 0, b.length);
+    }
+    return finalizeOutput2();
+  }
+
+  private void outputInstanceBatch(Batch b) {
+    int[] shared = getSharedMesh(b.mesh);
+    int mesh = addMesh(shared[0], shared[1], -1, shared[2],
+        getMaterial(b.colix, false));
+    haveInstancing = true;
+    float[] d = b.data;
+    int n = b.n;
+    int aT = writeInstanceData(d, n, 0, 3, "VEC3");
+    int aR = writeInstanceData(d, n, 3, 4, "VEC4");
+    int aS = writeInstanceData(d, n, 7, 3, "VEC3");
+    addNode(mesh, "\"extensions\":{\"EXT_mesh_gpu_instancing\":{\"attributes\":{\"TRANSLATION\":"
+        + aT + ",\"ROTATION\":" + aR + ",\"SCALE\":" + aS + "}}}");
+  }
+
+  private int writeInstanceData(float[] d, int n, int pt0, int len,
+                                String type) {
+    int offset0 = bin.getByteCount();
+    for (int i = 0, pt = pt0; i < n; i++, pt += 10)
+      for (int j = 0; j < len; j++)
+        bin.writeFloat(d[pt + j]);
+    return addAccessor(addView(offset0, n * len * 4, -1), GL_FLOAT, false, n,
+        type, null);
+  }
+
+  private void outputTriangleBatch(Batch b) {
+    float[] d = b.data;
+    int n = b.n * 3;
+    double[] minmax = newMinMax();
+    int offset0 = bin.getByteCount();
+    for (int i = 0, pt = 0; i < n; i++, pt += 6)
+      writeFloat3MinMax(d[pt], d[pt + 1], d[pt + 2], minmax);
+    int aPos = addAccessor(addView(offset0, n * 12, GL_ARRAY_BUFFER),
+        GL_FLOAT, false, n, "VEC3", minmax);
+    offset0 = bin.getByteCount();
+    for (int i = 0, pt = 3; i < n; i++, pt += 6)
+      writeFloat3(d[pt], d[pt + 1], d[pt + 2]);
+    int aNorm = addAccessor(addView(offset0, n * 12, GL_ARRAY_BUFFER),
+        GL_FLOAT, false, n, "VEC3", null);
+    addNode(addMesh(aPos, aNorm, -1, -1, getMaterial(b.colix, true)), null);
+  }
+
+  private String getJSON() {
+    SB sb = new SB();
+    sb.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"Jmol ")
+        .append(Viewer.getJmolVersion()).append("\"}");
+    if (haveInstancing) {
+      sb.append(",\"extensionsUsed\":[\"EXT_mesh_gpu_instancing\"]");
+      sb.append(",\"extensionsRequired\":[\"EXT_mesh_gpu_instancing\"]");
+    }
+    sb.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}]");
+    double s = exportScale / 1000;
+    sb.append(",\"nodes\":[{\"name\":\"Jmol\",\"scale\":[").appendD(s)
+        .append(",").appendD(s).append(",").appendD(s)
+        .append("],\"translation\":[").appendD(-center.x * s).append(",")
+        .appendD(-center.y * s).append(",").appendD(-center.z * s).append("]");
+    if (nNodes > 0) {
+      sb.append(",\"children\":[");
+      for (int i = 1; i <= nNodes; i++)
+        sb.append(i == 1 ? "" : ",").appendI(i);
+      sb.append("]");
+    }
+    sb.append("}").appendSB(nodes).append("]");
+    if (nMeshes > 0)
+      sb.append(",\"meshes\":[").appendSB(meshes).append("]");
+    if (nMaterials > 0)
+      sb.append(",\"materials\":[").appendSB(materials).append("]");
+    if (nAccessors > 0)
+      sb.append(",\"accessors\":[").appendSB(accessors).append("]");
+    if (nViews > 0) {
+      sb.append(",\"bufferViews\":[").appendSB(views).append("]");
+      sb.append(",\"buffers\":[{\"byteLength\":")
+          .appendI(bin.getByteCount()).append("}]");
+    }
+    sb.append("}");
+    return sb.toString();
+  }
+
+  ///////////// glTF bookkeeping
+
+  private int addView(int byteOffset, int byteLength, int target) {
+    views.append(nViews == 0 ? "" : ",")
+        .append("{\"buffer\":0,\"byteOffset\":").appendI(byteOffset)
+        .append(",\"byteLength\":").appendI(byteLength);
+    if (target > 0)
+      views.append(",\"target\":").appendI(target);
+    views.append("}");
+    return nViews++;
+  }
+
+  private int addAccessor(int view, int componentType, boolean normalized,
+                          int count, String type, double[] minmax) {
+    accessors.append(nAccessors == 0 ? "" : ",").append("{\"bufferView\":")
+        .appendI(view).append(",\"componentType\":").appendI(componentType);
+    if (normalized)
+      accessors.append(",\"normalized\":true");
+    accessors.append(",\"count\":").appendI(count).append(",\"type\":\"")
+        .append(type).append("\"");
+    if (minmax != null)
+      accessors.append(",\"min\":[").appendD((float) minmax[0]).append(",")
+          .appendD((float) minmax[1]).append(",").appendD((float) minmax[2])
+          .append("],\"max\":[").appendD((float) minmax[3]).append(",")
+          .appendD((float) minmax[4]).append(",").appendD((float) minmax[5])
+          .append("]");
+    accessors.append("}");
+    return nAccessors++;
+  }
+
+  private int addMesh(int aPos, int aNorm, int aColor, int aIndex,
+                      int material) {
+    meshes.append(nMeshes == 0 ? "" : ",")
+        .append("{\"primitives\":[{\"attributes\":{\"POSITION\":")
+        .appendI(aPos);
+    if (aNorm >= 0)
+      meshes.append(",\"NORMAL\":").appendI(aNorm);
+    if (aColor >= 0)
+      meshes.append(",\"COLOR_0\":").appendI(aColor);
+    meshes.append("}");
+    if (aIndex >= 0)
+      meshes.append(",\"indices\":").appendI(aIndex);
+    meshes.append(",\"material\":").appendI(material).append("}]}");
+    return nMeshes++;
+  }
+
+  private void addNode(int mesh, String extensions) {
+    nodes.append(",{\"mesh\":").appendI(mesh);
+    if (extensions != null)
+      nodes.append(",").append(extensions);
+    nodes.append("}");
+    nNodes++;
+  }
+
+  private int getMaterial(short colix, boolean doubleSided) {
+    return getMaterial(colix, doubleSided, false, false);
+  }
+
+  /**
+   * @param colix
+   * @param doubleSided
+   * @param isWhite
+   *        white, with just the translucency of colix, as for surfaces with
+   *        vertex colors
+   * @param blend
+   *        blend even if colix is opaque, as for translucent vertex colors
+   * @return material index
+   */
+  private int getMaterial(short colix, boolean doubleSided, boolean isWhite,
+                          boolean blend) {
+    // white materials are keyed beyond any colix
+    int key = (isWhite ? 0x20000
+        + ((colix & C.TRANSLUCENT_MASK) >> C.TRANSLUCENT_SHIFT) * 4
+        + (blend ? 2 : 0) : (colix & 0xFFFF) * 2) + (doubleSided ? 1 : 0);
+    int m = htMaterials.get(key);
+    if (m != Integer.MIN_VALUE)
+      return m;
+    int argb = (isWhite ? 0xFFFFFFFF : gdata.getColorArgbOrGray(colix));
+    double[] lin = getLinear();
+    double opacity = 1 - C.getColixTranslucencyFractional(colix);
+    materials.append(nMaterials == 0 ? "" : ",")
+        .append("{\"pbrMetallicRoughness\":{\"baseColorFactor\":[")
+        .appendD((float) lin[(argb >> 16) & 0xFF]).append(",")
+        .appendD((float) lin[(argb >> 8) & 0xFF]).append(",")
+        .appendD((float) lin[argb & 0xFF]).append(",")
+        .appendD((float) opacity)
+        .append("],\"metallicFactor\":0,\"roughnessFactor\":0.5}");
+    if (blend || opacity < 1)
+      materials.append(",\"alphaMode\":\"BLEND\"");
+    if (doubleSided)
+      materials.append(",\"doubleSided\":true");
+    materials.append("}");
+    htMaterials.put(key, nMaterials);
+    return nMaterials++;
+  }
+
+  private static double[] linear;
+
+  /**
+   * glTF colors are linear, not sRGB
+   *
+   * @return table of linear values for sRGB bytes
+   */
+  private static double[] getLinear() {
+    if (linear == null) {
+      double[] a = new double[256];
+      for (int i = 0; i < 256; i++) {
+        double c = i / 255d;
+        a[i] = (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+      }
+      linear = a;
+    }
+    return linear;
+  }
+
+  private static double[] newMinMax() {
+    return new double[] { Double.MAX_VALUE, Double.MAX_VALUE,
+        Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE,
+        -Double.MAX_VALUE };
+  }
+
+  private void writeFloat3(double x, double y, double z) {
+    bin.writeFloat((float) x);
+    bin.writeFloat((float) y);
+    bin.writeFloat((float) z);
+  }
+
+  private void writeFloat3MinMax(double x, double y, double z,
+                                 double[] minmax) {
+    // min/max must match the stored float values
+    float fx = (float) x, fy = (float) y, fz = (float) z;
+    bin.writeFloat(fx);
+    bin.writeFloat(fy);
+    bin.writeFloat(fz);
+    if (fx < minmax[0])
+      minmax[0] = fx;
+    if (fy < minmax[1])
+      minmax[1] = fy;
+    if (fz < minmax[2])
+      minmax[2] = fz;
+    if (fx > minmax[3])
+      minmax[3] = fx;
+    if (fy > minmax[4])
+      minmax[4] = fy;
+    if (fz > minmax[5])
+      minmax[5] = fz;
+  }
+
+  ///////////// shared unit meshes, all along the Y axis from -0.5 to 0.5
+
+  private int[] getSharedMesh(int type) {
+    int[] a = sharedMeshes[type];
+    if (a != null)
+      return a;
+    int n = 360 / NDEG;
+    double[] cos = new double[n];
+    double[] sin = new double[n];
+    for (int i = 0; i < n; i++) {
+      cos[i] = Math.cos(i * NDEG / 180d * Math.PI);
+      sin[i] = Math.sin(i * NDEG / 180d * Math.PI);
+    }
+    Lst<V3d> pts = new Lst<V3d>();
+    Lst<V3d> norms = new Lst<V3d>();
+    Lst<int[]> faces = new Lst<int[]>();
+    switch (type) {
+    case MESH_SPHERE:
+      int nv = Geodesic.getVertexCount(3);
+      V3d[] vv = Geodesic.getVertexVectors();
+      for (int i = 0; i < nv; i++) {
+        pts.addLast(vv[i]);
+        norms.addLast(vv[i]);
+      }
+      short[] fv = Geodesic.getFaceVertexes(3);
+      for (int i = 0; i < fv.length; i += 3)
+        faces.addLast(new int[] { fv[i], fv[i + 1], fv[i + 2] });
+      break;
+    case MESH_CYLINDER:
+    case MESH_CYLINDER_CAPPED:
+      for (int i = 0; i < n; i++) {
+        pts.addLast(V3d.new3(cos[i], 0.5d, sin[i]));
+        norms.addLast(V3d.new3(cos[i], 0, sin[i]));
+        pts.addLast(V3d.new3(cos[i], -0.5d, sin[i]));
+        norms.addLast(V3d.new3(cos[i], 0, sin[i]));
+      }
+      for (int i = 0; i < n; i++) {
+        int j = (i + 1) % n;
+        faces.addLast(new int[] { 2 * i, 2 * j, 2 * i + 1 });
+        faces.addLast(new int[] { 2 * j, 2 * j + 1, 2 * i + 1 });
+      }
+      if (type == MESH_CYLINDER_CAPPED) {
+        addDisk(pts, norms, faces, cos, sin, 0.5d);
+        addDisk(pts, norms, faces, cos, sin, -0.5d);
+      }
+      break;
+    case MESH_CONE:
+      double f = 1 / Math.sqrt(2);
+      for (int i = 0; i < n; i++) {
+        // ring vertex and tip vertex for each slice
+        pts.addLast(V3d.new3(cos[i], -0.5d, sin[i]));
+        norms.addLast(V3d.new3(cos[i] * f, f, sin[i] * f));
+        double c = Math.cos((i + 0.5) * NDEG / 180d * Math.PI);
+        double s = Math.sin((i + 0.5) * NDEG / 180d * Math.PI);
+        pts.addLast(V3d.new3(0, 0.5d, 0));
+        norms.addLast(V3d.new3(c * f, f, s * f));
+      }
+      for (int i = 0; i < n; i++)
+        faces.addLast(new int[] { 2 * i, 2 * i + 1, 2 * ((i + 1) % n) });
+      addDisk(pts, norms, faces, cos, sin, -0.5d);
+      break;
+    }
+    int nPts = pts.size();
+    double[] minmax = newMinMax();
+    int offset0 = bin.getByteCount();
+    for (int i = 0; i < nPts; i++) {
+      V3d p = pts.get(i);
+      writeFloat3MinMax(p.x, p.y, p.z, minmax);
+    }
+    int aPos = addAccessor(addView(offset0, nPts * 12, GL_ARRAY_BUFFER),
+        GL_FLOAT, false, nPts, "VEC3", minmax);
+    offset0 = bin.getByteCount();
+    for (int i = 0; i < nPts; i++) {
+      V3d p = norms.get(i);
+      writeFloat3(p.x, p.y, p.z);
+    }
+    int aNorm = addAccessor(addView(offset0, nPts * 12, GL_ARRAY_BUFFER),
+        GL_FLOAT, false, nPts, "VEC3", null);
+    int nFaces = faces.size();
+    offset0 = bin.getByteCount();
+    for (int i = 0; i < nFaces; i++) {
+      int[] face = faces.get(i);
+      bin.writeInt(face[0]);
+      bin.writeInt(face[1]);
+      bin.writeInt(face[2]);
+    }
+    int aIndex = addAccessor(
+        addView(offset0, nFaces * 12, GL_ELEMENT_ARRAY_BUFFER),
+        GL_UNSIGNED_INT, false, nFaces * 3, "SCALAR", null);
+    return sharedMeshes[type] = new int[] { aPos, aNorm, aIndex };
+  }
+
+  /**
+   * Add a flat disk at height y facing +y or -y.
+   *
+   * @param pts
+   * @param norms
+   * @param faces
+   * @param cos
+   * @param sin
+   * @param y
+   */
+  private static void addDisk(Lst<V3d> pts, Lst<V3d> norms,
+                              Lst<int[]> faces, double[] cos, double[] sin,
+                              double y) {
+    int n = cos.length;
+    int i0 = pts.size();
+    double ny = (y > 0 ? 1 : -1);
+    for (int i = 0; i < n; i++) {
+      pts.addLast(V3d.new3(cos[i], y, sin[i]));
+      norms.addLast(V3d.new3(0, ny, 0));
+    }
+    pts.addLast(V3d.new3(0, y, 0));
+    norms.addLast(V3d.new3(0, ny, 0));
+    for (int i = 0; i < n; i++) {
+      int j = (i + 1) % n;
+      // counterclockwise as seen from outside
+      if (y > 0)
+        faces.addLast(new int[] { i0 + n, i0 + j, i0 + i });
+      else
+        faces.addLast(new int[] { i0 + n, i0 + i, i0 + j });
+    }
+  }
+
+}
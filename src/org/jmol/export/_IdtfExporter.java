@@ -863,9 +863,9 @@ public class _IdtfExporter extends __CartesianExporter {
     // normals, part 1
 
     SB sbFaceNormalIndices = sbTemp = new SB();
-    Lst<String> vNormals = null;
+    Lst<T3d> vNormals = null;
     if (normals != null) {
-      vNormals = new  Lst<String>();
+      vNormals = new  Lst<T3d>();
       map = getNormalMap(normals, nVertices, null, vNormals);
       outputIndices(indices, map, nPolygons, bsPolygons, faceVertexMax);
     }
@@ -908,7 +908,7 @@ public class _IdtfExporter extends __CartesianExporter {
     if (normals != null) {
       nNormals = vNormals.size();
       for (int i = 0; i < nNormals; i++)
-        sbNormals.append(vNormals.get(i));
+        sbNormals.append(getTriad(vNormals.get(i))).append("\n");
       vNormals = null;
     }
 
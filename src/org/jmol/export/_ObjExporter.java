@@ -759,14 +759,17 @@ public class _ObjExporter extends __CartesianExporter {
     T3d[] normals = data.normals;
     int nNormals = data.normalCount;
     int[] map2 = null;
-    Lst<String> vNormals = null;
+    Lst<T3d> vNormals = null;
     if (normals != null) {
-      vNormals = new  Lst<String>();
+      vNormals = new  Lst<T3d>();
       map2 = getNormalMap(normals, nNormals, bsValid, vNormals);
       nNormals = vNormals.size();
       output("# Number of normals: " + nNormals + "\n");
-      for (int i = 0; i < nNormals; i++)
-        output("vn " + vNormals.get(i));    
+      for (int i = 0; i < nNormals; i++) {
+        output("vn ");
+        outputTriad(vNormals.get(i));
+        outputChar('\n');
+      }
     }
 
     if (dim != null) {
@@ -827,7 +830,9 @@ public class _ObjExporter extends __CartesianExporter {
       ptTemp.setT(pts[i]);
       if (m != null)
         m.rotTrans(ptTemp);
-      output(prefix + ptTemp.x + " " + ptTemp.y + " " + ptTemp.z + "\n");
+      output(prefix);
+      outputTriad(ptTemp);
+      outputChar('\n');
     }
   }
 
@@ -841,11 +846,14 @@ public class _ObjExporter extends __CartesianExporter {
    *          Map of data normal indexes to output indexes 
    */
   private void outputFace1(int[] face, int[] map, int[] map2) {
-    output("f");
-    for (int i : face)
-      output(" " + ((map == null ? i : map[i]) + currentVertexOrigin) + "//"
-          + ((map2 == null ? i : map2[i]) + currentNormalOrigin));
-    output("\n");
+    outputChar('f');
+    for (int i : face) {
+      outputChar(' ');
+      outputInt((map == null ? i : map[i]) + currentVertexOrigin);
+      output("//");
+      outputInt((map2 == null ? i : map2[i]) + currentNormalOrigin);
+    }
+    outputChar('\n');
   }
 
   /**
@@ -861,13 +869,16 @@ public class _ObjExporter extends __CartesianExporter {
    *          Map of data normal indexes to output indexes 
    */
   private void outputFace2(int[] face, int vt, int[] map, int[] map2) {
-    output("f");
+    outputChar('f');
     for (int i : face) {
-      output(" " + ((map == null ? i : map[i]) + currentVertexOrigin) + "/"
-          + (currentTextureOrigin + vt) + "/"
-          + ((map2 == null ? i : map2[i]) + currentNormalOrigin));
+      outputChar(' ');
+      outputInt((map == null ? i : map[i]) + currentVertexOrigin);
+      outputChar('/');
+      outputInt(currentTextureOrigin + vt);
+      outputChar('/');
+      outputInt((map2 == null ? i : map2[i]) + currentNormalOrigin);
     }
-    output("\n");
+    outputChar('\n');
   }
   
   /**
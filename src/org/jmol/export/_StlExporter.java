@@ -32,7 +32,6 @@ import javajs.util.A4d;
 import javajs.util.Lst;
 import javajs.util.M4d;
 import javajs.util.MeasureD;
-import javajs.util.OC;
 import javajs.util.P3d;
 import javajs.util.T3d;
 
@@ -65,10 +64,15 @@ public class _StlExporter extends _VrmlExporter {
 
   private boolean isDebug;
   private String header;
-  private OC oc;
   private ByteArrayOutputStream bos;
   private M4d m4;
 
+  /**
+   * one binary facet record: normal, three vertices, and a zero attribute
+   * byte count
+   */
+  private byte[] facet;
+
   public _StlExporter() {
     super();
     useTable = null;
@@ -76,9 +80,8 @@ public class _StlExporter extends _VrmlExporter {
     noColor = true;
     isDebug = Logger.debugging;
     if (!isDebug) {
-      oc = new OC();
-      oc.setBigEndian(false);
-      oc.setParams(null, null, false, bos = new ByteArrayOutputStream());
+      bos = new ByteArrayOutputStream();
+      facet = new byte[50];
     }
   }
 
@@ -91,8 +94,8 @@ public class _StlExporter extends _VrmlExporter {
       out.append(header);
       out.append("\n");
     } else {
-      oc.write(header.getBytes(), 0, 80);
-      oc.write(new byte[4], 0, 4);
+      bos.write(header.getBytes(), 0, 80);
+      bos.write(new byte[4], 0, 4);
     }
     lstMatrix = new Lst<M4d>();
     m4 = new M4d();
@@ -198,15 +201,18 @@ public class _StlExporter extends _VrmlExporter {
     if (Double.isNaN(tempV1.x)) {
       return; // just a line -- can happen in cartoon meshes
     }
-    writePoint("facet normal", tempV1);
-    writePoint("outer loop\nvertex", tempQ1);
-    writePoint("vertex", tempQ2);
-    writePoint("vertex", tempQ3);
     if (isDebug) {
+      writePoint("facet normal", tempV1);
+      writePoint("outer loop\nvertex", tempQ1);
+      writePoint("vertex", tempQ2);
+      writePoint("vertex", tempQ3);
       out.append("endloop\nendfacet\n");
     } else {
-      oc.writeByteAsInt(0);
-      oc.writeByteAsInt(0);
+      putPoint(0, tempV1);
+      putPoint(12, tempQ1);
+      putPoint(24, tempQ2);
+      putPoint(36, tempQ3);
+      bos.write(facet, 0, 50);
     }
     nTri++;
   }
@@ -240,20 +246,24 @@ public class _StlExporter extends _VrmlExporter {
   ///////////////  raw ASCII/binary write methods
   
   private void writePoint(String s, T3d p) {
-    if (isDebug)
-      out.append(s);
-    writeFloat(p.x);
-    writeFloat(p.y);
-    writeFloat(p.z);
-    if (isDebug)
-      out.append("\n");
+    out.append(s);
+    out.append(" " + p.x + " " + p.y + " " + p.z);
+    out.append("\n");
+  }
+
+  private void putPoint(int pt, T3d p) {
+    putFloat(pt, p.x);
+    putFloat(pt + 4, p.y);
+    putFloat(pt + 8, p.z);
   }
 
-  private void writeFloat(double f) {
-    if (isDebug)
-      out.append(" " + f);
-    else
-      oc.writeInt(Float.floatToIntBits((float) f));
+  private void putFloat(int pt, double f) {
+    // little-endian
+    int i = Float.floatToIntBits((float) f);
+    facet[pt] = (byte) i;
+    facet[pt + 1] = (byte) (i >> 8);
+    facet[pt + 2] = (byte) (i >> 16);
+    facet[pt + 3] = (byte) (i >> 24);
   }
 
 //@SuppressWarnings("unused")
@@ -59,6 +59,7 @@ public class _TachyonExporter extends __RayTracerExporter {
  
   @Override
   boolean initializeOutput(Viewer vwr, double privateKey, GData gdata, Map<String, Object> params) {
+    this.gdata = gdata;
     getLightingInfo();
     return initOutput(vwr, privateKey, gdata, params);    
   }
@@ -125,7 +126,15 @@ public class _TachyonExporter extends __RayTracerExporter {
 
   @Override
   protected void output(T3d pt) {
-    output(triad(pt));
+    if (Double.isNaN(pt.x)) {
+      output("0 0 0");
+      return;
+    }
+    outputInt((int) pt.x);
+    outputChar(' ');
+    outputInt((int) (-pt.y));
+    outputChar(' ');
+    outputInt((int) pt.z);
   }
 
   private String triad(double x, double y, double z) {
@@ -138,6 +147,15 @@ public class _TachyonExporter extends __RayTracerExporter {
     return triad(pt.x, pt.y, pt.z);
   }
 
+  private void outputTriangleIndices(int a, int b, int c) {
+    outputInt(a);
+    outputChar(' ');
+    outputInt(b);
+    outputChar(' ');
+    outputInt(c);
+    outputChar('\n');
+  }
+
   private String textureCode;
   
   private void outputTextureCode() {
@@ -273,21 +291,23 @@ public class _TachyonExporter extends __RayTracerExporter {
     output("\nNormals\n");
     for (int i = 0; i < nVertices; i++) {
       setTempVertex(vertices[i], offset, tempP1);
-      output(triad(getScreenNormal(tempP1, normals[i], 10)) + "\n");
+      output(getScreenNormal(tempP1, normals[i], 10));
+      outputChar('\n');
     }
-    String rgb = (colixes == null ? rgbFractionalFromColix(colix) : null);
     output("\nColors\n");
     for (int i = 0; i < nVertices; i++) {
-      output((colixes == null ? rgb : rgbFractionalFromColix(colixes[i])) + "\n");
+      outputRgbFractional(colixes == null ? colix : colixes[i]);
+      outputChar('\n');
     }
     outputTextureCode();
     output("\nTriMesh " + nTriangles + "\n");
     boolean isAll = (bsPolygons == null);
     int i0 = (isAll ? nPolygons - 1 : bsPolygons.nextSetBit(0));
     for (int i = i0; i >= 0; i = (isAll ? i - 1 : bsPolygons.nextSetBit(i + 1))) {
-      output(indices[i][0] + " " + indices[i][1] + " " + indices[i][2] + "\n");
-      if (faceVertexMax == 4 && indices[i].length == 4)
-        output(indices[i][0] + " " + indices[i][2] + " " + indices[i][3] + "\n");
+      int[] face = indices[i];
+      outputTriangleIndices(face[0], face[1], face[2]);
+      if (faceVertexMax == 4 && face.length == 4)
+        outputTriangleIndices(face[0], face[2], face[3]);
     }
     output("\nEnd_VertexArray\n");
   }
@@ -74,7 +74,7 @@ public class _VrmlExporter extends __CartesianExporter {
   
   @Override
   protected void output(T3d pt) {
-    output(round(pt));
+    outputTriad(pt);
   }
   
   protected UseTable useTable;
@@ -167,7 +167,14 @@ public class _VrmlExporter extends __CartesianExporter {
   }
 
   protected void outputAttr(String attr, double x, double y, double z) {
-    output(" " + attr + " " + round(x) + " " + round(y) + " " + round(z));
+    outputChar(' ');
+    output(attr);
+    outputChar(' ');
+    outputRound(x);
+    outputChar(' ');
+    outputRound(y);
+    outputChar(' ');
+    outputRound(z);
   }
   
   protected void outputRotation(A4d a) {
@@ -594,7 +601,7 @@ public class _VrmlExporter extends __CartesianExporter {
      // normals
 
      if (normals != null) {
-       Lst<String> vNormals = new  Lst<String>();
+       Lst<T3d> vNormals = new  Lst<T3d>();
        map = getNormalMap(normals, nVertices, null, vNormals);
        output("  solid FALSE\n  normalPerVertex TRUE\n   normal Normal {\n  vector [\n");
        outputNormals(vNormals);
@@ -621,15 +628,25 @@ public class _VrmlExporter extends __CartesianExporter {
 
    @Override
    protected void outputFace(int[] face, int[] map, int faceVertexMax) {
-     output(map[face[0]] + " " + map[face[1]] + " " + map[face[2]] + " -1\n");
+     outputFace3(map[face[0]], map[face[1]], map[face[2]]);
      if (faceVertexMax == 4 && face.length == 4)
-       output(map[face[0]] + " " + map[face[2]] + " " + map[face[3]] + " -1\n");
+       outputFace3(map[face[0]], map[face[2]], map[face[3]]);
    }
 
-   protected void outputNormals(Lst<String> vNormals) {
+   private void outputFace3(int a, int b, int c) {
+     outputInt(a);
+     outputChar(' ');
+     outputInt(b);
+     outputChar(' ');
+     outputInt(c);
+     output(" -1\n");
+   }
+
+   protected void outputNormals(Lst<T3d> vNormals) {
      int n = vNormals.size();
      for (int i = 0; i < n; i++) {
-       output(vNormals.get(i));
+       outputTriad(vNormals.get(i));
+       outputChar('\n');
      }
    }
 
@@ -650,15 +667,17 @@ public class _VrmlExporter extends __CartesianExporter {
      int i0 = (isAll ? nPolygons - 1 : bsPolygons.nextSetBit(0));
      for (int i = i0; i >= 0; i = (isAll ? i - 1 : bsPolygons.nextSetBit(i + 1))) {
        if (polygonColixes == null) {
-         output(htColixes.get(Short.valueOf(colixes[indices[i][0]])) + " "
-             + htColixes.get(Short.valueOf(colixes[indices[i][1]])) + " "
-             + htColixes.get(Short.valueOf(colixes[indices[i][2]])) + " -1\n");
-         if (faceVertexMax == 4 && indices[i].length == 4)
-           output(htColixes.get(Short.valueOf(colixes[indices[i][0]])) + " "
-               + htColixes.get(Short.valueOf(colixes[indices[i][2]])) + " "
-               + htColixes.get(Short.valueOf(colixes[indices[i][3]])) + " -1\n");
+         int[] face = indices[i];
+         outputFace3(htColixes.get(Short.valueOf(colixes[face[0]])).intValue(),
+             htColixes.get(Short.valueOf(colixes[face[1]])).intValue(),
+             htColixes.get(Short.valueOf(colixes[face[2]])).intValue());
+         if (faceVertexMax == 4 && face.length == 4)
+           outputFace3(htColixes.get(Short.valueOf(colixes[face[0]])).intValue(),
+               htColixes.get(Short.valueOf(colixes[face[2]])).intValue(),
+               htColixes.get(Short.valueOf(colixes[face[3]])).intValue());
        } else {
-         output(htColixes.get(Short.valueOf(polygonColixes[i])) + "\n");
+         outputInt(htColixes.get(Short.valueOf(polygonColixes[i])).intValue());
+         outputChar('\n');
        }
      }
    }
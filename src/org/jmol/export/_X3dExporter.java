@@ -111,7 +111,15 @@ public class _X3dExporter extends _VrmlExporter {
 
   @Override
   protected void outputAttr(String attr, double x, double y, double z) {
-    output(" " + attr + "='" + round(x) + " " + round(y) + " " + round(z) + "'");
+    outputChar(' ');
+    output(attr);
+    output("='");
+    outputRound(x);
+    outputChar(' ');
+    outputRound(y);
+    outputChar(' ');
+    outputRound(z);
+    outputChar('\'');
   }
   
   @Override
@@ -311,9 +319,9 @@ public class _X3dExporter extends _VrmlExporter {
 
     // normals, part 1  
     
-    Lst<String> vNormals = null;
+    Lst<T3d> vNormals = null;
     if (normals != null) {
-      vNormals = new  Lst<String>();
+      vNormals = new  Lst<T3d>();
       map = getNormalMap(normals, nVertices, null, vNormals);
       output("  solid='false'\n  normalPerVertex='true'\n  normalIndex='\n");
       outputIndices(indices, map, nPolygons, bsPolygons, faceVertexMax);
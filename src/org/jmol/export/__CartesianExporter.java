@@ -41,11 +41,12 @@ import org.jmol.modelset.Atom;
 import org.jmol.util.C;
 import org.jmol.util.Font;
 import org.jmol.util.GData;
+import org.jmol.util.Long2IntHash;
 import org.jmol.util.Logger;
 
 /*
  * for programs that use the standard 3D coordinates.
- * IDTF, Maya, OBJ, VRML, JS
+ * GLB, IDTF, Maya, OBJ, VRML, JS
  * 
  */
 abstract public class __CartesianExporter extends ___Exporter {
@@ -125,29 +126,76 @@ abstract public class __CartesianExporter extends ___Exporter {
     return n;
   }
 
+  /**
+   * Map normals to a list of those that are distinct as written by
+   * getTriad(), that is, rounded to 0.001.
+   * 
+   * @param normals
+   * @param nNormals
+   * @param bsValid
+   * @param vNormals
+   *        filled with the first normal of each distinct set
+   * @return map from normal index to index in vNormals
+   */
   protected int[] getNormalMap(T3d[] normals, int nNormals,
-                               BS bsValid, Lst<String> vNormals) {
-    Map<String, Integer> htNormals = new Hashtable<String, Integer>();
+                               BS bsValid, Lst<T3d> vNormals) {
+    // Unit normals are keyed by their rounded components, without creating
+    // a String for each; anything else falls back to the string.
+    Long2IntHash htKeys = new Long2IntHash(nNormals);
+    Map<String, Integer> htNormals = null;
     int[] normalMap = new int[nNormals];
     for (int i = 0; i < nNormals; i++) {
-      String s;
-      if (bsValid != null && !bsValid.get(i) || Double.isNaN(normals[i].x)){
+      T3d n = normals[i];
+      if (bsValid != null && !bsValid.get(i) || Double.isNaN(n.x)){
         if (bsValid != null)
           bsValid.clear(i);
         continue;
       }
-      s = getTriad(normals[i]) + "\n";
-      if (htNormals.containsKey(s)) {
-        normalMap[i] = htNormals.get(s).intValue();
+      long key = getNormalKey(n);
+      int j;
+      if (key >= 0) {
+        j = htKeys.get(key);
+        if (j == Integer.MIN_VALUE) {
+          htKeys.put(key, j = vNormals.size());
+          vNormals.addLast(n);
+        }
       } else {
-        normalMap[i] = vNormals.size();
-        vNormals.addLast(s);
-        htNormals.put(s, Integer.valueOf(normalMap[i]));
+        if (htNormals == null)
+          htNormals = new Hashtable<String, Integer>();
+        String s = getTriad(n);
+        Integer ii = htNormals.get(s);
+        if (ii == null) {
+          htNormals.put(s, Integer.valueOf(j = vNormals.size()));
+          vNormals.addLast(n);
+        } else {
+          j = ii.intValue();
+        }
       }
+      normalMap[i] = j;
     }
     return normalMap;
   }
 
+  /**
+   * Key for a normal that will be written as round(x) round(y) round(z) when
+   * every component is within [-1, 1]; -1 otherwise. An exact 0 is written
+   * "0" but a small nonzero number ".0", so the two get different codes.
+   * 
+   * @param n
+   * @return key less than 2002^3, exact in JavaScript, or -1
+   */
+  private static long getNormalKey(T3d n) {
+    int x = getNormalCode(n.x), y = getNormalCode(n.y), z = getNormalCode(n.z);
+    return (x < 0 || y < 0 || z < 0 ? -1 : (x * 2002L + y) * 2002L + z);
+  }
+
+  private static int getNormalCode(double d) {
+    if (d == 0)
+      return 2001;
+    double m = Math.round(d * 1000);
+    return (m < -1000 || m > 1000 ? -1 : (int) m + 1000);
+  }
+
   protected void outputIndices(int[][] indices, int[] map, int nPolygons,
                                BS bsPolygons, int faceVertexMax) {
     // called from IDtf, Vrml, Xed when outputting a surface
@@ -59,6 +59,7 @@ import org.jmol.viewer.Viewer;
  * 
  * ___Exporter
  *     __CartesianExporter
+ *         _GlbExporter
  *         _IdtfExporter
  *         _MayaExporter
  *         _VrmlExporter
@@ -234,12 +235,131 @@ public abstract class ___Exporter {
 
   abstract protected void outputHeader();
 
+  /**
+   * Text is collected here and passed to the output channel in large pieces;
+   * the channel may be an unbuffered file stream. Numbers can be written
+   * directly into this buffer with outputRound(), outputTriad(), and
+   * outputInt(), without creating a String for each one.
+   */
+  private char[] outBuf = new char[8192];
+  private int outPt;
+
   protected void output(String data) {
-    out.append(data);
+    int n = data.length();
+    if (outPt + n > outBuf.length) {
+      flushOutput();
+      if (n > outBuf.length) {
+        out.append(data);
+        return;
+      }
+    }
+    char[] buf = outBuf;
+    for (int i = 0, pt = outPt; i < n; i++)
+      buf[pt++] = data.charAt(i);
+    outPt += n;
+  }
+
+  protected void outputChar(char c) {
+    if (outPt == outBuf.length)
+      flushOutput();
+    outBuf[outPt++] = c;
+  }
+
+  /**
+   * Write an integer without creating a String.
+   * 
+   * @param i
+   */
+  protected void outputInt(int i) {
+    if (i == Integer.MIN_VALUE) {
+      output("" + i);
+      return;
+    }
+    if (outPt + 11 > outBuf.length)
+      flushOutput();
+    if (i < 0) {
+      outBuf[outPt++] = '-';
+      i = -i;
+    }
+    outPt = putDigits(outBuf, outPt, i);
+  }
+
+  /**
+   * Write exactly what round(number) would return, but without creating a
+   * String, so coordinates and colors of large surfaces do not produce garbage.
+   * 
+   * @param number
+   */
+  protected void outputRound(double number) {
+    if (number == 0 || number == 1) {
+      outputChar(number == 0 ? '0' : '1');
+      return;
+    }
+    double x = number * 1000d;
+    if (!(x < 2e9 && x > -2e9)) {
+      // includes NaN
+      output(round(number));
+      return;
+    }
+    int m = (int) Math.round(x);
+    if (outPt + 16 > outBuf.length)
+      flushOutput();
+    char[] buf = outBuf;
+    if (m == 0) {
+      // as from "0.0"
+      buf[outPt++] = '.';
+      buf[outPt++] = '0';
+      return;
+    }
+    if (m < 0) {
+      buf[outPt++] = '-';
+      m = -m;
+    }
+    int ip = m / 1000;
+    int fp = m % 1000;
+    int pt = (ip == 0 ? outPt : putDigits(buf, outPt, ip));
+    if (fp != 0) {
+      buf[pt++] = '.';
+      int nDigits = (fp % 100 == 0 ? 1 : fp % 10 == 0 ? 2 : 3);
+      for (int i = 0; i < nDigits; i++) {
+        buf[pt++] = (char) ('0' + fp / 100);
+        fp = (fp % 100) * 10;
+      }
+    }
+    outPt = pt;
+  }
+
+  /**
+   * Write exactly what round(pt) would return.
+   * 
+   * @param pt
+   */
+  protected void outputTriad(T3d pt) {
+    outputRound(pt.x);
+    outputChar(' ');
+    outputRound(pt.y);
+    outputChar(' ');
+    outputRound(pt.z);
+  }
+
+  private static int putDigits(char[] buf, int pt, int i) {
+    int n = 1;
+    for (int j = i; j >= 10; j /= 10)
+      n++;
+    for (int j = pt + n; --j >= pt; i /= 10)
+      buf[j] = (char) ('0' + i % 10);
+    return pt + n;
+  }
+
+  protected void flushOutput() {
+    if (outPt == 0)
+      return;
+    out.append(new String(outBuf, 0, outPt));
+    outPt = 0;
   }
 
   protected int getByteCount() {
-    return out.getByteCount();
+    return out.getByteCount() + outPt;
   }
 
   protected void outputComment(String comment) {
@@ -259,7 +379,7 @@ public abstract class ___Exporter {
       if (Double.isNaN(vertices[i].x))
         continue;
       outputVertex(vertices[i], offset);
-      output("\n");
+      outputChar('\n');
     }
   }
 
@@ -309,6 +429,7 @@ public abstract class ___Exporter {
     outputFooter();
     if (out == null)
       return null;
+    flushOutput();
     String ret = out.closeChannel();
     if (fileName == null)
       return ret;
@@ -338,13 +459,27 @@ public abstract class ___Exporter {
   final private P3d tempC = new P3d();
 
   protected String rgbFractionalFromArgb(int argb) {
+    return getTriadC(setFractionalColor(argb));
+  }
+
+  /**
+   * Write what rgbFractionalFromColix(colix) returns when getTriad() is not
+   * overridden, without creating a String.
+   * 
+   * @param colix
+   */
+  protected void outputRgbFractional(short colix) {
+    outputTriad(setFractionalColor(gdata.getColorArgbOrGray(colix)));
+  }
+
+  private P3d setFractionalColor(int argb) {
     int red = (argb >> 16) & 0xFF;
     int green = (argb >> 8) & 0xFF;
     int blue = argb & 0xFF;
     tempC.set(red == 0 ? 0 : (red + 1)/ 256d, 
         green == 0 ? 0 : (green + 1) / 256d, 
         blue == 0 ? 0 : (blue + 1) / 256d);
-    return getTriadC(tempC);
+    return tempC;
   }
 
   protected static String translucencyFractionalFromColix(short colix) {
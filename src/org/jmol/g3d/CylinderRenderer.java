@@ -86,6 +86,7 @@ class CylinderRenderer {
     int r = diameter / 2 + 1;
     //System.out.println("Cyl " + xa + " "  + ya + " "  + za + " "  + xb + " "  + yb + " "  + zb + " " );
     Graphics3D g = this.g3d;
+    g.cylinderCount++;
     int codeMinA = g.clipCode3(xa - r, ya - r, za - r);
     int codeMaxA = g.clipCode3(xa + r, ya + r, za + r);
     int codeMinB = g.clipCode3(xb - r, yb - r, zb - r);
@@ -172,6 +173,7 @@ class CylinderRenderer {
   
   void renderBitsFloat(short colixA, short colixB, int screen, byte endcaps, int diameter, P3d ptA, P3d ptB) {
     Graphics3D g = this.g3d;
+    g.cylinderCount++;
 // checked already
 //    if (diameter == 0 || diameter == 1) {
 //      line3d.plotLineBits(g.getColorArgbOrGray(colixA), g.getColorArgbOrGray(colixB), ptA, ptB);
@@ -287,6 +289,7 @@ class CylinderRenderer {
   
   void renderBits(short colixA, short colixB, int screen, byte endcaps, int diameter, P3i ptA, P3i ptB) {
     Graphics3D g = this.g3d;
+    g.cylinderCount++;
     if (diameter == 0 || diameter == 1) {
       line3d.plotLineBits(g.getColorArgbOrGray(colixA), g.getColorArgbOrGray(colixB), ptA, ptB, 0, 0, false);
       return;
@@ -394,6 +397,7 @@ class CylinderRenderer {
   
   void renderConeOld(short colix, byte endcap, int diameter, double xa, double ya,
                   double za, double xtip, double ytip, double ztip, boolean doFill, boolean isBarb) {
+    g3d.cylinderCount++;
     dxBf = (xtip) - (xAf = xa);
     dyBf = (ytip) - (yAf = ya);
     dzBf = (ztip) - (zAf = za);
@@ -255,6 +255,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   protected int[] zbuf;
   protected int[] zbufT;
   protected int translucencyMask;
+
+  // coarse z-buffer maxima for occlusion culling, one per ZTILE x ZTILE pixels
+  private final static int ZTILE_BITS = 4;
+  private int[] zMaxMap;
+  private int zMaxMapWidth;
+  private boolean haveZMaxMap;
   private boolean renderLow;
 
   private int[] shadesCurrent;
@@ -366,6 +372,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     twoPass = true; //only for testing -- set false to disallow second pass
     isPass2 = false;
     pass2Flag01 = 0;
+    haveZMaxMap = false;
     colixCurrent = 0;
     haveTranslucentObjects = wasScreened = false;
     pixel = pixel0;
@@ -416,6 +423,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
       return false;
     isPass2 = true;
     pass2Flag01 = 1;
+    haveZMaxMap = false;
     colixCurrent = 0;
     if (pbufT == null || antialias2 != antialiasTranslucent) {
       platform.allocateTBuffers(antialiasTranslucent);
@@ -435,6 +443,57 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     return true;
   }
 
+  @Override
+  public boolean updateZMaxMap() {
+    if (isPass2 || zbuf == null)
+      return haveZMaxMap = false;
+    int tw = (width + (1 << ZTILE_BITS) - 1) >> ZTILE_BITS;
+    int n = tw * ((height + (1 << ZTILE_BITS) - 1) >> ZTILE_BITS);
+    if (zMaxMap == null || zMaxMap.length < n)
+      zMaxMap = new int[n];
+    int[] map = zMaxMap;
+    int[] zb = zbuf;
+    for (int i = n; --i >= 0;)
+      map[i] = Integer.MIN_VALUE;
+    for (int y = 0, offset = 0; y < height; y++) {
+      int row = (y >> ZTILE_BITS) * tw;
+      for (int x = 0; x < width; x++, offset++) {
+        int z = zb[offset];
+        int t = row + (x >> ZTILE_BITS);
+        if (z > map[t])
+          map[t] = z;
+      }
+    }
+    zMaxMapWidth = tw;
+    return haveZMaxMap = true;
+  }
+
+  @Override
+  public int getZMax(int x0, int y0, int x1, int y1) {
+    if (!haveZMaxMap)
+      return Integer.MAX_VALUE;
+    if (x0 < 0)
+      x0 = 0;
+    if (y0 < 0)
+      y0 = 0;
+    if (x1 >= width)
+      x1 = width - 1;
+    if (y1 >= height)
+      y1 = height - 1;
+    int zMax = Integer.MIN_VALUE;
+    if (x0 > x1 || y0 > y1)
+      return zMax;
+    x0 >>= ZTILE_BITS;
+    x1 >>= ZTILE_BITS;
+    y1 >>= ZTILE_BITS;
+    int[] map = zMaxMap;
+    for (int ty = y0 >> ZTILE_BITS; ty <= y1; ty++)
+      for (int t = ty * zMaxMapWidth + x0, t1 = t + x1 - x0; t <= t1; t++)
+        if (map[t] > zMax && (zMax = map[t]) == Integer.MAX_VALUE)
+          return zMax;
+    return zMax;
+  }
+
   @Override
   public void endRendering() {
     if (!currentlyRendering)
@@ -2046,6 +2105,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     TextRenderer.clearFontCache();
   }
 
+  @Override
+  public Map<String, Object> getTextCacheInfo(boolean andReset) {
+    return TextRenderer.getCacheInfo(andReset);
+  }
+
   // Normix/Shading related methods
 
   // only these three instance variables depend upon current orientation:
@@ -87,6 +87,7 @@ public class SphereRenderer {
     //System.out.println("sphere " + x  + " " + y  + " " + z + " " + diameter);
     if (z == 1)
       return;
+    g3d.sphereCount++;
     if (diameter > maxOddSizeSphere)
       diameter &= ~1;
     if (g3d.isClippedXY(diameter, x, y))
@@ -365,7 +366,7 @@ public class SphereRenderer {
     int ptLine = offsetPbufBeginLine;
     int[] zb = zbuf;
     Pixelator p = g3d.pixel;
-    byte[] indexes = shader.sphereShadeIndexes;
+    byte[] indexes = shader.getSphereShadeIndexes();
     for (int i = 0, i2 = 0; i2 <= r2; 
         i2 += i + (++i),
         ptLine += lineIncrement) {
@@ -419,7 +420,7 @@ public class SphereRenderer {
     int oct = selectedOctant;
     Shader s = shader;
     int[] pl = planeShades;
-    byte[] indexes = s.sphereShadeIndexes;
+    byte[] indexes = s.getSphereShadeIndexes();
     int ps = planeShade;
     M3d m = mat;
 
@@ -29,6 +29,7 @@ import java.util.Map;
 
 import org.jmol.api.JmolRendererInterface;
 import org.jmol.util.Font;
+import org.jmol.viewer.Viewer;
 
 import javajs.util.CU;
 
@@ -40,6 +41,14 @@ import javajs.util.CU;
  * uses java fonts by rendering into an offscreen buffer.
  * strings are rasterized, and 4-bit translucency is stored as byte[] tmap.
  *<p>
+ * Each font has a glyph atlas of single characters, and in Java a string is
+ * composed from these rather than rasterized again, as long as no two of its
+ * characters share a column of pixels and none may combine or be shaped, such
+ * as accents or Arabic. Otherwise it is rasterized whole. Strings are saved
+ * in a cache limited by memory, least recently used strings dropped first, so
+ * labeling every atom with a different string no longer adds to memory
+ * without limit.
+ *<p>
  *
  * @author Miguel, miguel@jmol.org
  * @author Bob Hanson, hansonr@stolaf.edu
@@ -69,15 +78,80 @@ class TextRenderer {
   private byte[] tmap;
   private boolean isInvalid;
   private final static byte[] translucency = new byte[] { 7, 6, 5, 4, 3, 2, 1, 8 };
-  private static boolean working;
   private final static Map<Font, Map<String, TextRenderer>> htFont3d = new Hashtable<Font, Map<String, TextRenderer>>();
   private final static Map<Font, Map<String, TextRenderer>> htFont3dAntialias = new Hashtable<Font, Map<String, TextRenderer>>();
 
+  /**
+   * glyph atlases; a glyph's tmap is drawn with room on both sides, its origin
+   * at x0
+   */
+  private final static Map<Font, Map<String, TextRenderer>> htGlyphs = new Hashtable<Font, Map<String, TextRenderer>>();
+  private final static Map<Font, Map<String, TextRenderer>> htGlyphsAntialias = new Hashtable<Font, Map<String, TextRenderer>>();
+
+  /**
+   * limits to memory use, in bytes; glyph atlases are simply cleared when full
+   */
+  private final static int MAX_STRING_MEMORY = 1 << 22;
+  private final static int MAX_GLYPH_MEMORY = 1 << 21;
+
+  /**
+   * approximate cost of a cache entry beyond its tmap
+   */
+  private final static int ENTRY_MEMORY = 64;
+
+  /**
+   * least-recently-used list of saved strings, most recent first
+   */
+  private static TextRenderer lruFirst, lruLast;
+  private TextRenderer lruPrev, lruNext;
+  private String text;
+  private Font font;
+  private boolean antialias;
+
+  /**
+   * for a glyph: its origin in tmap, and the columns with any ink, relative
+   * to that, from inkLeft to just before inkRight
+   */
+  private int x0, inkLeft, inkRight;
+
+  /**
+   * for a glyph: ink reaches an edge of tmap, so some may be missing
+   */
+  private boolean isCut;
+
+  private static int stringCount, stringMemory, glyphCount, glyphMemory;
+  private static int stringHits, stringMisses, stringsDropped, glyphHits,
+      glyphMisses, stringsComposed;
+
   synchronized static void clearFontCache() {
-    if (working)
-      return;
     htFont3d.clear();
     htFont3dAntialias.clear();
+    htGlyphs.clear();
+    htGlyphsAntialias.clear();
+    lruFirst = lruLast = null;
+    stringCount = stringMemory = glyphCount = glyphMemory = 0;
+  }
+
+  /**
+   * @param andReset
+   *        clear the counters
+   * @return counters and memory use, for getProperty("renderMetrics")
+   */
+  synchronized static Map<String, Object> getCacheInfo(boolean andReset) {
+    Map<String, Object> info = new Hashtable<String, Object>();
+    info.put("stringCount", Integer.valueOf(stringCount));
+    info.put("stringMemory", Integer.valueOf(stringMemory));
+    info.put("stringHits", Integer.valueOf(stringHits));
+    info.put("stringMisses", Integer.valueOf(stringMisses));
+    info.put("stringsDropped", Integer.valueOf(stringsDropped));
+    info.put("glyphCount", Integer.valueOf(glyphCount));
+    info.put("glyphMemory", Integer.valueOf(glyphMemory));
+    info.put("glyphHits", Integer.valueOf(glyphHits));
+    info.put("glyphMisses", Integer.valueOf(glyphMisses));
+    info.put("stringsComposed", Integer.valueOf(stringsComposed));
+    if (andReset)
+      stringHits = stringMisses = stringsDropped = glyphHits = glyphMisses = stringsComposed = 0;
+    return info;
   }
 
   static int plot(int x, int y, int z, int argb, int bgargb,
@@ -204,7 +278,6 @@ class TextRenderer {
   private synchronized static TextRenderer getPlotText3D(int x, int y, Graphics3D g3d,
                                                String text, Font font3d,
                                                boolean antialias) {
-    TextRenderer.working = true;
     Map<Font, Map<String, TextRenderer>> ht = (antialias ? TextRenderer.htFont3dAntialias : TextRenderer.htFont3d);
     Map<String, TextRenderer> htForThisFont = ht.get(font3d);
     TextRenderer text3d = null;
@@ -227,13 +300,234 @@ class TextRenderer {
     if (newFont)
       ht.put(font3d, htForThisFont);
     if (newText) {
-      text3d.setTranslucency(text, font3d, g3d);
+      stringMisses++;
+      if (!canCompose(text) || !text3d.compose(text, font3d, g3d, antialias))
+        text3d.setTranslucency(text, font3d, g3d);
+      text3d.text = text;
+      text3d.font = font3d;
+      text3d.antialias = antialias;
       htForThisFont.put(text, text3d);
+      stringCount++;
+      stringMemory += text3d.size + ENTRY_MEMORY;
+      text3d.setRecent();
+      while (stringMemory > MAX_STRING_MEMORY && lruLast != text3d)
+        lruLast.drop();
+    } else {
+      stringHits++;
+      text3d.setRecent();
     }
-    TextRenderer.working = false;
     return text3d;
   }
 
+  /**
+   * For testing, a string's translucency map, composed from glyphs or drawn
+   * whole, without saving it.
+   * 
+   * @param text
+   * @param font3d
+   * @param g3d
+   * @param composed
+   * @return the map, or null if it is empty or cannot be composed
+   */
+  synchronized static byte[] getTranslucencyMap(String text, Font font3d,
+                                                Graphics3D g3d,
+                                                boolean composed) {
+    TextRenderer text3d = new TextRenderer(text, font3d);
+    if (text3d.width == 0)
+      return null;
+    if (!composed)
+      text3d.setTranslucency(text, font3d, g3d);
+    else if (!canCompose(text) || !text3d.compose(text, font3d, g3d, false))
+      return null;
+    return text3d.tmap;
+  }
+
+  /**
+   * move this string to the front of the least-recently-used list
+   */
+  private void setRecent() {
+    if (lruFirst == this)
+      return;
+    if (lruPrev != null) {
+      lruPrev.lruNext = lruNext;
+      if (lruNext == null)
+        lruLast = lruPrev;
+      else
+        lruNext.lruPrev = lruPrev;
+    }
+    lruPrev = null;
+    lruNext = lruFirst;
+    if (lruFirst != null)
+      lruFirst.lruPrev = this;
+    lruFirst = this;
+    if (lruLast == null)
+      lruLast = this;
+  }
+
+  /**
+   * remove this, the least recently used string, from its font's cache
+   */
+  private void drop() {
+    lruLast = lruPrev;
+    if (lruPrev == null)
+      lruFirst = null;
+    else
+      lruPrev.lruNext = null;
+    lruPrev = null;
+    Map<String, TextRenderer> htForThisFont = (antialias ? htFont3dAntialias
+        : htFont3d).get(font);
+    if (htForThisFont != null) {
+      htForThisFont.remove(text);
+      if (htForThisFont.isEmpty())
+        (antialias ? htFont3dAntialias : htFont3d).remove(font);
+    }
+    stringCount--;
+    stringMemory -= size + ENTRY_MEMORY;
+    stringsDropped++;
+  }
+
+  /**
+   * Check that a string can be composed from separately drawn characters:
+   * Latin, Greek, Cyrillic, and general punctuation, symbols, and arrows,
+   * but not combining marks, right-to-left or shaped scripts, or surrogates.
+   * Not in JavaScript, where characters are placed at fractional positions.
+   * 
+   * @param text
+   * @return true if compose() may be used
+   */
+  private static boolean canCompose(String text) {
+    if (Viewer.isJS)
+      return false;
+    for (int i = text.length(); --i >= 0;) {
+      char c = text.charAt(i);
+      if (c < ' ' || c >= 0x300 && c < 0x370 || c >= 0x530 && c < 0x2000
+          || c >= 0x2300)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compose this string's translucency map from glyphs. This is exactly the
+   * string drawn whole only if the glyphs are placed just as they would be
+   * and no two of them put ink in the same column, as italic f and j or
+   * kerned A and V may; where they do, antialiased edges add up rather than
+   * simply being the one or the other.
+   * 
+   * @param text
+   * @param font3d
+   * @param g3d
+   * @param antialias
+   * @return false if the string must be rasterized whole instead
+   */
+  private boolean compose(String text, Font font3d, Graphics3D g3d,
+                          boolean antialias) {
+    Map<Font, Map<String, TextRenderer>> ht = (antialias ? htGlyphsAntialias
+        : htGlyphs);
+    Map<String, TextRenderer> glyphs = ht.get(font3d);
+    if (glyphs == null)
+      ht.put(font3d, glyphs = new Hashtable<String, TextRenderer>());
+    int n = text.length();
+    TextRenderer[] list = new TextRenderer[n];
+    int advance = 0;
+    for (int i = 0; i < n; i++) {
+      String c = text.substring(i, i + 1);
+      TextRenderer glyph = glyphs.get(c);
+      if (glyph == null) {
+        glyphMisses++;
+        glyph = new TextRenderer(c, font3d);
+        glyph.setGlyph(c, font3d, g3d);
+        if (glyphMemory > MAX_GLYPH_MEMORY) {
+          htGlyphs.clear();
+          htGlyphsAntialias.clear();
+          ht.put(font3d, glyphs);
+          glyphs.clear();
+          glyphCount = glyphMemory = 0;
+        }
+        glyphs.put(c, glyph);
+        glyphCount++;
+        glyphMemory += glyph.size + ENTRY_MEMORY;
+      } else {
+        glyphHits++;
+      }
+      advance += (list[i] = glyph).width;
+    }
+    if (advance != width)
+      return false;
+    for (int i = 0, xi = 0, right = Integer.MIN_VALUE;
+        i < n; xi += list[i++].width) {
+      TextRenderer glyph = list[i];
+      if (glyph.tmap == null)
+        continue;
+      if (glyph.isCut || xi + glyph.inkLeft < right)
+        return false;
+      right = Math.max(right, xi + glyph.inkRight);
+    }
+    stringsComposed++;
+    tmap = new byte[size];
+    for (int i = 0, xi = 0; i < n; xi += list[i++].width) {
+      TextRenderer glyph = list[i];
+      if (glyph.tmap == null)
+        continue;
+      // only ink within this string's map, as when drawn whole
+      int j0 = Math.max(glyph.inkLeft, -xi);
+      int j1 = Math.min(glyph.inkRight, mapWidth - xi);
+      if (j1 > j0)
+        for (int row = 0; row < height; row++)
+          System.arraycopy(glyph.tmap, row * glyph.mapWidth + glyph.x0 + j0,
+              tmap, row * mapWidth + xi + j0, j1 - j0);
+    }
+    return true;
+  }
+
+  /**
+   * Rasterize a single character for the glyph atlas, with room on both sides
+   * for any overhang into the characters next to it, and find the columns
+   * that have ink. Leading spaces give the room on the left.
+   * 
+   * @param c
+   * @param font3d
+   * @param g3d
+   */
+  private void setGlyph(String c, Font font3d, Graphics3D g3d) {
+    if (width == 0)
+      return;
+    int margin = height >> 2;
+    String spaces = "";
+    if (font3d.stringWidth(" ") > 0)
+      while ((x0 = font3d.stringWidth(spaces)) < margin)
+        spaces += " ";
+    mapWidth = x0 + width + margin;
+    size = mapWidth * height;
+    int[] pixels = g3d.apiPlatform.getTextPixels(spaces + c, font3d,
+        g3d.platform.getGraphicsForTextOrImage(mapWidth, height),
+        g3d.platform.offscreenImage, mapWidth, height, ascent);
+    if (pixels == null)
+      return;
+    tmap = new byte[size];
+    int left = mapWidth, right = 0;
+    for (int i = pixels.length; --i >= 0;) {
+      int p = pixels[i] & 0xFF;
+      if (p != 0) {
+        tmap[i] = translucency[p >> 5];
+        int col = i % mapWidth;
+        if (col < left)
+          left = col;
+        if (col >= right)
+          right = col + 1;
+      }
+    }
+    if (right == 0) {
+      // a space
+      tmap = null;
+      size = 0;
+      return;
+    }
+    inkLeft = left - x0;
+    inkRight = right - x0;
+    isCut = (left == 0 || right == mapWidth);
+  }
+
   /**
    * retrieve grey-scale pixel map from the platform, then round it off
    * 
@@ -120,6 +120,7 @@ public class TriangleRenderer extends PrecisionRenderer implements G3DRenderer {
    *==============================================================*/
 
   void fillTriangle(P3i screenA, P3i screenB, P3i screenC, boolean useGouraud) {
+    g3d.triangleCount++;
     ax[0] = screenA.x;
     ax[1] = screenB.x;
     ax[2] = screenC.x;
@@ -29,6 +29,7 @@ import javajs.util.AU;
 import javajs.util.M4d;
 import javajs.util.P3d;
 import javajs.util.P3i;
+import javajs.util.P4d;
 import javajs.util.SB;
 import javajs.util.T3d;
 import javajs.util.V3d;
@@ -40,9 +41,11 @@ import org.jmol.c.VDW;
 import javajs.util.BS;
 import org.jmol.jvxl.data.JvxlCoder;
 import org.jmol.jvxl.data.MeshData;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.ContactPair;
 import org.jmol.util.Logger;
+import org.jmol.viewer.Viewer;
 
 abstract class AtomDataReader extends VolumeDataReader {
 
@@ -495,47 +498,103 @@ abstract class AtomDataReader extends VolumeDataReader {
   protected final P3i pt1 = new P3i();
   protected final P3d ptV = new P3d();
 
+  private VoxelBlock planeBlock;
+
   protected void markSphereVoxels(double r0, double distance) {
     boolean isWithin = (distance != Double.MAX_VALUE && point != null);
-    T3d v0 = volumetricVectors[0];
-    T3d v1 = volumetricVectors[1];
-    T3d v2 = volumetricVectors[2];
+    if (isProgressive) {
+      // one plane at a time, driven by getPlane(x)
+      if (planeBlock == null)
+        planeBlock = new VoxelBlock(MARK_SPHERES, thisX, thisX + 1);
+      VoxelBlock b = planeBlock;
+      b.x0 = thisX;
+      b.x1 = thisX + 1;
+      b.bsSurface = bsSurfaceVoxels;
+      for (int iAtom = thisAtomSet.nextSetBit(0); iAtom >= 0; iAtom = thisAtomSet
+          .nextSetBit(iAtom + 1)) {
+        if (!isMarkableSphere(iAtom, isWithin, distance))
+          continue;
+        setGridLimitsForAtom(atomXyzTruncated[iAtom], atomRadius[iAtom] + r0,
+            b.pt0, b.pt1);
+        b.pt0.x = thisX;
+        b.pt1.x = thisX + 1;
+        markSphere(b, iAtom, r0, isWithin, distance);
+      }
+      return;
+    }
+    VoxelBlock[] blocks = getVoxelBlocks(MARK_SPHERES, thisAtomSet.cardinality());
     for (int iAtom = thisAtomSet.nextSetBit(0); iAtom >= 0; iAtom = thisAtomSet
         .nextSetBit(iAtom + 1)) {
-      if (!havePlane && validSpheres != null && !validSpheres.get(iAtom))
+      if (!isMarkableSphere(iAtom, isWithin, distance))
         continue;
-      boolean isSurface = (noFaceSpheres != null && noFaceSpheres.get(iAtom));
-      boolean isNearby = (iAtom >= firstNearbyAtom);
-      P3d ptA = atomXyzTruncated[iAtom];
-      double rA = atomRadius[iAtom];
-      if (isWithin && ptA.distance(point) > distance + rA + 0.5)
+      setGridLimitsForAtom(atomXyzTruncated[iAtom], atomRadius[iAtom] + r0,
+          pt0, pt1);
+      addBlockItem(blocks, iAtom, pt0, pt1);
+    }
+    for (int i = blocks.length; --i >= 0;) {
+      blocks[i].r0 = r0;
+      blocks[i].distance = distance;
+      blocks[i].isWithin = isWithin;
+    }
+    runVoxelBlocks(blocks);
+    if (bsSurfaceVoxels != null)
+      for (int i = blocks.length; --i >= 0;)
+        bsSurfaceVoxels.or(blocks[i].bsSurface);
+  }
+
+  private boolean isMarkableSphere(int iAtom, boolean isWithin, double distance) {
+    return (havePlane || validSpheres == null || validSpheres.get(iAtom))
+        && !(isWithin && atomXyzTruncated[iAtom].distance(point) > distance
+            + atomRadius[iAtom] + 0.5);
+  }
+
+  /**
+   * Mark the voxels of one sphere within one block. Limits are in b.pt0 and
+   * b.pt1; the grid is traversed from b.pt0 just as it would be for the whole
+   * volume, so voxel positions are the same regardless of how the volume is
+   * blocked.
+   * 
+   * @param b
+   * @param iAtom
+   * @param r0
+   * @param isWithin
+   * @param distance
+   */
+  private void markSphere(VoxelBlock b, int iAtom, double r0, boolean isWithin,
+                          double distance) {
+    T3d v0 = volumetricVectors[0];
+    T3d v1 = volumetricVectors[1];
+    T3d v2 = volumetricVectors[2];
+    boolean isSurface = (noFaceSpheres != null && noFaceSpheres.get(iAtom));
+    boolean isNearby = (iAtom >= firstNearbyAtom);
+    P3d ptA = atomXyzTruncated[iAtom];
+    double rA = atomRadius[iAtom];
+    double rA0 = rA + r0;
+    P3i pt0 = b.pt0;
+    P3i pt1 = b.pt1;
+    P3d ptV = b.ptV;
+    P3d ptY0 = b.ptY0;
+    P3d ptZ0 = b.ptZ0;
+    int x1 = Math.min(pt1.x, b.x1);
+    volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+    for (int i = pt0.x; i < x1; i++, ptV.add2(v0, ptY0)) {
+      ptY0.setT(ptV);
+      if (i < b.x0)
         continue;
-      double rA0 = rA + r0;
-      setGridLimitsForAtom(ptA, rA0, pt0, pt1);
-      //pt1.y = nPointsY;
-      //pt1.z = nPointsZ;
-      if (isProgressive) {
-        pt0.x = thisX;
-        pt1.x = thisX + 1;
-      }
-      volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
-      for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
-        ptY0.setT(ptV);
-        for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
-          ptZ0.setT(ptV);
-          for (int k = pt0.z; k < pt1.z; k++, ptV.add(v2)) {
-            double value = ptV.distance(ptA) - rA;
-            int ipt = volumeData.getPointIndex(i, j, k);
-            if ((r0 == 0 || value <= rA0) && value < getVoxel(i, j, k, ipt)) {
-              if (isNearby || isWithin && ptV.distance(point) > distance)
-                value = Double.NaN;
-              setVoxel(i, j, k, ipt, value);
-              if (!Double.isNaN(value)) {
-                if (voxelSource != null)
-                  voxelSource[ipt] = iAtom + 1;
-                if (value < 0 && isSurface)
-                  bsSurfaceVoxels.set(ipt);
-              }
+      for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
+        ptZ0.setT(ptV);
+        for (int k = pt0.z; k < pt1.z; k++, ptV.add(v2)) {
+          double value = ptV.distance(ptA) - rA;
+          int ipt = volumeData.getPointIndex(i, j, k);
+          if ((r0 == 0 || value <= rA0) && value < getVoxel(i, j, k, ipt)) {
+            if (isNearby || isWithin && ptV.distance(point) > distance)
+              value = Double.NaN;
+            setVoxel(i, j, k, ipt, value);
+            if (!Double.isNaN(value)) {
+              if (voxelSource != null)
+                voxelSource[ipt] = iAtom + 1;
+              if (value < 0 && isSurface)
+                b.bsSurface.set(ipt);
             }
           }
         }
@@ -543,6 +602,134 @@ abstract class AtomDataReader extends VolumeDataReader {
     }
   }
 
+  ////////////// blocked voxel marking //////////////
+  
+  // Voxel marking for the full (nonprogressive) grid is done in blocks of
+  // x-planes. A block holds a cell list -- the items (atoms, edges, faces)
+  // whose voxel limits overlap its planes, in their original order -- along
+  // with its own scratch objects. Since each voxel belongs to exactly one
+  // block and sees the same items in the same order, blocks can be filled 
+  // concurrently with exactly the same result as a single pass.
+
+  protected final static int MARK_SPHERES = 0;
+
+  protected class VoxelBlock implements Runnable {
+
+    int mode;
+    int x0, x1;
+    int nItems;
+    int[] items = new int[16];
+    int[] limits = new int[96];
+    BS bsSurface = new BS(); 
+    
+    // options
+
+    double r0, distance;
+    boolean isWithin, firstPass;
+    BS bsThisPass, bsDone;
+
+    // scratch
+
+    final P3i pt0 = new P3i();
+    final P3i pt1 = new P3i();
+    final P3d ptV = new P3d();
+    final P3d ptY0 = new P3d();
+    final P3d ptZ0 = new P3d();
+    final P3d p = new P3d();
+    final V3d vTemp = new V3d();
+    final V3d vTemp2 = new V3d();
+    final P4d plane = new P4d();
+    double rAS, rBS, rAS2, rBS2, dAB, dAB2, ecosASB2;
+
+    VoxelBlock(int mode, int x0, int x1) {
+      this.mode = mode;
+      this.x0 = x0;
+      this.x1 = x1;
+    }
+
+    void addItem(int item, P3i pt0, P3i pt1) {
+      if (nItems == items.length) {
+        items = AU.doubleLengthI(items);
+        limits = AU.doubleLengthI(limits);
+      }
+      int pt = nItems * 6;
+      limits[pt++] = pt0.x;
+      limits[pt++] = pt0.y;
+      limits[pt++] = pt0.z;
+      limits[pt++] = pt1.x;
+      limits[pt++] = pt1.y;
+      limits[pt] = pt1.z;
+      items[nItems++] = item;
+    }
+
+    /**
+     * Load item limits into pt0 and pt1.
+     * 
+     * @param i
+     * @return item
+     */
+    int getItem(int i) {
+      int pt = i * 6;
+      pt0.set(limits[pt], limits[pt + 1], limits[pt + 2]);
+      pt1.set(limits[pt + 3], limits[pt + 4], limits[pt + 5]);
+      return items[i];
+    }
+
+    @Override
+    public void run() {
+      markBlock(this);
+    }
+  }
+
+  /**
+   * Split the x-planes of the grid into as many blocks as there are processors
+   * available for the job -- just one if multiprocessing is not available.
+   * 
+   * @param mode
+   * @param nItems
+   * @return blocks
+   */
+  protected VoxelBlock[] getVoxelBlocks(int mode, int nItems) {
+    Viewer vwr = (sg.atomDataServer instanceof Viewer
+        ? (Viewer) sg.atomDataServer
+        : null);
+    int n = Math.min(ParallelTasks.getTaskCount(vwr, nPointsX, 8),
+        ParallelTasks.getTaskCount(vwr, nItems, 50));
+    VoxelBlock[] blocks = new VoxelBlock[n];
+    for (int i = 0; i < n; i++)
+      blocks[i] = new VoxelBlock(mode, nPointsX * i / n, nPointsX * (i + 1) / n);
+    return blocks;
+  }
+
+  protected static void addBlockItem(VoxelBlock[] blocks, int item, P3i pt0,
+                                     P3i pt1) {
+    for (int i = 0; i < blocks.length; i++)
+      if (pt0.x < blocks[i].x1 && pt1.x > blocks[i].x0)
+        blocks[i].addItem(item, pt0, pt1);
+  }
+
+  protected void runVoxelBlocks(VoxelBlock[] blocks) {
+    ParallelTasks.run(
+        (sg.atomDataServer instanceof Viewer ? (Viewer) sg.atomDataServer
+            : null),
+        blocks);
+  }
+
+  /**
+   * Fill one block of voxels; overridden by IsoSolventReader for faces and
+   * toroids.
+   * 
+   * @param b
+   */
+  protected void markBlock(VoxelBlock b) {
+    switch (b.mode) {
+    case MARK_SPHERES:
+      for (int i = 0; i < b.nItems; i++)
+        markSphere(b, b.getItem(i), b.r0, b.isWithin, b.distance);
+      break;
+    }
+  }
+
   protected void setVoxel(int i, int j, int k, int ipt, double value) {
     if (isProgressive)
       thisPlane[ipt % yzCount] = value;
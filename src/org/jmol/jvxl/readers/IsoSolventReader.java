@@ -36,7 +36,7 @@ import org.jmol.util.MeshSurface;
 
 import javajs.util.P3d;
 import javajs.util.MeasureD;
-//import javajs.util.P3i;
+import javajs.util.P3i;
 import javajs.util.P4d;
 import javajs.util.T3d;
 import javajs.util.V3d;
@@ -902,6 +902,9 @@ class IsoSolventReader extends AtomDataReader {
     return f;
   }
 
+  private final static int MARK_FACES = 1;
+  private final static int MARK_TOROIDS = 2;
+
   private void markFaceVoxels(boolean firstPass) {
     /*
      * We mark voxels for faces in two passes. In general,
@@ -923,14 +926,43 @@ class IsoSolventReader extends AtomDataReader {
      * 
      * In the second pass we are marking inside (-) voxels.
      * 
+     * Each block of x-planes tracks its own bsThisPass and (first pass)
+     * bsSurfaceDone voxels; these are merged when all blocks are done.
+     * 
      */
-    BS bsThisPass = new BS();
+    VoxelBlock[] blocks = getVoxelBlocks(MARK_FACES, vFaces.size());
+    for (int fi = vFaces.size(); --fi >= 0;) {
+      setGridLimitsForAtom(vFaces.get(fi).pS, sr, pt0, pt1);
+      addBlockItem(blocks, fi, pt0, pt1);
+    }
+    for (int i = blocks.length; --i >= 0;) {
+      VoxelBlock b = blocks[i];
+      b.firstPass = firstPass;
+      b.bsThisPass = new BS();
+      b.bsDone = (firstPass ? new BS() : bsSurfaceDone);
+    }
+    runVoxelBlocks(blocks);
+    for (int i = blocks.length; --i >= 0;) {
+      bsSurfaceVoxels.or(blocks[i].bsSurface);
+      if (firstPass)
+        bsSurfaceDone.or(blocks[i].bsDone);
+    }
+  }
+
+  private void markFaceBlock(VoxelBlock b) {
     T3d v0 = volumetricVectors[0];
     T3d v1 = volumetricVectors[1];
     T3d v2 = volumetricVectors[2];
-
-    for (int fi = vFaces.size(); --fi >= 0;) {
-      Face f = vFaces.get(fi);
+    boolean firstPass = b.firstPass;
+    BS bsThisPass = b.bsThisPass;
+    BS bsDone = b.bsDone;
+    P3i pt0 = b.pt0;
+    P3i pt1 = b.pt1;
+    P3d ptV = b.ptV;
+    P3d ptY0 = b.ptY0;
+    P3d ptZ0 = b.ptZ0;
+    for (int n = 0; n < b.nItems; n++) {
+      Face f = vFaces.get(b.getItem(n));
       P3d ptA = atomXyzTruncated[f.ia];
       P3d ptB = atomXyzTruncated[f.ib];
       P3d ptC = atomXyzTruncated[f.ic];
@@ -939,10 +971,12 @@ class IsoSolventReader extends AtomDataReader {
       // voxels that have already been over-written by another face.
       // If they have, we go for the more positive one (further out);
       // if not, then we go for the less positive one (further in);
-      setGridLimitsForAtom(ptS, sr, pt0, pt1);
+      int x1 = Math.min(pt1.x, b.x1);
       volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
-      for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
+      for (int i = pt0.x; i < x1; i++, ptV.add2(v0, ptY0)) {
         ptY0.setT(ptV);
+        if (i < b.x0)
+          continue;
         for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
           ptZ0.setT(ptV);
           for (int k = pt0.z; k < pt1.z; k++, ptV.add(v2)) {
@@ -952,10 +986,10 @@ class IsoSolventReader extends AtomDataReader {
             double v = voxelData[i][j][k];
             int ipt = volumeData.getPointIndex(i, j, k);
             if (firstPass && value > 0)
-              bsSurfaceDone.set(ipt);
-            if (MeasureD.isInTetrahedron(ptV, ptA, ptB, ptC, ptS, plane, vTemp,
-                vTemp2, false)) {
-              if (!firstPass ? !bsSurfaceDone.get(ipt) && value < 0
+              bsDone.set(ipt);
+            if (MeasureD.isInTetrahedron(ptV, ptA, ptB, ptC, ptS, b.plane,
+                b.vTemp, b.vTemp2, false)) {
+              if (!firstPass ? !bsDone.get(ipt) && value < 0
                   && value > -volumeData.maxGrid * 1.8d
                   && (value > v) == bsThisPass.get(ipt)
                   : (value > 0 && (v < 0 || v == Double.MAX_VALUE || (value > v) == bsThisPass
@@ -965,7 +999,7 @@ class IsoSolventReader extends AtomDataReader {
                 if (voxelSource != null)
                   voxelSource[ipt] = -1 - f.ia;
                 if (value > 0) {
-                  bsSurfaceVoxels.set(ipt);
+                  b.bsSurface.set(ipt);
                 }
               }
             }
@@ -975,6 +1009,21 @@ class IsoSolventReader extends AtomDataReader {
     }
   }
 
+  @Override
+  protected void markBlock(VoxelBlock b) {
+    switch (b.mode) {
+    case MARK_FACES:
+      markFaceBlock(b);
+      break;
+    case MARK_TOROIDS:
+      markToroidBlock(b);
+      break;
+    default:
+      super.markBlock(b);
+      break;
+    }
+  }
+
   // this test proved about 20% slower
 //  private class EdgeIterator {
 //    
@@ -1046,32 +1095,49 @@ class IsoSolventReader extends AtomDataReader {
     
     // this is the bottleneck right here:
     
-    T3d v0 = volumetricVectors[0];
-    T3d v1 = volumetricVectors[1];
-    T3d v2 = volumetricVectors[2];
+    VoxelBlock[] blocks = getVoxelBlocks(MARK_TOROIDS, vEdges.size());
     for (int ei = vEdges.size(); --ei >= 0;) {
       Edge edge = vEdges.get(ei);
       if (!edge.isValid())
         continue;
+      setGridLimitsForAtom(edge, edge.maxr, pt0, pt1);
+      addBlockItem(blocks, ei, pt0, pt1);
+    }
+    runVoxelBlocks(blocks);
+  }
+
+  private void markToroidBlock(VoxelBlock b) {
+    T3d v0 = volumetricVectors[0];
+    T3d v1 = volumetricVectors[1];
+    T3d v2 = volumetricVectors[2];
+    P3i pt0 = b.pt0;
+    P3i pt1 = b.pt1;
+    P3d ptV = b.ptV;
+    P3d ptY0 = b.ptY0;
+    P3d ptZ0 = b.ptZ0;
+    for (int n = 0; n < b.nItems; n++) {
+      Edge edge = vEdges.get(b.getItem(n));
       int ia = edge.ia;
       int ib = edge.ib;
       P3d ptA = atomXyzTruncated[ia];
       P3d ptB = atomXyzTruncated[ib];
-      rAS = rs[ia];
-      rBS = rs[ib];
-      rAS2 = rs2[ia];//rAS * rAS;
-      rBS2 = rs2[ib];//rBS * rBS;
-      dAB = edge.d;
-      dAB2 = edge.d2;
-      ecosASB2 = edge.cosASB2;
-      setGridLimitsForAtom(edge, edge.maxr, pt0, pt1);
+      b.rAS = rs[ia];
+      b.rBS = rs[ib];
+      b.rAS2 = rs2[ia];//rAS * rAS;
+      b.rBS2 = rs2[ib];//rBS * rBS;
+      b.dAB = edge.d;
+      b.dAB2 = edge.d2;
+      b.ecosASB2 = edge.cosASB2;
+      int x1 = Math.min(pt1.x, b.x1);
       volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
-      for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
+      for (int i = pt0.x; i < x1; i++, ptV.add2(v0, ptY0)) {
         ptY0.setT(ptV);
+        if (i < b.x0)
+          continue;
         for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
           ptZ0.setT(ptV);
           for (int k = pt0.z; k < pt1.z; k++, ptV.add(v2)) {
-            double dVS = checkSpecialVoxel(ptA, ptB, ptV);
+            double dVS = checkSpecialVoxel(b, ptA, ptB, ptV);
             if (Double.isNaN(dVS))
               continue;
             double value = sr - dVS;
@@ -1190,7 +1256,7 @@ class IsoSolventReader extends AtomDataReader {
   //    }
   //  }
   //
-  private double checkSpecialVoxel(P3d ptA, P3d ptB, P3d ptV) {
+  private double checkSpecialVoxel(VoxelBlock b, P3d ptA, P3d ptB, P3d ptV) {
     /*
      * Checking here for voxels that are in the situation:
      * 
@@ -1248,6 +1314,11 @@ class IsoSolventReader extends AtomDataReader {
      * (solvent radius - dVS).
      * 
      */
+    double rAS = b.rAS;
+    double rBS = b.rBS;
+    double rAS2 = b.rAS2;
+    double rBS2 = b.rBS2;
+    P3d p = b.p;
     double dAV = ptA.distance(ptV);
     double dAV2 = ptA.distanceSquared(ptV);
     double f = rAS / dAV;
@@ -1259,7 +1330,7 @@ class IsoSolventReader extends AtomDataReader {
       // If the distance of this point to B is less than the distance
       // of S to B, then we need to check this point
       // to see if we are somewhere in the arc SAB, within the solvent sphere of A
-      return (ptB.distanceSquared(p) >= rBS2 ? Double.NaN : solventDistance(rAS,
+      return (ptB.distanceSquared(p) >= rBS2 ? Double.NaN : solventDistance(b, rAS,
           rAS2, rBS2, dAV, dAV2, ptB.distanceSquared(ptV)));
     }
     double dBV = ptB.distance(ptV);
@@ -1267,16 +1338,13 @@ class IsoSolventReader extends AtomDataReader {
       // calculate point on solvent sphere bbbb projected through ptV
       p.set(ptB.x + (ptV.x - ptB.x) * f, ptB.y + (ptV.y - ptB.y) * f, ptB.z
           + (ptV.z - ptB.z) * f);
-      return (ptA.distanceSquared(p) >= rAS2 ? Double.NaN : solventDistance(rBS,
+      return (ptA.distanceSquared(p) >= rAS2 ? Double.NaN : solventDistance(b, rBS,
           rBS2, rAS2, dBV, dBV * dBV, dAV2));
     }
     // not within solvent sphere of A or B
     return Double.NaN;
   }
 
-  private double rAS, rBS, rAS2, rBS2, dAB, dAB2;
-  private double ecosASB2;
-  
   /*
    *         S
    *        /|\
@@ -1287,14 +1355,17 @@ class IsoSolventReader extends AtomDataReader {
    *   A           B
    * 
    */
-  private double solventDistance(double rAS, double rAS2, double rBS2, double dAV,
-                                  double dAV2, double dBV2) {
+  private double solventDistance(VoxelBlock b, double rAS, double rAS2,
+                                 double rBS2, double dAV, double dAV2,
+                                 double dBV2) {
+    double dAB = b.dAB;
+    double dAB2 = b.dAB2;
     double angleVAB = Math.acos((dAV2 + dAB2 - dBV2) / (2 * dAV * dAB));
     double angleSAB = Math.acos((rAS2 + dAB2 - rBS2) / (2 * rAS * dAB));
     double dVS2 = (rAS2 + dAV2 - 2 * rAS * dAV * Math.cos(angleSAB - angleVAB));
     double dVS = Math.sqrt(dVS2);
     // check for voxel in trough
-    return (ecosASB2 < (rAS2 + dVS2 - dAV * dAV) / (dVS * rAS) ? (double) dVS : Double.NaN);
+    return (b.ecosASB2 < (rAS2 + dVS2 - dAV * dAV) / (dVS * rAS) ? (double) dVS : Double.NaN);
   }
 
   ///////////////// debugging ////////////////
@@ -717,6 +717,7 @@ public class Minimizer {
         if (bsFixed == null || !bsFixed.get(minAtom.atom.i))
           minAtom.atom.set(minAtom.coord[0], minAtom.coord[1], minAtom.coord[2]);
       }
+      vwr.ms.validateBspf(false);
       isEnd = true;
     } else {
       Atom a;
@@ -41,6 +41,7 @@ import org.jmol.util.BSUtil;
 import org.jmol.util.Elements;
 import org.jmol.util.Escape;
 import org.jmol.util.Logger;
+import org.jmol.util.StartupProfile;
 import org.jmol.viewer.JmolAsyncException;
 
 import javajs.util.AU;
@@ -285,6 +286,7 @@ public class ForceFieldMMFF extends ForceField {
   private final static int[] types = {0, TYPE_PBCI, TYPE_CHRG, TYPE_ANGLE, TYPE_BNDK, TYPE_BOND, TYPE_OOP, TYPE_SB, TYPE_SBDEF, TYPE_TORSION, TYPE_VDW };
 
   protected Map<Object, Object> getParameters(boolean isQuick) throws JmolAsyncException {
+    long t = StartupProfile.start();
     getAtomTypes();
     String resourceName = (isQuick ? "mmff94_2d.par.txt" : "mmff94.par.txt");
 
@@ -316,6 +318,7 @@ public class ForceFieldMMFF extends ForceField {
         //ignore
       }
     }
+    StartupProfile.end(resourceName, t);
     return data;
   }
 
@@ -476,6 +479,7 @@ public class ForceFieldMMFF extends ForceField {
   }
 
   private void getAtomTypes() throws JmolAsyncException {
+    long t = StartupProfile.start();
     String resourceName = "MMFF94-smarts.txt";
     Lst<AtomType> types = new  Lst<AtomType>();
     try {
@@ -513,6 +517,7 @@ public class ForceFieldMMFF extends ForceField {
     }
     Logger.info((types.size()-1) + " SMARTS-based atom types read");
     atomTypes = types;
+    StartupProfile.end(resourceName, t);
 
   }
   
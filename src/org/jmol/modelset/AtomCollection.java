@@ -48,6 +48,7 @@ import org.jmol.util.BSUtil;
 import org.jmol.util.Elements;
 import org.jmol.util.GData;
 import org.jmol.util.Logger;
+import org.jmol.util.NameDictionary;
 import org.jmol.util.Parser;
 import org.jmol.util.Tensor;
 import org.jmol.util.Vibration;
@@ -123,6 +124,14 @@ abstract public class AtomCollection {
    */
   protected Bspf bspf = null;
 
+  /**
+   * Coordinate versions, for saved within() results. Any change that
+   * invalidates a model's bspt increments its version; any change that
+   * invalidates the whole forest increments coordVersion.
+   */
+  int coordVersion;
+  private int[] modelCoordVersions = new int[0];
+
   protected boolean preserveState = true;
   public boolean canSkipLoad = true;
 
@@ -191,6 +200,11 @@ abstract public class AtomCollection {
   
 
   String[] atomNames;
+  /**
+   * set by ModelLoader only while a file is being loaded, so that each
+   * distinct atom name is interned just once per load
+   */
+  NameDictionary loadNames;
   String[] atomTypes;
   // String[] chainIDs; not necessary, as there is a place for this already in atom.group.chain
   int[] atomSerials;
@@ -1123,12 +1137,31 @@ abstract public class AtomCollection {
   public void validateBspf(boolean isValid) {
     if (bspf != null)
       bspf.isValid = isValid;
+    if (!isValid)
+      coordVersion++;
     //averageAtomPoint = null;
   }
 
   void validateBspfForModel(int modelIndex, boolean isValid) {
     if (bspf != null)
       bspf.validateModel(modelIndex, isValid);
+    if (!isValid) {
+      if (modelIndex >= modelCoordVersions.length)
+        modelCoordVersions = AU.arrayCopyI(modelCoordVersions, modelIndex + 1);
+      modelCoordVersions[modelIndex]++;
+    }
+  }
+
+  /**
+   * @param modelIndex
+   *        a trajectory base model index
+   * @return a number that changes whenever coordinates of this model may have
+   *         changed
+   */
+  int getCoordVersion(int modelIndex) {
+    return coordVersion
+        + (modelIndex < modelCoordVersions.length ? modelCoordVersions[modelIndex]
+            : 0);
   }
 
   // state tainting
@@ -178,8 +178,7 @@ abstract public class BondCollection extends AtomCollection {
       }
     } else {
       if (bondCount == bo.length)
-        bo = (Bond[]) AU.arrayCopyObject(bo, bondCount
-            + BOND_GROWTH_INCREMENT);
+        growBonds();
       i = setBond(bondCount++,
           bondMutually(atom, atomOther, order, mad, energy)).index;
     }
@@ -240,11 +239,20 @@ abstract public class BondCollection extends AtomCollection {
 
   ////// bonding methods //////
 
+  /**
+   * Grow bo by half, not by a fixed increment, so that autobonding a large
+   * structure does not copy the array once for every 250 bonds. The array is
+   * trimmed after loading.
+   */
+  void growBonds() {
+    bo = (Bond[]) AU.arrayCopyObject(bo,
+        bondCount + Math.max(BOND_GROWTH_INCREMENT, bondCount >> 1));
+  }
+
   public int addHBond(Atom atom1, Atom atom2, int order, double energy) {
     // from autoHbond and BioModel.getRasmolHydrogenBonds
     if (bondCount == bo.length)
-      bo = (Bond[]) AU.arrayCopyObject(bo, bondCount
-          + BOND_GROWTH_INCREMENT);
+      growBonds();
     return setBond(bondCount++, bondMutually(atom1, atom2, order, (short) 1,
         energy)).index;
   }
@@ -23,6 +23,8 @@
  */
 package org.jmol.modelset;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
 
 import javajs.util.Lst;
@@ -30,6 +32,7 @@ import javajs.util.Lst;
 
 import org.jmol.api.JmolMeasurementClient;
 import org.jmol.atomdata.RadiusData;
+import org.jmol.atomdata.RadiusData.EnumType;
 import javajs.util.BS;
 import org.jmol.script.T;
 import org.jmol.util.BSUtil;
@@ -75,6 +78,19 @@ public class MeasurementData implements JmolMeasurementClient {
   
   private boolean allowSelf; // for properties
   
+  /**
+   * distances between two sets of atoms with fewer possible pairs than this
+   * are simply checked one by one
+   */
+  private final static int MIN_BULK_PAIRS = 1000;
+  
+  /**
+   * Set by a client that acts on its existing measurements whatever their
+   * value, as Measures does when showing or hiding them. Pairs of atoms
+   * matching these are always passed to it, even by defineBulk().
+   */
+  public Lst<Measurement> clientMeasurements;
+  
   
   
   public MeasurementData() {
@@ -238,9 +254,143 @@ public class MeasurementData implements JmolMeasurementClient {
         indices[i + 1] = -2 - i; 
       }
     }
+    if (nPoints == 2 && ptLastAtom == 1 && pts[0] == null
+        && defineBulk(modelSet, m, modelIndex >= 0 && justOneModel))
+      return;
     nextMeasure(0, ptLastAtom, m, modelIndex);
   }
 
+  /**
+   * Distances between two sets of atoms with an upper limit, as for MEASURE
+   * 2.0 4.0 {ligand} {protein}: MeasurementEngine finds the pairs that might
+   * be in range, and just those are checked, in the same order as by
+   * nextMeasure().
+   * 
+   * @param modelSet
+   * @param m
+   * @param sameModel
+   * @return false if the pairs must be checked one by one
+   */
+  private boolean defineBulk(ModelSet modelSet, Measurement m,
+                             boolean sameModel) {
+    if (property != null || !Double.isNaN(fixedValue) || radiusData == null
+        || client != this && clientMeasurements == null)
+      return false;
+    BS bs0 = (BS) points.get(0);
+    BS bs1 = (BS) points.get(1);
+    int n1 = bs1.cardinality();
+    if ((double) bs0.cardinality() * n1 < MIN_BULK_PAIRS)
+      return false;
+    double dmax = getMaxDistance(bs0, bs1);
+    if (dmax == Double.MAX_VALUE)
+      return false;
+    // When an atom of the first set has no possible partner at all in the
+    // second set, nextMeasure() still goes on to checkMeasure(), with
+    // indices[2] left as it was -- the last partner of an earlier atom, or
+    // whatever define() put there. That stale pair may even be measured, so
+    // that case is left to nextMeasure().
+    int[] nModel = null;
+    if (sameModel) {
+      nModel = new int[modelSet.mc];
+      for (int j = bs1.nextSetBit(0); j >= 0; j = bs1.nextSetBit(j + 1))
+        nModel[atoms[j].mi]++;
+    }
+    for (int i = bs0.nextSetBit(0); i >= 0; i = bs0.nextSetBit(i + 1))
+      if ((sameModel ? nModel[atoms[i].mi] : n1)
+          - (!allowSelf && bs1.get(i) ? 1 : 0) == 0)
+        return false;
+    int[][] pairs = new MeasurementEngine(modelSet).getPairs(bs0, bs1, dmax,
+        sameModel, allowSelf);
+    int[][] clientPairs = getClientPairs(bs0, bs1, sameModel);
+    int[] indices = m.countPlusIndices;
+    for (int i = bs0.nextSetBit(0), p = 0, q = 0; i >= 0; i = bs0
+        .nextSetBit(i + 1), p++) {
+      int[] list = pairs[p];
+      if (clientPairs != null && q < clientPairs.length
+          && clientPairs[q][0] == i) {
+        BS bs = new BS();
+        if (list != null)
+          for (int k = list.length; --k >= 0;)
+            bs.set(list[k]);
+        for (; q < clientPairs.length && clientPairs[q][0] == i; q++)
+          bs.set(clientPairs[q][1]);
+        list = new int[bs.cardinality()];
+        for (int j = bs.nextSetBit(0), k = 0; j >= 0; j = bs.nextSetBit(j + 1))
+          list[k++] = j;
+      }
+      if (list == null)
+        continue;
+      iFirstAtom = p;
+      indices[1] = i;
+      for (int k = 0; k < list.length; k++) {
+        indices[2] = list[k];
+        checkMeasure(2, m);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param bs0
+   * @param bs1
+   * @return the largest distance radiusData allows, or Double.MAX_VALUE
+   */
+  private double getMaxDistance(BS bs0, BS bs1) {
+    if (radiusData.factorType == EnumType.FACTOR) {
+      double r0 = 0, r1 = 0;
+      for (int i = bs0.nextSetBit(0); i >= 0; i = bs0.nextSetBit(i + 1))
+        r0 = Math.max(r0, atoms[i].getVanderwaalsRadiusFloat(vwr,
+            radiusData.vdwType));
+      for (int i = bs1.nextSetBit(0); i >= 0; i = bs1.nextSetBit(i + 1))
+        r1 = Math.max(r1, atoms[i].getVanderwaalsRadiusFloat(vwr,
+            radiusData.vdwType));
+      double d = (r0 + r1) * radiusData.value;
+      return (d >= 0 ? d : Double.MAX_VALUE);
+    }
+    double[] v = radiusData.values;
+    return (v == null || v[0] == Double.MAX_VALUE || !(v[1] < Double.MAX_VALUE) ? Double.MAX_VALUE
+        : v[1]);
+  }
+
+  /**
+   * @param bs0
+   * @param bs1
+   * @param sameModel
+   * @return {i, j} for each of clientMeasurements that nextMeasure() would
+   *         consider, sorted, or null
+   */
+  private int[][] getClientPairs(BS bs0, BS bs1, boolean sameModel) {
+    if (clientMeasurements == null)
+      return null;
+    Lst<int[]> list = new Lst<int[]>();
+    for (int k = clientMeasurements.size(); --k >= 0;) {
+      Measurement cm = clientMeasurements.get(k);
+      if (cm.count != 2)
+        continue;
+      int a = cm.countPlusIndices[1];
+      int b = cm.countPlusIndices[2];
+      if (a < 0 || b < 0 || a == b && !allowSelf || sameModel
+          && atoms[a].mi != atoms[b].mi)
+        continue;
+      if (bs0.get(a) && bs1.get(b))
+        list.addLast(new int[] { a, b });
+      if (bs0.get(b) && bs1.get(a))
+        list.addLast(new int[] { b, a });
+    }
+    if (list.size() == 0)
+      return null;
+    int[][] pairs = new int[list.size()][];
+    list.toArray(pairs);
+    Arrays.sort(pairs, new Comparator<int[]>() {
+      @Override
+      public int compare(int[] p1, int[] p2) {
+        return (p1[0] != p2[0] ? (p1[0] < p2[0] ? -1 : 1)
+            : p1[1] < p2[1] ? -1 : p1[1] > p2[1] ? 1 : 0);
+      }
+    });
+    return pairs;
+  }
+
   /**
    * iterator for measurements
    * 
@@ -251,12 +401,7 @@ public class MeasurementData implements JmolMeasurementClient {
    */
   private void nextMeasure(int thispt, int ptLastAtom, Measurement m, int thisModel ) {
     if (thispt > ptLastAtom) {
-      if ((allowSelf && !mustBeConnected && !mustNotBeConnected || m.isValid()) 
-          && (!mustBeConnected || m.isConnected(atoms, thispt))
-          && (!mustNotBeConnected || !m.isConnected(atoms, thispt))
-          && (intramolecular == null || m.isIntramolecular(atoms, thispt) == intramolecular.booleanValue())
-          )
-        client.processNextMeasure(this, m);
+      checkMeasure(thispt, m);
       return;
     }
     BS bs = (BS) points.get(thispt);
@@ -286,6 +431,21 @@ public class MeasurementData implements JmolMeasurementClient {
     if (!haveNext)
       nextMeasure(thispt + 1, ptLastAtom, m, thisModel);
   }
+
+  /**
+   * pass a complete set of points to the client if it is acceptable
+   * 
+   * @param count
+   * @param m
+   */
+  private void checkMeasure(int count, Measurement m) {
+    if ((allowSelf && !mustBeConnected && !mustNotBeConnected || m.isValid()) 
+        && (!mustBeConnected || m.isConnected(atoms, count))
+        && (!mustNotBeConnected || !m.isConnected(atoms, count))
+        && (intramolecular == null || m.isIntramolecular(atoms, count) == intramolecular.booleanValue())
+        )
+      client.processNextMeasure(this, m);
+  }
     
 }
 
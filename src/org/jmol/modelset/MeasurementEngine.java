@@ -0,0 +1,273 @@
+package org.jmol.modelset;
+
+import java.util.Arrays;
+
+import javajs.util.BS;
+
+import org.jmol.thread.ParallelTasks;
+
+/**
+ * Candidate atom pairs for distance measurements between two sets of atoms
+ * with an upper limit, as for MEASURE 2.0 4.0 {ligand} {protein} and
+ * measure({ligand}, {protein}, 0, 4.0), for MeasurementData.define().
+ *
+ * Rather than visiting every atom of the second set for each atom of the
+ * first -- all of them, in every model, for a long trajectory -- the second
+ * set is binned into a grid of cells one distance on a side, one grid per
+ * model when measurements must stay within a model, and each atom of the
+ * first set checks just the cells it can reach. Grids are built in parallel
+ * by model, and the first set is searched in parallel blocks.
+ *
+ * The result is one sorted int array of partner atoms for each atom of the
+ * first set, so that MeasurementData can make all of its usual checks and
+ * callbacks, in the usual order, for just those pairs. The distance test here
+ * is slightly generous; the exact test remains the client's.
+ *
+ */
+class MeasurementEngine {
+
+  private final static int MIN_ATOMS_PER_TASK = 2000;
+  private final static int MIN_CELLS = 64;
+
+  private ModelSet ms;
+  private double d, d2;
+  private boolean sameModel, allowSelf;
+
+  /**
+   * atoms of the second set, by group (model, or just 0), each group in order
+   */
+  private int[] list1;
+  private int[] groupStart;
+  private Grid[] grids;
+
+  MeasurementEngine(ModelSet ms) {
+    this.ms = ms;
+  }
+
+  /**
+   * @param bs0
+   *        the first atoms
+   * @param bs1
+   *        the second atoms
+   * @param distance
+   *        the largest distance of interest
+   * @param sameModel
+   *        pair only atoms in the same model
+   * @param allowSelf
+   *        pair atoms with themselves
+   * @return for each atom of bs0, in order, the atoms of bs1 within about
+   *         distance of it, in order
+   */
+  int[][] getPairs(BS bs0, BS bs1, double distance, boolean sameModel,
+                   boolean allowSelf) {
+    Atom[] at = ms.at;
+    // a little extra, so that rounding here never loses a pair that
+    // Measurement.getMeasurement() would find in range
+    d = distance * 1.000001 + 1e-6;
+    d2 = d * d;
+    this.sameModel = sameModel;
+    this.allowSelf = allowSelf;
+    int nGroups = (sameModel ? ms.mc : 1);
+    groupStart = new int[nGroups + 1];
+    int n1 = 0;
+    for (int i = bs1.nextSetBit(0); i >= 0; i = bs1.nextSetBit(i + 1), n1++)
+      groupStart[(sameModel ? at[i].mi : 0) + 1]++;
+    for (int g = 0; g < nGroups; g++)
+      groupStart[g + 1] += groupStart[g];
+    list1 = new int[n1];
+    int[] pt = new int[nGroups];
+    for (int i = bs1.nextSetBit(0); i >= 0; i = bs1.nextSetBit(i + 1)) {
+      int g = (sameModel ? at[i].mi : 0);
+      list1[groupStart[g] + pt[g]++] = i;
+    }
+    int n0 = bs0.cardinality();
+    int[] list0 = new int[n0];
+    BS bsGroups = new BS();
+    for (int i = bs0.nextSetBit(0), p = 0; i >= 0; i = bs0.nextSetBit(i + 1), p++) {
+      list0[p] = i;
+      int g = (sameModel ? at[i].mi : 0);
+      if (groupStart[g + 1] > groupStart[g])
+        bsGroups.set(g);
+    }
+    grids = new Grid[nGroups];
+    int[] groups = new int[bsGroups.cardinality()];
+    for (int g = bsGroups.nextSetBit(0), p = 0; g >= 0; g = bsGroups
+        .nextSetBit(g + 1), p++)
+      groups[p] = g;
+    int nTasks = Math.min(groups.length, ParallelTasks.getTaskCount(ms.vwr,
+        n1, MIN_ATOMS_PER_TASK));
+    GridTask[] gridTasks = new GridTask[nTasks];
+    for (int i = 0; i < nTasks; i++)
+      gridTasks[i] = new GridTask(groups, i, nTasks);
+    ParallelTasks.run(ms.vwr, gridTasks);
+    int[][] pairs = new int[n0][];
+    nTasks = ParallelTasks.getTaskCount(ms.vwr, n0, MIN_ATOMS_PER_TASK / 20);
+    SearchTask[] searchTasks = new SearchTask[nTasks];
+    for (int i = 0; i < nTasks; i++)
+      searchTasks[i] = new SearchTask(list0, pairs, n0 * i / nTasks, n0
+          * (i + 1) / nTasks);
+    ParallelTasks.run(ms.vwr, searchTasks);
+    list1 = null;
+    grids = null;
+    return pairs;
+  }
+
+  /**
+   * The atoms of one group of the second set, in cells.
+   */
+  private class Grid {
+
+    double x0, y0, z0, cs;
+    int nx, ny, nz;
+    int[] cellFirst;
+    /**
+     * by position in the group
+     */
+    int[] cellNext;
+    double[] xyz;
+
+    Grid(int g) {
+      Atom[] at = ms.at;
+      int p0 = groupStart[g];
+      int n = groupStart[g + 1] - p0;
+      xyz = new double[n * 3];
+      double x1, y1, z1;
+      x0 = y0 = z0 = Double.MAX_VALUE;
+      x1 = y1 = z1 = -Double.MAX_VALUE;
+      for (int j = 0; j < n; j++) {
+        Atom a = at[list1[p0 + j]];
+        double x = xyz[j * 3] = a.x;
+        double y = xyz[j * 3 + 1] = a.y;
+        double z = xyz[j * 3 + 2] = a.z;
+        if (x < x0)
+          x0 = x;
+        if (x > x1)
+          x1 = x;
+        if (y < y0)
+          y0 = y;
+        if (y > y1)
+          y1 = y;
+        if (z < z0)
+          z0 = z;
+        if (z > z1)
+          z1 = z;
+      }
+      // cells at least one distance on a side, but not too many of them
+      cs = d;
+      int maxCells = Math.max(8 * n, MIN_CELLS);
+      while (true) {
+        nx = (int) ((x1 - x0) / cs) + 1;
+        ny = (int) ((y1 - y0) / cs) + 1;
+        nz = (int) ((z1 - z0) / cs) + 1;
+        if ((double) nx * ny * nz <= maxCells)
+          break;
+        cs *= 2;
+      }
+      int nCells = nx * ny * nz;
+      cellFirst = new int[nCells];
+      cellNext = new int[n];
+      for (int c = nCells; --c >= 0;)
+        cellFirst[c] = -1;
+      for (int j = n; --j >= 0;) {
+        int c = ((int) ((xyz[j * 3] - x0) / cs) * ny + (int) ((xyz[j * 3 + 1] - y0) / cs))
+            * nz + (int) ((xyz[j * 3 + 2] - z0) / cs);
+        cellNext[j] = cellFirst[c];
+        cellFirst[c] = j;
+      }
+    }
+
+    /**
+     * @param a
+     * @param found
+     *        buffer for the atoms found
+     * @return the atoms of this group within d of a, in order, or null for
+     *         none
+     */
+    int[] search(Atom a, int[] found) {
+      double x = a.x, y = a.y, z = a.z;
+      int ix0 = Math.max(0, (int) Math.floor((x - d - x0) / cs));
+      int ix1 = Math.min(nx - 1, (int) Math.floor((x + d - x0) / cs));
+      int iy0 = Math.max(0, (int) Math.floor((y - d - y0) / cs));
+      int iy1 = Math.min(ny - 1, (int) Math.floor((y + d - y0) / cs));
+      int iz0 = Math.max(0, (int) Math.floor((z - d - z0) / cs));
+      int iz1 = Math.min(nz - 1, (int) Math.floor((z + d - z0) / cs));
+      int p0 = groupStart[sameModel ? a.mi : 0];
+      int n = 0;
+      for (int ix = ix0; ix <= ix1; ix++)
+        for (int iy = iy0; iy <= iy1; iy++)
+          for (int iz = iz0; iz <= iz1; iz++)
+            for (int j = cellFirst[(ix * ny + iy) * nz + iz]; j >= 0; j = cellNext[j]) {
+              double dx = x - xyz[j * 3];
+              double dy = y - xyz[j * 3 + 1];
+              double dz = z - xyz[j * 3 + 2];
+              if (dx * dx + dy * dy + dz * dz > d2)
+                continue;
+              int k = list1[p0 + j];
+              if (k == a.i && !allowSelf)
+                continue;
+              found[n++] = k;
+            }
+      if (n == 0)
+        return null;
+      int[] atoms = new int[n];
+      System.arraycopy(found, 0, atoms, 0, n);
+      Arrays.sort(atoms);
+      return atoms;
+    }
+  }
+
+  /**
+   * Grids for groups i, i + n, i + 2n, ...
+   */
+  private class GridTask implements Runnable {
+
+    private int[] groups;
+    private int i0, di;
+
+    GridTask(int[] groups, int i0, int di) {
+      this.groups = groups;
+      this.i0 = i0;
+      this.di = di;
+    }
+
+    @Override
+    public void run() {
+      for (int p = i0; p < groups.length; p += di)
+        grids[groups[p]] = new Grid(groups[p]);
+    }
+  }
+
+  /**
+   * Atoms p0 through p1 - 1 of the first set.
+   */
+  private class SearchTask implements Runnable {
+
+    private int[] list0;
+    private int[][] pairs;
+    private int p0, p1;
+
+    SearchTask(int[] list0, int[][] pairs, int p0, int p1) {
+      this.list0 = list0;
+      this.pairs = pairs;
+      this.p0 = p0;
+      this.p1 = p1;
+    }
+
+    @Override
+    public void run() {
+      Atom[] at = ms.at;
+      int[] found = null;
+      for (int p = p0; p < p1; p++) {
+        Atom a = at[list0[p]];
+        int g = (sameModel ? a.mi : 0);
+        Grid grid = grids[g];
+        if (grid == null)
+          continue;
+        if (found == null || found.length < grid.cellNext.length)
+          found = new int[grid.cellNext.length];
+        pairs[p] = grid.search(a, found);
+      }
+    }
+  }
+
+}
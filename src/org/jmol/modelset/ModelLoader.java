@@ -47,8 +47,10 @@ import org.jmol.symmetry.Symmetry;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Edge;
 import org.jmol.util.Elements;
+import org.jmol.util.Int2ObjHash;
 import org.jmol.util.JmolMolecule;
 import org.jmol.util.Logger;
+import org.jmol.util.NameDictionary;
 import org.jmol.viewer.JC;
 import org.jmol.viewer.Viewer;
 
@@ -238,7 +240,18 @@ public final class ModelLoader {
     return ((Trajectory) Interface.getInterface("org.jmol.modelset.Trajectory", vwr, "load")).set(vwr, ms, steps);
   }
 
-  private final Map<Object, Atom> htAtomMap = new Hashtable<Object, Atom>();
+  /**
+   * atoms by adapter unique ID, for bonding; the SmarterJmolAdapter uses
+   * Integer indexes, which go into htAtomMap without Hashtable entries;
+   * anything else goes into htAtomMapObj
+   */
+  private Int2ObjHash<Atom> htAtomMap;
+  private Map<Object, Atom> htAtomMapObj;
+
+  /**
+   * chains of the current model by chain ID
+   */
+  private Int2ObjHash<Chain> htChains = new Int2ObjHash<Chain>(16);
 
   private final static int defaultGroupCount = 32;
   private Chain[] chainOf;
@@ -296,7 +309,8 @@ public final class ModelLoader {
     appendToModelIndex = (ms.msInfo == null ? null : ((Integer) ms.msInfo.get("appendToModelIndex")));
     appendNew = !isMutate && (!merging || adapter == null || adapterModelCount > 1
         || isTrajectory || vwr.getBoolean(T.appendnew) && appendToModelIndex == null);
-    htAtomMap.clear();
+    htAtomMap = null;
+    htAtomMapObj = null;
     chainOf = new Chain[defaultGroupCount];
     group3Of = new String[defaultGroupCount];
     seqcodes = new int[defaultGroupCount];
@@ -805,6 +819,9 @@ public final class ModelLoader {
     if (ms.mc > 0)
       nullGroup = new Group().setGroup(new Chain(ms.am[baseModelIndex], 32, 0),
           "", 0, -1, -1);
+    if (haveBonds)
+      htAtomMap = new Int2ObjHash<Atom>(nAtoms);
+    ms.loadNames = new NameDictionary(256);
     while (iterAtom.hasNext()) {
       nRead++;
       int modelIndex = iterAtom.getAtomSetIndex() + baseModelIndex;
@@ -818,6 +835,9 @@ public final class ModelLoader {
         }
         currentChainID = Integer.MAX_VALUE;
         isNewChain = true;
+        htChains.clear();
+        for (int i = model.chainCount; --i >= 0;)
+          htChains.put(model.chains[i].chainID, model.chains[i]);
         // set the internal array for model.bsAtoms to be large enough
         mbs.set(ms.ac + nAtoms);
         mbs.clearAll();
@@ -839,7 +859,7 @@ public final class ModelLoader {
       int charge = (addH ? getPdbCharge(group3, name) : iterAtom.getFormalCharge());
       Atom atom = addAtom(isPdbThisModel, iterAtom, name, isotope, siteBase, charge, group3); 
       if (haveBonds)
-        htAtomMap.put(iterAtom.getUniqueID(), atom);
+        mapAtom(iterAtom.getUniqueID(), atom);
     }
     if (groupCount > 0 && addH) {
       jbr.addImplicitHydrogenAtoms(adapter, groupCount - 1,
@@ -985,7 +1005,7 @@ public final class ModelLoader {
       currentGroup3 = "xxxx";
       isNewChain = true;
     }
-    String group3i = (group3 == null ? null : group3.intern());
+    String group3i = ms.loadNames.intern(group3);
     if (groupSequenceNumber != currentGroupSequenceNumber
         || groupInsertionCode != currentGroupInsertionCode
         || group3i != currentGroup3) {
@@ -1013,12 +1033,30 @@ public final class ModelLoader {
 
   private Chain getOrAllocateChain(Model model, int chainID) {
     //Logger.debug("chainID=" + chainID + " -> " + (chainID + 0));
-    Chain chain = model.getChain(chainID);
+    Chain chain = htChains.get(chainID);
     if (chain != null)
       return chain;
     if (model.chainCount == model.chains.length)
       model.chains = (model.chainCount == 0 ? new Chain[2] : (Chain[])AU.doubleLength(model.chains));
-    return model.chains[model.chainCount++] = new Chain(model, chainID, (chainID == 0 || chainID == 32 ? 0 : ++iChain));
+    chain = model.chains[model.chainCount++] = new Chain(model, chainID, (chainID == 0 || chainID == 32 ? 0 : ++iChain));
+    htChains.put(chainID, chain);
+    return chain;
+  }
+
+  private void mapAtom(Object atomUid, Atom atom) {
+    if (atomUid instanceof Integer) {
+      htAtomMap.put(((Integer) atomUid).intValue(), atom);
+    } else {
+      if (htAtomMapObj == null)
+        htAtomMapObj = new Hashtable<Object, Atom>();
+      htAtomMapObj.put(atomUid, atom);
+    }
+  }
+
+  private Atom getMappedAtom(Object atomUid) {
+    return (atomUid instanceof Integer
+        ? htAtomMap.get(((Integer) atomUid).intValue())
+        : htAtomMapObj == null ? null : htAtomMapObj.get(atomUid));
   }
 
   private void iterateOverAllNewBonds(JmolAdapterBondIterator iterBond) {
@@ -1053,12 +1091,12 @@ public final class ModelLoader {
   private int lastModel = -1;
   
   private Bond bondAtoms(Object atomUid1, Object atomUid2, short order) {
-    Atom atom1 = htAtomMap.get(atomUid1);
+    Atom atom1 = getMappedAtom(atomUid1);
     if (atom1 == null) {
       Logger.error("bondAtoms cannot find atomUid1?:" + atomUid1);
       return null;
     }
-    Atom atom2 = htAtomMap.get(atomUid2);
+    Atom atom2 = getMappedAtom(atomUid2);
     if (atom2 == null) {
       Logger.error("bondAtoms cannot find atomUid2?:" + atomUid2);
       return null;
@@ -1093,10 +1131,8 @@ public final class ModelLoader {
         ms.someModelsHaveAromaticBonds = true;
       }
     }
-    if (ms.bondCount == ms.bo.length) {
-      ms.bo = (Bond[]) AU.arrayCopyObject(ms.bo,
-          ms.bondCount + BondCollection.BOND_GROWTH_INCREMENT);
-    }
+    if (ms.bondCount == ms.bo.length)
+      ms.growBonds();
     ms.setBond(ms.bondCount++, bond);
     return bond;
   }
@@ -1362,7 +1398,10 @@ public final class ModelLoader {
   }
 
   private void freeze() {
-    htAtomMap.clear();
+    htAtomMap = null;
+    ms.loadNames = null;
+    htAtomMapObj = null;
+    htChains.clear();
     // resize arrays
     if (ms.ac < ms.at.length)
       ms.growAtomArrays(ms.ac);
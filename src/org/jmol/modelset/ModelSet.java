@@ -56,6 +56,7 @@ import org.jmol.util.Escape;
 // future ref import org.jmol.util.Geodesic;
 import org.jmol.util.JmolMolecule;
 import org.jmol.util.Logger;
+import org.jmol.util.ModulationEngine;
 import org.jmol.util.Point3fi;
 import org.jmol.util.Rectangle;
 import org.jmol.util.Tensor;
@@ -2402,6 +2403,8 @@ public class ModelSet extends BondCollection {
     return (isInexact ? -1 : indexB + 1);
   }
 
+  private WithinEngine withinEngine;
+
   /**
    * Get atoms within a specific distance of any atom in a specific set of atoms
    * either within all models or within just the model(s) of those atoms
@@ -2416,8 +2419,14 @@ public class ModelSet extends BondCollection {
    */
   public BS getAtomsWithinRadius(double distance, BS bs, boolean withinAllModels,
                                  RadiusData rd, BS bsSubset) {
-    BS bsResult = new BS();
     bs = BSUtil.andNot(bs, vwr.slm.bsDeleted);
+    if (distance > 0 && rd == null) {
+      if (withinEngine == null)
+        withinEngine = new WithinEngine(this);
+      return withinEngine.getAtomsWithin(distance, bs, withinAllModels,
+          bsSubset);
+    }
+    BS bsResult = new BS();
     AtomIndexIterator iter = getSelectedAtomIterator(bsSubset, false, false,
         false, false);
     if (withinAllModels) {
@@ -3317,7 +3326,8 @@ public class ModelSet extends BondCollection {
       if (specialAtomID == 0) {
         if (atomNames == null)
           atomNames = new String[at.length];
-        atomNames[ac] = atomName.intern();
+        atomNames[ac] = (loadNames == null ? atomName.intern()
+            : loadNames.intern(atomName));
       }
     }
     if (atomSerial != Integer.MIN_VALUE) {
@@ -3583,6 +3593,11 @@ public class ModelSet extends BondCollection {
     return ilist;
   }
 
+  /**
+   * tabulated modulations and saved t-steps; see setModulation
+   */
+  private ModulationEngine modEngine;
+
   /**
    * Sets the modulation for all atoms in bs.
    * 
@@ -3605,17 +3620,28 @@ public class ModelSet extends BondCollection {
     if (bs == null)
       bs = getModelAtomBitSetIncludingDeleted(-1, false);
     double scale = vwr.getDouble(T.modulation);
+    double[] frame = null;
+    if (qtOffset != null && vibrations != null) {
+      if (modEngine == null || !modEngine.isFor(vibrations, bs))
+        modEngine = new ModulationEngine(vwr, vibrations);
+      frame = modEngine.getFrame(qtOffset, isQ);
+    }
     boolean haveMods = false;
     for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
       JmolModulationSet ms = getModulation(i);
       if (ms == null)
         continue;
-      ms.setModTQ(at[i], isOn, qtOffset, isQ, scale);
+      if (frame == null)
+        ms.setModTQ(at[i], isOn, qtOffset, isQ, scale);
+      else
+        modEngine.setModTQ(i, at[i], isOn, qtOffset, isQ, scale, frame);
       if (bsModulated != null)
         bsModulated.setBitTo(i, isOn);
       haveMods = true;
     }
-    if (!haveMods)
+    if (haveMods)
+      coordVersion++;
+    else
       bsModulated = null;
   }
 
@@ -4397,7 +4423,9 @@ public class ModelSet extends BondCollection {
     haveChirality = true;
     for (int i = bsAtoms.nextSetBit(0); i >= 0; i = bsAtoms.nextSetBit(i + 1)) 
       at[i].setCIPChirality(0);
-    Interface.getSymmetry(vwr, "ms").calculateCIPChiralityForAtoms(vwr, bsAtoms);
+    // the viewer's one Symmetry object keeps its CIPChirality and that
+    // object's cache of results between calculations
+    vwr.getSymStatic().calculateCIPChiralityForAtoms(vwr, bsAtoms);
     if (!withReturn)
       return null;
     String s = "";
@@ -4738,6 +4766,8 @@ public class ModelSet extends BondCollection {
       if (!isDeleted(a))
         a.setT(apos0[i]);
     }
+    // also invalidates saved within() results
+    validateBspf(false);
   }
 
   public void clearUnitCell(int modelIndex) {
@@ -0,0 +1,347 @@
+package org.jmol.modelset;
+
+import javajs.util.BS;
+import javajs.util.Lst;
+import javajs.util.P3d;
+
+import org.jmol.bspt.Bspf;
+import org.jmol.bspt.CubeIterator;
+import org.jmol.thread.ParallelTasks;
+import org.jmol.util.BSUtil;
+
+/**
+ * Batched within(distance, {atoms}) for ModelSet.getAtomsWithinRadius(), as
+ * for SELECT within(8.0, ligand), CONTACT, and {*}.within(...).
+ *
+ * Rather than one bspt sphere query for each atom of the set, each model's
+ * query atoms are binned into a grid of cells one distance on a side, and the
+ * model's bspt is swept just once over their bounding box, checking each atom
+ * found against the query atoms of its own and neighboring cells. A few
+ * widely spread query atoms are still done one sphere at a time. Models are
+ * run in parallel when there are several.
+ *
+ * Results are saved along with the coordinate versions of the models
+ * involved, so asking the same question again before any of those
+ * coordinates change -- in a loop, or for each frame of a trajectory that
+ * has been seen before -- costs only a check.
+ *
+ * The atoms found are exactly those of the per-atom queries, with the same
+ * bspt candidates and the same distance tests.
+ *
+ */
+class WithinEngine {
+
+  private final static int MAX_SAVED = 16;
+  private final static int MIN_TARGETS_PER_TASK = 500;
+  private final static int MIN_CELLS = 1 << 15;
+
+  private ModelSet ms;
+
+  private Lst<Saved> saved = new Lst<Saved>();
+
+  WithinEngine(ModelSet ms) {
+    this.ms = ms;
+  }
+
+  private class Saved {
+    double distance;
+    boolean withinAllModels;
+    BS bs, bsSubset;
+    int ac;
+    int[] models;
+    int[] versions;
+    BS result;
+
+    boolean isFor(double distance, BS bs, boolean withinAllModels,
+                  BS bsSubset) {
+      if (distance != this.distance || withinAllModels != this.withinAllModels
+          || ac != ms.ac || !bs.equals(this.bs)
+          || (bsSubset == null ? this.bsSubset != null : !bsSubset
+              .equals(this.bsSubset)))
+        return false;
+      for (int i = models.length; --i >= 0;)
+        if (models[i] >= ms.mc || ms.getCoordVersion(models[i]) != versions[i])
+          return false;
+      return true;
+    }
+  }
+
+  /**
+   * @param distance
+   *        greater than zero
+   * @param bs
+   *        the query atoms, with no deleted atoms
+   * @param withinAllModels
+   * @param bsSubset
+   *        limit selection to this subset of atoms, or null
+   * @return a new set of atoms
+   */
+  BS getAtomsWithin(double distance, BS bs, boolean withinAllModels,
+                    BS bsSubset) {
+    for (int i = saved.size(); --i >= 0;) {
+      Saved s = saved.get(i);
+      if (s.isFor(distance, bs, withinAllModels, bsSubset))
+        return BSUtil.copy(s.result);
+    }
+    Atom[] at = ms.at;
+    Model[] am = ms.am;
+    // the bspt model to search for each query atom, as for
+    // ModelSet.setIteratorForAtom()
+    BS bsModels = new BS();
+    if (withinAllModels) {
+      BS bsm = (bsSubset == null ? BSUtil.newBitSet2(0, ms.mc) : ms
+          .getModelBS(bsSubset, false));
+      bsm.and(ms.getIterativeModels(false));
+      for (int m = bsm.nextSetBit(0); m >= 0; m = bsm.nextSetBit(m + 1))
+        bsModels.set(am[m].trajectoryBaseIndex);
+    } else {
+      for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+        bsModels.set(am[at[i].mi].trajectoryBaseIndex);
+    }
+    ms.initializeBspf();
+    for (int m = bsModels.nextSetBit(0); m >= 0; m = bsModels.nextSetBit(m + 1))
+      ms.initializeBspt(m);
+    Bspf bspf = ms.bspf;
+
+    int nModels = bsModels.cardinality();
+    int[] models = new int[nModels];
+    BS[] targets = new BS[nModels];
+    int nTargets = 0;
+    for (int m = bsModels.nextSetBit(0), p = 0; m >= 0; m = bsModels
+        .nextSetBit(m + 1), p++) {
+      models[p] = m;
+      if (withinAllModels) {
+        targets[p] = bs;
+      } else {
+        BS bsm = targets[p] = new BS();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+          if (am[at[i].mi].trajectoryBaseIndex == m)
+            bsm.set(i);
+      }
+      nTargets += targets[p].cardinality();
+    }
+
+    int nTasks = Math.min(nModels, ParallelTasks.getTaskCount(ms.vwr,
+        nTargets, MIN_TARGETS_PER_TASK));
+    ModelTask[] tasks = new ModelTask[nTasks];
+    for (int i = 0; i < nTasks; i++)
+      tasks[i] = new ModelTask(bspf, distance, models, targets, i, nTasks,
+          bsSubset);
+    ParallelTasks.run(ms.vwr, tasks);
+    BS bsResult = (withinAllModels || bsSubset != null ? new BS() : BSUtil
+        .copy(bs));
+    for (int i = 0; i < nTasks; i++)
+      bsResult.or(tasks[i].bsResult);
+
+    // save the result, along with the versions of every model whose
+    // coordinates it depends upon
+    BS bsVersion = BSUtil.copy(bsModels);
+    for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+      bsVersion.set(am[at[i].mi].trajectoryBaseIndex);
+    Saved s = new Saved();
+    s.distance = distance;
+    s.withinAllModels = withinAllModels;
+    s.bs = BSUtil.copy(bs);
+    s.bsSubset = (bsSubset == null ? null : BSUtil.copy(bsSubset));
+    s.ac = ms.ac;
+    s.models = new int[bsVersion.cardinality()];
+    s.versions = new int[s.models.length];
+    for (int m = bsVersion.nextSetBit(0), p = 0; m >= 0; m = bsVersion
+        .nextSetBit(m + 1), p++)
+      s.versions[p] = ms.getCoordVersion(s.models[p] = m);
+    s.result = BSUtil.copy(bsResult);
+    if (saved.size() == MAX_SAVED)
+      saved.clear();
+    saved.addLast(s);
+    return bsResult;
+  }
+
+  /**
+   * Models i, i + n, i + 2n, ... of a query.
+   */
+  private class ModelTask implements Runnable {
+
+    private Bspf bspf;
+    private double distance;
+    private int[] models;
+    private BS[] targets;
+    private int i0, di;
+    private BS bsSubset;
+
+    BS bsResult = new BS();
+
+    ModelTask(Bspf bspf, double distance, int[] models, BS[] targets, int i0,
+        int di, BS bsSubset) {
+      this.bspf = bspf;
+      this.distance = distance;
+      this.models = models;
+      this.targets = targets;
+      this.i0 = i0;
+      this.di = di;
+      this.bsSubset = bsSubset;
+    }
+
+    @Override
+    public void run() {
+      for (int p = i0; p < models.length; p += di) {
+        int m = models[p];
+        if (m < bspf.bspts.length && bspf.bspts[m] != null)
+          search(bspf.getNewCubeIterator(m), targets[p]);
+      }
+    }
+
+    private void search(CubeIterator iter, BS bs) {
+      Atom[] at = ms.at;
+      int n = bs.cardinality();
+      if (n == 0)
+        return;
+      int[] list = new int[n];
+      double[] xyz = new double[n * 3];
+      double x0 = Double.MAX_VALUE, y0 = x0, z0 = x0;
+      double x1 = -x0, y1 = x1, z1 = x1;
+      for (int i = bs.nextSetBit(0), j = 0; i >= 0; i = bs.nextSetBit(i + 1), j++) {
+        Atom a = at[list[j] = i];
+        double x = xyz[j * 3] = a.x;
+        double y = xyz[j * 3 + 1] = a.y;
+        double z = xyz[j * 3 + 2] = a.z;
+        if (x < x0)
+          x0 = x;
+        if (x > x1)
+          x1 = x;
+        if (y < y0)
+          y0 = y;
+        if (y > y1)
+          y1 = y;
+        if (z < z0)
+          z0 = z;
+        if (z > z1)
+          z1 = z;
+      }
+      double d = distance;
+      double d2 = d * d;
+      // the sweep covers a cube, so compare its volume with that of the cubes
+      // of individual queries
+      double halfWidth = Math.max(x1 - x0, Math.max(y1 - y0, z1 - z0)) / 2 + d;
+      if (halfWidth * halfWidth * halfWidth > n * d * d * d) {
+        // spread out; one query per atom costs less
+        for (int j = 0; j < n; j++) {
+          int i = list[j];
+          iter.initialize(at[i], d, false);
+          while (iter.hasMoreElements()) {
+            int k = ((Atom) iter.nextElement()).i;
+            if (k != i && (bsSubset == null || bsSubset.get(k))
+                && iter.foundDistance2() <= d2)
+              bsResult.set(k);
+          }
+        }
+        iter.release();
+        return;
+      }
+      // cells at least one distance on a side, but not too many of them
+      double cs = d * 1.0001;
+      int maxCells = Math.max(8 * n, MIN_CELLS);
+      int nx, ny, nz;
+      while (true) {
+        nx = (int) ((x1 - x0) / cs) + 1;
+        ny = (int) ((y1 - y0) / cs) + 1;
+        nz = (int) ((z1 - z0) / cs) + 1;
+        if ((double) nx * ny * nz <= maxCells)
+          break;
+        cs *= 2;
+      }
+      int nCells = nx * ny * nz;
+      int[] cellFirst = new int[nCells];
+      int[] cellNext = new int[n];
+      // the bounding box of the atoms actually in each cell
+      double[] cellBox = new double[nCells * 6];
+      for (int c = nCells; --c >= 0;)
+        cellFirst[c] = -1;
+      for (int j = n; --j >= 0;) {
+        double x = xyz[j * 3], y = xyz[j * 3 + 1], z = xyz[j * 3 + 2];
+        int c = ((int) ((x - x0) / cs) * ny + (int) ((y - y0) / cs)) * nz
+            + (int) ((z - z0) / cs);
+        int pb = c * 6;
+        if (cellFirst[c] < 0) {
+          cellBox[pb] = cellBox[pb + 3] = x;
+          cellBox[pb + 1] = cellBox[pb + 4] = y;
+          cellBox[pb + 2] = cellBox[pb + 5] = z;
+        } else {
+          if (x < cellBox[pb])
+            cellBox[pb] = x;
+          if (y < cellBox[pb + 1])
+            cellBox[pb + 1] = y;
+          if (z < cellBox[pb + 2])
+            cellBox[pb + 2] = z;
+          if (x > cellBox[pb + 3])
+            cellBox[pb + 3] = x;
+          if (y > cellBox[pb + 4])
+            cellBox[pb + 4] = y;
+          if (z > cellBox[pb + 5])
+            cellBox[pb + 5] = z;
+        }
+        cellNext[j] = cellFirst[c];
+        cellFirst[c] = j;
+      }
+      // one cube covering the bounding box and all atoms within d of it
+      P3d center = P3d.new3((x0 + x1) / 2, (y0 + y1) / 2, (z0 + z1) / 2);
+      iter.initialize(center, halfWidth * 1.0001, false);
+      while (iter.hasMoreElements()) {
+        Atom a = (Atom) iter.nextElement();
+        int k = a.i;
+        if (bsSubset != null && !bsSubset.get(k))
+          continue;
+        double x = a.x, y = a.y, z = a.z;
+        int cx = (int) Math.floor((x - x0) / cs);
+        int cy = (int) Math.floor((y - y0) / cs);
+        int cz = (int) Math.floor((z - z0) / cs);
+        int ix0 = Math.max(0, cx - 1), ix1 = Math.min(nx - 1, cx + 1);
+        int iy0 = Math.max(0, cy - 1), iy1 = Math.min(ny - 1, cy + 1);
+        int iz0 = Math.max(0, cz - 1), iz1 = Math.min(nz - 1, cz + 1);
+        found: for (int ix = ix0; ix <= ix1; ix++)
+          for (int iy = iy0; iy <= iy1; iy++)
+            for (int iz = iz0; iz <= iz1; iz++) {
+              int c = (ix * ny + iy) * nz + iz;
+              int j = cellFirst[c];
+              if (j < 0)
+                continue;
+              // These are the same tests as CubeIterator and
+              // AtomIteratorWithinModel, applied first to the nearest and
+              // farthest corners of the cell's box. Since rounding is
+              // monotonic, if the nearest corner fails, every atom of the
+              // cell fails, and if the farthest corner passes, every atom
+              // passes.
+              int pb = c * 6;
+              double nx0 = x - cellBox[pb], nx1 = cellBox[pb + 3] - x;
+              double ny0 = y - cellBox[pb + 1], ny1 = cellBox[pb + 4] - y;
+              double nz0 = z - cellBox[pb + 2], nz1 = cellBox[pb + 5] - z;
+              double dx = Math.max(0, Math.max(-nx0, -nx1));
+              double dy = Math.max(0, Math.max(-ny0, -ny1));
+              double dz = Math.max(0, Math.max(-nz0, -nz1));
+              if (dx > d || dy > d || dz > d || dx * dx + dy * dy + dz * dz > d2)
+                continue;
+              if (cellNext[j] >= 0 || list[j] != k) {
+                dx = Math.max(Math.abs(nx0), Math.abs(nx1));
+                dy = Math.max(Math.abs(ny0), Math.abs(ny1));
+                dz = Math.max(Math.abs(nz0), Math.abs(nz1));
+                if (dx <= d && dy <= d && dz <= d
+                    && dx * dx + dy * dy + dz * dz <= d2) {
+                  bsResult.set(k);
+                  break found;
+                }
+              }
+              for (; j >= 0; j = cellNext[j]) {
+                if (list[j] != k && (dx = Math.abs(x - xyz[j * 3])) <= d
+                    && (dy = Math.abs(y - xyz[j * 3 + 1])) <= d
+                    && (dz = Math.abs(z - xyz[j * 3 + 2])) <= d
+                    && dx * dx + dy * dy + dz * dz <= d2) {
+                  bsResult.set(k);
+                  break found;
+                }
+              }
+            }
+      }
+      iter.release();
+    }
+  }
+
+}
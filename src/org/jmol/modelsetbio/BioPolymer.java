@@ -311,9 +311,11 @@ public abstract class BioPolymer implements Structure {
         return;
       }
       leadPoints[i] = leadPoint;
-      P3d midpoint = new P3d();
+      // reused, as this is done for every step of a trajectory
+      P3d midpoint = leadMidpoints[i];
+      if (midpoint == null)
+        midpoint = leadMidpoints[i] = new P3d();
       midpoint.ave(leadPoint, leadPointPrev);
-      leadMidpoints[i] = midpoint;
       if (hasWingPoints) {
         vectorA.sub2(leadPoint, leadPointPrev);
         vectorB.sub2(leadPointPrev, getWingPoint(i - 1));
@@ -325,7 +327,7 @@ public abstract class BioPolymer implements Structure {
           reversed.set(i);
           vectorD.scale(-1);
         }
-        previousVectorD = wingVectors[i] = V3d.newV(vectorD);
+        previousVectorD = setWingVector(i, vectorD);
         //System.out.println("draw v" + i + " vector " + midpoint + " " + vectorD); 
       }
     }
@@ -349,7 +351,7 @@ public abstract class BioPolymer implements Structure {
                 && previousVectorC.angle(vectorC) > Math.PI / 2)
               vectorC.scale(-1);
           }
-          previousVectorC = wingVectors[i] = V3d.newV(vectorC);
+          previousVectorC = setWingVector(i, vectorC);
         }
       }
     }
@@ -357,6 +359,14 @@ public abstract class BioPolymer implements Structure {
     wingVectors[monomerCount] = wingVectors[monomerCount - 1];
   }
 
+  private V3d setWingVector(int i, V3d v) {
+    V3d w = wingVectors[i];
+    if (w == null || w == unitVectorX)
+      w = wingVectors[i] = new V3d();
+    w.setT(v);
+    return w;
+  }
+
   private final V3d unitVectorX = V3d.new3(1, 0, 0);
 
   public void findNearestAtomIndex(int xMouse, int yMouse, Atom[] closest,
@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 
 import org.jmol.api.JmolAdapter;
@@ -47,6 +48,7 @@ import org.jmol.script.T;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Edge;
 import org.jmol.util.Logger;
+import org.jmol.util.Str2IntHash;
 import org.jmol.viewer.JC;
 import org.jmol.viewer.Viewer;
 
@@ -71,7 +73,7 @@ import javajs.util.V3d;
  */
 public final class BioResolver implements Comparator<String[]> {
 
-  public final static Map<String, Short> htGroup = new Hashtable<String, Short>();
+  public final static Str2IntHash htGroup = new Str2IntHash(256);
 
   private Viewer vwr;
 
@@ -100,8 +102,7 @@ public final class BioResolver implements Comparator<String[]> {
     if (modelLoader == null) {
       ms = null;
       bsAddedHydrogens = bsAtomsForHs = bsAssigned = null;
-      htBondMap = null;
-      htGroupBonds = null;
+      htTemplates = null;
       hNames = null;
     } else {
       Group.specialAtomNames = specialAtomNames;
@@ -229,8 +230,10 @@ public final class BioResolver implements Comparator<String[]> {
 
   private BS bsAddedHydrogens;
   private BS bsAtomsForHs;
-  private Map<String, String>htBondMap;
-  private Map<String, Boolean>htGroupBonds;
+  /**
+   * residue and ligand templates for this load, by group3
+   */
+  private Map<String, ResidueTemplate> htTemplates;
   private String[] hNames;
   private int baseBondIndex = 0;
 
@@ -240,8 +243,7 @@ public final class BioResolver implements Comparator<String[]> {
     baseBondIndex = ms.bondCount;
     bsAddedHydrogens = new BS();
     bsAtomsForHs = new BS();
-    htBondMap = new Hashtable<String, String>();
-    htGroupBonds = new Hashtable<String, Boolean>();
+    htTemplates = new Hashtable<String, ResidueTemplate>();
     hNames = new String[3];
     vAB = new V3d();
     vNorm = new V3d();
@@ -292,24 +294,36 @@ public final class BioResolver implements Comparator<String[]> {
   }
 
   private void getBondInfo(JmolAdapter adapter, String group3, Object model) {
-    if (htGroupBonds.get(group3) != null)
+    if (htTemplates.get(group3) != null)
       return;
-    String[][] bondInfo = (model == null ? getPdbBondInfo(group3,
-        vwr.getBoolean(T.legacyhaddition)) : getLigandBondInfo(adapter, model, group3));
-    if (bondInfo == null)
-      return;
-    htGroupBonds.put(group3, Boolean.TRUE);
-    for (int i = 0; i < bondInfo.length; i++) {
-      if (bondInfo[i] == null)
-        continue;
-      if (bondInfo[i][1].charAt(0) == 'H')
-        htBondMap.put(group3 + "." + bondInfo[i][0], bondInfo[i][1]);
-      else
-        htBondMap.put(group3 + ":" + bondInfo[i][0] + ":" + bondInfo[i][1],
-            bondInfo[i][2]);
+    if (model == null) {
+      ResidueTemplate t = getPdbTemplate(group3,
+          vwr.getBoolean(T.legacyhaddition));
+      if (t != null)
+        htTemplates.put(group3, t);
+    } else {
+      htTemplates.put(group3, new ResidueTemplate(getLigandBondInfo(adapter,
+          model, group3)));
     }
   }
 
+  /**
+   * templates for the standard residues, [legacy ? 1 : 0][groupID]
+   */
+  private static ResidueTemplate[][] pdbTemplates;
+
+  private ResidueTemplate getPdbTemplate(String group3, boolean isLegacy) {
+    int pt = knownGroupID(group3);
+    if (pt < 0 || pt >= pdbBondInfo.length)
+      return null;
+    if (pdbTemplates == null)
+      pdbTemplates = new ResidueTemplate[2][pdbBondInfo.length];
+    ResidueTemplate[] templates = pdbTemplates[isLegacy ? 1 : 0];
+    if (templates[pt] == null)
+      templates[pt] = new ResidueTemplate(getPdbBondInfo(pt, isLegacy));
+    return templates[pt];
+  }
+
   /**
    * reads PDB ligand CIF info and creates a bondInfo object.
    * 
@@ -410,21 +424,23 @@ public final class BioResolver implements Comparator<String[]> {
     int[] nTotal = new int[1];
     P3d[][] pts = ms.calculateHydrogens(bsAtomsForHs, nTotal, null, AtomCollection.CALC_H_DOALL);
     Group groupLast = null;
+    ResidueTemplate t = null;
     int ipt = 0;
     Atom atom;
     for (int i = 0; i < pts.length; i++) {
       if (pts[i] == null || (atom = ms.at[i]) == null)
         continue;
       Group g = atom.group;
+      String gName = atom.getGroup3(false);
       if (g != groupLast) {
         groupLast = g;
         ipt = g.lastAtomIndex;
         while (bsAddedHydrogens.get(ipt))
           ipt--;
+        t = htTemplates.get(gName);
       }
-      String gName = atom.getGroup3(false);
       String aName = atom.getAtomName();
-      String hName = htBondMap.get(gName + "." + aName);
+      String hName = (t == null ? null : t.getHydrogenNames(aName));
       if (hName == null)
         continue;
       boolean isChiral = hName.contains("@");
@@ -624,9 +640,12 @@ public final class BioResolver implements Comparator<String[]> {
   }
   
   private void finalizePdbMultipleBonds() {
-    Map<String, Boolean> htKeysUsed = new Hashtable<String, Boolean>();
+    Map<String, BS> htBondsUsed = new Hashtable<String, BS>();
     int bondCount = ms.bondCount;
     Bond[] bonds = ms.bo;
+    Group groupLast = null;
+    ResidueTemplate t = null;
+    BS bsUsed = null;
     for (int i = baseBondIndex; i < bondCount; i++) {
       if (bonds[i] == null)
         continue;
@@ -635,41 +654,39 @@ public final class BioResolver implements Comparator<String[]> {
       Group g = a1.group;
       if (g != a2.group)
         continue;
-      SB key = new SB().append(g.getGroup3());
-      key.append(":");
+      if (g != groupLast) {
+        groupLast = g;
+        String group3 = g.getGroup3();
+        t = htTemplates.get(group3);
+        if (t != null && (bsUsed = htBondsUsed.get(group3)) == null)
+          htBondsUsed.put(group3, bsUsed = new BS());
+      }
+      if (t == null)
+        continue;
       String n1 = a1.getAtomName();
       String n2 = a2.getAtomName();
-      if (n1.compareTo(n2) > 0)
-        key.append(n2).append(":").append(n1);
-      else
-        key.append(n1).append(":").append(n2);
-      String skey = key.toString();
-      String type = htBondMap.get(skey);
-      if (type == null)
+      int ib = (n1.compareTo(n2) > 0 ? t.getBond(n2, n1) : t.getBond(n1, n2));
+      if (ib < 0)
         continue;
-      htKeysUsed.put(skey, Boolean.TRUE);
-      bonds[i].setOrder(PT.parseInt(type));
+      bsUsed.set(ib);
+      bonds[i].setOrder(t.orders[ib]);
     }
 
-    for (String key : htBondMap.keySet()) {
-      if (htKeysUsed.get(key) != null)
-        continue;
-      if (key.indexOf(":") < 0) {
-        htKeysUsed.put(key, Boolean.TRUE);
-        continue;
-      }
-      String value = htBondMap.get(key);
-      Logger.info("bond " + key + " was not used; order=" + value);
-      if (htBondMap.get(key).equals("1")) {
-        htKeysUsed.put(key, Boolean.TRUE);
-        continue; // that's ok
-      }
-    }
     Map<String, String> htKeysBad = new Hashtable<String, String>();
-    for (String key : htBondMap.keySet()) {
-      if (htKeysUsed.get(key) != null)
-        continue;
-      htKeysBad.put(key.substring(0, key.lastIndexOf(":")), htBondMap.get(key));
+    for (Entry<String, ResidueTemplate> e : htTemplates.entrySet()) {
+      String group3 = e.getKey();
+      t = e.getValue();
+      bsUsed = htBondsUsed.get(group3);
+      for (int ib = 0; ib < t.bondCount; ib++) {
+        if (bsUsed != null && bsUsed.get(ib))
+          continue;
+        String key = group3 + ":" + t.atomNames[t.bondAtoms1[ib]];
+        String value = t.bondOrders[ib];
+        Logger.info("bond " + key + ":" + t.atomNames[t.bondAtoms2[ib]]
+            + " was not used; order=" + value);
+        if (!value.equals("1")) // that's ok
+          htKeysBad.put(key, value);
+      }
     }
     if (htKeysBad.isEmpty())
       return;
@@ -893,34 +910,25 @@ public final class BioResolver implements Comparator<String[]> {
 
   public byte lookupSpecialAtomID(String name) {
     if (htSpecialAtoms == null) {
-      htSpecialAtoms = new Hashtable<String, Byte>();
+      Str2IntHash ht = new Str2IntHash(specialAtomNames.length);
       for (int i = specialAtomNames.length; --i >= 0;) {
         String specialAtomName = specialAtomNames[i];
         if (specialAtomName != null)
-          htSpecialAtoms.put(specialAtomName, Byte.valueOf((byte) i));
+          ht.put(specialAtomName, i);
       }
+      htSpecialAtoms = ht;
     }
-    Byte boxedAtomID = htSpecialAtoms.get(name);
-    return (boxedAtomID == null ? 0 : boxedAtomID.byteValue());
+    int atomID = htSpecialAtoms.get(name);
+    return (atomID == Integer.MIN_VALUE ? 0 : (byte) atomID);
   }
 
-  private static Map<String, String[][]> htPdbBondInfo;
-
-  private String[][] getPdbBondInfo(String group3, boolean isLegacy) {
-    if (htPdbBondInfo == null)
-      htPdbBondInfo = new Hashtable<String, String[][]>();
-    String[][] info = htPdbBondInfo.get(group3);
-    if (info != null)
-      return info;
-    int pt = knownGroupID(group3);
-    if (pt < 0 || pt > pdbBondInfo.length)
-      return null;
+  private String[][] getPdbBondInfo(int pt, boolean isLegacy) {
     String s = pdbBondInfo[pt];
     // unfortunately, this change is not backward compatible.
     if (isLegacy && (pt = s.indexOf("O3'")) >= 0)
       s = s.substring(0, pt);
     String[] temp = PT.getTokens(s);
-    info = new String[temp.length / 2][];
+    String[][] info = new String[temp.length / 2][];
     for (int i = 0, p = 0; i < info.length; i++) {
       String source = temp[p++];
       String target = temp[p++];
@@ -954,7 +962,6 @@ public final class BioResolver implements Comparator<String[]> {
       info[i] = new String[] { source, target,
           (target.startsWith("H") ? "1" : "2") };
     }
-    htPdbBondInfo.put(group3, info);
     return info;
   }
   /**
@@ -1067,8 +1074,8 @@ public final class BioResolver implements Comparator<String[]> {
   public static short knownGroupID(String group3) {
     if (group3 == null || group3.length() == 0)
       return 0;
-    Short boxedGroupID = htGroup.get(group3);
-    return (boxedGroupID == null ? -1 : boxedGroupID.shortValue());
+    int groupID = htGroup.get(group3);
+    return (groupID == Integer.MIN_VALUE ? -1 : (short) groupID);
   }
   /**
    * @param group3 a potential group3 name
@@ -1246,7 +1253,7 @@ public final class BioResolver implements Comparator<String[]> {
       // just the amino acids
       for (int i = 1; i <= 20; i++) {
         pt = knownGroupID(predefinedGroup3Names[i]);
-        htGroup.put("==" + predefinedGroup1Names[i], Short.valueOf((short) pt));
+        htGroup.put("==" + predefinedGroup1Names[i], pt);
       }
     }
     for (int i = 0, n = g1.length(); i < n; i++) {
@@ -1281,7 +1288,7 @@ public final class BioResolver implements Comparator<String[]> {
       Group.group3Names = AU.doubleLengthS(Group.group3Names);
     short groupID = group3NameCount++;
     Group.group3Names[groupID] = group3;
-    htGroup.put(group3, Short.valueOf(groupID));
+    htGroup.put(group3, groupID);
     return groupID;
   }
 
@@ -1460,7 +1467,7 @@ public final class BioResolver implements Comparator<String[]> {
     return specialAtomNames[atomID];
   }
 
-  private static Map<String, Byte> htSpecialAtoms;
+  private static Str2IntHash htSpecialAtoms;
 
   private final static int[] argbsAmino = {
     0xFFBEA06E, // default tan
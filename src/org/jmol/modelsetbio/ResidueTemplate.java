@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.modelsetbio;
+
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.util.PT;
+
+/**
+ * The hydrogen atom names and multiple bonds of one residue or ligand type,
+ * compiled once from its bond information -- pdbBondInfo for standard
+ * residues, the ligand's CIF data otherwise -- for BioResolver's hydrogen
+ * addition.
+ *
+ * Atoms named in the bond information are numbered, so that rather than
+ * looking up "ALA.CB" and "ALA:C:O" for each atom and bond of each residue,
+ * BioResolver finds the template once for each group and then just the
+ * number for each atom name.
+ *
+ */
+class ResidueTemplate {
+
+  private Map<String, Integer> htAtoms = new Hashtable<String, Integer>();
+
+  /**
+   * by atom number
+   */
+  String[] atomNames;
+
+  /**
+   * by atom number, the hydrogen atoms to add, such as "HB3@HB2" or "HB?"
+   */
+  String[] hNames;
+
+  /**
+   * atom numbers for each bond, name1 < name2
+   */
+  int[] bondAtoms1, bondAtoms2;
+
+  /**
+   * orders as given, for logging
+   */
+  String[] bondOrders;
+
+  int[] orders;
+
+  int bondCount;
+
+  /**
+   * bond number + 1, by atom1 * atomCount + atom2
+   */
+  private int[] bondIndex;
+
+  /**
+   * @param bondInfo
+   *        [[atom1, atom2 or hydrogen names, order, ...], ...], possibly with
+   *        null entries; for bonds, atom1 < atom2
+   */
+  ResidueTemplate(String[][] bondInfo) {
+    int n = 0;
+    for (int i = 0; i < bondInfo.length; i++) {
+      String[] b = bondInfo[i];
+      if (b == null)
+        continue;
+      n += (b[1].charAt(0) == 'H' ? 1 : 2);
+    }
+    atomNames = new String[n];
+    int[] a1 = new int[bondInfo.length];
+    int[] a2 = new int[bondInfo.length];
+    for (int i = 0; i < bondInfo.length; i++) {
+      String[] b = bondInfo[i];
+      if (b == null)
+        continue;
+      a1[i] = addAtom(b[0]);
+      if (b[1].charAt(0) != 'H')
+        a2[i] = addAtom(b[1]);
+    }
+    int ac = htAtoms.size();
+    hNames = new String[ac];
+    bondIndex = new int[ac * ac];
+    bondAtoms1 = new int[bondInfo.length];
+    bondAtoms2 = new int[bondInfo.length];
+    bondOrders = new String[bondInfo.length];
+    orders = new int[bondInfo.length];
+    // later entries replace earlier ones
+    n = 0;
+    for (int i = 0; i < bondInfo.length; i++) {
+      String[] b = bondInfo[i];
+      if (b == null)
+        continue;
+      if (b[1].charAt(0) == 'H') {
+        hNames[a1[i]] = b[1];
+        continue;
+      }
+      int pt = a1[i] * ac + a2[i];
+      if (bondIndex[pt] == 0) {
+        bondAtoms1[n] = a1[i];
+        bondAtoms2[n] = a2[i];
+        bondIndex[pt] = ++n;
+      }
+      int ib = bondIndex[pt] - 1;
+      bondOrders[ib] = b[2];
+      orders[ib] = PT.parseInt(b[2]);
+    }
+    bondCount = n;
+  }
+
+  private int addAtom(String name) {
+    Integer i = htAtoms.get(name);
+    if (i == null) {
+      int n = htAtoms.size();
+      htAtoms.put(name, i = Integer.valueOf(n));
+      atomNames[n] = name;
+    }
+    return i.intValue();
+  }
+
+  /**
+   * @param name
+   * @return the atom's number, or -1 if it is not named in the bond
+   *         information
+   */
+  int getAtom(String name) {
+    Integer i = htAtoms.get(name);
+    return (i == null ? -1 : i.intValue());
+  }
+
+  /**
+   * @param name
+   * @return the names of the hydrogen atoms to add to this atom, or null
+   */
+  String getHydrogenNames(String name) {
+    int i = getAtom(name);
+    return (i < 0 ? null : hNames[i]);
+  }
+
+  /**
+   * @param name1
+   * @param name2
+   *        name1 < name2
+   * @return the bond's number, or -1
+   */
+  int getBond(String name1, String name2) {
+    int i = getAtom(name1);
+    int j = (i < 0 ? -1 : getAtom(name2));
+    return (j < 0 ? -1 : bondIndex[i * hNames.length + j] - 1);
+  }
+
+}
@@ -31,6 +31,8 @@ import org.jmol.modelset.Atom;
 import org.jmol.script.T;
 import org.jmol.shape.Balls;
 import org.jmol.shape.Shape;
+import org.jmol.util.GData;
+import org.jmol.viewer.AtomScreenBlocks;
 
 public class BallsRenderer extends ShapeRenderer {
 
@@ -41,14 +43,41 @@ public class BallsRenderer extends ShapeRenderer {
       Atom[] atoms = ms.at;
       short[] colixes = ((Balls) shape).colixes;
       BS bsOK = vwr.shm.bsRenderableAtoms;
+      AtomScreenBlocks blocks = vwr.shm.atomBlocks;
+      if (isExport || !blocks.isValid())
+        blocks = null;
+      GData gdata = vwr.gdata;
+      // occlusion: after a screen's worth of sphere pixels has been drawn, map
+      // the z-buffer and skip blocks that are entirely behind it; mapping costs
+      // about as much as drawing a screen's worth, so the map is refreshed
+      // only after 2, 4, 8... times as many
+      boolean checkOcclusion = (blocks != null && !gdata.isPass2 && vwr
+          .getBoolean(T.occlusionculling));
+      boolean haveZMap = false;
+      long nNextMap = gdata.width * gdata.height;
+      long nDrawn = 0;
+      int block = -1;
       for (int i = bsOK.nextSetBit(0); i >= 0; i = bsOK.nextSetBit(i + 1)) {
         if (atoms == null || atoms[i] == null)
           return false;
+        if (blocks != null && (i >> AtomScreenBlocks.BLOCK_BITS) != block) {
+          block = i >> AtomScreenBlocks.BLOCK_BITS;
+          if (checkOcclusion && nDrawn >= nNextMap) {
+            haveZMap = gdata.updateZMaxMap();
+            nNextMap *= 2;
+          }
+          if (blocks.isSphereClipped(block, gdata) || haveZMap
+              && blocks.isOccluded(block, gdata)) {
+            i = blocks.skip(bsOK, block, gdata);
+            continue;
+          }
+        }
         Atom atom = atoms[i];
         if (atom.sD > 0
             && (atom.shapeVisibilityFlags & myVisibilityFlag) != 0) {
           if (g3d.setC(colixes == null ? atom.colixAtom : Shape.getColix(colixes, i, atom))) {
             g3d.drawAtom(atom, 0);
+            nDrawn += atom.sD * atom.sD;
           } else {
             needTranslucent = true;
           }
@@ -100,6 +100,15 @@ public abstract class MeshRenderer extends ShapeRenderer {
         for (int i = vertexCount; --i >= 0;)
           if (vertices[i] != null)
             tm.transformPtScrT32D(vertices[i], p3Screens[i]);
+      } else if (bsLodVertices != null) {
+        // simplified mesh during motion -- only its vertices are needed
+        for (int i = bsLodVertices.nextSetBit(0); i >= 0 && i < vertexCount; i = bsLodVertices
+            .nextSetBit(i + 1)) {
+          if (vertices[i] != null) {
+            tm.transformPtScr(vertices[i], screens[i]);
+            tm.transformPtScrT3(vertices[i], p3Screens[i]);
+          }
+        }
       } else {
         for (int i = vertexCount; --i >= 0;) {
           if (vertices[i] != null) {
@@ -182,6 +191,10 @@ public abstract class MeshRenderer extends ShapeRenderer {
   protected BS bsPolygons;
   protected boolean isTranslucentInherit;
   protected boolean renderLow;
+  /**
+   * set by IsosurfaceRenderer when only a simplified mesh is being drawn
+   */
+  protected BS bsLodVertices;
   protected int meshSlabValue = 100;
   private boolean showTriangles;
   protected boolean forceShowTriangles;  
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+package org.jmol.render;
+
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.util.DF;
+import javajs.util.Lst;
+import javajs.util.SB;
+
+import org.jmol.util.GData;
+import org.jmol.viewer.JC;
+
+/**
+ * Frame statistics collected by the RepaintManager: time spent in each shape
+ * renderer, the number of spheres, cylinders, and triangles each one sent to
+ * Graphics3D, the number of atoms it skipped by block culling, a histogram of
+ * frame times, and the latency from a repaint request to the start of the
+ * frame that satisfied it.
+ *
+ * Reported by getProperty("renderMetrics") and, when renderMetricsInterval is
+ * set, logged every n frames.
+ *
+ */
+class RenderMetrics {
+
+  /**
+   * upper limits of the frame-time histogram bins, in ms; the last bin is
+   * open-ended
+   */
+  final static int[] frameBins = { 5, 10, 17, 33, 50, 100, 250 };
+
+  private long[] shapeTime = new long[JC.SHAPE_MAX];
+  private long[] shapeTimeLast = new long[JC.SHAPE_MAX];
+  private int[] shapeCalls = new int[JC.SHAPE_MAX];
+  // spheres, cylinders, triangles, and atoms skipped by block culling; total
+  // and last frame; "calls" are renderShape calls, so two per frame for shapes
+  // with a translucent pass
+  private long[] shapeCounts = new long[JC.SHAPE_MAX * 4];
+  private int[] shapeCountsLast = new int[JC.SHAPE_MAX * 4];
+
+  private int[] histogram = new int[frameBins.length + 1];
+  private int frameCount;
+  private long frameTime, frameTimeMin, frameTimeMax, frameTimeLast;
+  private long frameStart, prepareTime;
+
+  private long requestTime;
+  private int latencyCount;
+  private long latencyTime, latencyMax;
+
+  private long t0;
+  private int nSpheres, nCylinders, nTriangles, nCulled;
+
+  RenderMetrics() {
+    clear();
+  }
+
+  void clear() {
+    for (int i = JC.SHAPE_MAX; --i >= 0;) {
+      shapeTime[i] = shapeTimeLast[i] = 0;
+      shapeCalls[i] = 0;
+    }
+    for (int i = shapeCounts.length; --i >= 0;)
+      shapeCounts[i] = shapeCountsLast[i] = 0;
+    for (int i = histogram.length; --i >= 0;)
+      histogram[i] = 0;
+    frameCount = latencyCount = 0;
+    frameTime = frameTimeMax = frameTimeLast = prepareTime = 0;
+    frameTimeMin = Long.MAX_VALUE;
+    latencyTime = latencyMax = 0;
+  }
+
+  /**
+   * A repaint has been requested; only the first request before a frame
+   * counts.
+   */
+  void requested() {
+    if (requestTime == 0)
+      requestTime = System.nanoTime();
+  }
+
+  void beginFrame() {
+    frameStart = System.nanoTime();
+    if (requestTime != 0) {
+      long t = frameStart - requestTime;
+      if (t > 0) {
+        latencyTime += t;
+        if (t > latencyMax)
+          latencyMax = t;
+        latencyCount++;
+      }
+      requestTime = 0;
+    }
+    for (int i = JC.SHAPE_MAX; --i >= 0;)
+      shapeTimeLast[i] = 0;
+    for (int i = shapeCountsLast.length; --i >= 0;)
+      shapeCountsLast[i] = 0;
+  }
+
+  /**
+   * Called at the start of the first rendering pass, after atom and shape
+   * transformation.
+   */
+  void beginPass1() {
+    if (frameStart != 0)
+      prepareTime += System.nanoTime() - frameStart;
+  }
+
+  /**
+   * @return the number of frames recorded, or 0 if this was not a frame
+   */
+  int endFrame() {
+    if (frameStart == 0)
+      return 0;
+    long t = System.nanoTime() - frameStart;
+    frameStart = 0;
+    frameTimeLast = t;
+    frameTime += t;
+    if (t < frameTimeMin)
+      frameTimeMin = t;
+    if (t > frameTimeMax)
+      frameTimeMax = t;
+    double ms = t / 1e6;
+    int i = 0;
+    while (i < frameBins.length && ms >= frameBins[i])
+      i++;
+    histogram[i]++;
+    return ++frameCount;
+  }
+
+  void beginShape(GData g) {
+    nSpheres = g.sphereCount;
+    nCylinders = g.cylinderCount;
+    nTriangles = g.triangleCount;
+    nCulled = g.culledCount;
+    t0 = System.nanoTime();
+  }
+
+  void endShape(int shapeID, GData g) {
+    long t = System.nanoTime() - t0;
+    shapeTime[shapeID] += t;
+    shapeTimeLast[shapeID] += t;
+    shapeCalls[shapeID]++;
+    int pt = shapeID * 4;
+    addCount(pt, g.sphereCount - nSpheres);
+    addCount(pt + 1, g.cylinderCount - nCylinders);
+    addCount(pt + 2, g.triangleCount - nTriangles);
+    addCount(pt + 3, g.culledCount - nCulled);
+  }
+
+  private void addCount(int pt, int n) {
+    shapeCounts[pt] += n;
+    shapeCountsLast[pt] += n;
+  }
+
+  Map<String, Object> getInfo() {
+    Map<String, Object> info = new Hashtable<String, Object>();
+    info.put("frameCount", Integer.valueOf(frameCount));
+    if (frameCount > 0) {
+      info.put("frameTimeMean", Double.valueOf(ms(frameTime) / frameCount));
+      info.put("frameTimeMin", Double.valueOf(ms(frameTimeMin)));
+      info.put("frameTimeMax", Double.valueOf(ms(frameTimeMax)));
+      info.put("frameTimeLast", Double.valueOf(ms(frameTimeLast)));
+      info.put("prepareTimeMean", Double.valueOf(ms(prepareTime) / frameCount));
+    }
+    info.put("frameHistogram", histogram.clone());
+    info.put("frameHistogramBins", frameBins.clone());
+    info.put("repaintCount", Integer.valueOf(latencyCount));
+    if (latencyCount > 0) {
+      info.put("repaintLatencyMean",
+          Double.valueOf(ms(latencyTime) / latencyCount));
+      info.put("repaintLatencyMax", Double.valueOf(ms(latencyMax)));
+    }
+    Lst<Map<String, Object>> shapes = new Lst<Map<String, Object>>();
+    for (int i = 0; i < JC.SHAPE_MAX; i++) {
+      if (shapeCalls[i] == 0)
+        continue;
+      Map<String, Object> s = new Hashtable<String, Object>();
+      int pt = i * 4;
+      s.put("shape", JC.shapeClassBases[i]);
+      s.put("calls", Integer.valueOf(shapeCalls[i]));
+      s.put("time", Double.valueOf(ms(shapeTime[i])));
+      s.put("timeLast", Double.valueOf(ms(shapeTimeLast[i])));
+      s.put("spheresMean", Double.valueOf(shapeCounts[pt] * 1d / shapeCalls[i]));
+      s.put("cylindersMean", Double.valueOf(shapeCounts[pt + 1] * 1d / shapeCalls[i]));
+      s.put("trianglesMean", Double.valueOf(shapeCounts[pt + 2] * 1d / shapeCalls[i]));
+      s.put("spheresLast", Integer.valueOf(shapeCountsLast[pt]));
+      s.put("cylindersLast", Integer.valueOf(shapeCountsLast[pt + 1]));
+      s.put("trianglesLast", Integer.valueOf(shapeCountsLast[pt + 2]));
+      s.put("culledMean", Double.valueOf(shapeCounts[pt + 3] * 1d / shapeCalls[i]));
+      s.put("culledLast", Integer.valueOf(shapeCountsLast[pt + 3]));
+      shapes.addLast(s);
+    }
+    info.put("shapes", shapes);
+    return info;
+  }
+
+  /**
+   * @return a short report for the log
+   */
+  String getSummary() {
+    SB sb = new SB();
+    sb.append("renderMetrics: ").appendI(frameCount).append(" frames");
+    if (frameCount > 0)
+      sb.append(" mean ").append(f(ms(frameTime) / frameCount))
+          .append(" ms max ").append(f(ms(frameTimeMax))).append(" ms");
+    if (latencyCount > 0)
+      sb.append("; repaint latency mean ")
+          .append(f(ms(latencyTime) / latencyCount)).append(" ms");
+    sb.append("\n histogram");
+    for (int i = 0; i < histogram.length; i++)
+      sb.append(i < frameBins.length ? " <" + frameBins[i] : " >="
+          + frameBins[frameBins.length - 1]).append(":").appendI(histogram[i]);
+    for (int i = 0; i < JC.SHAPE_MAX; i++) {
+      if (shapeCalls[i] == 0)
+        continue;
+      int pt = i * 4;
+      sb.append("\n ").append(JC.shapeClassBases[i]).append(" ")
+          .append(f(ms(shapeTime[i]))).append(" ms/").appendI(shapeCalls[i])
+          .append(" last ").append(f(ms(shapeTimeLast[i])))
+          .append(" ms spheres ").appendI(shapeCountsLast[pt])
+          .append(" cylinders ").appendI(shapeCountsLast[pt + 1])
+          .append(" triangles ").appendI(shapeCountsLast[pt + 2]);
+      if (shapeCountsLast[pt + 3] > 0)
+        sb.append(" culled ").appendI(shapeCountsLast[pt + 3]);
+    }
+    return sb.toString();
+  }
+
+  private static double ms(long t) {
+    return t / 1e6;
+  }
+
+  private static String f(double ms) {
+    return DF.formatDecimal(ms, 2);
+  }
+
+}
@@ -51,6 +51,7 @@ public class RepaintManager implements JmolRepaintManager {
   }
   
   private final BS bsTranslucent = BS.newN(JC.SHAPE_MAX);
+  private final RenderMetrics metrics = new RenderMetrics();
   
   @Override
   public void set(Viewer vwr, ShapeManager shapeManager) {
@@ -142,6 +143,7 @@ public class RepaintManager implements JmolRepaintManager {
     // -- "Send me an asynchronous update() event!"
     if (!vwr.haveDisplay)
       return;    
+    metrics.requested();
       //System.out.println("RepaintMan repaintNow " + why);
       vwr.apiPlatform.repaint(vwr.display);
   }
@@ -190,6 +192,30 @@ public class RepaintManager implements JmolRepaintManager {
 
   /////////// actual rendering ///////////
 
+  @Override
+  public void beginFrame() {
+    metrics.beginFrame();
+  }
+
+  @Override
+  public void endFrame() {
+    int n = metrics.endFrame();
+    int interval = vwr.g.renderMetricsInterval;
+    if (n > 0 && interval > 0 && n % interval == 0)
+      Logger.info(metrics.getSummary());
+  }
+
+  @Override
+  public Map<String, Object> getRenderMetrics(boolean andReset) {
+    Map<String, Object> info = metrics.getInfo();
+    if (andReset)
+      metrics.clear();
+    Map<String, Object> textCache = vwr.gdata.getTextCacheInfo(andReset);
+    if (textCache != null)
+      info.put("textCache", textCache);
+    return info;
+  }
+
   @Override
   public void render(GData gdata, ModelSet modelSet, boolean isFirstPass,
                      int[] navMinMax) {
@@ -210,6 +236,7 @@ public class RepaintManager implements JmolRepaintManager {
         if (band != null && g3d.setC(vwr.cm.colixRubberband))
           g3d.drawRect(band.x, band.y, 0, 0, band.width, band.height);
         vwr.noFrankEcho = true;
+        metrics.beginPass1();
       }
       String msg = null;
       for (int i = 0; i < JC.SHAPE_MAX && gdata.currentlyRendering; ++i) {
@@ -221,9 +248,12 @@ public class RepaintManager implements JmolRepaintManager {
           msg = "rendering " + JC.getShapeClassName(i, false);
           Logger.startTimer(msg);
         }
-        if ((isFirstPass || bsTranslucent.get(i))
-            && getRenderer(i).renderShape(g3d, modelSet, shape))
-          bsTranslucent.set(i);
+        if (isFirstPass || bsTranslucent.get(i)) {
+          metrics.beginShape(gdata);
+          if (getRenderer(i).renderShape(g3d, modelSet, shape))
+            bsTranslucent.set(i);
+          metrics.endShape(i, gdata);
+        }
         if (logTime)
           Logger.checkTimer(msg, false);
       }
@@ -37,6 +37,7 @@ import org.jmol.shapebio.BioShape;
 import org.jmol.shapebio.BioShapeCollection;
 import org.jmol.util.C;
 import org.jmol.util.GData;
+import org.jmol.viewer.AtomScreenBlocks;
 
 import javajs.api.Interface;
 import javajs.util.P3d;
@@ -178,6 +179,32 @@ abstract class BioShapeRenderer extends ShapeRenderer {
     }
   }
 
+  /**
+   * Skip the polymer without checking each monomer if every block of atoms
+   * holding its lead atoms is outside the display range.
+   * 
+   * @return true if no lead atom can be in the display range
+   */
+  private boolean isOutOfRange() {
+    AtomScreenBlocks blocks = vwr.shm.atomBlocks;
+    if (isExport || !blocks.isValid())
+      return false;
+    int min = Integer.MAX_VALUE, max = -1;
+    for (int i = monomerCount; --i >= 0;) {
+      int j = leadAtomIndices[i];
+      if (j < min)
+        min = j;
+      if (j > max)
+        max = j;
+    }
+    GData gdata = vwr.gdata;
+    for (int b = max >> AtomScreenBlocks.BLOCK_BITS, b0 = min >> AtomScreenBlocks.BLOCK_BITS; b >= b0; b--)
+      if (!blocks.isOutOfRange(b, gdata))
+        return false;
+    gdata.culledCount += monomerCount;
+    return true;
+  }
+
   protected boolean setBioColix(short colix) {
     if (g3d.setC(colix))
       return true;
@@ -208,6 +235,10 @@ abstract class BioShapeRenderer extends ShapeRenderer {
     boolean haveVisible = false;
     if (invalidateMesh)
       bioShape.falsifyMesh();
+    if (bioShape.checkMovedMesh)
+      bioShape.falsifyMovedMesh(controlPoints, bioShape.wingVectors);
+    if (isOutOfRange())
+      return false;
     for (int i = monomerCount; --i >= 0;) {
       if ((monomers[i].shapeVisibilityFlags & myVisibilityFlag) == 0
           || ms.isAtomHidden(leadAtomIndices[i]) || bsDeleted != null && bsDeleted.get(leadAtomIndices[i]))
@@ -31,6 +31,7 @@ import org.jmol.shapesurface.Isosurface;
 import org.jmol.shapesurface.IsosurfaceMesh;
 import org.jmol.util.C;
 import org.jmol.util.GData;
+import org.jmol.util.MeshDecimator;
 import org.jmol.util.MeshSurface;
 
 import javajs.util.Lst;
@@ -58,6 +59,7 @@ public class IsosurfaceRenderer extends MeshRenderer {
   private int meshScale = -1;
   private int mySlabValue;
   private int globalSlabValue;
+  private MeshDecimator lod;
 
   @Override
   protected boolean render() {
@@ -186,6 +188,8 @@ public class IsosurfaceRenderer extends MeshRenderer {
     vwr.gdata.translucentCoverOnly = (frontOnly || !vwr.getBoolean(T.translucent));
     thePlane = imesh.jvxlData.jvxlPlane;
     vertexValues = mesh.vvs;
+    lod = getLOD();
+    bsLodVertices = (lod == null || mesh.showPoints ? null : lod.bsVertices);
     boolean isOK;
     if (thisSlabValue != Integer.MAX_VALUE && imesh.jvxlData.isSlabbable) {
       g3d.setSlab(thisSlabValue);
@@ -198,6 +202,19 @@ public class IsosurfaceRenderer extends MeshRenderer {
     return isOK;
   }
   
+  /**
+   * While the model is in motion, use a simplified mesh for surfaces with more
+   * than isosurfaceMotionTriangles triangles.
+   * 
+   * @return the simplified mesh or null
+   */
+  private MeshDecimator getLOD() {
+    int max = vwr.getInt(T.isosurfacemotiontriangles);
+    return (max <= 0 || isExport || volumeRender || mesh.pc <= max
+        || mesh.isDrawPolygon || mesh.haveXyPoints || mesh.symops != null
+        || !vwr.isMotionRendering() ? null : mesh.getLOD(max));
+  }
+
   @Override
   protected void render2(boolean isExport) {
     if (volumeRender) {
@@ -405,9 +422,17 @@ public class IsosurfaceRenderer extends MeshRenderer {
     hasColorRange = !colorSolid && !isBicolorMap;
     int diam = getDiameter();
     int i0 = 0;
-    for (int i = mesh.pc; --i >= i0;) {
+    int pc = mesh.pc;
+    int[] lodSource = null;
+    if (lod != null) {
+      polygonIndexes = lod.pis;
+      pc = lod.pc;
+      lodSource = lod.sourcePolygons;
+    }
+    for (int i = pc; --i >= i0;) {
       int[] polygon = polygonIndexes[i];
-      if (polygon == null || selectedPolyOnly && !bsPolygons.get(i))
+      int ip = (lodSource == null ? i : lodSource[i]);
+      if (polygon == null || selectedPolyOnly && !bsPolygons.get(ip))
         continue;
       int iA = polygon[0];
       int iB = polygon[1];
@@ -427,8 +452,8 @@ public class IsosurfaceRenderer extends MeshRenderer {
         continue;
       short colixA, colixB, colixC;
       if (colorSolid) {
-        if (colorArrayed && i < mesh.pcs.length) {
-          short c = mesh.pcs[i];
+        if (colorArrayed && ip < mesh.pcs.length) {
+          short c = mesh.pcs[ip];
           if (c == 0)
             continue;
           colix = c;
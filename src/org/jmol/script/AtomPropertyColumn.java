@@ -0,0 +1,365 @@
+package org.jmol.script;
+
+import javajs.util.BS;
+import javajs.util.P3d;
+
+import org.jmol.modelset.Atom;
+import org.jmol.modelset.AtomCollection;
+import org.jmol.modelset.ModelSet;
+import org.jmol.thread.ParallelTasks;
+import org.jmol.viewer.Viewer;
+
+/**
+ * One numeric atom property over a set of atoms, evaluated in a single tight
+ * pass, as for {*}.temperature.max, {*}.x.all, and SELECT temperature > 50.
+ *
+ * Coordinates and the model set's stored temperature, occupancy, and partial
+ * charge arrays are read directly; anything else goes through
+ * Atom.atomPropertyFloat() or Atom.atomPropertyInt(), so values are always
+ * exactly those. Minimum, maximum, sum, and sum of squares are accumulated as
+ * the values are read, and .all lists are filled as primitive arrays, with no
+ * boxing. Comparisons set bits directly.
+ *
+ * Large sets of simple properties are split into parallel blocks for lists,
+ * minima, maxima, and comparisons. Sums are always accumulated in atom order,
+ * so that they are exactly those of a sequential loop.
+ *
+ */
+class AtomPropertyColumn {
+
+  private final static int MIN_ATOMS_PER_TASK = 5000;
+
+  private final static int FIELD_OTHER = 0;
+  private final static int FIELD_X = 1;
+  private final static int FIELD_Y = 2;
+  private final static int FIELD_Z = 3;
+  private final static int FIELD_TEMPERATURE = 4;
+  private final static int FIELD_OCCUPANCY = 5;
+  private final static int FIELD_PARTIALCHARGE = 6;
+
+  private final static int MODE_LIST = 0;
+  private final static int MODE_REDUCE = 1;
+  private final static int MODE_COMPARE = 2;
+
+  private Viewer vwr;
+  private int tok;
+  private boolean isInt;
+  private int field;
+  private boolean isThreadSafe;
+
+  /**
+   * from getList(): indices of the atoms, in order, with -1 for a deleted
+   * atom, and their values
+   */
+  int[] atoms;
+  double[] values;
+
+  /**
+   * from getList(), the length of atoms[]; from reduce(), the number of atoms,
+   * including deleted atoms but not skipped values
+   */
+  int n;
+
+  /**
+   * from reduce()
+   */
+  double min = Double.POSITIVE_INFINITY;
+  double max = Double.NEGATIVE_INFINITY;
+  double sum;
+  double sum2;
+
+  /**
+   * @param vwr
+   * @param tok
+   * @param isInt
+   *        use Atom.atomPropertyInt()
+   */
+  AtomPropertyColumn(Viewer vwr, int tok, boolean isInt) {
+    this.vwr = vwr;
+    this.tok = tok;
+    this.isInt = isInt;
+    field = getField(tok, isInt);
+    isThreadSafe = (field != FIELD_OTHER || isThreadSafe(tok));
+  }
+
+  /**
+   * @param tok
+   * @return true if this property is simply Atom.atomPropertyFloat() or
+   *         Atom.atomPropertyInt()
+   */
+  static boolean isColumnar(int tok) {
+    switch (tok) {
+    case T.function:
+    case T.property:
+    case T.distance:
+    case T.configuration:
+    case T.cell:
+    case T.wyckoff:
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param tok
+   * @return true if this property only reads atom fields or model set arrays
+   */
+  private static boolean isThreadSafe(int tok) {
+    switch (tok) {
+    case T.covalentradius:
+    case T.atomno:
+    case T.atomid:
+    case T.atomindex:
+    case T.element:
+    case T.elemno:
+    case T.elemisono:
+    case T.formalcharge:
+    case T.resno:
+    case T.modelindex:
+    case T.chainno:
+    case T.groupid:
+    case T.groupindex:
+    case T.subsystem:
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param tok
+   * @param isInt
+   * @return a FIELD_ constant for a property read without Atom's token switch
+   */
+  private static int getField(int tok, boolean isInt) {
+    if (isInt)
+      return FIELD_OTHER;
+    switch (tok) {
+    case T.x:
+    case T.atomx:
+      return FIELD_X;
+    case T.y:
+    case T.atomy:
+      return FIELD_Y;
+    case T.z:
+    case T.atomz:
+      return FIELD_Z;
+    case T.temperature:
+      return FIELD_TEMPERATURE;
+    case T.occupancy:
+      return FIELD_OCCUPANCY;
+    case T.partialcharge:
+      return FIELD_PARTIALCHARGE;
+    }
+    return FIELD_OTHER;
+  }
+
+  /**
+   * Fill atoms[] and values[] for an .all list.
+   *
+   * @param bs
+   *        the atoms, or null for all atoms
+   */
+  void getList(BS bs) {
+    int ac = vwr.ms.ac;
+    atoms = new int[bs == null ? ac : bs.cardinality()];
+    for (int i = (bs == null ? 0 : bs.nextSetBit(0)); i >= 0 && i < ac; i = (bs == null ? i + 1
+        : bs.nextSetBit(i + 1)))
+      atoms[n++] = i;
+    values = new double[n];
+    run(MODE_LIST, null, n, true, 0, 0, null);
+  }
+
+  /**
+   * Accumulate n, min, max, sum, and sum2 just as the corresponding loop of
+   * ScriptExpr.getBitsetProperty() would.
+   *
+   * @param bs
+   *        the atoms, or null for all atoms
+   * @param minmaxtype
+   */
+  void reduce(BS bs, int minmaxtype) {
+    int ac = vwr.ms.ac;
+    run(MODE_REDUCE, bs, (bs == null ? ac : Math.min(ac, bs.length())),
+        minmaxtype == T.min || minmaxtype == T.max, minmaxtype, 0, null);
+  }
+
+  /**
+   * @param e
+   *        for compareFloat()
+   * @param tokOperator
+   * @param comparisonFloat
+   * @return all undeleted atoms whose values compare as specified
+   */
+  BS compare(ScriptExpr e, int tokOperator, double comparisonFloat) {
+    return run(MODE_COMPARE, null, vwr.ms.ac, true, tokOperator,
+        comparisonFloat, e);
+  }
+
+  private BS run(int mode, BS bs, int len, boolean canSplit, int type,
+                 double value, ScriptExpr e) {
+    int nTasks = (canSplit && isThreadSafe ? ParallelTasks.getTaskCount(vwr,
+        len, MIN_ATOMS_PER_TASK) : 1);
+    Task[] tasks = new Task[nTasks];
+    for (int i = 0; i < nTasks; i++)
+      tasks[i] = new Task(mode, bs, len * i / nTasks, len * (i + 1) / nTasks,
+          type, value, e);
+    ParallelTasks.run(vwr, tasks);
+    BS bsMatch = null;
+    for (int i = 0; i < nTasks; i++) {
+      Task t = tasks[i];
+      switch (mode) {
+      case MODE_REDUCE:
+        n += t.n;
+        if (t.min < min)
+          min = t.min;
+        if (t.max > max)
+          max = t.max;
+        sum += t.sum;
+        sum2 += t.sum2;
+        break;
+      case MODE_COMPARE:
+        if (bsMatch == null)
+          bsMatch = t.bsMatch;
+        else
+          bsMatch.or(t.bsMatch);
+        break;
+      }
+    }
+    return bsMatch;
+  }
+
+  /**
+   * One block: positions p0 through p1 - 1 of atoms[] for MODE_LIST;
+   * otherwise atom indices p0 through p1 - 1.
+   */
+  private class Task implements Runnable {
+
+    private int mode;
+    private BS bs;
+    private int p0, p1;
+    private int type;
+    private double value;
+    private ScriptExpr e;
+
+    int n;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum;
+    double sum2;
+    BS bsMatch;
+
+    Task(int mode, BS bs, int p0, int p1, int type, double value, ScriptExpr e) {
+      this.mode = mode;
+      this.bs = bs;
+      this.p0 = p0;
+      this.p1 = p1;
+      this.type = type;
+      this.value = value;
+      this.e = e;
+    }
+
+    @Override
+    public void run() {
+      ModelSet ms = vwr.ms;
+      Atom[] at = ms.at;
+      short[] b = ms.getBFactors();
+      double[] o = ms.occupancies;
+      double[] q = ms.getPartialCharges();
+      P3d ptTemp = new P3d();
+      boolean isList = (mode == MODE_LIST);
+      boolean haveBitSet = (bs != null);
+      if (mode == MODE_COMPARE)
+        bsMatch = new BS();
+      for (int p = (haveBitSet ? bs.nextSetBit(p0) : p0); p >= 0 && p < p1; p = (haveBitSet ? bs
+          .nextSetBit(p + 1) : p + 1)) {
+        int i = (isList ? atoms[p] : p);
+        Atom atom = at[i];
+        if (AtomCollection.isDeleted(atom)) {
+          if (isList)
+            atoms[p] = -1;
+          else
+            n++; // counted, as in getBitsetProperty()
+          continue;
+        }
+        double v;
+        switch (field) {
+        case FIELD_X:
+          v = atom.x;
+          break;
+        case FIELD_Y:
+          v = atom.y;
+          break;
+        case FIELD_Z:
+          v = atom.z;
+          break;
+        case FIELD_TEMPERATURE:
+          v = (b == null ? 0 : b[i]) / 100d;
+          break;
+        case FIELD_OCCUPANCY:
+          v = (o == null ? 100 : (int) Math.round(o[i])) / 100d;
+          break;
+        case FIELD_PARTIALCHARGE:
+          v = (q == null ? 0 : q[i]);
+          break;
+        default:
+          v = (isInt ? atom.atomPropertyInt(tok) : atom.atomPropertyFloat(vwr,
+              tok, ptTemp));
+          break;
+        }
+        switch (mode) {
+        case MODE_LIST:
+          values[p] = v;
+          continue;
+        case MODE_COMPARE:
+          if (e.compareFloat(type, v, value))
+            bsMatch.set(i);
+          continue;
+        }
+        n++;
+        if (isInt) {
+          int iv = (int) v;
+          switch (type) {
+          case T.min:
+            if (iv < min)
+              min = iv;
+            break;
+          case T.max:
+            if (iv > max)
+              max = iv;
+            break;
+          case T.sum2:
+          case T.stddev:
+            sum2 += iv * iv;
+            //$FALL-THROUGH$
+          case T.sum:
+          default:
+            sum += iv;
+          }
+          continue;
+        }
+        if (v == Double.MAX_VALUE || Double.isNaN(v)) {
+          n--; // don't count this one
+          continue;
+        }
+        switch (type) {
+        case T.min:
+          if (v < min)
+            min = v;
+          break;
+        case T.max:
+          if (v > max)
+            max = v;
+          break;
+        case T.sum2:
+        case T.stddev:
+          sum2 += v * v;
+          //$FALL-THROUGH$
+        case T.sum:
+        default:
+          sum += v;
+        }
+      }
+    }
+  }
+
+}
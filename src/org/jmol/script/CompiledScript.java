@@ -0,0 +1,730 @@
+package org.jmol.script;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javajs.util.BS;
+import javajs.util.Lst;
+import javajs.util.M3d;
+import javajs.util.M4d;
+import javajs.util.P3d;
+import javajs.util.P4d;
+
+import org.jmol.util.Logger;
+import org.jmol.viewer.JC;
+import org.jmol.viewer.Viewer;
+
+/**
+ * Saved compilations of script files, so that running the same file again --
+ * a macro or function library sourced by each new viewer, for instance --
+ * skips ScriptCompiler and ScriptTokenParser entirely.
+ *
+ * A compilation -- script text, line pointers, and the token arrays of the
+ * script and of each function it defines -- is saved in a compact binary
+ * form, and each use reads a fresh copy, since the evaluator changes tokens as
+ * it runs. T's static tokens and keyword tokens are saved by reference, so
+ * that they are read back as the very same objects.
+ *
+ * Compilations are keyed by Jmol version, file path, and file modification
+ * time, and are checked against the script text itself. They are held in
+ * memory for all viewers, the cache being simply cleared when full, and, if
+ * the Java system property jmol.scriptcache names a directory, saved there as
+ * well for later sessions.
+ *
+ * Function names and chain IDs that the compiler looked up in the viewer are
+ * saved with their answers and looked up again before a compilation is used.
+ * Nothing is saved for a script that did not compile, for a state script, or
+ * for one with DEFINE or PARALLEL, which change the compiler itself.
+ *
+ */
+class CompiledScript {
+
+  private final static String MAGIC = "JmolCompiledScript 1";
+  private final static int MAX_MEMORY = 1 << 24;
+
+  private final static int TOKEN_NULL = 0;
+  private final static int TOKEN_STATIC = 1;
+  private final static int TOKEN_KEYWORD = 2;
+  private final static int TOKEN_NEW = 3;
+  private final static int TOKEN_CONTEXT = 4;
+  private final static int TOKEN_SV = 5;
+  private final static int TOKEN_REF = 6;
+
+  private final static int VALUE_NULL = 0;
+  private final static int VALUE_STRING = 1;
+  private final static int VALUE_INTEGER = 2;
+  private final static int VALUE_DOUBLE = 3;
+  private final static int VALUE_BOOLEAN = 4;
+  private final static int VALUE_BS = 5;
+  private final static int VALUE_P3 = 6;
+  private final static int VALUE_P4 = 7;
+  private final static int VALUE_LIST = 8;
+  private final static int VALUE_TOKEN = 9;
+  private final static int VALUE_FUNCTION = 10;
+  private final static int VALUE_FUNCTION_REF = 11;
+  private final static int VALUE_M3 = 12;
+  private final static int VALUE_M4 = 13;
+
+  /**
+   * tokens whose identity matters to the compiler or the evaluator
+   */
+  private final static T[] staticTokens = { T.tokenSpaceBeforeSquare,
+      T.tokenOn, T.tokenOff, T.tokenAll, T.tokenIf, T.tokenAnd,
+      T.tokenAndSpec, T.tokenOr, T.tokenAndFALSE, T.tokenOrTRUE, T.tokenOpIf,
+      T.tokenComma, T.tokenDefineString, T.tokenPlus, T.tokenMinus,
+      T.tokenMul3, T.tokenTimes, T.tokenDivide, T.tokenLeftParen,
+      T.tokenRightParen, T.tokenArraySquare, T.tokenArrayOpen,
+      T.tokenArrayClose, T.tokenLeftBrace, T.tokenExpressionBegin,
+      T.tokenExpressionEnd, T.tokenConnected, T.tokenCoordinateBegin,
+      T.tokenRightBrace, T.tokenColon, T.tokenSetCmd, T.tokenSet,
+      T.tokenSetArray, T.tokenSetProperty, T.tokenSetVar, T.tokenEquals,
+      T.tokenScript, T.tokenSwitch, SV.vT, SV.vF, SV.vNaN };
+
+  private static Map<String, byte[]> htMemory = new Hashtable<String, byte[]>();
+  private static int memoryUsed;
+  private static String cacheDir;
+
+  static {
+    try {
+      cacheDir = System.getProperty("jmol.scriptcache", null);
+    } catch (Exception e) {
+      // not allowed
+    }
+  }
+
+  private Map<String, Integer> htStrings;
+  private Lst<String> strings;
+  private Lst<ScriptFunction> functions = new Lst<ScriptFunction>();
+
+  /**
+   * context variable maps written or read so far; CASE and DEFAULT tokens
+   * share the map of their SWITCH token
+   */
+  private Lst<Map<String, SV>> varMaps = new Lst<Map<String, SV>>();
+
+  /**
+   * tokens written or read so far, for tokens that appear more than once;
+   * T.equals() compares values, so written tokens are hashed by identity
+   */
+  private Lst<T> tokens = new Lst<T>();
+  private T[] tokenHash = new T[256];
+  private int[] tokenIndex = new int[256];
+
+  private CompiledScript() {
+    // just for reading and writing
+  }
+
+  /**
+   * Get a fresh copy of a saved compilation of this file and script, if there
+   * is one.
+   *
+   * @param vwr
+   * @param filename
+   * @param script
+   * @return a compiled context or null
+   */
+  static ScriptContext getContext(Viewer vwr, String filename, String script) {
+    String key = getKey(filename);
+    byte[] data = htMemory.get(key);
+    if (data == null && (data = readFile(key)) != null)
+      saveInMemory(key, data);
+    if (data == null)
+      return null;
+    try {
+      return new CompiledScript().read(vwr,
+          new DataInputStream(new ByteArrayInputStream(data)), key, script);
+    } catch (IOException e) {
+      Logger.error("CompiledScript " + filename + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Save a compilation, if it can be.
+   *
+   * @param filename
+   * @param script
+   *        as given to the compiler
+   * @param sc
+   *        the compiled context
+   * @param compiler
+   */
+  static void save(String filename, String script, ScriptContext sc,
+                   ScriptCompiler compiler) {
+    if (sc.errorType != null || !sc.isComplete || compiler.isStateScript)
+      return;
+    String key = getKey(filename);
+    byte[] data;
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bos);
+      new CompiledScript().write(out, key, script, sc, compiler.vwrLookups);
+      out.close();
+      data = bos.toByteArray();
+    } catch (IOException e) {
+      // not one we can save
+      if (Logger.debugging)
+        Logger.debug("CompiledScript " + filename + ": " + e.getMessage());
+      return;
+    }
+    saveInMemory(key, data);
+    writeFile(key, data);
+  }
+
+  private static String getKey(String filename) {
+    return JC.version + "|" + filename + "|" + getModificationTime(filename);
+  }
+
+  private static double getModificationTime(String filename) {
+    if (Viewer.isJS)
+      return 0;
+    String path = filename;
+    if (path.startsWith("file:")) {
+      path = path.substring(5);
+      if (path.startsWith("///"))
+        path = path.substring(2);
+    }
+    if (path.indexOf(":/") >= 0 || path.indexOf("|") >= 0)
+      return 0;
+    File f = new File(path);
+    return (f.isFile() ? f.lastModified() : 0);
+  }
+
+  private static void saveInMemory(String key, byte[] data) {
+    if (memoryUsed + data.length > MAX_MEMORY) {
+      htMemory.clear();
+      memoryUsed = 0;
+    }
+    byte[] old = htMemory.put(key, data);
+    memoryUsed += data.length - (old == null ? 0 : old.length);
+  }
+
+  private static File getCacheFile(String key) {
+    return (cacheDir == null || Viewer.isJS ? null : new File(cacheDir,
+        "jmol" + Integer.toHexString(key.hashCode()) + ".jsc"));
+  }
+
+  private static byte[] readFile(String key) {
+    File f = getCacheFile(key);
+    if (f == null || !f.isFile())
+      return null;
+    try {
+      byte[] data = new byte[(int) f.length()];
+      DataInputStream in = new DataInputStream(new FileInputStream(f));
+      try {
+        in.readFully(data);
+      } finally {
+        in.close();
+      }
+      return data;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void writeFile(String key, byte[] data) {
+    File f = getCacheFile(key);
+    if (f == null)
+      return;
+    try {
+      File tmp = new File(f.getPath() + ".tmp");
+      FileOutputStream os = new FileOutputStream(tmp);
+      try {
+        os.write(data);
+      } finally {
+        os.close();
+      }
+      if (!tmp.renameTo(f)) {
+        f.delete();
+        tmp.renameTo(f);
+      }
+    } catch (IOException e) {
+      Logger.error("CompiledScript could not write " + f + ": " + e);
+    }
+  }
+
+  // writing
+
+  private void write(DataOutputStream out, String key, String script,
+                     ScriptContext sc, Lst<Object[]> lookups)
+      throws IOException {
+    out.writeUTF(MAGIC);
+    out.writeUTF(key);
+    out.writeInt(script.length());
+    out.writeInt(script.hashCode());
+    // function lookups need only be checked once each; chain IDs are
+    // looked up again in order, as the compiler would have
+    Map<String, Boolean> htDone = new Hashtable<String, Boolean>();
+    Lst<Object[]> list = new Lst<Object[]>();
+    for (int i = 0, n = lookups.size(); i < n; i++) {
+      Object[] o = lookups.get(i);
+      String s = (o.length == 2 ? "f" : "c" + o[1]) + o[0];
+      if (htDone.put(s, Boolean.TRUE) == null)
+        list.addLast(o);
+    }
+    out.writeInt(list.size());
+    for (int i = 0, n = list.size(); i < n; i++) {
+      Object[] o = list.get(i);
+      out.writeUTF((String) o[0]);
+      out.writeBoolean(((Boolean) o[1]).booleanValue());
+      if (o.length == 3)
+        out.writeInt(((Integer) o[2]).intValue());
+      else
+        out.writeInt(Integer.MIN_VALUE);
+    }
+    htStrings = new Hashtable<String, Integer>();
+    writeLongString(out, sc.script);
+    writeString(out, sc.scriptExtensions);
+    out.writeBoolean(sc.isEditor);
+    writeVars(out, sc.vars);
+    writeTokens(out, sc.restoreTokens());
+    writeLines(out, sc.lineNumbers, sc.lineIndices);
+  }
+
+  private void writeLongString(DataOutputStream out, String s)
+      throws IOException {
+    byte[] b = s.getBytes("UTF-8");
+    out.writeInt(b.length);
+    out.write(b);
+  }
+
+  private void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    Integer i = htStrings.get(s);
+    if (i != null) {
+      out.writeInt(i.intValue());
+      return;
+    }
+    int n = htStrings.size();
+    htStrings.put(s, Integer.valueOf(n));
+    out.writeInt(n);
+    if (s.length() < 10000) {
+      out.writeBoolean(false);
+      out.writeUTF(s);
+    } else {
+      out.writeBoolean(true);
+      writeLongString(out, s);
+    }
+  }
+
+  private void writeVars(DataOutputStream out, Map<String, SV> vars)
+      throws IOException {
+    if (vars == null) {
+      out.writeInt(-1);
+      return;
+    }
+    for (int i = varMaps.size(); --i >= 0;)
+      if (varMaps.get(i) == vars) {
+        out.writeInt(-2 - i);
+        return;
+      }
+    varMaps.addLast(vars);
+    out.writeInt(vars.size());
+    for (Entry<String, SV> e : vars.entrySet()) {
+      SV v = e.getValue();
+      if (v.tok != T.string || !"".equals(v.value))
+        throw new IOException("context variable " + e.getKey());
+      writeString(out, e.getKey());
+    }
+  }
+
+  private void writeLines(DataOutputStream out, short[] lineNumbers,
+                          int[][] lineIndices) throws IOException {
+    out.writeInt(lineNumbers.length);
+    for (int i = 0; i < lineNumbers.length; i++)
+      out.writeShort(lineNumbers[i]);
+    out.writeInt(lineIndices.length);
+    for (int i = 0; i < lineIndices.length; i++) {
+      out.writeInt(lineIndices[i][0]);
+      out.writeInt(lineIndices[i][1]);
+    }
+  }
+
+  private void writeTokens(DataOutputStream out, T[][] aatoken)
+      throws IOException {
+    out.writeInt(aatoken.length);
+    for (int i = 0; i < aatoken.length; i++) {
+      T[] st = aatoken[i];
+      if (st == null) {
+        out.writeInt(-1);
+        continue;
+      }
+      if (st.length > 0 && st[0] != null
+          && (st[0].tok == T.define || st[0].tok == T.parallel))
+        throw new IOException(T.nameOf(st[0].tok));
+      out.writeInt(st.length);
+      for (int j = 0; j < st.length; j++)
+        writeToken(out, st[j]);
+    }
+  }
+
+  private void writeToken(DataOutputStream out, T t) throws IOException {
+    if (t == null) {
+      out.writeByte(TOKEN_NULL);
+      return;
+    }
+    for (int i = staticTokens.length; --i >= 0;)
+      if (staticTokens[i] == t) {
+        out.writeByte(TOKEN_STATIC);
+        out.writeByte(i);
+        return;
+      }
+    if (t.value instanceof String && T.getTokenFromName((String) t.value) == t) {
+      out.writeByte(TOKEN_KEYWORD);
+      writeString(out, (String) t.value);
+      return;
+    }
+    int index = getTokenIndex(t);
+    if (index >= 0) {
+      out.writeByte(TOKEN_REF);
+      out.writeInt(index);
+      return;
+    }
+    Class<?> c = t.getClass();
+    if (c == ContextToken.class) {
+      ContextToken ct = (ContextToken) t;
+      if (ct.forVars != null)
+        throw new IOException("forVars");
+      out.writeByte(TOKEN_CONTEXT);
+      writeString(out, ct.name0);
+      writeVars(out, ct.contextVariables);
+    } else if (c == SV.class) {
+      SV sv = (SV) t;
+      out.writeByte(TOKEN_SV);
+      out.writeInt(sv.index);
+      writeString(out, sv.myName);
+    } else if (c == T.class) {
+      out.writeByte(TOKEN_NEW);
+    } else {
+      throw new IOException(c.getName());
+    }
+    addToken(t);
+    out.writeInt(t.tok);
+    out.writeInt(t.intValue);
+    writeValue(out, t.value);
+  }
+
+  private int getTokenIndex(T t) {
+    int mask = tokenHash.length - 1;
+    for (int i = t.hashCode() & mask;; i = (i + 1) & mask) {
+      if (tokenHash[i] == t)
+        return tokenIndex[i];
+      if (tokenHash[i] == null)
+        return -1;
+    }
+  }
+
+  private void addToken(T t) {
+    int n = tokens.size();
+    tokens.addLast(t);
+    if (n * 2 >= tokenHash.length) {
+      T[] hash = tokenHash;
+      tokenHash = new T[hash.length * 2];
+      tokenIndex = new int[hash.length * 2];
+      for (int i = 0; i < n; i++)
+        hashToken(tokens.get(i), i);
+    }
+    hashToken(t, n);
+  }
+
+  private void hashToken(T t, int index) {
+    int mask = tokenHash.length - 1;
+    int i = t.hashCode() & mask;
+    while (tokenHash[i] != null)
+      i = (i + 1) & mask;
+    tokenHash[i] = t;
+    tokenIndex[i] = index;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeValue(DataOutputStream out, Object v) throws IOException {
+    if (v == null) {
+      out.writeByte(VALUE_NULL);
+      return;
+    }
+    Class<?> c = v.getClass();
+    if (c == String.class) {
+      out.writeByte(VALUE_STRING);
+      writeString(out, (String) v);
+    } else if (c == Integer.class) {
+      out.writeByte(VALUE_INTEGER);
+      out.writeInt(((Integer) v).intValue());
+    } else if (c == Double.class) {
+      out.writeByte(VALUE_DOUBLE);
+      out.writeDouble(((Double) v).doubleValue());
+    } else if (c == Boolean.class) {
+      out.writeByte(VALUE_BOOLEAN);
+      out.writeBoolean(((Boolean) v).booleanValue());
+    } else if (c == BS.class) {
+      BS bs = (BS) v;
+      out.writeByte(VALUE_BS);
+      out.writeInt(bs.cardinality());
+      for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1))
+        out.writeInt(i);
+    } else if (c == P3d.class) {
+      P3d p = (P3d) v;
+      out.writeByte(VALUE_P3);
+      out.writeDouble(p.x);
+      out.writeDouble(p.y);
+      out.writeDouble(p.z);
+    } else if (c == P4d.class) {
+      P4d p = (P4d) v;
+      out.writeByte(VALUE_P4);
+      out.writeDouble(p.x);
+      out.writeDouble(p.y);
+      out.writeDouble(p.z);
+      out.writeDouble(p.w);
+    } else if (c == M3d.class || c == M4d.class) {
+      int n = (c == M3d.class ? 3 : 4);
+      out.writeByte(n == 3 ? VALUE_M3 : VALUE_M4);
+      for (int i = 0; i < n; i++)
+        for (int j = 0; j < n; j++)
+          out.writeDouble(n == 3 ? ((M3d) v).getElement(i, j) : ((M4d) v)
+              .getElement(i, j));
+    } else if (c == Lst.class) {
+      Lst<Object> list = (Lst<Object>) v;
+      out.writeByte(VALUE_LIST);
+      out.writeInt(list.size());
+      for (int i = 0, n = list.size(); i < n; i++)
+        writeValue(out, list.get(i));
+    } else if (c == T.class || c == ContextToken.class || c == SV.class) {
+      out.writeByte(VALUE_TOKEN);
+      writeToken(out, (T) v);
+    } else if (c == ScriptFunction.class) {
+      ScriptFunction f = (ScriptFunction) v;
+      for (int i = functions.size(); --i >= 0;)
+        if (functions.get(i) == f) {
+          out.writeByte(VALUE_FUNCTION_REF);
+          out.writeInt(i);
+          return;
+        }
+      if (f.returnValue != null)
+        throw new IOException("function " + f.name);
+      functions.addLast(f);
+      out.writeByte(VALUE_FUNCTION);
+      writeString(out, f.name);
+      writeString(out, f.typeName);
+      out.writeInt(f.tok);
+      out.writeInt(f.nParameters);
+      out.writeInt(f.names.size());
+      for (int i = 0, n = f.names.size(); i < n; i++)
+        writeString(out, f.names.get(i));
+      out.writeInt(f.variables.size());
+      for (String s : f.variables.keySet())
+        writeString(out, s);
+      out.writeInt(f.pt0);
+      out.writeInt(f.chpt0);
+      out.writeInt(f.cmdpt0);
+      out.writeBoolean(f.isPrivate);
+      writeString(out, f.script);
+      writeTokens(out, f.aatoken);
+      writeLines(out, f.lineNumbers, f.lineIndices);
+    } else {
+      throw new IOException(c.getName());
+    }
+  }
+
+  // reading
+
+  private ScriptContext read(Viewer vwr, DataInputStream in, String key,
+                             String script) throws IOException {
+    if (!in.readUTF().equals(MAGIC) || !in.readUTF().equals(key)
+        || in.readInt() != script.length() || in.readInt() != script.hashCode())
+      return null;
+    for (int i = in.readInt(); --i >= 0;) {
+      String name = in.readUTF();
+      boolean b = in.readBoolean();
+      int chain = in.readInt();
+      if (chain == Integer.MIN_VALUE ? vwr.isFunction(name) != b : vwr
+          .getChainID(name, b) != chain)
+        return null;
+    }
+    strings = new Lst<String>();
+    ScriptContext sc = new ScriptContext();
+    // the source itself must match; its length and hash code are just a
+    // quick check, and there is no file time for a URL, a zip entry, or
+    // JavaScript
+    if (!script.equals(sc.script = readLongString(in)))
+      return null;
+    sc.scriptExtensions = readString(in);
+    sc.isEditor = in.readBoolean();
+    sc.vars = readVars(in);
+    sc.saveTokens(readTokens(in));
+    sc.lineNumbers = readLineNumbers(in);
+    sc.lineIndices = readLineIndices(in);
+    return sc;
+  }
+
+  private String readLongString(DataInputStream in) throws IOException {
+    byte[] b = new byte[in.readInt()];
+    in.readFully(b);
+    return new String(b, "UTF-8");
+  }
+
+  private String readString(DataInputStream in) throws IOException {
+    int i = in.readInt();
+    if (i < 0)
+      return null;
+    if (i < strings.size())
+      return strings.get(i);
+    String s = (in.readBoolean() ? readLongString(in) : in.readUTF());
+    strings.addLast(s);
+    return s;
+  }
+
+  private Map<String, SV> readVars(DataInputStream in) throws IOException {
+    int n = in.readInt();
+    if (n < 0)
+      return (n == -1 ? null : varMaps.get(-2 - n));
+    Map<String, SV> vars = new Hashtable<String, SV>();
+    varMaps.addLast(vars);
+    for (int i = 0; i < n; i++)
+      ScriptCompiler.addContextVariable(vars, readString(in));
+    return vars;
+  }
+
+  private short[] readLineNumbers(DataInputStream in) throws IOException {
+    short[] lineNumbers = new short[in.readInt()];
+    for (int i = 0; i < lineNumbers.length; i++)
+      lineNumbers[i] = in.readShort();
+    return lineNumbers;
+  }
+
+  private int[][] readLineIndices(DataInputStream in) throws IOException {
+    int[][] lineIndices = new int[in.readInt()][2];
+    for (int i = 0; i < lineIndices.length; i++) {
+      lineIndices[i][0] = in.readInt();
+      lineIndices[i][1] = in.readInt();
+    }
+    return lineIndices;
+  }
+
+  private T[][] readTokens(DataInputStream in) throws IOException {
+    T[][] aatoken = new T[in.readInt()][];
+    for (int i = 0; i < aatoken.length; i++) {
+      int n = in.readInt();
+      if (n < 0)
+        continue;
+      T[] st = aatoken[i] = new T[n];
+      for (int j = 0; j < n; j++)
+        st[j] = readToken(in);
+    }
+    return aatoken;
+  }
+
+  private T readToken(DataInputStream in) throws IOException {
+    T t;
+    switch (in.readByte()) {
+    case TOKEN_NULL:
+      return null;
+    case TOKEN_REF:
+      return tokens.get(in.readInt());
+    case TOKEN_STATIC:
+      return staticTokens[in.readByte()];
+    case TOKEN_KEYWORD:
+      String name = readString(in);
+      if ((t = T.getTokenFromName(name)) == null)
+        throw new IOException("keyword " + name);
+      return t;
+    case TOKEN_CONTEXT:
+      ContextToken ct = new ContextToken();
+      ct.name0 = readString(in);
+      ct.contextVariables = readVars(in);
+      t = ct;
+      break;
+    case TOKEN_SV:
+      SV sv = new SV();
+      sv.index = in.readInt();
+      sv.myName = readString(in);
+      t = sv;
+      break;
+    case TOKEN_NEW:
+      t = new T();
+      break;
+    default:
+      throw new IOException("bad token");
+    }
+    tokens.addLast(t);
+    t.tok = in.readInt();
+    t.intValue = in.readInt();
+    t.value = readValue(in);
+    return t;
+  }
+
+  private Object readValue(DataInputStream in) throws IOException {
+    int type = in.readByte();
+    switch (type) {
+    case VALUE_NULL:
+      return null;
+    case VALUE_STRING:
+      return readString(in);
+    case VALUE_INTEGER:
+      return Integer.valueOf(in.readInt());
+    case VALUE_DOUBLE:
+      return Double.valueOf(in.readDouble());
+    case VALUE_BOOLEAN:
+      return Boolean.valueOf(in.readBoolean());
+    case VALUE_BS:
+      BS bs = new BS();
+      for (int i = in.readInt(); --i >= 0;)
+        bs.set(in.readInt());
+      return bs;
+    case VALUE_P3:
+      return P3d.new3(in.readDouble(), in.readDouble(), in.readDouble());
+    case VALUE_P4:
+      return P4d.new4(in.readDouble(), in.readDouble(), in.readDouble(),
+          in.readDouble());
+    case VALUE_M3:
+    case VALUE_M4:
+      double[] a = new double[type == VALUE_M3 ? 9 : 16];
+      for (int i = 0; i < a.length; i++)
+        a[i] = in.readDouble();
+      return (type == VALUE_M3 ? M3d.newA9(a) : M4d.newA16(a));
+    case VALUE_LIST:
+      Lst<Object> list = new Lst<Object>();
+      for (int i = in.readInt(); --i >= 0;)
+        list.addLast(readValue(in));
+      return list;
+    case VALUE_TOKEN:
+      return readToken(in);
+    case VALUE_FUNCTION_REF:
+      return functions.get(in.readInt());
+    case VALUE_FUNCTION:
+      ScriptFunction f = new ScriptFunction();
+      functions.addLast(f);
+      f.name = readString(in);
+      f.typeName = readString(in);
+      f.tok = in.readInt();
+      f.nParameters = in.readInt();
+      for (int i = in.readInt(); --i >= 0;)
+        f.names.addLast(readString(in));
+      for (int i = in.readInt(); --i >= 0;) {
+        String s = readString(in);
+        f.variables.put(s, s);
+      }
+      f.pt0 = in.readInt();
+      f.chpt0 = in.readInt();
+      f.cmdpt0 = in.readInt();
+      f.isPrivate = in.readBoolean();
+      f.script = readString(in);
+      f.aatoken = readTokens(in);
+      f.lineNumbers = readLineNumbers(in);
+      f.lineIndices = readLineIndices(in);
+      return f;
+    }
+    throw new IOException("bad value");
+  }
+
+}
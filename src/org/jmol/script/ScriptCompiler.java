@@ -290,6 +290,7 @@ public class ScriptCompiler extends ScriptTokenParser {
     main: while (true) {
       vFunctionStack = new Lst<ScriptFunction>();
       htUserFunctions = new Hashtable<String, Boolean>();
+      vwrLookups = new Lst<Object[]>();
       // these four will be returned:
       contextVariables = null;
       lineNumbers = null;
@@ -1008,15 +1008,22 @@ public class ScriptEval extends ScriptExpr {
                                boolean debugCompiler) {
     scriptFileName = filename;
     strScript = fixScriptPath(strScript, filename);
-    ScriptContext sc = compiler.compile(filename, strScript, false, false,
-        debugCompiler && Logger.debugging, false);
+    ScriptContext sc = (filename == null ? null : CompiledScript.getContext(
+        vwr, filename, strScript));
+    boolean isSaved = (sc != null);
+    if (!isSaved) {
+      sc = compiler.compile(filename, strScript, false, false,
+          debugCompiler && Logger.debugging, false);
+      if (filename != null)
+        CompiledScript.save(filename, strScript, sc, compiler);
+    }
     addFunction(null);
     Map<String, ScriptFunction> pf = privateFuncs;
     restoreScriptContext(sc, false, false, false);
     privateFuncs = null;
     if (thisContext != null)
       thisContext.privateFuncs = pf;
-    isStateScript = compiler.isStateScript;
+    isStateScript = (!isSaved && compiler.isStateScript);
     forceNoAddHydrogens = (isStateScript && script.indexOf("pdbAddHydrogens") < 0);
     String s = script;
     isGUI = (s.indexOf(JC.SCRIPT_GUI) >= 0);
@@ -1264,7 +1264,7 @@ abstract class ScriptExpr extends ScriptParam {
     return l;
   }
 
-  private P3d ptTemp;
+  private P3d ptTemp = new P3d();
 
   /**
    * 
@@ -1276,29 +1276,17 @@ abstract class ScriptExpr extends ScriptParam {
    */
   protected BS compareFloatData(int tokWhat, double[] data, int tokOperator,
                                 double comparisonFloat) {
-    BS bs = new BS();
-    int ac = vwr.ms.ac;
-    ModelSet modelSet = vwr.ms;
-    Atom[] atoms = modelSet.at;
-    double propertyFloat = 0;
     vwr.autoCalculate(tokWhat, null);
-    boolean isProp = (tokWhat == T.property);
-    if (!isProp && ptTemp == null)
-      ptTemp = new P3d();
-    for (int i = ac; --i >= 0;) {
-      boolean match = false;
-      Atom atom = atoms[i];
-      if (AtomCollection.isDeleted(atom))
+    if (tokWhat != T.property)
+      return new AtomPropertyColumn(vwr, tokWhat, false).compare(this,
+          tokOperator, comparisonFloat);
+    BS bs = new BS();
+    Atom[] atoms = vwr.ms.at;
+    for (int i = vwr.ms.ac; --i >= 0;) {
+      if (AtomCollection.isDeleted(atoms[i]) || data == null
+          || data.length <= i)
         continue;
-      if (isProp) {
-        if (data == null || data.length <= i)
-          continue;
-        propertyFloat = data[i];
-      } else {
-        propertyFloat = atom.atomPropertyFloat(vwr, tokWhat, ptTemp);
-      }
-      match = compareFloat(tokOperator, propertyFloat, comparisonFloat);
-      if (match)
+      if (compareFloat(tokOperator, data[i], comparisonFloat))
         bs.set(i);
     }
     return bs;
@@ -1755,7 +1743,52 @@ abstract class ScriptExpr extends ScriptParam {
                 : isString ? 2 
                 : isInt ? 1 
                     : 0);
-    if (isAtoms) {
+    if (isAtoms && mode <= 1 && pts == null && !haveIndex && !chk
+        && AtomPropertyColumn.isColumnar(tok)) {
+      // numeric atom property over a set of atoms, in one tight pass
+      AtomPropertyColumn col = new AtomPropertyColumn(vwr, tok, isInt);
+      switch (minmaxtype) {
+      case T.all:
+      case T.allfloat:
+        col.getList(bs);
+        int[] list = col.atoms;
+        double[] values = col.values;
+        if (minmaxtype == T.all && asVectorIfAll && !isPivot)
+          return getColumnList(list, values, col.n, isInt);
+        for (int p = 0; p < col.n; p++) {
+          int i = list[p];
+          double fv = values[p];
+          if (i < 0 || !isInt && (fv == Double.MAX_VALUE
+              || Double.isNaN(fv) && minmaxtype != T.all))
+            continue;
+          if (minmaxtype == T.allfloat)
+            fout[i] = fv;
+          else
+            vout.addLast(isInt ? (Object) Integer.valueOf((int) fv)
+                : Double.valueOf(fv));
+        }
+        break;
+      default:
+        col.reduce(bs, minmaxtype);
+        n = col.n;
+        sum = col.sum;
+        sum2 = col.sum2;
+        switch (minmaxtype) {
+        case T.min:
+          if (col.min < fvMinMax)
+            fvMinMax = col.min;
+          if (col.min < ivMinMax)
+            ivMinMax = (int) col.min;
+          break;
+        case T.max:
+          if (col.max > fvMinMax)
+            fvMinMax = col.max;
+          if (col.max > ivMinMax)
+            ivMinMax = (int) col.max;
+          break;
+        }
+      }
+    } else if (isAtoms) {
       boolean haveBitSet = (bs != null);
       int i0, i1;
       if (pts != null) {
@@ -2091,6 +2124,39 @@ abstract class ScriptExpr extends ScriptParam {
     return Double.valueOf(sum);
   }
 
+  /**
+   * The .all list of a numeric atom property, as an array rather than a list
+   * of boxed values; SV.getVariable() makes the same script list of either.
+   * 
+   * @param atoms
+   *        atom indices, with -1 for deleted atoms
+   * @param values
+   * @param n
+   * @param isInt
+   * @return int[] or double[]
+   */
+  private static Object getColumnList(int[] atoms, double[] values, int n,
+                                      boolean isInt) {
+    int nOut = n;
+    for (int p = n; --p >= 0;)
+      if (atoms[p] < 0 || !isInt && values[p] == Double.MAX_VALUE)
+        nOut--;
+    if (isInt) {
+      int[] iout = new int[nOut];
+      for (int p = 0, j = 0; p < n; p++)
+        if (atoms[p] >= 0)
+          iout[j++] = (int) values[p];
+      return iout;
+    }
+    if (nOut == n)
+      return values;
+    double[] dout = new double[nOut];
+    for (int p = 0, j = 0; p < n; p++)
+      if (atoms[p] >= 0 && values[p] != Double.MAX_VALUE)
+        dout[j++] = values[p];
+    return dout;
+  }
+
   private BS bitSetForModelFileNumber(int m) {
     // where */1.0 or */1.1 or just 1.1 is processed
     BS bs = BS.newN(vwr.ms.ac);
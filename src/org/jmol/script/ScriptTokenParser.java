@@ -55,6 +55,12 @@ abstract class ScriptTokenParser {
 
   protected Map<String, Boolean> htUserFunctions;
 
+  /**
+   * viewer lookups made while compiling, in order: {name, Boolean} for a
+   * function and {id, isAssign, Integer} for a chain ID; see CompiledScript
+   */
+  Lst<Object[]> vwrLookups;
+
   protected String script;
   protected boolean isStateScript;
 
@@ -272,7 +278,18 @@ abstract class ScriptTokenParser {
 
   protected boolean isUserFunction(String name) {
     name = name.toLowerCase();
-    return (!isStateScript && (vwr.isFunction(name) || htUserFunctions.containsKey(name)));
+    if (isStateScript)
+      return false;
+    boolean isFunction = vwr.isFunction(name);
+    vwrLookups.addLast(new Object[] { name, Boolean.valueOf(isFunction) });
+    return (isFunction || htUserFunctions.containsKey(name));
+  }
+
+  private int getChainID(String id, boolean isAssign) {
+    int chain = vwr.getChainID(id, isAssign);
+    vwrLookups.addLast(new Object[] { id, Boolean.valueOf(isAssign),
+        Integer.valueOf(chain) });
+    return chain;
   }
 
   private boolean isExpressionNext() {
@@ -1325,7 +1342,7 @@ abstract class ScriptTokenParser {
         strChain = "" + val;
         break;
       case T.string:
-        vwr.getChainID("a", true); // forces chain case
+        getChainID("a", true); // forces chain case
         //$FALL-THROUGH$
       default:
         strChain = "" + getToken().value;
@@ -1336,7 +1353,7 @@ abstract class ScriptTokenParser {
       else if (strChain.equals("?"))
         return true;
     }
-    int chain = vwr.getChainID(strChain, false);
+    int chain = getChainID(strChain, false);
     return generateResidueSpecCode(T.tv(T.spec_chain, chain, "spec_chain"));
   }
 
@@ -34,6 +34,7 @@ import javajs.util.AU;
 import javajs.util.Lst;
 
 import org.jmol.util.Logger;
+import org.jmol.util.StartupProfile;
 
 /**
  * 
@@ -979,6 +980,8 @@ public class T {
   public final static int zdepth                         = intparam | 58;
   public final static int zslab                          = intparam | 60;
   public final static int zshadepower                    = intparam | 62;
+  public final static int isosurfacemotiontriangles      = intparam | 63;
+  public final static int rendermetricsinterval          = intparam | 64;
 
   public final static int allowembeddedscripts           = booleanparam | 2;
   public final static int allowgestures                  = booleanparam | 4;
@@ -1080,6 +1083,7 @@ public class T {
   public final static int navigationperiodic             = booleanparam | 114;
   public final static int nbocharges                     = booleanparam | 115;
   public final static int nodelay                        = booleanparam | 116;
+  public final static int occlusionculling               = booleanparam | 209; // 16.2.34
   public final static int partialdots                    = booleanparam | 117; // 12.1.46
   public final static int pdbaddhydrogens                = booleanparam | 118;
   public final static int pdbgetheader                   = booleanparam | 119;
@@ -1615,6 +1619,8 @@ public class T {
     // OK for J2S compiler even though T is not final because 
     // tokenMap is private
 
+    long tStart = StartupProfile.start();
+
     Object[] arrayPairs  = {
 
     // atom expressions
@@ -2558,6 +2564,7 @@ public class T {
        "propertyAtomNumberColumnCount",
        "propertyDataColumnCount",
        "propertyDataField",
+       "renderMetricsInterval",
        "repaintWaitMs",
        "ribbonAspectRatio",
        "contextDepthMax",
@@ -2659,6 +2666,7 @@ public class T {
        "isosurfaceKey",
        "isosurfacePropertySmoothing",
        "isosurfacePropertySmoothingPower",
+       "isosurfaceMotionTriangles",
        "jmolInJSpecView",
        "justifyMeasurements",
        "languageTranslation",
@@ -2687,6 +2695,7 @@ public class T {
        "navigateSurface",
        "navigationMode",
        "navigationPeriodic",
+       "occlusionCulling",
        "partialDots",
        "pdbAddHydrogens",
        "pdbGetHeader",
@@ -3641,6 +3650,7 @@ public class T {
         propertyatomnumbercolumncount,      //        "propertyAtomNumberColumnCount"
         propertydatacolumncount,            //        "propertyDataColumnCount"
         propertydatafield,                  //        "propertyDataField"
+        rendermetricsinterval,              //        "renderMetricsInterval"
         repaintwaitms,                      //        "repaintWaitMs"
         ribbonaspectratio,                  //        "ribbonAspectRatio"
         contextdepthmax,                     //        "scriptLevelMax"
@@ -3742,6 +3752,7 @@ public class T {
         isosurfacekey,                      //        "isosurfaceKey"
         isosurfacepropertysmoothing,        //        "isosurfacePropertySmoothing"
         isosurfacepropertysmoothingpower,   //        "isosurfacePropertySmoothingPower"
+        isosurfacemotiontriangles,          //        "isosurfaceMotionTriangles"
         jmolinjspecview,
         justifymeasurements,                //        "justifyMeasurements"
         languagetranslation,                //        "languageTranslation"
@@ -3770,6 +3781,7 @@ public class T {
         navigatesurface,                    //        "navigateSurface"
         navigationmode,                     //        "navigationMode"
         navigationperiodic,                 //        "navigationPeriodic"
+        occlusionculling,                   //        "occlusionCulling"
         partialdots,                        //        "partialDots"
         pdbaddhydrogens,                    //        "pdbAddHydrogens"
         pdbgetheader,                       //        "pdbGetHeader"
@@ -3858,6 +3870,7 @@ public class T {
     
     sTokens = null;
     iTokens = null;
+    StartupProfile.end("T token map", tStart);
   }
 
   public static int getParamType(int tok) {
@@ -4533,6 +4533,9 @@ public class CmdExt extends ScriptExt {
       } else if (type.equals("OBJ")) {
         type = "Obj";
         isExport = true;
+      } else if (type.equals("GLB")) {
+        type = "Glb";
+        isExport = true;
       } else if (type.equals("JVXL")) {
         type = "ISOSURFACE";
       } else if (type.equals("XJVXL")) {
@@ -77,6 +77,12 @@ public class Measures extends AtomShape implements JmolMeasurementClient {
   public Font font3d;
   private Map<String, Integer> htMin;
   
+  /**
+   * while measurements between sets of atoms are being defined or selected,
+   * the index of the last measurement of each pair of atoms, for find()
+   */
+  private Map<String, Integer> htPairs;
+  
   @Override
   protected void initModelSet() {
     for (int i = measurements.size(); --i >= 0; ) {
@@ -536,7 +542,28 @@ private void toggleOn(int[] indices) {
   }
 
   private int find(Measurement m) {
-    return (m.thisID == null ? Measurement.find(measurements, m) : -1);
+    if (m.thisID != null)
+      return -1;
+    if (htPairs != null && m.count == 2) {
+      int a = m.countPlusIndices[1];
+      int b = m.countPlusIndices[2];
+      if (a >= 0 && b >= 0) {
+        Integer i = htPairs.get(getPairKey(a, b));
+        return (i == null ? -1 : i.intValue());
+      }
+    }
+    return Measurement.find(measurements, m);
+  }
+
+  private static String getPairKey(int a, int b) {
+    return (a < b ? a + "_" + b : b + "_" + a);
+  }
+
+  private void addPair(Measurement m, int i) {
+    if (m.count == 2 && m.countPlusIndices[1] >= 0
+        && m.countPlusIndices[2] >= 0)
+      htPairs.put(getPairKey(m.countPlusIndices[1], m.countPlusIndices[2]),
+          Integer.valueOf(i));
   }
 
   private void setIndices() {
@@ -556,8 +583,19 @@ private void toggleOn(int[] indices) {
     }
     if (tokAction == T.select)
       bsSelected = new BS();
-    md.define(this, ms);
-    // continues with iterative call to processNextMeasure(m)
+    md.clientMeasurements = measurements;
+    if (tokAction != T.delete) {
+      // nothing is deleted, so indices stay put
+      htPairs = new Hashtable<String, Integer>();
+      for (int i = 0, n = measurements.size(); i < n; i++)
+        addPair(measurements.get(i), i);
+    }
+    try {
+      md.define(this, ms);
+      // continues with iterative call to processNextMeasure(m)
+    } finally {
+      htPairs = null;
+    }
   }
 
   @Override
@@ -615,6 +653,8 @@ private void toggleOn(int[] indices) {
     if (!measureNew.isValid)
       return;
     measurements.addLast(measureNew);
+    if (htPairs != null)
+      addPair(measureNew, measurements.size() - 1);
     vwr.setStatusMeasuring("measureCompleted", measurementCount++,
         getMessage(measureNew, false), measureNew.value);
   }
@@ -28,11 +28,13 @@ package org.jmol.shape;
 import java.util.Hashtable;
 import java.util.Map;
 
+import org.jmol.api.Interface;
 import org.jmol.api.SymmetryInterface;
 import org.jmol.script.T;
 import org.jmol.util.BSUtil;
 import org.jmol.util.C;
 import org.jmol.util.Escape;
+import org.jmol.util.MeshDecimator;
 import org.jmol.util.MeshSurface;
 import org.jmol.util.Normix;
 import org.jmol.viewer.Viewer;
@@ -144,8 +146,25 @@ public class Mesh extends MeshSurface {
     clearMesh(meshType);
   }
 
+  private MeshDecimator lod;
+
+  /**
+   * Get the simplified version of this mesh used while the model is in
+   * motion, creating it if the mesh or the triangle limit has changed.
+   * 
+   * @param maxTriangles
+   * @return the simplification, or null if the mesh needs none
+   */
+  public MeshDecimator getLOD(int maxTriangles) {
+    if (lod == null || !lod.isValid(pis, pc, maxTriangles))
+      lod = ((MeshDecimator) Interface.getUtil("MeshDecimator", vwr,
+          "render")).set(vs, vc, pis, pc, maxTriangles);
+    return (lod.pis == null ? null : lod);
+  }
+
   public void clearMesh(String meshType) {
     altVertices = null;
+    lod = null;
     bsDisplay = null;
     bsSlabDisplay = null;
     bsSlabGhost = null;
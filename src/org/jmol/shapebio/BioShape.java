@@ -28,7 +28,9 @@ package org.jmol.shapebio;
 import java.util.Map;
 
 import javajs.util.AU;
+import javajs.util.P3d;
 import javajs.util.PT;
+import javajs.util.T3d;
 import javajs.util.V3d;
 
 import org.jmol.c.PAL;
@@ -264,11 +266,74 @@ public class BioShape extends AtomShape {
   }
 
   public void falsifyMesh() {
+    meshPoints = null;
     if (meshReady == null)
       return;
     for (int i = 0; i < monomerCount; i++)
       meshReady[i] = false;
   }
+
+  /**
+   * set by BioShapeCollection when the atoms of a trajectory have moved
+   */
+  public boolean checkMovedMesh;
+
+  /**
+   * control points and wing vectors, x, y, z, as of the last check
+   */
+  private double[] meshPoints;
+
+  /**
+   * After a trajectory step, falsify just the meshes built from a control
+   * point or wing vector that has moved since the last check, rather than all
+   * of them. Mesh i is built from points i - 1 through i + 3, and its normals
+   * are matched to those of meshes i - 1 and i + 1 at the seams.
+   * 
+   * @param controlPoints
+   * @param wingVectors
+   */
+  public void falsifyMovedMesh(P3d[] controlPoints, V3d[] wingVectors) {
+    checkMovedMesh = false;
+    if (meshReady == null)
+      return;
+    int n = monomerCount + 1;
+    if (meshPoints == null) {
+      falsifyMesh();
+      meshPoints = new double[n * 6];
+    }
+    boolean isCyclic = bioPolymer.isCyclic();
+    for (int i = 0, pt = 0; i < n; i++, pt += 6) {
+      boolean moved = setMeshPoint(pt, controlPoints[i]);
+      if (setMeshPoint(pt + 3, wingVectors == null ? null : wingVectors[i]))
+        moved = true;
+      if (!moved)
+        continue;
+      if (isCyclic) {
+        falsifyMesh();
+        return;
+      }
+      for (int j = Math.min(i + 3, monomerCount); --j >= i - 4 && j >= 0;)
+        meshReady[j] = false;
+    }
+  }
+
+  /**
+   * @param pt
+   * @param t
+   * @return true if t has moved
+   */
+  private boolean setMeshPoint(int pt, T3d t) {
+    double x = (t == null ? Double.MAX_VALUE : t.x);
+    double y = (t == null ? 0 : t.y);
+    double z = (t == null ? 0 : t.z);
+    if (meshPoints[pt] == x && meshPoints[pt + 1] == y
+        && meshPoints[pt + 2] == z)
+      return false;
+    meshPoints[pt] = x;
+    meshPoints[pt + 1] = y;
+    meshPoints[pt + 2] = z;
+    return true;
+  }
    
   private void falsifyNearbyMesh(int index) {
     if (meshReady == null)
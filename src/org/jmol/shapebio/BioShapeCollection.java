@@ -134,7 +134,7 @@ public abstract class BioShapeCollection extends Shape {
       for (int i = bioShapes.length; --i >= 0;) {
         BioShape b = bioShapes[i];
         if (b.modelIndex == modelIndex)
-          b.falsifyMesh();
+          b.checkMovedMesh = true;
       }
       return;
     }
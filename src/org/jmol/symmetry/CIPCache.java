@@ -0,0 +1,112 @@
+package org.jmol.symmetry;
+
+import org.jmol.util.Int2ObjHash;
+
+/**
+ * Saved results of CIPChirality for atom centers.
+ *
+ * A result depends only on the atoms the digraph actually explored and their
+ * bonded neighbors, so it holds for any center with exactly the same explored
+ * environment -- the same atom after an edit elsewhere in the molecule, or the
+ * matching atom of another model.
+ *
+ * An environment is recorded as a signature: for each explored atom, its
+ * index relative to the center, element, isotope, bonding, and the flags
+ * CIPData sets on it, followed by the same for each of its bonds and
+ * neighbors. Entries are found by a hash of the center's own part of that
+ * signature and then matched exactly.
+ *
+ * Rules 1a, 1b, and 2 do not use coordinates, so for a center decided by one
+ * of them only the order of its ligands is saved, and the handedness of that
+ * order is checked again; this survives minimization and conformational
+ * change. Any other result, including "no chirality" after all rules, also
+ * saves the coordinates of the environment, which must then match exactly.
+ *
+ * Shared by the CIPChirality objects of a batch calculation, so access to the
+ * table is synchronized; entries are not changed once added.
+ *
+ */
+class CIPCache {
+
+  /**
+   * a limit to memory use; the table is simply cleared when full
+   */
+  private final static int MAX_ENTRIES = 20000;
+
+  /**
+   * marks a phantom (lone-pair) ligand in Entry.order
+   */
+  final static int NO_ATOM = Integer.MIN_VALUE;
+
+  static class Entry {
+
+    /**
+     * hash of the center's part of the signature
+     */
+    int hash;
+
+    /**
+     * explored atoms, relative to the center (the center first)
+     */
+    int[] rel;
+
+    /**
+     * signature of the explored atoms, in the order of rel
+     */
+    int[] sig;
+
+    /**
+     * the four ligands in CIP order, relative to the center, or NO_ATOM; null
+     * if xyz is not null
+     */
+    int[] order;
+
+    /**
+     * coordinates of the environment, or null if only the order matters
+     */
+    double[] xyz;
+
+    /**
+     * the result, when xyz is not null
+     */
+    int rs;
+
+    /**
+     * the rule that decided the result
+     */
+    int rule;
+
+    /**
+     * atom names of rel and the _M.CIPInfo text, when tracking
+     */
+    String[] names;
+    String track;
+
+    Entry next;
+  }
+
+  private Int2ObjHash<Entry> map = new Int2ObjHash<Entry>(256);
+  private int entryCount;
+
+  CIPCache() {
+  }
+
+  /**
+   * @param hash
+   * @return first entry of the chain of entries with this hash, or null
+   */
+  synchronized Entry get(int hash) {
+    return map.get(hash);
+  }
+
+  synchronized void add(Entry e) {
+    if (entryCount == MAX_ENTRIES) {
+      map.clear();
+      entryCount = 0;
+    }
+    e.next = map.get(e.hash);
+    map.put(e.hash, e);
+    entryCount++;
+  }
+
+}
@@ -31,8 +31,10 @@ import java.util.Collections;
 import java.util.Hashtable;
 import java.util.Map;
 
+import javajs.util.AU;
 import javajs.util.BS;
 import javajs.util.Lst;
+import javajs.util.P3d;
 import javajs.util.PT;
 
 import org.jmol.util.Elements;
@@ -102,6 +104,10 @@ import org.jmol.viewer.JC;
  * - fills _M.CIPInfo with detailed information about how each ligand was decided
  *   (feature turned off by set testflag2)
  * 
+ * - caches results by the environment the digraph explored, so that repeated
+ *   calculations only redo centers near an edit; centers decided by Rules 1a-2
+ *   only check handedness again, even after minimization (see CIPCache)
+ * 
  * - generates advanced Rule 6 descriptors for cubane and the like. (Generally 'r')
  *   using set testflag1
  * 
@@ -694,10 +700,53 @@ public class CIPChirality {
    */
   int ptIDLogger;
 
+  /**
+   * saved results for atom centers; shared with the CIPChirality objects of a
+   * batch calculation
+   */
+  CIPCache cache;
+
+  /**
+   * atoms explored by the digraph for the current root, when caching
+   */
+  BS bsVisited;
+
+  /**
+   * signature being built, or compared with sigRef and xyzRef
+   */
+  private int[] sig = new int[64];
+  private int nSig;
+  private int[] sigRef;
+  private boolean sigOK;
+  private double[] xyz, xyzRef;
+  private int nXyz;
+
   public CIPChirality() {
     // for reflection
   }
 
+  /**
+   * A batch task for one model, with its own CIPChirality object sharing this
+   * one's cache.
+   * 
+   * @param data
+   * @return task
+   */
+  Runnable getTask(final CIPData data) {
+    final CIPChirality cip = new CIPChirality();
+    cip.cache = getCache();
+    return new Runnable() {
+      @Override
+      public void run() {
+        cip.getChiralityForAtoms(data);
+      }
+    };
+  }
+
+  private synchronized CIPCache getCache() {
+    return (cache == null ? cache = new CIPCache() : cache);
+  }
+
   /**
    * A general determination of chirality that involves ultimately all of Rules
    * 1-6.
@@ -716,6 +765,10 @@ public class CIPChirality {
     
     ptIDLogger = 0;
 
+    boolean useCache = (!data.isSmiles() && !Logger.debugging);
+    if (useCache)
+      getCache();
+
     // using BSAtoms here because we need the entire graph,
     // including multiple molecular units (AY-236.93
 
@@ -733,10 +786,11 @@ public class CIPChirality {
       SimpleNode a = data.atoms[i];
       a.setCIPChirality(0);
       ptIDLogger = 0;
-      int c = getAtomChiralityLimited(a, null, null);
+      int c = (useCache ? getAtomChiralityCached(a)
+          : getAtomChiralityLimited(a, null, null));
       a.setCIPChirality(c == CIPChirality.NO_CHIRALITY ? JC.CIP_CHIRALITY_NONE : c
           | ((currentRule - 1) << JC.CIP_CHIRALITY_NAME_OFFSET));
-      if (doTrack && c != CIPChirality.NO_CHIRALITY)
+      if (doTrack && c != CIPChirality.NO_CHIRALITY && !useCache)
         data.getRootTrackerResult(root);
     }
     if (haveAlkenes) {
@@ -767,6 +821,189 @@ public class CIPChirality {
 
   }
 
+  /**
+   * Determine R/S for an atom using or adding to the cache. Sets currentRule
+   * and, if tracking, _M.CIPInfo.
+   * 
+   * @param atom
+   * @return as for getAtomChiralityLimited
+   */
+  private int getAtomChiralityCached(SimpleNode atom) {
+    int index = atom.getIndex();
+    SimpleNode[] atoms = data.atoms;
+    nSig = nXyz = 0;
+    xyz = null;
+    putSig(data.testRule6Full ? 1 : 0);
+    addSignature(atom, index);
+    int hash = 0;
+    for (int i = 0; i < nSig; i++)
+      hash = hash * 31 + sig[i];
+    for (CIPCache.Entry e = cache.get(hash); e != null; e = e.next) {
+      if (!isCacheMatch(e, index))
+        continue;
+      currentRule = e.rule;
+      int[] order = e.order;
+      int rs = (order == null ? e.rs : data.getHandedness(atom,
+          getCachedNode(order[0], index), getCachedNode(order[1], index),
+          getCachedNode(order[2], index), getCachedNode(order[3], index)));
+      if (doTrack && rs != NO_CHIRALITY)
+        data.setRootTrackerResult(atom, e.track);
+      return rs;
+    }
+    bsVisited = new BS();
+    // an early return -- not sp3, or two H atoms -- leaves currentRule 0
+    currentRule = 0;
+    int rs = getAtomChiralityLimited(atom, null, null);
+    BS bs = bsVisited;
+    bsVisited = null;
+    String track = (doTrack && rs != NO_CHIRALITY ? data
+        .getRootTrackerResult(root) : null);
+    if (currentRule == 0 || rs == STEREO_BOTH_RS || root.atom != atom)
+      return rs;
+    CIPCache.Entry e = new CIPCache.Entry();
+    e.hash = hash;
+    e.rule = currentRule;
+    if (currentRule <= RULE_2) {
+      e.order = new int[4];
+      for (int i = 0; i < 4; i++)
+        e.order[i] = (root.atoms[i].atom == null ? CIPCache.NO_ATOM
+            : root.atoms[i].atom.getIndex() - index);
+    } else {
+      e.rs = rs;
+      xyz = new double[64];
+    }
+    bs.clear(index);
+    int n = bs.cardinality() + 1;
+    e.rel = new int[n];
+    if (doTrack) {
+      e.names = new String[n];
+      e.names[0] = atom.getAtomName();
+      e.track = track;
+    }
+    nSig = nXyz = 0;
+    putSig(data.testRule6Full ? 1 : 0);
+    addSignature(atom, index);
+    for (int i = bs.nextSetBit(0), pt = 1; i >= 0; i = bs.nextSetBit(i + 1), pt++) {
+      e.rel[pt] = i - index;
+      if (doTrack)
+        e.names[pt] = atoms[i].getAtomName();
+      addSignature(atoms[i], index);
+    }
+    e.sig = AU.arrayCopyI(sig, nSig);
+    if (xyz != null) {
+      e.xyz = AU.arrayCopyD(xyz, nXyz);
+      xyz = null;
+    }
+    cache.add(e);
+    return rs;
+  }
+
+  private SimpleNode getCachedNode(int rel, int index) {
+    return (rel == CIPCache.NO_ATOM ? null : data.atoms[index + rel]);
+  }
+
+  /**
+   * Check that the environment of this atom matches a cached one exactly.
+   * 
+   * @param e
+   * @param index
+   * @return true if a match
+   */
+  private boolean isCacheMatch(CIPCache.Entry e, int index) {
+    SimpleNode[] atoms = data.atoms;
+    int[] rel = e.rel;
+    if (doTrack && e.names == null)
+      return false;
+    sigRef = e.sig;
+    xyzRef = e.xyz;
+    sigOK = true;
+    nSig = nXyz = 0;
+    putSig(data.testRule6Full ? 1 : 0);
+    for (int i = 0; i < rel.length && sigOK; i++) {
+      int j = index + rel[i];
+      SimpleNode a = (j >= 0 && j < atoms.length ? atoms[j] : null);
+      if (a == null || doTrack && !e.names[i].equals(a.getAtomName()))
+        sigOK = false;
+      else
+        addSignature(a, index);
+    }
+    sigRef = null;
+    xyzRef = null;
+    return (sigOK && nSig == e.sig.length
+        && (e.xyz == null || nXyz == e.xyz.length));
+  }
+
+  /**
+   * Add to the signature everything about an atom that the rules can see: its
+   * element, isotope, bonding, and CIPData flags, and its bonds and their
+   * atoms, along with all their coordinates if those are needed. Atom indices
+   * are relative to the root atom.
+   * 
+   * @param a
+   * @param index
+   *        of the root atom
+   */
+  private void addSignature(SimpleNode a, int index) {
+    putSig(a.getIndex() - index);
+    putSig(a.getElementNumber());
+    putSig(a.getIsotopeNumber());
+    putSig(a.getCovalentBondCount());
+    putSig(a.getValence());
+    putSig(getSignatureFlags(a.getIndex()));
+    putXYZ(a);
+    SimpleEdge[] edges = a.getEdges();
+    putSig(edges.length);
+    for (int i = 0; i < edges.length; i++) {
+      SimpleEdge bond = edges[i];
+      if (!bond.isCovalent()) {
+        putSig(CIPCache.NO_ATOM);
+        continue;
+      }
+      SimpleNode b = bond.getOtherNode(a);
+      putSig(b.getIndex() - index);
+      putSig(data.getBondOrder(bond));
+      putSig(b.getElementNumber());
+      putSig(getSignatureFlags(b.getIndex()));
+      putXYZ(b);
+    }
+  }
+
+  private int getSignatureFlags(int i) {
+    return (data.bsKekuleAmbiguous.get(i) ? 1 : 0)
+        | (data.bsAzacyclic != null && data.bsAzacyclic.get(i) ? 2 : 0)
+        | (data.bsNegativeAromatic.get(i) ? 4 : 0)
+        | (data.bsXAromatic.get(i) ? 8 : 0);
+  }
+
+  private void putXYZ(SimpleNode a) {
+    if (xyzRef != null) {
+      P3d p = a.getXYZ();
+      if (nXyz + 3 > xyzRef.length || xyzRef[nXyz++] != p.x
+          || xyzRef[nXyz++] != p.y || xyzRef[nXyz++] != p.z)
+        sigOK = false;
+      return;
+    }
+    if (xyz == null)
+      return;
+    if (nXyz + 3 > xyz.length)
+      xyz = AU.arrayCopyD(xyz, nXyz * 2);
+    P3d p = a.getXYZ();
+    xyz[nXyz++] = p.x;
+    xyz[nXyz++] = p.y;
+    xyz[nXyz++] = p.z;
+  }
+
+  private void putSig(int x) {
+    if (sigRef != null) {
+      if (nSig >= sigRef.length || sigRef[nSig++] != x)
+        sigOK = false;
+      return;
+    }
+    if (nSig == sig.length)
+      sig = AU.arrayCopyI(sig, nSig * 2);
+    sig[nSig++] = x;
+  }
+
   private void setStereoFromSmiles(BS bsHelix, int stereo, SimpleNode[] atoms) {
     if (bsHelix != null)
       for (int i = bsHelix.nextSetBit(0); i >= 0; i = bsHelix
@@ -1551,6 +1788,8 @@ public class CIPChirality {
       this.isAlkene = isAlkene;
       this.atom = atom;
       atomIndex = atom.getIndex();
+      if (bsVisited != null)
+        bsVisited.set(atomIndex);
       if (atom.getIsotopeNumber() > 0)
         bsNeedRule.set(RULE_2);
       this.isDuplicate = multipleBondDuplicate = isDuplicate;
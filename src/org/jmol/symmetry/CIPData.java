@@ -564,9 +564,26 @@ public class CIPData {
     CIPAtom[] atoms = a.atoms; 
     if (!setCoord(a.atom, atoms))
       return CIPChirality.NO_CHIRALITY;
-    P3d p0 = (atoms[3].atom == null ? a.atom : atoms[3].atom).getXYZ();
-    P3d p1 = atoms[0].atom.getXYZ(), p2 = atoms[1].atom.getXYZ(), p3 = atoms[2].atom
-        .getXYZ();
+    return getHandedness(a.atom, atoms[0].atom, atoms[1].atom, atoms[2].atom,
+        atoms[3].atom);
+  }
+
+  /**
+   * The winding of four ligands already in CIP order, as for checkHandedness;
+   * used directly for results from CIPChirality's cache.
+   * 
+   * @param center
+   * @param a1
+   * @param a2
+   * @param a3
+   * @param a4
+   *        may be null for a lone pair
+   * @return 1 for "R", 2 for "S"
+   */
+  int getHandedness(SimpleNode center, SimpleNode a1, SimpleNode a2,
+                    SimpleNode a3, SimpleNode a4) {
+    P3d p0 = (a4 == null ? center : a4).getXYZ();
+    P3d p1 = a1.getXYZ(), p2 = a2.getXYZ(), p3 = a3.getXYZ();
     MeasureD.getNormalThroughPoints(p1, p2, p3, vNorm, vTemp);
     vTemp.setT(p0);
     vTemp.sub(p1);
@@ -588,6 +605,17 @@ public class CIPData {
     // CIPDataTracker only
   }
 
+  /**
+   * Report the saved _M.CIPInfo result for a center taken from CIPChirality's
+   * cache -- CIPDataTracker only
+   * 
+   * @param atom
+   * @param s
+   */
+  void setRootTrackerResult(SimpleNode atom, String s) {
+    // CIPDataTracker only
+  }
+
   /**
    * CIPDataTracker only
    * 
@@ -6,6 +6,7 @@ import java.util.Map;
 import javajs.util.BS;
 
 import org.jmol.symmetry.CIPChirality.CIPAtom;
+import org.jmol.util.SimpleNode;
 import org.jmol.viewer.JC;
 
 /**
@@ -110,6 +111,11 @@ public class CIPDataTracker extends CIPData {
     return s;
   }
 
+  @Override
+  void setRootTrackerResult(SimpleNode atom, String s) {
+    setCIPInfo(s, atom.getIndex(), atom.getAtomName());
+  }
+
   private void setCIPInfo(String s, int index, String name) {
     Map<String, Object> modelInfo = getModelAuxiliaryInfoForAtom(index);
     if (modelInfo != null) {
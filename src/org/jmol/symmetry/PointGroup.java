@@ -24,6 +24,8 @@
 
 package org.jmol.symmetry;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -185,6 +187,34 @@ class PointGroup {
 
   private double sppa;
 
+  /**
+   * Sets of at least this many points are checked shell by shell: candidate
+   * operations come only from pairs and triples of points in the same shell,
+   * and images are found with a hash grid, smallest shells first. Smaller sets
+   * are handled as they always have been.
+   */
+  private final static int MIN_SHELL_POINTS = 100;
+
+  /**
+   * point indices grouped by shell -- points of the same element at the same
+   * distance from the center, which any operation must map onto each other --
+   * with the smallest shells first
+   */
+  private int[] shellPoints;
+
+  /**
+   * start of each shell in shellPoints, with a final entry points.length
+   */
+  private int[] shellStart;
+
+  /**
+   * hash grid of points, with cells 2 * distanceTolerance on a side, so that the
+   * images of a point can only be in the 2 x 2 x 2 cells around it
+   */
+  private int[] gridHead, gridNext;
+  private int gridMask;
+  private double gridCell;
+
 
   /**
    * Determine the point group of a set of points or atoms, allowing additionally
@@ -285,6 +315,8 @@ class PointGroup {
     }
     if (isEqual(pgLast))
       return false;
+    if (!haveVibration && nAtoms >= MIN_SHELL_POINTS)
+      setShells();
     try {
 
       findInversionCenter();
@@ -514,6 +546,109 @@ class PointGroup {
     return true;
   }
 
+  /**
+   * Partition the points into shells and build the hash grid.
+   * 
+   * Points are sorted by element and distance from the center; a shell is a
+   * run in which successive distances differ by less than distanceTolerance, so
+   * any two points that an operation can exchange are always in the same shell.
+   */
+  private void setShells() {
+    int n = points.length;
+    final double[] r = new double[n];
+    Integer[] list = new Integer[n];
+    for (int i = n; --i >= 0;) {
+      r[i] = center.distance(points[i]);
+      list[i] = Integer.valueOf(i);
+    }
+    Arrays.sort(list, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        int i = a.intValue(), j = b.intValue();
+        return (elements[i] != elements[j] ? elements[i] - elements[j]
+            : Double.compare(r[i], r[j]));
+      }
+    });
+    int[] starts = new int[n + 1];
+    int nShells = 0;
+    for (int k = 0; k < n; k++) {
+      int i = list[k].intValue();
+      if (k == 0 || elements[i] != elements[list[k - 1].intValue()]
+          || r[i] - r[list[k - 1].intValue()] >= distanceTolerance)
+        starts[nShells++] = k;
+    }
+    starts[nShells] = n;
+    final int[] sizes = new int[nShells];
+    Integer[] shells = new Integer[nShells];
+    for (int s = nShells; --s >= 0;) {
+      sizes[s] = starts[s + 1] - starts[s];
+      shells[s] = Integer.valueOf(s);
+    }
+    Arrays.sort(shells, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return sizes[a.intValue()] - sizes[b.intValue()];
+      }
+    });
+    shellPoints = new int[n];
+    shellStart = new int[nShells + 1];
+    for (int s = 0, pt = 0; s < nShells; s++) {
+      int s0 = shells[s].intValue();
+      shellStart[s] = pt;
+      for (int k = starts[s0]; k < starts[s0 + 1]; k++)
+        shellPoints[pt++] = list[k].intValue();
+    }
+    shellStart[nShells] = n;
+
+    gridCell = distanceTolerance * 2;
+    int size = 16;
+    while (size < n * 2)
+      size <<= 1;
+    gridMask = size - 1;
+    gridHead = new int[size];
+    Arrays.fill(gridHead, -1);
+    gridNext = new int[n];
+    for (int i = n; --i >= 0;) {
+      T3d p = points[i];
+      int h = getGridBucket(getGridCell(p.x), getGridCell(p.y),
+          getGridCell(p.z));
+      gridNext[i] = gridHead[h];
+      gridHead[h] = i;
+    }
+  }
+
+  private int getGridCell(double x) {
+    return (int) Math.floor(x / gridCell);
+  }
+
+  private int getGridBucket(int ix, int iy, int iz) {
+    return ((ix * 73856093) ^ (iy * 19349663) ^ (iz * 83492791)) & gridMask;
+  }
+
+  /**
+   * Look in the hash grid for a point other than point i and the center atom,
+   * of element e1, within distanceTolerance of pt.
+   * 
+   * @param pt
+   * @param i
+   * @param e1
+   * @return true if found
+   */
+  private boolean haveGridPoint(T3d pt, int i, int e1) {
+    double d = distanceTolerance;
+    int x1 = getGridCell(pt.x + d);
+    int y1 = getGridCell(pt.y + d);
+    int z1 = getGridCell(pt.z + d);
+    for (int x = getGridCell(pt.x - d); x <= x1; x++)
+      for (int y = getGridCell(pt.y - d); y <= y1; y++)
+        for (int z = getGridCell(pt.z - d); z <= z1; z++)
+          for (int j = gridHead[getGridBucket(x, y, z)]; j >= 0; j = gridNext[j])
+            if (j != i && j != centerAtomIndex && elements[j] == e1
+                && pt.distanceSquared(points[j]) < distanceTolerance2)
+              return true;
+    return false;
+  }
+
   private void findInversionCenter() {
     haveInversionCenter = checkOperation(null, center, -1);
     if (haveInversionCenter) {
@@ -527,7 +662,9 @@ class PointGroup {
     int nFound = 0;
     boolean isInversion = (iOrder < firstProper);
 
-    out: for (int n = points.length, i = n; --i >= 0 && nFound < n;) {
+    out: for (int n = points.length, k = n; --k >= 0 && nFound < n;) {
+      // smallest shells first, as they are the most likely to fail
+      int i = (shellPoints == null ? k : shellPoints[n - 1 - k]);
       if (i == centerAtomIndex)
         continue;
       T3d a1 = points[i];
@@ -554,6 +691,12 @@ class PointGroup {
         nFound++;
         continue;
       }
+      if (gridHead != null) {
+        if (!haveGridPoint(pt, i, e1))
+          return false;
+        nFound++;
+        continue;
+      }
       // did not find the point...
       iter.initialize(pt, distanceTolerance, false);
       while (iter.hasMoreElements()) {
@@ -638,47 +781,29 @@ class PointGroup {
 
     // look for the proper and improper axes relating pairs of atoms
 
-    for (int i = points.length; --i >= 0;) {
-      if (i == centerAtomIndex)
-        continue;
-      T3d a1 = points[i];
-      int e1 = elements[i];
-      for (int j = points.length; --j > i;) {
-        T3d a2 = points[j];
-        if (elements[j] != e1)
-          continue;
-
-        // check if A - 0 - B is linear
-
-        v1.sub2(a1, center);
-        v2.sub2(a2, center);
-        v1.normalize();
-        v2.normalize();
-        if (isParallel(v1, v2)) {
-          getAllAxes(v1);
-          continue;
-        }
-
-        // look for all axes to average position of A and B
-
-        if (nAxes[c2] < axesMaxN[c2]) {
-          v3.ave(a1, a2);
-          v3.sub(center);
-          getAllAxes(v3);
-        }
-
-        // look for the axis perpendicular to the A -- 0 -- B plane
-
-        double order =  (2 * Math.PI / v1.angle(v2));
-        int iOrder = (int) Math.floor(order + 0.01f);
-        boolean isIntegerOrder = (order - iOrder <= 0.02f);
-        if (!isIntegerOrder || (iOrder = iOrder + firstProper) >= maxAxis)
+    if (shellPoints == null) {
+      for (int i = points.length; --i >= 0;) {
+        if (i == centerAtomIndex)
           continue;
-        if (nAxes[iOrder] < axesMaxN[iOrder]) {
-          v3.cross(v1, v2);
-          checkAxisOrder(iOrder, v3, center);
+        int e1 = elements[i];
+        for (int j = points.length; --j > i;) {
+          if (elements[j] == e1)
+            checkPairAxes(i, j, v1, v2, v3);
         }
       }
+    } else {
+      for (int s = shellStart.length - 1; --s >= 0;)
+        for (int k = shellStart[s + 1]; --k > shellStart[s];) {
+          int i = shellPoints[k];
+          if (i != centerAtomIndex)
+            for (int l = k; --l >= shellStart[s];)
+              checkPairAxes(i, shellPoints[l], v1, v2, v3);
+        }
+      // the center atom is in a shell of its own
+      if (centerAtomIndex >= 0)
+        for (int i = points.length; --i >= 0;)
+          if (i != centerAtomIndex && elements[i] == elements[centerAtomIndex])
+            checkPairAxes(i, centerAtomIndex, v1, v2, v3);
     }
 
     // check all C2 axes for C3-related axes
@@ -722,27 +847,31 @@ class PointGroup {
       }
     }
 
-    out: for (int i = 0; i < points.length - 2; i++)
-      if (elements[i] == iMin)
-        for (int j = i + 1; j < points.length - 1; j++)
-          if (elements[j] == iMin)
-            for (int k = j + 1; k < points.length; k++)
-              if (elements[k] == iMin) {
-                v1.sub2(points[i], points[j]);
-                v2.sub2(points[i], points[k]);
-                v1.normalize();
-                v2.normalize();
-                v3.cross(v1, v2);
-                getAllAxes(v3);
-//                checkAxisOrder(3, v3, center);
-                v1.add2(points[i], points[j]);
-                v1.add(points[k]);
-                v1.normalize();
-                if (!isParallel(v1, v3))
-                  getAllAxes(v1);
-                if (nAxes[c5] == axesMaxN[c5])
+    // (or, for shells, the smallest shell with n >= 3, as any axis
+    // of order 3 or more must carry three of its points into each other)
+
+    if (shellPoints == null) {
+      out: for (int i = 0; i < points.length - 2; i++)
+        if (elements[i] == iMin)
+          for (int j = i + 1; j < points.length - 1; j++)
+            if (elements[j] == iMin)
+              for (int k = j + 1; k < points.length; k++)
+                if (elements[k] == iMin && checkTripleAxes(i, j, k, v1, v2, v3))
                   break out;
-              }
+    } else {
+      int s = 0;
+      while (s < shellStart.length - 1 && shellStart[s + 1] - shellStart[s] < 3)
+        s++;
+      if (s < shellStart.length - 1) {
+        int[] sp = shellPoints;
+        int k0 = shellStart[s], k1 = shellStart[s + 1];
+        out: for (int i = k0; i < k1 - 2; i++)
+          for (int j = i + 1; j < k1 - 1; j++)
+            for (int k = j + 1; k < k1; k++)
+              if (checkTripleAxes(sp[i], sp[j], sp[k], v1, v2, v3))
+                break out;
+      }
+    }
 
     //check for C2 by looking for axes along element-based geometric centers
 
@@ -781,6 +910,61 @@ class PointGroup {
     return getHighestOrder();
   }
 
+  private void checkPairAxes(int i, int j, V3d v1, V3d v2, V3d v3) {
+    T3d a1 = points[i];
+    T3d a2 = points[j];
+
+    // check if A - 0 - B is linear
+
+    v1.sub2(a1, center);
+    v2.sub2(a2, center);
+    v1.normalize();
+    v2.normalize();
+    if (isParallel(v1, v2)) {
+      getAllAxes(v1);
+      return;
+    }
+
+    // look for all axes to average position of A and B
+
+    if (nAxes[c2] < axesMaxN[c2]) {
+      v3.ave(a1, a2);
+      v3.sub(center);
+      getAllAxes(v3);
+    }
+
+    // look for the axis perpendicular to the A -- 0 -- B plane
+
+    double order =  (2 * Math.PI / v1.angle(v2));
+    int iOrder = (int) Math.floor(order + 0.01f);
+    boolean isIntegerOrder = (order - iOrder <= 0.02f);
+    if (!isIntegerOrder || (iOrder = iOrder + firstProper) >= maxAxis)
+      return;
+    if (nAxes[iOrder] < axesMaxN[iOrder]) {
+      v3.cross(v1, v2);
+      checkAxisOrder(iOrder, v3, center);
+    }
+  }
+
+  /**
+   * @return true if all C5 axes have been found
+   */
+  private boolean checkTripleAxes(int i, int j, int k, V3d v1, V3d v2, V3d v3) {
+    v1.sub2(points[i], points[j]);
+    v2.sub2(points[i], points[k]);
+    v1.normalize();
+    v2.normalize();
+    v3.cross(v1, v2);
+    getAllAxes(v3);
+//    checkAxisOrder(3, v3, center);
+    v1.add2(points[i], points[j]);
+    v1.add(points[k]);
+    v1.normalize();
+    if (!isParallel(v1, v3))
+      getAllAxes(v1);
+    return (nAxes[c5] == axesMaxN[c5]);
+  }
+
   private void getAllAxes(V3d v3) {
     for (int o = c2; o < maxAxis; o++)
       if (nAxes[o] < axesMaxN[o])
@@ -893,41 +1077,32 @@ class PointGroup {
     V3d v3 = new V3d();
     int nPlanes = 0;
     boolean haveAxes = (getHighestOrder() > 1);
-    for (int i = points.length; --i >= 0;) {
-      if (i == centerAtomIndex)
-        continue;
-      T3d a1 = points[i];
-      int e1 = elements[i];
-      for (int j = points.length; --j > i;) {
-        if (haveAxes && elements[j] != e1)
+    if (shellPoints == null) {
+      for (int i = points.length; --i >= 0;) {
+        if (i == centerAtomIndex)
           continue;
-
-        // plane are treated as S2 axes here
-
-        // first, check planes through two atoms and the center
-        // or perpendicular to a linear A -- 0 -- B set
-
-        T3d a2 = points[j];
-        pt.add2(a1, a2);
-        pt.scale(0.5d);
-        v1.sub2(a1, center);
-        v2.sub2(a2, center);
-        v1.normalize();
-        v2.normalize();
-        if (!isParallel(v1, v2)) {
-          v3.cross(v1, v2);
-          v3.normalize();
-          nPlanes = getPlane(v3);
+        int e1 = elements[i];
+        for (int j = points.length; --j > i;) {
+          if (haveAxes && elements[j] != e1)
+            continue;
+          if ((nPlanes = checkPairPlanes(i, j, pt, v1, v2, v3)) == axesMaxN[0])
+            return nPlanes;
         }
-
-        // second, look for planes perpendicular to the A -- B line
-
-        v3.sub2(a2, a1);
-        v3.normalize();
-        nPlanes = getPlane(v3);
-        if (nPlanes == axesMaxN[0])
-          return nPlanes;
       }
+    } else {
+      // a plane either reflects some point into another of its shell or
+      // contains all the points
+      for (int s = shellStart.length - 1; --s >= 0;)
+        for (int k = shellStart[s + 1]; --k > shellStart[s];) {
+          int i = shellPoints[k];
+          if (i != centerAtomIndex)
+            for (int l = k; --l >= shellStart[s];)
+              if ((nPlanes = checkPairPlanes(i, shellPoints[l], pt, v1, v2,
+                  v3)) == axesMaxN[0])
+                return nPlanes;
+        }
+      if (getPlaneNormal(v3))
+        nPlanes = getPlane(v3);
     }
 
     // also look for planes normal to any C axis
@@ -938,6 +1113,69 @@ class PointGroup {
     return nPlanes;
   }
 
+  private int checkPairPlanes(int i, int j, P3d pt, V3d v1, V3d v2, V3d v3) {
+
+    // plane are treated as S2 axes here
+
+    // first, check planes through two atoms and the center
+    // or perpendicular to a linear A -- 0 -- B set
+
+    T3d a1 = points[i];
+    T3d a2 = points[j];
+    pt.add2(a1, a2);
+    pt.scale(0.5d);
+    v1.sub2(a1, center);
+    v2.sub2(a2, center);
+    v1.normalize();
+    v2.normalize();
+    if (!isParallel(v1, v2)) {
+      v3.cross(v1, v2);
+      v3.normalize();
+      getPlane(v3);
+    }
+
+    // second, look for planes perpendicular to the A -- B line
+
+    v3.sub2(a2, a1);
+    v3.normalize();
+    return getPlane(v3);
+  }
+
+  /**
+   * Find the normal of the plane through the center containing all the
+   * points, if there is one.
+   * 
+   * @param vn
+   * @return true if found
+   */
+  private boolean getPlaneNormal(V3d vn) {
+    V3d v1 = null;
+    V3d v2 = new V3d();
+    boolean haveNormal = false;
+    for (int i = points.length; --i >= 0;) {
+      if (i == centerAtomIndex)
+        continue;
+      v2.sub2(points[i], center);
+      if (v1 == null) {
+        if (v2.length() < distanceTolerance)
+          continue;
+        v1 = V3d.newV(v2);
+        v1.normalize();
+      } else if (!haveNormal) {
+        v2.normalize();
+        if (isParallel(v1, v2))
+          continue;
+        vn.cross(v1, v2);
+        vn.normalize();
+        haveNormal = true;
+        i = points.length;
+      } else if (Math.abs(v2.dot(vn)) >= distanceTolerance) {
+        return false;
+      }
+    }
+    return haveNormal;
+  }
+
   private int getPlane(V3d v3) {
     if (!haveAxis(0, v3)
         && checkOperation(Qd.newVA(v3, 180), center,
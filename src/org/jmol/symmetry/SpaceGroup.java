@@ -34,6 +34,7 @@ import org.jmol.api.SymmetryInterface;
 import org.jmol.symmetry.HallInfo.HallReceiver;
 import org.jmol.util.Logger;
 import org.jmol.util.SimpleUnitCell;
+import org.jmol.util.StartupProfile;
 import org.jmol.viewer.JC;
 import org.jmol.viewer.Viewer;
 
@@ -1396,6 +1397,7 @@ public class SpaceGroup implements Cloneable, HallReceiver {
   
   private synchronized static SpaceGroup[] getSpaceGroups() {
     if (SG == null) {
+      long t = StartupProfile.start();
       int n = STR_SG.length;
       nameToGroup = new Hashtable<String, SpaceGroup>();
       SpaceGroup[] defs = new SpaceGroup[n];
@@ -1406,6 +1408,7 @@ public class SpaceGroup implements Cloneable, HallReceiver {
       System.out.println("SpaceGroup - " + n + " settings generated");
       STR_SG = null;
       SG = defs;
+      StartupProfile.end("SpaceGroup settings", t);
     }
     return SG;
   }
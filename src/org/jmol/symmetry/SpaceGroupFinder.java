@@ -2,10 +2,12 @@ package org.jmol.symmetry;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.jmol.api.SymmetryInterface;
 import org.jmol.modelset.Atom;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.SimpleUnitCell;
 import org.jmol.viewer.FileManager;
@@ -34,6 +36,18 @@ public class SpaceGroupFinder {
    */
   private static final int MAX_COUNT = 100;
 
+  /**
+   * fewest atoms worth a task of their own when operations are checked in
+   * parallel, so a cell needs at least twice this many for two tasks
+   */
+  private static final int MIN_ATOMS_PER_TASK = 2000;
+
+  /**
+   * half-width of an atom index query; twice the distance at which two
+   * fractional points are considered the same
+   */
+  private static final double INDEX_RADIUS = 2 * Math.sqrt(JC.UC_TOLERANCE2);
+
   //  /**
   //   * maximum allowable distance fx, fy ,fz for atom finder
   //   */
@@ -90,9 +104,75 @@ public class SpaceGroupFinder {
   private int isg;  
 
   private int groupType = SpaceGroup.TYPE_SPACE; // TODO 
+
+  /**
+   * hash grid index of the fractional coordinates of atoms[0] through
+   * atoms[nAtoms - 1], with cells 2 * INDEX_RADIUS on a side
+   */
+  private int[] indexHead, indexNext;
+  private int indexMask;
+  private P3d indexMin, indexMax;
+
+  /**
+   * atom indices, by atom type, rarest type first
+   */
+  private int[] typeOrder;
+
   public SpaceGroupFinder() {
   }
 
+  /**
+   * The check of one operation against all the atoms, with its own working
+   * space, so that several can be run at once.
+   */
+  private class OpCheck implements Runnable {
+    int iop;
+    SymmetryOperation op;
+    private SymmetryInterface uc;
+    private boolean stopOnFailure;
+    P3d pt = new P3d();
+    private BS bsPoints = new BS();
+    BS targeted = new BS();
+    int iFailed;
+
+    OpCheck(boolean stopOnFailure) {
+      this.stopOnFailure = stopOnFailure;
+    }
+
+    OpCheck set(int iop, SymmetryOperation op, SymmetryInterface uc) {
+      this.iop = iop;
+      this.op = op;
+      this.uc = uc;
+      return this;
+    }
+
+    @Override
+    public void run() {
+      iFailed = -1;
+      bsPoints.clearAll();
+      bsPoints.or(bsPoints0);
+      targeted.clearAll();
+      // An atom only ever matches an atom of its own type, so the types can
+      // be taken in any order; the rarest type, most likely to fail, first.
+      for (int k = 0; k < nAtoms; k++) {
+        int i = typeOrder[k];
+        if (!bsPoints.get(i))
+          continue;
+        bsPoints.clear(i);
+        int j = findEquiv(uc, iop, op, i, bsPoints, pt, true);
+        if (j < 0) {
+          if (stopOnFailure) {
+            iFailed = i;
+            break;
+          }
+          continue;
+        }
+        if (i != j)
+          targeted.set(j);
+      }
+    }
+  }
+
   private class SGAtom extends P3d {
     int typeAndOcc;
     int index;
@@ -520,7 +600,6 @@ public class SpaceGroupFinder {
       bsPoints.setBits(0, nAtoms);
       bsPoints0 = BS.copy(bsPoints);
       BS temp1 = BS.newN(OP_COUNT);
-      BS targeted = BS.newN(nAtoms);
 
       bsOps.setBits(1, sg == null ? OP_COUNT : sg.getOperationCount());
       if (nAtoms == 0) {
@@ -534,77 +613,97 @@ public class SpaceGroupFinder {
       BS opsChecked = BS.newN(OP_COUNT);
       opsChecked.set(0);
       boolean hasC1 = false;
+      setAtomIndex();
+      setTypeOrder();
+
+      // Operations are checked in batches, in parallel if possible. The
+      // results are applied in order, skipping any operation that an
+      // earlier one in its batch has eliminated, so they are the same as if
+      // each operation were checked in turn.
+
+      int nTasks = ParallelTasks.getTaskCount(vwr, nAtoms, MIN_ATOMS_PER_TASK);
+      OpCheck[] checks = new OpCheck[nTasks];
+      for (int i = nTasks; --i >= 0;)
+        checks[i] = new OpCheck(sg == null);
+      Runnable[] tasks = new Runnable[nTasks];
       for (int iop = bsOps.nextSetBit(1); iop > 0
-          && !bsGroups.isEmpty(); iop = bsOps.nextSetBit(iop + 1)) {
-        SymmetryOperation op = (sg == null ? getOp(iop)
-            : (SymmetryOperation) sg.getOperation(iop));
-        if (sg == null) {
-          System.out.println("\nChecking operation " + iop + " " + opXYZ[iop]);
-          System.out.println("bsGroups = " + bsGroups);
-          System.out.println("bsOps = " + bsOps);
-          nChecked++;
+          && !bsGroups.isEmpty();) {
+        int nBatch = 0;
+        for (int i = iop; i > 0 && nBatch < nTasks; i = bsOps.nextSetBit(i + 1)) {
+          SymmetryOperation op = (sg == null ? getOp(i)
+              : (SymmetryOperation) sg.getOperation(i));
+          tasks[nBatch] = checks[nBatch].set(i, op, uc);
+          nBatch++;
         }
-        boolean isOK = true;
-        bsPoints.clearAll();
-        bsPoints.or(bsPoints0);
-        targeted.clearAll();
-        boolean allInvariant = true;
-        for (int i = bsPoints.nextSetBit(0); i >= 0; i = bsPoints
-            .nextSetBit(i + 1)) {
-          bsPoints.clear(i);
-          int j = findEquiv(uc, iop, op, i, bsPoints, pTemp, true);
-          if (j < 0 && sg == null) {
+        if (nBatch == 1) {
+          tasks[0].run();
+        } else {
+          Runnable[] batch = new Runnable[nBatch];
+          System.arraycopy(tasks, 0, batch, 0, nBatch);
+          ParallelTasks.run(vwr, batch);
+        }
+        for (int k = 0; k < nBatch; k++) {
+          OpCheck check = checks[k];
+          iop = check.iop;
+          if (k > 0 && (!bsOps.get(iop) || bsGroups.isEmpty()))
+            continue;
+          if (sg == null) {
+            System.out.println("\nChecking operation " + iop + " " + opXYZ[iop]);
+            System.out.println("bsGroups = " + bsGroups);
+            System.out.println("bsOps = " + bsOps);
+            nChecked++;
+          }
+          boolean isOK = (check.iFailed < 0);
+          if (!isOK) {
+            int i = check.iFailed;
             System.out.println(
                 "failed op " + iop + " for atom " + i + " " + atoms[i].name
-                    + " " + atoms[i] + " looking for " + pTemp + "\n" + op);
-            isOK = false;
-            break;
+                    + " " + atoms[i] + " looking for " + check.pt + "\n" + check.op);
           }
-          if (j >= 0 && i != j) {
-            allInvariant = false;
-            targeted.set(j);
-          }
-        }
-        if (sg == null) {
-          BS myGroups = bsOpGroups[iop];
-          bsOps.clear(iop);
-          opsChecked.set(iop);
-          if (isOK) {
-            if (iop == 1)
-              hasC1 = true;
-            // iop was found
-            targets.or(targeted);
-            //System.out.println("targeted=" + targeted);
-            //System.out.println("targets=" + targets);
-            //reduce the number of possible groups to groups having this operation
-            if (!allInvariant) {
-              bsGroups.and(myGroups);
-              // reduce the number of operations to check to only those NOT common to 
-              // all remaining groups;
-              temp1.setBits(1, OP_COUNT);
+          BS targeted = check.targeted;
+          boolean allInvariant = targeted.isEmpty();
+          if (sg == null) {
+            BS myGroups = bsOpGroups[iop];
+            bsOps.clear(iop);
+            opsChecked.set(iop);
+            if (isOK) {
+              if (iop == 1)
+                hasC1 = true;
+              // iop was found
+              targets.or(targeted);
+              //System.out.println("targeted=" + targeted);
+              //System.out.println("targets=" + targets);
+              //reduce the number of possible groups to groups having this operation
+              if (!allInvariant) {
+                bsGroups.and(myGroups);
+                // reduce the number of operations to check to only those NOT common to 
+                // all remaining groups;
+                temp1.setBits(1, OP_COUNT);
+                for (int i = bsGroups.nextSetBit(0); i >= 0; i = bsGroups
+                    .nextSetBit(i + 1)) {
+                  temp1.and(bsGroupOps[i]);
+                }
+                uncheckedOps.or(temp1);
+                bsOps.andNot(temp1);
+              }
+            } else {
+              // iop was not found
+              // clear all groups that require this operation
+              bsGroups.andNot(myGroups);
+              // trim ops to only those needed for compatible groups
+              // and retain only operations for groups that have this operation
+              temp1.clearAll();
               for (int i = bsGroups.nextSetBit(0); i >= 0; i = bsGroups
                   .nextSetBit(i + 1)) {
-                temp1.and(bsGroupOps[i]);
+                temp1.or(bsGroupOps[i]);
               }
-              uncheckedOps.or(temp1);
-              bsOps.andNot(temp1);
+              bsOps.and(temp1);
             }
           } else {
-            // iop was not found
-            // clear all groups that require this operation
-            bsGroups.andNot(myGroups);
-            // trim ops to only those needed for compatible groups
-            // and retain only operations for groups that have this operation
-            temp1.clearAll();
-            for (int i = bsGroups.nextSetBit(0); i >= 0; i = bsGroups
-                .nextSetBit(i + 1)) {
-              temp1.or(bsGroupOps[i]);
-            }
-            bsOps.and(temp1);
+            targets.or(targeted);
           }
-        } else {
-          targets.or(targeted);
         }
+        iop = bsOps.nextSetBit(iop + 1);
       }
 
       if (sg == null) {
@@ -692,18 +791,115 @@ public class SpaceGroupFinder {
   }  
 
   private void removeDuplicates(BS bs) {
+    setAtomIndex();
+    int[] cells = new int[27];
     for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
       SGAtom a = atoms[i];
-      for (int j = bs.nextSetBit(0); j < i; j = bs.nextSetBit(j + 1)) {
-        SGAtom b = atoms[j];
-        if (a.typeAndOcc == b.typeAndOcc
-            && a.distanceSquared(b) < JC.UC_TOLERANCE2) {
-          bs.clear(i);
-          break;
+      out: for (int c = getIndexCells(a, cells); --c >= 0;) {
+        for (int j = indexHead[cells[c]]; j >= 0; j = indexNext[j]) {
+          SGAtom b = atoms[j];
+          if (j < i && bs.get(j) && a.typeAndOcc == b.typeAndOcc
+              && a.distanceSquared(b) < JC.UC_TOLERANCE2) {
+            bs.clear(i);
+            break out;
+          }
         }
       }
+    }
+  }
+
+  /**
+   * Index atoms[0] through atoms[nAtoms - 1] by their (unitized) fractional
+   * coordinates.
+   */
+  private void setAtomIndex() {
+    int size = 16;
+    while (size < nAtoms * 2)
+      size <<= 1;
+    indexMask = size - 1;
+    indexHead = new int[size];
+    Arrays.fill(indexHead, -1);
+    indexNext = new int[nAtoms];
+    indexMin = P3d.new3(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+    indexMax = P3d.new3(-Double.MAX_VALUE, -Double.MAX_VALUE,
+        -Double.MAX_VALUE);
+    for (int i = nAtoms; --i >= 0;) {
+      SGAtom a = atoms[i];
+      int h = getIndexBucket(getIndexCell(a.x), getIndexCell(a.y),
+          getIndexCell(a.z));
+      indexNext[i] = indexHead[h];
+      indexHead[h] = i;
+      indexMin.set(Math.min(indexMin.x, a.x), Math.min(indexMin.y, a.y),
+          Math.min(indexMin.z, a.z));
+      indexMax.set(Math.max(indexMax.x, a.x), Math.max(indexMax.y, a.y),
+          Math.max(indexMax.z, a.z));
+    }
+  }
+
+  private static int getIndexCell(double x) {
+    return (int) Math.floor(x / (2 * INDEX_RADIUS));
+  }
+
+  private int getIndexBucket(int ix, int iy, int iz) {
+    return ((ix * 73856093) ^ (iy * 19349663) ^ (iz * 83492791)) & indexMask;
+  }
 
+  /**
+   * Get the distinct buckets of the cells within INDEX_RADIUS of a point --
+   * generally 8, but rounding can make it more.
+   * 
+   * @param pt
+   * @param cells
+   *        to fill, length 27
+   * @return number of buckets
+   */
+  private int getIndexCells(T3d pt, int[] cells) {
+    int n = 0;
+    int x1 = getIndexCell(pt.x + INDEX_RADIUS);
+    int y1 = getIndexCell(pt.y + INDEX_RADIUS);
+    int z1 = getIndexCell(pt.z + INDEX_RADIUS);
+    for (int x = getIndexCell(pt.x - INDEX_RADIUS); x <= x1; x++)
+      for (int y = getIndexCell(pt.y - INDEX_RADIUS); y <= y1; y++)
+        for (int z = getIndexCell(pt.z - INDEX_RADIUS); z <= z1; z++) {
+          int h = getIndexBucket(x, y, z);
+          for (int i = n; --i >= 0;)
+            if (cells[i] == h) {
+              h = -1;
+              break;
+            }
+          if (h >= 0)
+            cells[n++] = h;
+        }
+    return n;
+  }
+
+  /**
+   * Order the atoms by type, rarest type first, and by index within a type.
+   */
+  private void setTypeOrder() {
+    int[] types = new int[nAtoms];
+    int[] counts = new int[nAtoms];
+    int[] typeOf = new int[nAtoms];
+    int nTypes = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      int t = atoms[i].typeAndOcc;
+      int k = nTypes;
+      while (--k >= 0 && types[k] != t) {
+      }
+      if (k < 0)
+        types[k = nTypes++] = t;
+      counts[k]++;
+      typeOf[i] = k;
     }
+    // rank the types by count, stable
+    int[] start = new int[nTypes];
+    for (int k = 0; k < nTypes; k++)
+      for (int k2 = 0; k2 < nTypes; k2++)
+        if (counts[k2] < counts[k] || counts[k2] == counts[k] && k2 < k)
+          start[k] += counts[k2];
+    typeOrder = new int[nAtoms];
+    for (int i = 0; i < nAtoms; i++)
+      typeOrder[start[typeOf[i]]++] = i;
   }
 
   @SuppressWarnings("unused")
@@ -1029,44 +1225,74 @@ public class SpaceGroupFinder {
     int minF = Integer.MAX_VALUE, maxF = Integer.MIN_VALUE;
     int[] counts = new int[MAX_COUNT + 1];
     int nAtoms = bsPoints.cardinality();
+    // Only atoms of the same type on a line along abc can be paired, so
+    // index the atoms by type and by their other two coordinates, in cells
+    // large enough that a pair can only be in neighboring cells.
+    double cell = Math.max(2 * slop, 0.001);
+    int size = 16;
+    while (size < nAtoms * 2)
+      size <<= 1;
+    int mask = size - 1;
+    int[] head = new int[size];
+    Arrays.fill(head, -1);
+    int[] next = new int[atoms.length];
+    int[] lines = new int[9];
+    for (int i = bsPoints.nextSetBit(0); i >= 0; i = bsPoints
+        .nextSetBit(i + 1)) {
+      int h = getLineBucket(atoms[i], abc, cell, 0, 0, mask);
+      next[i] = head[h];
+      head[h] = i;
+    }
     for (int i = bsPoints.nextSetBit(0); i >= 0; i = bsPoints
         .nextSetBit(i + 1)) {
       SGAtom a = atoms[i];
       int type = a.typeAndOcc;
       SGAtom b;
       double f;
-      for (int j = bsPoints.nextSetBit(0); j >= 0; j = bsPoints
-          .nextSetBit(j + 1)) {
-        if (j == i || (b = atoms[j]).typeAndOcc != type)
-          continue;
-        pTemp.sub2(b, a);
-        switch (abc) {
-        case 1:
-          if (approx0(f = pTemp.x) || !approx0(pTemp.y) || !approx0(pTemp.z))
-            continue;
-          break;
-        case 2:
-          if (approx0(f = pTemp.y) || !approx0(pTemp.x) || !approx0(pTemp.z))
+      int nLines = 0;
+      for (int du = -1; du <= 1; du++)
+        for (int dv = -1; dv <= 1; dv++) {
+          int h = getLineBucket(a, abc, cell, du, dv, mask);
+          for (int k = nLines; --k >= 0;)
+            if (lines[k] == h) {
+              h = -1;
+              break;
+            }
+          if (h >= 0)
+            lines[nLines++] = h;
+        }
+      for (int k = nLines; --k >= 0;)
+        for (int j = head[lines[k]]; j >= 0; j = next[j]) {
+          if (j == i || (b = atoms[j]).typeAndOcc != type)
             continue;
-          break;
-        default:
-        case 3:
-          if (approx0(f = pTemp.z) || !approx0(pTemp.x) || !approx0(pTemp.y))
+          pTemp.sub2(b, a);
+          switch (abc) {
+          case 1:
+            if (approx0(f = pTemp.x) || !approx0(pTemp.y) || !approx0(pTemp.z))
+              continue;
+            break;
+          case 2:
+            if (approx0(f = pTemp.y) || !approx0(pTemp.x) || !approx0(pTemp.z))
+              continue;
+            break;
+          default:
+          case 3:
+            if (approx0(f = pTemp.z) || !approx0(pTemp.x) || !approx0(pTemp.y))
+              continue;
+            break;
+          }
+          int n = approxInt(1 / f);
+          // must be positive, must be an integer divisor of the number of atoms.
+          //System.out.println(n + " " + f + " " + abc + " " + pt + " " + a + " " + b + " " + nAtoms + " " + n + " " + counts[n]);
+          if (n == 0 || nAtoms / n != 1d * nAtoms / n || n > MAX_COUNT)
             continue;
-          break;
+          //System.out.println(abc + " " + pt + " " + a + " " + b + " " + nAtoms + " " + n + " " + counts[n]);
+          if (n > maxF)
+            maxF = n;
+          if (n < minF)
+            minF = n;
+          counts[n]++;
         }
-        int n = approxInt(1 / f);
-        // must be positive, must be an integer divisor of the number of atoms.
-        //System.out.println(n + " " + f + " " + abc + " " + pt + " " + a + " " + b + " " + nAtoms + " " + n + " " + counts[n]);
-        if (n == 0 || nAtoms / n != 1d * nAtoms / n || n > MAX_COUNT)
-          continue;
-        //System.out.println(abc + " " + pt + " " + a + " " + b + " " + nAtoms + " " + n + " " + counts[n]);
-        if (n > maxF)
-          maxF = n;
-        if (n < minF)
-          minF = n;
-        counts[n]++;
-      }
     }
     int n = maxF;
     while (n >= minF) {
@@ -1116,6 +1342,29 @@ public class SpaceGroupFinder {
     return uc;
   }
 
+  private static int getLineBucket(SGAtom a, int abc, double cell, int du,
+                                   int dv, int mask) {
+    double u, v;
+    switch (abc) {
+    case 1:
+      u = a.y;
+      v = a.z;
+      break;
+    case 2:
+      u = a.x;
+      v = a.z;
+      break;
+    default:
+      u = a.x;
+      v = a.y;
+      break;
+    }
+    int iu = (int) Math.floor(u / cell) + du;
+    int iv = (int) Math.floor(v / cell) + dv;
+    return ((a.typeAndOcc * 83492791) ^ (iu * 73856093) ^ (iv * 19349663))
+        & mask;
+  }
+
   private boolean approx0(double f) {
     return (Math.abs(f) < slop);
   }
@@ -1136,10 +1385,26 @@ public class SpaceGroupFinder {
     if (pt.distanceSquared(a) == 0) {
       return i;
     }
-    int testiop = -99;
     int type = a.typeAndOcc;
-    String name = a.name;
+    int j = (indexHead == null || mayBeLatticeShift(pt) ? scanEquiv(pt, type)
+        : findIndexedEquiv(pt, type));
+    if (j >= 0 && andClear) {
+      j = Math.max(i, j);
+      if (i != j)
+        bsPoints.clear(j);
+    }
+    return j;
+  }
 
+  /**
+   * Find the highest-numbered atom of this type at this point, or across a
+   * lattice boundary from it.
+   * 
+   * @param pt
+   * @param type
+   * @return atom index or -1
+   */
+  private int scanEquiv(P3d pt, int type) {
     for (int j = nAtoms; --j >= 0;) {
       SGAtom b = atoms[j];
       if (b.typeAndOcc != type)
@@ -1151,17 +1416,50 @@ public class SpaceGroupFinder {
           || (1 - d) * (1 - d) < JC.UC_TOLERANCE2 
           && latticeShift(pt, b)
           ) { // this is a SQUARE
-        if (andClear) {
-          j = Math.max(i, j);
-          if (i != j)
-            bsPoints.clear(j);
-        }
         return j;
       }
     }
     return -1;
   }
 
+  /**
+   * Find the same atom as scanEquiv does, using the atom index; only valid if
+   * !mayBeLatticeShift(pt).
+   * 
+   * @param pt
+   * @param type
+   * @return atom index or -1
+   */
+  private int findIndexedEquiv(P3d pt, int type) {
+    int[] cells = new int[27];
+    int jmax = -1;
+    for (int c = getIndexCells(pt, cells); --c >= 0;)
+      for (int j = indexHead[cells[c]]; j >= 0; j = indexNext[j]) {
+        if (j <= jmax)
+          continue;
+        SGAtom b = atoms[j];
+        if (b.typeAndOcc != type)
+          continue;
+        double d = b.distance(pt);
+        if (d * d < JC.UC_TOLERANCE2)
+          jmax = j;
+      }
+    return jmax;
+  }
+
+  /**
+   * latticeShift(pt, b) requires a coordinate of pt and b to differ by 1;
+   * check whether any atom is within reach of that.
+   * 
+   * @param pt
+   * @return true if the atom index cannot be used for this point
+   */
+  private boolean mayBeLatticeShift(P3d pt) {
+    return (pt.x > indexMin.x + 1 - slop || pt.x < indexMax.x - 1 + slop
+        || pt.y > indexMin.y + 1 - slop || pt.y < indexMax.y - 1 + slop
+        || pt.z > indexMin.z + 1 - slop || pt.z < indexMax.z - 1 + slop);
+  }
+
   /**
    * Look for true {1 0 0}, {0 1 0}, {0 0 1} difference.
    * 
@@ -37,6 +37,8 @@ import org.jmol.bspt.CubeIterator;
 import org.jmol.modelset.Atom;
 import org.jmol.modelset.ModelSet;
 import org.jmol.script.T;
+import org.jmol.thread.ParallelTasks;
+import org.jmol.util.BSUtil;
 import org.jmol.util.Escape;
 import org.jmol.util.JmolMolecule;
 import org.jmol.util.Logger;
@@ -934,14 +936,48 @@ public class Symmetry implements SymmetryInterface {
   public void calculateCIPChiralityForAtoms(Viewer vwr, BS bsAtoms) {
     vwr.setCursor(GenericPlatform.CURSOR_WAIT);
     CIPChirality cip = getCIPChirality(vwr);
+    BS[] bsModels = getCIPModelAtoms(vwr, bsAtoms);
+    if (bsModels == null) {
+      cip.getChiralityForAtoms(getCIPData(vwr, bsAtoms));
+    } else {
+      // batch mode: one task per model, sharing cip's cache
+      Runnable[] tasks = new Runnable[bsModels.length];
+      for (int i = 0; i < tasks.length; i++)
+        tasks[i] = cip.getTask(getCIPData(vwr, bsModels[i]));
+      ParallelTasks.run(vwr, tasks);
+    }
+    vwr.setCursor(GenericPlatform.CURSOR_DEFAULT);
+  }
+
+  private static CIPData getCIPData(Viewer vwr, BS bsAtoms) {
     String dataClass = (vwr.getBoolean(T.testflag1) ? "CIPData"
         : "CIPDataTracker");
     CIPData data = ((CIPData) Interface
         .getInterface("org.jmol.symmetry." + dataClass, vwr, "script")).set(vwr,
             bsAtoms);
     data.setRule6Full(vwr.getBoolean(T.ciprule6full));
-    cip.getChiralityForAtoms(data);
-    vwr.setCursor(GenericPlatform.CURSOR_DEFAULT);
+    return data;
+  }
+
+  /**
+   * Split a multi-model calculation by model when it can run in parallel.
+   * 
+   * @param vwr
+   * @param bsAtoms
+   * @return atoms of each model, or null to calculate all at once
+   */
+  private static BS[] getCIPModelAtoms(Viewer vwr, BS bsAtoms) {
+    if (!ParallelTasks.canRun(vwr))
+      return null;
+    ModelSet ms = vwr.ms;
+    Lst<BS> list = new Lst<BS>();
+    for (int i = 0; i < ms.mc; i++) {
+      BS bs = BSUtil.copy(bsAtoms);
+      bs.and(ms.am[i].bsAtoms);
+      if (!bs.isEmpty())
+        list.addLast(bs);
+    }
+    return (list.size() < 2 ? null : list.toArray(new BS[list.size()]));
   }
 
   @Override
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.thread;
+
+import java.util.concurrent.Executor;
+
+import org.jmol.api.Interface;
+import org.jmol.api.JmolParallelProcessor;
+import org.jmol.script.T;
+import org.jmol.util.Logger;
+import org.jmol.viewer.Viewer;
+
+/**
+ * Runs a set of independent tasks -- blocks of one larger calculation, each
+ * writing only to its own part of the result -- on the viewer's shared
+ * executor (the same one used by the PARALLEL script command).
+ * 
+ * Tasks run in order on the calling thread when there is no viewer, when
+ * only one processor is available, when multiProcessor is FALSE, and always
+ * in JavaScript, so a result can never depend on how it was computed.
+ * 
+ */
+public class ParallelTasks {
+
+  private volatile int counter;
+  private volatile Throwable error;
+  private final Object lock = new Object();
+
+  private ParallelTasks() {
+    // use run()
+  }
+
+  /**
+   * @param vwr
+   *        may be null
+   * @return true if tasks may be run concurrently
+   */
+  public static boolean canRun(Viewer vwr) {
+    return (vwr != null && !Viewer.isJS && Viewer.nProcessors > 1 && vwr
+        .getBoolean(T.multiprocessor));
+  }
+
+  /**
+   * Suggest a number of blocks for a calculation.
+   * 
+   * @param vwr
+   *        may be null
+   * @param nItems
+   *        total amount of work, in whatever units the caller splits on
+   * @param minPerTask
+   *        smallest amount of work worth a task of its own
+   * @return 1 if the calculation should not be split
+   */
+  public static int getTaskCount(Viewer vwr, int nItems, int minPerTask) {
+    if (!canRun(vwr))
+      return 1;
+    return Math.max(1,
+        Math.min(Viewer.nProcessors, nItems / Math.max(1, minPerTask)));
+  }
+
+  /**
+   * Run all tasks, returning when all are complete. The first task is run on
+   * the calling thread. An exception or error thrown by any task is rethrown
+   * here.
+   * 
+   * @param vwr
+   *        may be null
+   * @param tasks
+   */
+  public static void run(Viewer vwr, Runnable[] tasks) {
+    int n = tasks.length;
+    Executor exec = (n > 1 && canRun(vwr) ? getExecutor(vwr) : null);
+    if (exec == null) {
+      for (int i = 0; i < n; i++)
+        tasks[i].run();
+      return;
+    }
+    new ParallelTasks().runAll(exec, tasks);
+  }
+
+  /**
+   * a thread pool of its own, separate from any Viewer's, for runShared()
+   */
+  private static Executor sharedExecutor;
+
+  private static boolean sharedMultiProcessor = true;
+
+  /**
+   * Code that has no Viewer cannot check its multiProcessor setting, so each
+   * Viewer passes SET multiProcessor along here as well; the most recent
+   * setting applies to runShared().
+   * 
+   * @param TF
+   */
+  public static void setSharedMultiProcessor(boolean TF) {
+    sharedMultiProcessor = TF;
+  }
+
+  /**
+   * @return true if runShared() may run tasks concurrently
+   */
+  public static boolean canRunShared() {
+    return (sharedMultiProcessor && !Viewer.isJS && Viewer.nProcessors > 1);
+  }
+
+  /**
+   * Run all tasks, as for run(), for code that has no Viewer, such as
+   * JSpecView file reading, using a thread pool of this class's own. Tasks
+   * run in order on the calling thread in JavaScript, when only one
+   * processor is available, and after SET multiProcessor FALSE.
+   * 
+   * @param tasks
+   */
+  public static void runShared(Runnable[] tasks) {
+    int n = tasks.length;
+    Executor exec = (n > 1 && canRunShared() ? getSharedExecutor() : null);
+    if (exec == null) {
+      for (int i = 0; i < n; i++)
+        tasks[i].run();
+      return;
+    }
+    new ParallelTasks().runAll(exec, tasks);
+  }
+
+  private static synchronized Executor getSharedExecutor() {
+    if (sharedExecutor == null) {
+      try {
+        sharedExecutor = (Executor) ((JmolParallelProcessor) Interface
+            .getInterface("org.jmol.script.ScriptParallelProcessor", null,
+                "script")).getExecutor();
+      } catch (Throwable e) {
+        Logger.error("parallel processing is not available");
+      }
+    }
+    return sharedExecutor;
+  }
+
+  private static Executor getExecutor(Viewer vwr) {
+    if (vwr.executor == null) {
+      try {
+        vwr.executor = ((JmolParallelProcessor) Interface.getInterface(
+            "org.jmol.script.ScriptParallelProcessor", vwr, "script"))
+            .getExecutor();
+      } catch (Throwable e) {
+        vwr.executor = null;
+      }
+      if (vwr.executor == null)
+        Logger.error("parallel processing is not available");
+    }
+    return (Executor) vwr.executor;
+  }
+
+  private void runAll(Executor exec, Runnable[] tasks) {
+    counter = tasks.length;
+    for (int i = 1; i < tasks.length; i++)
+      exec.execute(getRunnable(tasks[i]));
+    getRunnable(tasks[0]).run();
+    synchronized (lock) {
+      while (counter > 0) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+        }
+      }
+    }
+    if (error instanceof RuntimeException)
+      throw (RuntimeException) error;
+    if (error instanceof Error)
+      throw (Error) error;
+  }
+
+  private Runnable getRunnable(final Runnable task) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          task.run();
+        } catch (Throwable e) {
+          if (error == null)
+            error = e;
+        } finally {
+          synchronized (lock) {
+            counter--;
+            lock.notifyAll();
+          }
+        }
+      }
+    };
+  }
+
+}
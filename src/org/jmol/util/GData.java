@@ -1,6 +1,8 @@
 package org.jmol.util;
 
 
+import java.util.Map;
+
 import javajs.util.AU;
 import javajs.util.M3d;
 import javajs.util.P3d;
@@ -56,6 +58,18 @@ public class GData implements JmolGraphicsInterface {
   
   public int bufferSize;
 
+  /**
+   * running counts of primitives sent to the sphere, cylinder, and triangle
+   * renderers, for render metrics; only Graphics3D maintains these
+   */
+  public int sphereCount, cylinderCount, triangleCount;
+
+  /**
+   * running count of atoms (or monomers) that renderers skipped because their
+   * whole block was culled; see AtomScreenBlocks
+   */
+  public int culledCount;
+
   public Shader shader;
 
   protected Viewer vwr;
@@ -367,6 +381,42 @@ public class GData implements JmolGraphicsInterface {
     return (z != Integer.MIN_VALUE && (z < slab || z > depth));
   }
 
+  /**
+   * @param xMin
+   * @param xMax
+   * @param yMin
+   * @param yMax
+   * @return true if no point in this rectangle is in the display range
+   */
+  public boolean isOutOfDisplayRange(int xMin, int xMax, int yMin, int yMax) {
+    return (xMax < displayMinX || xMin >= displayMaxX || yMax < displayMinY || yMin >= displayMaxY);
+  }
+
+  /**
+   * Rebuild the coarse map of z-buffer maxima used by getZMax(), for
+   * occlusion culling; first pass only.
+   * 
+   * @return true if a map is available
+   */
+  public boolean updateZMaxMap() {
+    return false;
+  }
+
+  /**
+   * The largest z-buffer value over the on-screen part of a rectangle, as of
+   * the last updateZMaxMap(). Anything farther away than this would be hidden.
+   * 
+   * @param x0
+   * @param y0
+   * @param x1
+   * @param y1
+   * @return Integer.MAX_VALUE if there is no map; Integer.MIN_VALUE if the
+   *         rectangle is entirely off screen
+   */
+  public int getZMax(int x0, int y0, int x1, int y1) {
+    return Integer.MAX_VALUE;
+  }
+
   final public static int yGT = 1;
   final public static int yLT = 2;
   final public static int xGT = 4;
@@ -564,6 +614,14 @@ public class GData implements JmolGraphicsInterface {
   public void clearFontCache() {
   }
 
+  /**
+   * @param andReset
+   * @return label text cache counters and memory use, or null
+   */
+  public Map<String, Object> getTextCacheInfo(boolean andReset) {
+    return null;
+  }
+
   public void drawQuadrilateralBits(JmolRendererInterface jmolRenderer, short colix, P3d screenA, P3d screenB,
                                     P3d screenC, P3d screenD) {
     //mesh only -- translucency has been checked
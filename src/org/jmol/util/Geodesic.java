@@ -213,6 +213,7 @@ public class Geodesic {
   synchronized public static void createGeodesic(int lvl) {
     if (lvl <= currentLevel)
       return;
+    long t = StartupProfile.start();
     currentLevel = lvl;
     // from getVertexCount()
     //only one per applet set
@@ -242,6 +243,7 @@ public class Geodesic {
    //  + v[i] + " faceCount=" + faceVertexesArrays[i].length / 3);
    //}
     vertexCounts = v;
+    StartupProfile.end("Geodesic", t);
   }
 
   /*
@@ -346,18 +348,21 @@ public class Geodesic {
         if (neighbor >= vertexCount)
           throw new NullPointerException();
       }
+      // counted in one pass each, not one pass per vertex
+      int[] neighborCounts = new int[newVertexCount];
+      for (int j = neighborVertexes.length; --j >= 0; )
+        if (neighborVertexes[j] >= 0)
+          ++neighborCounts[neighborVertexes[j]];
+      int[] faceCounts = new int[newVertexCount];
+      for (int j = newFacesVertexes.length; --j >= 0; )
+        if (newFacesVertexes[j] < newVertexCount)
+          ++faceCounts[newFacesVertexes[j]];
       for (int i = 0; i < newVertexCount; ++i) {
-        int neighborCount = 0;
-        for (int j = neighborVertexes.length; --j >= 0; )
-          if (neighborVertexes[j] == i)
-            ++neighborCount;
+        int neighborCount = neighborCounts[i];
         if ((i < 12 && neighborCount != 5) ||
             (i >= 12 && neighborCount != 6))
           throw new NullPointerException();
-        int faceCount = 0;
-        for (int j = newFacesVertexes.length; --j >= 0; )
-          if (newFacesVertexes[j] == i)
-            ++faceCount;
+        int faceCount = faceCounts[i];
         if ((i < 12 && faceCount != 5) ||
             (i >= 12 && faceCount != 6))
           throw new NullPointerException();
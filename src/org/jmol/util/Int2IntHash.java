@@ -24,61 +24,94 @@
 
 package org.jmol.util;
 
+/**
+ * An int-to-int map with open addressing and linear probing. No entry objects
+ * and no boxing; get() returns Integer.MIN_VALUE for a missing key.
+ *
+ * See also Int2ObjHash, Long2IntHash, and Str2IntHash.
+ *
+ */
 public class Int2IntHash {
   int entryCount;
-  Int2IntHashEntry[] entries;
-  
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+
   public Int2IntHash(int initialCapacity) {
-    entries = new Int2IntHashEntry[initialCapacity];
+    allocate(getCapacity(initialCapacity));
   }
 
   public synchronized int get(int key) {
-    Int2IntHashEntry[] entries = this.entries;
-    int hash = (key & 0x7FFFFFFF) % entries.length;
-    for (Int2IntHashEntry e = entries[hash]; e != null; e = e.next)
-      if (e.key == key)
-        return e.value;
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask)
+      if (keys[i] == key)
+        return values[i];
     return Integer.MIN_VALUE;
   }
 
   public synchronized void put(int key, int value) {
-    Int2IntHashEntry[] entries = this.entries;
-    int n = entries.length;
-    int hash = (key & 0x7FFFFFFF) % n;
-    for (Int2IntHashEntry e = entries[hash]; e != null; e = e.next)
-      if (e.key == key) {
-        e.value = value;
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; used[i]; i = (i + 1) & mask)
+      if (keys[i] == key) {
+        values[i] = value;
         return;
       }
-    if (entryCount > n) {
-      int oldSize = n;
-      n += n + 1;
-      Int2IntHashEntry[] newEntries = new Int2IntHashEntry[n];
-      for (int i = oldSize; --i >= 0;) {
-        for (Int2IntHashEntry e = entries[i]; e != null;) {
-          Int2IntHashEntry t = e;
-          e = e.next;
-          hash = (t.key & 0x7FFFFFFF) % n;
-          t.next = newEntries[hash];
-          newEntries[hash] = t;
-        }
-      }
-      entries = this.entries = newEntries;
-      hash = (key & 0x7FFFFFFF) % n;
+    keys[i] = key;
+    values[i] = value;
+    used[i] = true;
+    if (++entryCount * 2 > keys.length)
+      rehash();
+  }
+
+  public synchronized int size() {
+    return entryCount;
+  }
+
+  private void allocate(int n) {
+    keys = new int[n];
+    values = new int[n];
+    used = new boolean[n];
+  }
+
+  private void rehash() {
+    int[] k = keys, v = values;
+    boolean[] u = used;
+    allocate(k.length * 2);
+    int mask = keys.length - 1;
+    for (int j = k.length; --j >= 0;) {
+      if (!u[j])
+        continue;
+      int i = hash(k[j]) & mask;
+      while (used[i])
+        i = (i + 1) & mask;
+      keys[i] = k[j];
+      values[i] = v[j];
+      used[i] = true;
     }
-    entries[hash] = new Int2IntHashEntry(key, value, entries[hash]);
-    ++entryCount;
   }
-}
 
-class Int2IntHashEntry {
-  int key;
-  int value;
-  Int2IntHashEntry next;
-  
-  Int2IntHashEntry(int key, int value, Int2IntHashEntry next) {
-    this.key = key;
-    this.value = value;
-    this.next = next;
+  /**
+   * Spreads the high bits down; shifts and exclusive-ors only, so this is
+   * the same in JavaScript.
+   *
+   * @param h
+   * @return mixed bits
+   */
+  static int hash(int h) {
+    h ^= (h >>> 20) ^ (h >>> 12);
+    return h ^ (h >>> 7) ^ (h >>> 4);
   }
+
+  /**
+   * @param n expected number of entries
+   * @return a power of 2 large enough to hold n entries at half load
+   */
+  static int getCapacity(int n) {
+    int cap = 16;
+    while (cap < n * 2 && cap < (1 << 30))
+      cap <<= 1;
+    return cap;
+  }
+
 }
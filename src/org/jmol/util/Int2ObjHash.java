@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+/**
+ * An int-to-object map with open addressing, for load-time lookups such as
+ * atom by index or chain by chain ID that would otherwise box every key.
+ * get() returns null for a missing key; null values are not allowed.
+ *
+ * Not synchronized.
+ *
+ * @param <T>
+ */
+public class Int2ObjHash<T> {
+
+  private int entryCount;
+  private int[] keys;
+  private Object[] values;
+
+  public Int2ObjHash(int initialCapacity) {
+    allocate(Int2IntHash.getCapacity(initialCapacity));
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int key) {
+    int mask = keys.length - 1;
+    Object v;
+    for (int i = Int2IntHash.hash(key) & mask; (v = values[i]) != null; i = (i + 1) & mask)
+      if (keys[i] == key)
+        return (T) v;
+    return null;
+  }
+
+  public void put(int key, T value) {
+    int mask = keys.length - 1;
+    int i = Int2IntHash.hash(key) & mask;
+    for (; values[i] != null; i = (i + 1) & mask)
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+    keys[i] = key;
+    values[i] = value;
+    if (++entryCount * 2 > keys.length)
+      rehash();
+  }
+
+  public int size() {
+    return entryCount;
+  }
+
+  public void clear() {
+    if (entryCount == 0)
+      return;
+    for (int i = values.length; --i >= 0;)
+      values[i] = null;
+    entryCount = 0;
+  }
+
+  private void allocate(int n) {
+    keys = new int[n];
+    values = new Object[n];
+  }
+
+  private void rehash() {
+    int[] k = keys;
+    Object[] v = values;
+    allocate(k.length * 2);
+    int mask = keys.length - 1;
+    for (int j = k.length; --j >= 0;) {
+      if (v[j] == null)
+        continue;
+      int i = Int2IntHash.hash(k[j]) & mask;
+      while (values[i] != null)
+        i = (i + 1) & mask;
+      keys[i] = k[j];
+      values[i] = v[j];
+    }
+  }
+
+}
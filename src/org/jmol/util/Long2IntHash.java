@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+/**
+ * A long-to-int map with open addressing, for pairs of ints used together as
+ * a key. get() returns Integer.MIN_VALUE for a missing key.
+ *
+ * Keys should stay within +/-2^53, so that they are exact in JavaScript;
+ * combine two ints as a * 0x100000000L + b rather than by shifting.
+ *
+ * Not synchronized.
+ *
+ */
+public class Long2IntHash {
+
+  private int entryCount;
+  private long[] keys;
+  private int[] values;
+  private boolean[] used;
+
+  public Long2IntHash(int initialCapacity) {
+    allocate(Int2IntHash.getCapacity(initialCapacity));
+  }
+
+  public int get(long key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask)
+      if (keys[i] == key)
+        return values[i];
+    return Integer.MIN_VALUE;
+  }
+
+  public void put(long key, int value) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; used[i]; i = (i + 1) & mask)
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+    keys[i] = key;
+    values[i] = value;
+    used[i] = true;
+    if (++entryCount * 2 > keys.length)
+      rehash();
+  }
+
+  public int size() {
+    return entryCount;
+  }
+
+  private void allocate(int n) {
+    keys = new long[n];
+    values = new int[n];
+    used = new boolean[n];
+  }
+
+  private void rehash() {
+    long[] k = keys;
+    int[] v = values;
+    boolean[] u = used;
+    allocate(k.length * 2);
+    int mask = keys.length - 1;
+    for (int j = k.length; --j >= 0;) {
+      if (!u[j])
+        continue;
+      int i = hash(k[j]) & mask;
+      while (used[i])
+        i = (i + 1) & mask;
+      keys[i] = k[j];
+      values[i] = v[j];
+      used[i] = true;
+    }
+  }
+
+  private static int hash(long key) {
+    // modulus rather than shifts, for JavaScript
+    return Int2IntHash.hash((int) (key % 1000000007L));
+  }
+
+}
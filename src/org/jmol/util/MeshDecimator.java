@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+import javajs.util.BS;
+import javajs.util.T3d;
+
+/**
+ * A level-of-detail version of a triangulated mesh, used while the model is
+ * rotating or spinning.
+ *
+ * The simplification is quadric-error vertex clustering (Lindstrom 2000):
+ * vertices are binned into cubic cells, each cell accumulates the
+ * area-weighted plane quadrics of the triangles touching it, and the one
+ * vertex of each cell with the smallest quadric error represents the cell.
+ * Triangles are then re-indexed to the representatives and those that
+ * collapse are dropped.
+ *
+ * Representatives are always original vertices, so the simplified polygons
+ * index directly into the mesh's own vertex, normix, and color arrays, and
+ * sourcePolygons[i] gives the original polygon for per-polygon lookups. The
+ * cell size is increased until the triangle count is no more than the
+ * requested maximum.
+ *
+ */
+public class MeshDecimator {
+
+  /**
+   * simplified polygons, in the form {a b c check ...}
+   */
+  public int[][] pis;
+
+  /**
+   * original polygon for each simplified polygon
+   */
+  public int[] sourcePolygons;
+
+  /**
+   * number of simplified polygons
+   */
+  public int pc;
+
+  /**
+   * vertices used by the simplified polygons
+   */
+  public BS bsVertices;
+
+  /**
+   * the maximum requested
+   */
+  public int maxTriangles;
+
+  /**
+   * original polygon array and count, to check that this is still valid
+   */
+  public int[][] pis0;
+  public int pc0;
+
+  private T3d[] vs;
+  private int vc;
+
+  // cell hash: key -> cell index, open addressing
+  private long[] keys;
+  private int[] values;
+  private int nCells;
+
+  public MeshDecimator() {
+    // for reflection
+  }
+
+  /**
+   * @param vs
+   * @param vc
+   * @param pis
+   * @param pc
+   * @param maxTriangles
+   * @return this; pis is null if the mesh is already small enough or cannot
+   *         be simplified
+   */
+  public MeshDecimator set(T3d[] vs, int vc, int[][] pis, int pc,
+                           int maxTriangles) {
+    this.vs = vs;
+    this.vc = vc;
+    this.maxTriangles = maxTriangles;
+    pis0 = pis;
+    pc0 = pc;
+    this.pis = null;
+    if (pc <= maxTriangles || maxTriangles <= 0)
+      return this;
+    double area = 0;
+    double[] min = new double[] { Double.MAX_VALUE, Double.MAX_VALUE,
+        Double.MAX_VALUE };
+    for (int i = pc; --i >= 0;) {
+      int[] p = pis[i];
+      if (!isTriangle(p))
+        continue;
+      area += getArea(vs[p[0]], vs[p[1]], vs[p[2]]);
+      for (int j = 0; j < 3; j++) {
+        T3d v = vs[p[j]];
+        if (v.x < min[0])
+          min[0] = v.x;
+        if (v.y < min[1])
+          min[1] = v.y;
+        if (v.z < min[2])
+          min[2] = v.z;
+      }
+    }
+    if (area == 0)
+      return this;
+    // a surface of area A binned into cells of size s occupies about A/s^2
+    // cells, each of which ends up contributing about two triangles
+    double size = Math.sqrt(2 * area / maxTriangles);
+    for (int iter = 0; iter < 12; iter++, size *= 1.4) {
+      simplify(pis, pc, min, size);
+      if (this.pc <= maxTriangles)
+        break;
+    }
+    vs = null;
+    keys = null;
+    values = null;
+    if (this.pc == 0 || this.pc > maxTriangles)
+      this.pis = null;
+    return this;
+  }
+
+  /**
+   * @param pis
+   * @param pc
+   * @param maxTriangles
+   * @return true if this simplification can be used for the mesh as is
+   */
+  public boolean isValid(int[][] pis, int pc, int maxTriangles) {
+    return (pis == pis0 && pc == pc0 && maxTriangles == this.maxTriangles);
+  }
+
+  private static boolean isTriangle(int[] p) {
+    return (p != null && p.length >= 3 && p[0] != p[1] && p[1] != p[2] && p[0] != p[2]);
+  }
+
+  private void simplify(int[][] pis, int pc, double[] min, double size) {
+    int[] cellOf = new int[vc];
+    for (int i = vc; --i >= 0;)
+      cellOf[i] = -1;
+    nCells = 0;
+    int n = 16;
+    while (n < vc)
+      n <<= 1;
+    keys = new long[n * 2];
+    values = new int[n * 2];
+    double[] q = new double[Math.max(16, vc / 4) * 10];
+
+    // pass 1: cells and their quadrics
+
+    for (int i = pc; --i >= 0;) {
+      int[] p = pis[i];
+      if (!isTriangle(p))
+        continue;
+      T3d a = vs[p[0]];
+      T3d b = vs[p[1]];
+      T3d c = vs[p[2]];
+      // plane normal from (b - a) x (c - a); length is twice the area
+      double ux = b.x - a.x, uy = b.y - a.y, uz = b.z - a.z;
+      double wx = c.x - a.x, wy = c.y - a.y, wz = c.z - a.z;
+      double nx = uy * wz - uz * wy;
+      double ny = uz * wx - ux * wz;
+      double nz = ux * wy - uy * wx;
+      double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+      if (len == 0)
+        continue;
+      double w = len / 2;
+      nx /= len;
+      ny /= len;
+      nz /= len;
+      double d = -(nx * a.x + ny * a.y + nz * a.z);
+      for (int j = 0; j < 3; j++) {
+        int iv = p[j];
+        int cell = cellOf[iv];
+        if (cell < 0) {
+          T3d v = vs[iv];
+          cell = cellOf[iv] = getCell(
+              (int) Math.floor((v.x - min[0]) / size),
+              (int) Math.floor((v.y - min[1]) / size),
+              (int) Math.floor((v.z - min[2]) / size));
+          if ((cell + 1) * 10 > q.length) {
+            double[] q2 = new double[q.length * 2];
+            System.arraycopy(q, 0, q2, 0, q.length);
+            q = q2;
+          }
+        }
+        int pt = cell * 10;
+        q[pt++] += w * nx * nx;
+        q[pt++] += w * nx * ny;
+        q[pt++] += w * nx * nz;
+        q[pt++] += w * nx * d;
+        q[pt++] += w * ny * ny;
+        q[pt++] += w * ny * nz;
+        q[pt++] += w * ny * d;
+        q[pt++] += w * nz * nz;
+        q[pt++] += w * nz * d;
+        q[pt] += w * d * d;
+      }
+    }
+
+    // pass 2: the best vertex in each cell
+
+    int[] rep = new int[nCells];
+    double[] err = new double[nCells];
+    for (int i = nCells; --i >= 0;)
+      rep[i] = -1;
+    for (int iv = 0; iv < vc; iv++) {
+      int cell = cellOf[iv];
+      if (cell < 0)
+        continue;
+      double e = getError(q, cell * 10, vs[iv]);
+      if (rep[cell] < 0 || e < err[cell]) {
+        rep[cell] = iv;
+        err[cell] = e;
+      }
+    }
+
+    // pass 3: re-indexed triangles
+
+    int[][] newPis = new int[Math.min(pc, maxTriangles + (maxTriangles >> 1)) + 1][];
+    int[] sources = new int[newPis.length];
+    int np = 0;
+    BS bs = new BS();
+    for (int i = 0; i < pc; i++) {
+      int[] p = pis[i];
+      if (p == null)
+        continue;
+      int[] p2;
+      if (isTriangle(p)) {
+        int a = (cellOf[p[0]] < 0 ? p[0] : rep[cellOf[p[0]]]);
+        int b = (cellOf[p[1]] < 0 ? p[1] : rep[cellOf[p[1]]]);
+        int c = (cellOf[p[2]] < 0 ? p[2] : rep[cellOf[p[2]]]);
+        if (a == b || b == c || a == c)
+          continue;
+        p2 = new int[p.length];
+        System.arraycopy(p, 0, p2, 0, p.length);
+        p2[0] = a;
+        p2[1] = b;
+        p2[2] = c;
+        if (p2.length > MeshSurface.P_CHECK)
+          p2[MeshSurface.P_CHECK] = 7;
+      } else {
+        // points and lines are not simplified
+        p2 = p;
+      }
+      if (np == newPis.length) {
+        // too many -- just count
+        np++;
+        continue;
+      }
+      if (np > newPis.length)
+        continue;
+      for (int j = Math.min(p2.length, 3); --j >= 0;)
+        bs.set(p2[j]);
+      sources[np] = i;
+      newPis[np++] = p2;
+    }
+    if (np > newPis.length) {
+      this.pc = Integer.MAX_VALUE;
+      return;
+    }
+    this.pis = newPis;
+    sourcePolygons = sources;
+    bsVertices = bs;
+    this.pc = np;
+  }
+
+  private static double getError(double[] q, int pt, T3d v) {
+    double x = v.x, y = v.y, z = v.z;
+    return q[pt] * x * x + 2 * q[pt + 1] * x * y + 2 * q[pt + 2] * x * z + 2
+        * q[pt + 3] * x + q[pt + 4] * y * y + 2 * q[pt + 5] * y * z + 2
+        * q[pt + 6] * y + q[pt + 7] * z * z + 2 * q[pt + 8] * z + q[pt + 9];
+  }
+
+  private static double getArea(T3d a, T3d b, T3d c) {
+    double ux = b.x - a.x, uy = b.y - a.y, uz = b.z - a.z;
+    double wx = c.x - a.x, wy = c.y - a.y, wz = c.z - a.z;
+    double nx = uy * wz - uz * wy;
+    double ny = uz * wx - ux * wz;
+    double nz = ux * wy - uy * wx;
+    return Math.sqrt(nx * nx + ny * ny + nz * nz) / 2;
+  }
+
+  private int getCell(int ix, int iy, int iz) {
+    long key = ((long) (ix & 0x1FFFFF) << 42) | ((long) (iy & 0x1FFFFF) << 21)
+        | (iz & 0x1FFFFF);
+    int mask = keys.length - 1;
+    int h = (int) (key ^ (key >>> 29) ^ (key >>> 47)) * 0x9E3779B9;
+    int i = (h ^ (h >>> 16)) & mask;
+    while (true) {
+      int v = values[i];
+      if (v == 0) {
+        keys[i] = key;
+        values[i] = ++nCells;
+        return nCells - 1;
+      }
+      if (keys[i] == key)
+        return v - 1;
+      i = (i + 1) & mask;
+    }
+  }
+
+}
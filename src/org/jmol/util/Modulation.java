@@ -3,6 +3,7 @@ package org.jmol.util;
 import java.util.Hashtable;
 
 import javajs.util.AU;
+import javajs.util.M3d;
 import javajs.util.PT;
 
 /**
@@ -305,6 +306,79 @@ public class Modulation {
     }
   }
 
+  /**
+   * Fill in this modulation's term of a ModulationEngine table, folding in
+   * the atom's superspace operation: nt = qCoefs . rI, where rI = tau + g . t
+   * for a t offset or tau + g . sigma . q for a q offset, and the result is
+   * applied along column axis of gammaE.
+   * 
+   * @param term
+   * @param pt
+   * @param tau
+   * @param g
+   *        gammaIinv, times tFactorInv for a subsystem
+   * @param sigma
+   * @param gammaE
+   * @param axes
+   *        unit cell lengths, for spin
+   * @param spinOp
+   * @param haveSpin
+   * @return false if this is not a Fourier displacement, spin, or occupancy
+   *         modulation
+   */
+  boolean setTerm(double[] term, int pt, double[][] tau, double[][] g,
+                  double[][] sigma, M3d gammaE, double[] axes, int spinOp,
+                  boolean haveSpin) {
+    boolean isXYZ = (axis >= 'x' && axis <= 'z');
+    int kind;
+    switch (type) {
+    case TYPE_SPIN_FOURIER:
+      kind = (isXYZ && haveSpin ? ModulationEngine.TERM_SPIN
+          : ModulationEngine.TERM_NONE);
+      break;
+    case TYPE_DISP_FOURIER:
+    case TYPE_OCC_FOURIER:
+      if (axis == 'U')
+        return false;
+      kind = (isXYZ ? ModulationEngine.TERM_DISP : ModulationEngine.TERM_OCC);
+      break;
+    default:
+      return false;
+    }
+    int d = tau.length;
+    double c0 = 0;
+    double[] qg = new double[d];
+    for (int i = qCoefs.length; --i >= 0;) {
+      c0 += qCoefs[i] * tau[i][0];
+      for (int j = 0; j < d; j++)
+        qg[j] += qCoefs[i] * g[i][j];
+    }
+    term[pt] = kind;
+    term[pt + 1] = c0;
+    for (int k = 0; k < 3; k++) {
+      double cq = 0;
+      for (int j = 0; j < d; j++)
+        cq += qg[j] * sigma[j][k];
+      term[pt + 2 + k] = (k < d ? qg[k] : 0);
+      term[pt + 5 + k] = cq;
+    }
+    term[pt + 8] = a1;
+    term[pt + 9] = a2;
+    term[pt + 10] = 1;
+    if (isXYZ) {
+      int k = axis - 'x';
+      double f = 1;
+      if (kind == ModulationEngine.TERM_SPIN) {
+        term[pt + 10] = axes[k];
+        if (spinOp < 0)
+          f = spinOp;
+      }
+      for (int i = 0; i < 3; i++)
+        term[pt + 11 + i] = f * gammaE.getElement(i, k);
+    }
+    return true;
+  }
+
   /**
    * Check that left < x4 < right, but allow for folding
    * 
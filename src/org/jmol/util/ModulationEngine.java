@@ -0,0 +1,223 @@
+package org.jmol.util;
+
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.util.BS;
+import javajs.util.T3d;
+
+import org.jmol.thread.ParallelTasks;
+import org.jmol.viewer.Viewer;
+
+/**
+ * Bulk evaluation of atom modulations for a given t or q offset, as for the
+ * MODULATION command and animations that step through t.
+ *
+ * For each atom whose modulations are all Fourier displacement, spin, or
+ * occupancy terms, the superspace operation, subsystem factor, and wave
+ * vector coefficients are folded into a table of terms, each of which is
+ * just
+ *
+ * a1 sin(2 pi nt) + a2 cos(2 pi nt), nt = c0 + c . t
+ *
+ * applied along a fixed (already rotated) direction. A whole t-step is then
+ * evaluated into one "frame" array, in parallel for large models, without
+ * creating any matrices. Frames are saved, so stepping through the same t
+ * values again -- a looping animation -- involves no calculation at all.
+ *
+ * Atoms with crenel, sawtooth, Legendre, or Uij modulations are left to
+ * ModulationSet.calculate().
+ *
+ */
+public class ModulationEngine {
+
+  private static final double TWOPI = 2 * Math.PI;
+
+  /**
+   * term kinds
+   */
+  final static int TERM_NONE = 0;
+  final static int TERM_DISP = 1;
+  final static int TERM_SPIN = 2;
+  final static int TERM_OCC = 3;
+
+  /**
+   * a term is [kind, c0, ct(3), cq(3), a1, a2, div, w(3)]
+   */
+  final static int TERM_SIZE = 14;
+
+  /**
+   * a frame holds [dx, dy, dz, mx, my, mz, occ] for each atom
+   */
+  final static int FRAME_SIZE = 7;
+
+  /**
+   * a limit to memory use for saved frames, in doubles; the cache is simply
+   * cleared when full
+   */
+  private final static int MAX_FRAME_VALUES = 1 << 21;
+
+  private final static int MIN_ATOMS_PER_TASK = 500;
+
+  private Viewer vwr;
+  private Vibration[] vibrations;
+  private ModulationSet[] sets;
+  private double[][] tables;
+  private int nTabulated;
+
+  private Map<String, double[]> frames = new Hashtable<String, double[]>();
+  private int frameValues;
+
+  /**
+   * @param vwr
+   * @param vibrations
+   *        the model set's vibrations, by atom index
+   */
+  public ModulationEngine(Viewer vwr, Vibration[] vibrations) {
+    this.vwr = vwr;
+    this.vibrations = vibrations;
+    int n = vibrations.length;
+    sets = new ModulationSet[n];
+    tables = new double[n][];
+    for (int i = n; --i >= 0;) {
+      Vibration v = vibrations[i];
+      if (v instanceof ModulationSet && v.modDim > 0) {
+        ModulationSet ms = sets[i] = (ModulationSet) v;
+        if ((tables[i] = ms.getTermTable()) != null)
+          nTabulated++;
+      }
+    }
+  }
+
+  /**
+   * @param vibrations
+   * @param bs
+   * @return true if this engine was created for these modulations
+   */
+  public boolean isFor(Vibration[] vibrations, BS bs) {
+    if (vibrations != this.vibrations)
+      return false;
+    for (int i = bs.nextSetBit(0); i >= 0 && i < sets.length; i = bs
+        .nextSetBit(i + 1)) {
+      Vibration v = vibrations[i];
+      if ((v instanceof ModulationSet && v.modDim > 0 ? v : null) != sets[i])
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Get the modulations of all tabulated atoms for a given offset, from the
+   * saved frames if possible.
+   *
+   * @param qtOffset
+   * @param isQ
+   * @return frame, or null if there is nothing to tabulate
+   */
+  public double[] getFrame(T3d qtOffset, boolean isQ) {
+    if (nTabulated == 0 || Logger.debuggingHigh)
+      return null;
+    String key = (isQ ? "q " : "t ") + qtOffset.x + " " + qtOffset.y + " "
+        + qtOffset.z;
+    double[] frame = frames.get(key);
+    if (frame != null)
+      return frame;
+    int n = sets.length;
+    frame = new double[n * FRAME_SIZE];
+    int nTasks = ParallelTasks.getTaskCount(vwr, nTabulated,
+        MIN_ATOMS_PER_TASK);
+    Runnable[] tasks = new Runnable[nTasks];
+    for (int i = 0; i < nTasks; i++)
+      tasks[i] = new FrameTask(frame, n * i / nTasks, n * (i + 1) / nTasks,
+          qtOffset, isQ);
+    ParallelTasks.run(vwr, tasks);
+    if (frameValues + frame.length > MAX_FRAME_VALUES) {
+      frames.clear();
+      frameValues = 0;
+    }
+    frames.put(key, frame);
+    frameValues += frame.length;
+    return frame;
+  }
+
+  /**
+   * Set the modulation of one atom, as for JmolModulationSet.setModTQ, using
+   * a frame from getFrame() if the atom is tabulated.
+   *
+   * @param i
+   * @param a
+   * @param isOn
+   * @param qtOffset
+   * @param isQ
+   * @param scale
+   * @param frame
+   */
+  public void setModTQ(int i, T3d a, boolean isOn, T3d qtOffset, boolean isQ,
+                       double scale, double[] frame) {
+    sets[i].setModTQFrame(a, isOn, qtOffset, isQ, scale,
+        (tables[i] == null ? null : frame), i * FRAME_SIZE);
+  }
+
+  private class FrameTask implements Runnable {
+
+    private double[] frame;
+    private int i0, i1;
+    private double tx, ty, tz;
+    private int c;
+
+    FrameTask(double[] frame, int i0, int i1, T3d qtOffset, boolean isQ) {
+      this.frame = frame;
+      this.i0 = i0;
+      this.i1 = i1;
+      tx = qtOffset.x;
+      ty = qtOffset.y;
+      tz = qtOffset.z;
+      c = (isQ ? 5 : 2);
+    }
+
+    @Override
+    public void run() {
+      for (int i = i0; i < i1; i++) {
+        double[] t = tables[i];
+        if (t == null)
+          continue;
+        double x = 0, y = 0, z = 0, mx = 0, my = 0, mz = 0, occ = Double.NaN;
+        for (int pt = 0, n = t.length; pt < n; pt += TERM_SIZE) {
+          int pc = pt + c;
+          double theta = TWOPI
+              * (t[pt + 1] + t[pc] * tx + t[pc + 1] * ty + t[pc + 2] * tz);
+          double v = 0;
+          if (t[pt + 8] != 0)
+            v += t[pt + 8] * Math.sin(theta);
+          if (t[pt + 9] != 0)
+            v += t[pt + 9] * Math.cos(theta);
+          switch ((int) t[pt]) {
+          case TERM_DISP:
+            x += v * t[pt + 11];
+            y += v * t[pt + 12];
+            z += v * t[pt + 13];
+            break;
+          case TERM_SPIN:
+            v /= t[pt + 10];
+            mx += v * t[pt + 11];
+            my += v * t[pt + 12];
+            mz += v * t[pt + 13];
+            break;
+          case TERM_OCC:
+            occ = (Double.isNaN(occ) ? v : occ + v);
+            break;
+          }
+        }
+        int p = i * FRAME_SIZE;
+        frame[p] = x;
+        frame[p + 1] = y;
+        frame[p + 2] = z;
+        frame[p + 3] = mx;
+        frame[p + 4] = my;
+        frame[p + 5] = mz;
+        frame[p + 6] = occ;
+      }
+    }
+  }
+
+}
@@ -437,6 +437,24 @@ public class ModulationSet extends Vibration implements JmolModulationSet {
     return this;
   }
 
+  /**
+   * @return this atom's terms for ModulationEngine, or null if any of its
+   *         modulations must be calculated here
+   */
+  double[] getTermTable() {
+    int n = mods.size();
+    double[] table = new double[n * ModulationEngine.TERM_SIZE];
+    double[][] g = (isSubsystem ? gammaIinv.mul(tFactorInv) : gammaIinv)
+        .getArray();
+    double[][] ta = tau.getArray();
+    double[][] s = sigma.getArray();
+    for (int i = n, pt = 0; --i >= 0; pt += ModulationEngine.TERM_SIZE)
+      if (!mods.get(i).setTerm(table, pt, ta, g, s, gammaE, axesLengths,
+          spinOp, mxyz != null))
+        return null;
+    return table;
+  }
+
   public void addUTens(String utens, double v) {
     if (htUij == null)
       htUij = new Hashtable<String, Double>();
@@ -459,8 +477,28 @@ public class ModulationSet extends Vibration implements JmolModulationSet {
    * 
    */
   @Override
-  public synchronized void setModTQ(T3d a, boolean isOn, T3d qtOffset,
-                                    boolean isQ, double scale) {
+  public void setModTQ(T3d a, boolean isOn, T3d qtOffset, boolean isQ,
+                       double scale) {
+    setModTQFrame(a, isOn, qtOffset, isQ, scale, null, 0);
+  }
+
+  /**
+   * Set modulation "t" value, as for setModTQ, taking the modulation from a
+   * ModulationEngine frame rather than calculating it.
+   * 
+   * @param a
+   * @param isOn
+   * @param qtOffset
+   * @param isQ
+   * @param scale
+   * @param frame
+   *        or null to calculate
+   * @param pt
+   *        this atom's offset in frame
+   */
+  synchronized void setModTQFrame(T3d a, boolean isOn, T3d qtOffset,
+                                  boolean isQ, double scale, double[] frame,
+                                  int pt) {
     if (enabled)
       addTo(a, Double.NaN);
     enabled = false;
@@ -468,9 +506,19 @@ public class ModulationSet extends Vibration implements JmolModulationSet {
     if (qtOffset != null) {
       this.qtOffset.setT(qtOffset);
       this.isQ = isQ;
-      if (isQ)
-        qtOffset = null;
-      calculate(qtOffset, isQ);
+      if (frame == null) {
+        if (isQ)
+          qtOffset = null;
+        calculate(qtOffset, isQ);
+      } else {
+        x = frame[pt];
+        y = frame[pt + 1];
+        z = frame[pt + 2];
+        if (mxyz != null)
+          mxyz.set(frame[pt + 3], frame[pt + 4], frame[pt + 5]);
+        htUij = null;
+        vOcc = frame[pt + 6];
+      }
       if (!Double.isNaN(vOcc))
         getOccupancy(true);
     }
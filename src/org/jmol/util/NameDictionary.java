@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+import javajs.util.AU;
+
+/**
+ * A load-wide dictionary of atom, residue, and similar names. Each distinct
+ * name is given a short integer code and a single canonical String, so that
+ * the hundreds of thousands of "CA" and "ALA" tokens read from a large file
+ * end up as one shared object rather than one per atom.
+ * 
+ * The canonical String is String.intern()'d once, when it is first seen, so
+ * names from the dictionary can still be compared by identity with names
+ * interned elsewhere in Jmol. Later lookups are just a hash probe.
+ * 
+ * Not synchronized; one of these is created for each file load.
+ * 
+ */
+public class NameDictionary {
+
+  private Str2IntHash codes;
+  private String[] names;
+  private int count;
+
+  public NameDictionary(int initialCapacity) {
+    codes = new Str2IntHash(initialCapacity);
+    names = new String[initialCapacity < 16 ? 16 : initialCapacity];
+  }
+
+  /**
+   * @param name
+   * @return the code for this name, adding it if it is new; -1 for null
+   */
+  public int getCode(String name) {
+    if (name == null)
+      return -1;
+    int code = codes.get(name);
+    if (code == Integer.MIN_VALUE) {
+      if (count == names.length)
+        names = AU.arrayCopyS(names, count * 2);
+      names[code = count++] = name.intern();
+      codes.put(names[code], code);
+    }
+    return code;
+  }
+
+  /**
+   * @param code
+   * @return the canonical name for this code, or null
+   */
+  public String getName(int code) {
+    return (code < 0 || code >= count ? null : names[code]);
+  }
+
+  /**
+   * @param name
+   * @return the canonical instance of name, or null
+   */
+  public String intern(String name) {
+    return (name == null ? null : names[getCode(name)]);
+  }
+
+  public int size() {
+    return count;
+  }
+
+}
@@ -134,7 +134,13 @@ public class Shader {
     checkShades(C.colixMax);
     for (int i = C.colixMax; --i >= 0; )
       ashades[i] = null;
-    calcSphereShading();
+    // the sphere table is calculated when first needed, but with the random
+    // noise it would have had if calculated now
+    sphereShadingSeed = seed;
+    if (useLight)
+      seed = (seed * (sphereShadingSeedFactor & 0xFFFF)
+          + ((seed * (sphereShadingSeedFactor >> 16)) << 16)) & 0x7FFFFFFF;
+    haveSphereShading = false;
     for (int i =  maxSphereCache; --i >= 0;)
       sphereShapeCache[i] = null;
     ellipsoidShades = null;
@@ -417,9 +423,47 @@ public class Shader {
   // Sphere shading cache for Large spheres
   ////////////////////////////////////////////////////////////////
 
-  public byte[] sphereShadeIndexes = new byte[256 * 256];
+  private byte[] sphereShadeIndexes = new byte[256 * 256];
+  private boolean haveSphereShading = true;
+  private int sphereShadingSeed;
+
+  /**
+   * nextRandom8Bit() multiplies the seed by 65539 each time; this is 65539^n
+   * (mod 2^31), for the n random numbers used by calcSphereShading(); it is
+   * applied in two 16-bit parts so as to be exact in JavaScript as well
+   */
+  private final static int sphereShadingSeedFactor = getSphereShadingSeedFactor();
+
+  private static int getSphereShadingSeedFactor() {
+    int f = 1;
+    for (int i = 0; i < 256; ++i) {
+      double xF = i - 127.5d;
+      for (int j = 0; j < 256; ++j) {
+        double yF = j - 127.5d;
+        if (130 * 130 - xF * xF - yF * yF > 0)
+          f = ((f << 16) + (f << 1) + f) & 0x7FFFFFFF;
+      }
+    }
+    return f;
+  }
+
+  /**
+   * Calculated only when needed, since every lighting parameter set while a
+   * viewer starts up flushes the caches.
+   * 
+   * @return shade indexes for a sphere of radius 130, 256 x 256
+   */
+  public byte[] getSphereShadeIndexes() {
+    if (!haveSphereShading)
+      calcSphereShading();
+    return sphereShadeIndexes;
+  }
 
   private synchronized void calcSphereShading() {
+    if (haveSphereShading)
+      return;
+    int s = seed;
+    seed = sphereShadingSeed;
     double xF = -127.5d;
     double r2 = 130 * 130;
     for (int i = 0; i < 256; ++xF, ++i) {
@@ -435,6 +479,8 @@ public class Shader {
         sphereShadeIndexes[(j << 8) + i] = shadeIndex;
       }
     }
+    seed = s;
+    haveSphereShading = true;
   }
   
   /*
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.util.DF;
+import javajs.util.Lst;
+
+/**
+ * Startup profile: when Java is started with -Djmol.startupprofile=true, the
+ * static tables Jmol builds, the construction of each Viewer, and each class
+ * instantiated by Interface.getInterface() -- shapes, renderers, readers, and
+ * the like, including their class loading and static initialization -- are
+ * timed and logged as they finish.
+ *
+ * Reported in order of starting, with nested entries indented, by
+ * getProperty("startupProfile").
+ *
+ * Usage:
+ *
+ * <pre>
+ * long t = StartupProfile.start();
+ * ...
+ * StartupProfile.end("JC version", t);
+ * </pre>
+ *
+ * Not available in JavaScript.
+ *
+ */
+public final class StartupProfile {
+
+  private StartupProfile() {
+  }
+
+  public final static boolean enabled;
+
+  /**
+   * {name, start, end}, in ns, relative to t0
+   */
+  private static Lst<Object[]> entries;
+  private static long t0;
+  private static Map<String, Boolean> htClasses;
+
+  static {
+    boolean b = false;
+    /**
+     * @j2sIgnore
+     */
+    {
+      try {
+        b = Boolean.getBoolean("jmol.startupprofile");
+      } catch (Exception e) {
+        // not allowed
+      }
+    }
+    enabled = b;
+    if (enabled) {
+      entries = new Lst<Object[]>();
+      htClasses = new Hashtable<String, Boolean>();
+      t0 = System.nanoTime();
+    }
+  }
+
+  /**
+   * @return a start time for end(), or 0 if not profiling
+   */
+  public static long start() {
+    return (enabled ? System.nanoTime() : 0);
+  }
+
+  /**
+   * Record an initializer that took from t to now.
+   *
+   * @param name
+   * @param t
+   *        from start()
+   */
+  public static void end(String name, long t) {
+    if (!enabled)
+      return;
+    long now = System.nanoTime();
+    synchronized (entries) {
+      entries.addLast(new Object[] { name, Long.valueOf(t - t0),
+          Long.valueOf(now - t0) });
+    }
+    Logger.info("startup " + name + " " + DF.formatDecimal((now - t) / 1e6, 2)
+        + " ms");
+  }
+
+  /**
+   * Record the first instantiation of a class, which includes its loading and
+   * static initialization, and ignore later ones.
+   *
+   * @param className
+   * @param t
+   *        from start()
+   */
+  public static void endClass(String className, long t) {
+    if (!enabled || htClasses.put(className, Boolean.TRUE) != null)
+      return;
+    end(className, t);
+  }
+
+  /**
+   * @return the entries in order of starting, each with its name, depth, start
+   *         and time in ms; empty if not profiling
+   */
+  public static Lst<Map<String, Object>> getInfo() {
+    Lst<Map<String, Object>> info = new Lst<Map<String, Object>>();
+    if (!enabled)
+      return info;
+    Object[][] a;
+    synchronized (entries) {
+      a = new Object[entries.size()][];
+      entries.toArray(a);
+    }
+    Arrays.sort(a, new Comparator<Object[]>() {
+      @Override
+      public int compare(Object[] e1, Object[] e2) {
+        return ((Long) e1[1]).compareTo((Long) e2[1]);
+      }
+    });
+    long[] ends = new long[a.length];
+    int depth = 0;
+    for (int i = 0; i < a.length; i++) {
+      long t1 = ((Long) a[i][1]).longValue();
+      long t2 = ((Long) a[i][2]).longValue();
+      // enclosing entries are those still open when this one starts
+      while (depth > 0 && ends[depth - 1] <= t1)
+        depth--;
+      Map<String, Object> m = new Hashtable<String, Object>();
+      m.put("name", a[i][0]);
+      m.put("depth", Integer.valueOf(depth));
+      m.put("startMs", Double.valueOf(t1 / 1e6));
+      m.put("ms", Double.valueOf((t2 - t1) / 1e6));
+      info.addLast(m);
+      ends[depth++] = t2;
+    }
+    return info;
+  }
+
+}
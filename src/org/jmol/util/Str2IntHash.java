@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+/**
+ * A String-to-int map with open addressing, in place of Map<String,
+ * Integer>, Map<String, Short>, and the like. Keys are compared by identity
+ * first, so interned names are found without a call to equals(). get()
+ * returns Integer.MIN_VALUE for a missing key.
+ *
+ * Synchronized, as for Hashtable, because some of these are static tables
+ * shared by all viewers.
+ *
+ */
+public class Str2IntHash {
+
+  private int entryCount;
+  private String[] keys;
+  private int[] values;
+
+  public Str2IntHash(int initialCapacity) {
+    allocate(Int2IntHash.getCapacity(initialCapacity));
+  }
+
+  public synchronized int get(String key) {
+    int mask = keys.length - 1;
+    String k;
+    for (int i = Int2IntHash.hash(key.hashCode()) & mask; (k = keys[i]) != null; i = (i + 1) & mask)
+      if (k == key || k.equals(key))
+        return values[i];
+    return Integer.MIN_VALUE;
+  }
+
+  public synchronized void put(String key, int value) {
+    int mask = keys.length - 1;
+    int i = Int2IntHash.hash(key.hashCode()) & mask;
+    String k;
+    for (; (k = keys[i]) != null; i = (i + 1) & mask)
+      if (k == key || k.equals(key)) {
+        values[i] = value;
+        return;
+      }
+    keys[i] = key;
+    values[i] = value;
+    if (++entryCount * 2 > keys.length)
+      rehash();
+  }
+
+  public synchronized int size() {
+    return entryCount;
+  }
+
+  private void allocate(int n) {
+    keys = new String[n];
+    values = new int[n];
+  }
+
+  private void rehash() {
+    String[] k = keys;
+    int[] v = values;
+    allocate(k.length * 2);
+    int mask = keys.length - 1;
+    for (int j = k.length; --j >= 0;) {
+      if (k[j] == null)
+        continue;
+      int i = Int2IntHash.hash(k[j].hashCode()) & mask;
+      while (keys[i] != null)
+        i = (i + 1) & mask;
+      keys[i] = k[j];
+      values[i] = v[j];
+    }
+  }
+
+}
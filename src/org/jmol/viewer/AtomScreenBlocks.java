@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.viewer;
+
+import javajs.util.BS;
+
+import org.jmol.modelset.Atom;
+import org.jmol.util.GData;
+
+/**
+ * Screen-space bounds for blocks of 64 consecutive atoms, refreshed by
+ * ShapeManager.finalizeAtoms each time atoms are transformed. Atoms are stored
+ * residue by residue and molecule by molecule, so a block is a compact piece of
+ * the model, and a renderer can skip a whole block that is off screen, slabbed
+ * away, or hidden behind what is already in the z-buffer without touching its
+ * atoms.
+ * 
+ * Each test is conservative: a block is culled only if every atom in it would
+ * have been rejected anyway by the renderer or by Graphics3D, so culling never
+ * changes the image. Atoms are still visited in index order.
+ * 
+ */
+public class AtomScreenBlocks {
+
+  public final static int BLOCK_BITS = 6;
+
+  // for each block: x, y, z ranges of atom centers, then of atom spheres
+  private final static int XMIN = 0, XMAX = 1, YMIN = 2, YMAX = 3, ZMIN = 4,
+      ZMAX = 5, XMINR = 6, XMAXR = 7, YMINR = 8, YMAXR = 9, ZMINR = 10,
+      ZMAXR = 11, NB = 12;
+
+  private int[] bounds = new int[0];
+  private int blockCount;
+  private boolean isValid;
+
+  AtomScreenBlocks() {
+  }
+
+  /**
+   * Prepare for a new set of screen coordinates.
+   * 
+   * @param ac
+   */
+  void reset(int ac) {
+    blockCount = (ac + (1 << BLOCK_BITS) - 1) >> BLOCK_BITS;
+    if (bounds.length < blockCount * NB)
+      bounds = new int[blockCount * NB];
+    isValid = false;
+  }
+
+  /**
+   * Clear bounds for the blocks holding atoms i0 through i1 - 1; i0 must start
+   * a block.
+   * 
+   * @param i0
+   * @param i1
+   */
+  void clear(int i0, int i1) {
+    int[] b = bounds;
+    for (int pt = (i0 >> BLOCK_BITS) * NB, pt1 = ((i1 + (1 << BLOCK_BITS) - 1) >> BLOCK_BITS)
+        * NB; pt < pt1; pt += NB) {
+      for (int j = 0; j < NB; j += 2) {
+        b[pt + j] = Integer.MAX_VALUE;
+        b[pt + j + 1] = Integer.MIN_VALUE;
+      }
+    }
+  }
+
+  void add(int i, Atom atom) {
+    int[] b = bounds;
+    int pt = (i >> BLOCK_BITS) * NB;
+    int x = atom.sX, y = atom.sY, z = atom.sZ;
+    // the same radius as SphereRenderer, plus one for z
+    int r = (atom.sD + 1) >> 1;
+    if (x < b[pt + XMIN])
+      b[pt + XMIN] = x;
+    if (x > b[pt + XMAX])
+      b[pt + XMAX] = x;
+    if (y < b[pt + YMIN])
+      b[pt + YMIN] = y;
+    if (y > b[pt + YMAX])
+      b[pt + YMAX] = y;
+    if (z < b[pt + ZMIN])
+      b[pt + ZMIN] = z;
+    if (z > b[pt + ZMAX])
+      b[pt + ZMAX] = z;
+    if (x - r < b[pt + XMINR])
+      b[pt + XMINR] = x - r;
+    if (x + r > b[pt + XMAXR])
+      b[pt + XMAXR] = x + r;
+    if (y - r < b[pt + YMINR])
+      b[pt + YMINR] = y - r;
+    if (y + r > b[pt + YMAXR])
+      b[pt + YMAXR] = y + r;
+    if (z - r - 1 < b[pt + ZMINR])
+      b[pt + ZMINR] = z - r - 1;
+    if (z + r > b[pt + ZMAXR])
+      b[pt + ZMAXR] = z + r;
+  }
+
+  void setValid(boolean TF) {
+    isValid = TF;
+  }
+
+  /**
+   * @return true if bounds are available for the current frame
+   */
+  public boolean isValid() {
+    return isValid;
+  }
+
+  /**
+   * Are all atom spheres in this block off screen or entirely in front of the
+   * slab plane or behind the depth plane? Mirrors the tests at the start of
+   * SphereRenderer.render.
+   * 
+   * @param block
+   * @param g
+   * @return true if the block can be skipped by BallsRenderer
+   */
+  public boolean isSphereClipped(int block, GData g) {
+    int pt = block * NB;
+    int[] b = bounds;
+    return (b[pt + XMAXR] < 0 || b[pt + XMINR] >= g.width
+        || b[pt + YMAXR] < 0 || b[pt + YMINR] >= g.height
+        || b[pt + ZMAXR] < g.slab || b[pt + ZMINR] > g.depth);
+  }
+
+  /**
+   * Are all atom centers in this block outside the renderer's display range
+   * on the same side? Mirrors GData.isInDisplayRange(), which the sticks and
+   * bio renderers check for each atom.
+   * 
+   * @param block
+   * @param g
+   * @return true if no atom in the block is in the display range
+   */
+  public boolean isOutOfRange(int block, GData g) {
+    int pt = block * NB;
+    int[] b = bounds;
+    return g.isOutOfDisplayRange(b[pt + XMIN], b[pt + XMAX], b[pt + YMIN],
+        b[pt + YMAX]);
+  }
+
+  /**
+   * Is the center of every atom in this block clipped by the slab or depth
+   * plane? Mirrors GData.isClippedZ().
+   * 
+   * @param block
+   * @param g
+   * @return true if all centers are clipped
+   */
+  public boolean isClippedZ(int block, GData g) {
+    int pt = block * NB;
+    int[] b = bounds;
+    return (b[pt + ZMIN] != Integer.MIN_VALUE && (b[pt + ZMAX] < g.slab || b[pt
+        + ZMIN] > g.depth));
+  }
+
+  /**
+   * Is every sphere in this block behind what is already in the z-buffer?
+   * Uses the coarse map from GData.updateZMaxMap().
+   * 
+   * @param block
+   * @param g
+   * @return true if no pixel of any sphere in the block could be drawn
+   */
+  public boolean isOccluded(int block, GData g) {
+    int pt = block * NB;
+    int[] b = bounds;
+    return (g.getZMax(b[pt + XMINR], b[pt + YMINR], b[pt + XMAXR], b[pt
+        + YMAXR]) <= b[pt + ZMINR]);
+  }
+
+  /**
+   * Count the atoms of bs in a block being skipped, for the render metrics.
+   * 
+   * @param bs
+   * @param block
+   * @param g
+   * @return the last atom index of the block, for continuing an iteration
+   */
+  public int skip(BS bs, int block, GData g) {
+    int i1 = (block + 1) << BLOCK_BITS;
+    int n = 0;
+    for (int i = bs.nextSetBit(block << BLOCK_BITS); i >= 0 && i < i1; i = bs
+        .nextSetBit(i + 1))
+      n++;
+    g.culledCount += n;
+    return i1 - 1;
+  }
+
+}
@@ -528,8 +528,9 @@ public class FileManager implements BytePoster {
       throw new IOException();
     }
     if (vwr == null || !vwr.async)
-      return Rdr.getBufferedReader(
-          new BufferedInputStream((InputStream) url.getContent()), null);
+      // not url.getContent(), which looks up a content handler for the type
+      return Rdr.getBufferedReader(new BufferedInputStream(url.openStream()),
+          null);
     // applet only
     resourceName = (url == null
         ? vwr.vwrOptions.get("codePath") + classPath + resourceName
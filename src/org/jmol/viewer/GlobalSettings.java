@@ -300,6 +300,7 @@ public class GlobalSettings {
     setB("isosurfaceKey", isosurfaceKey);
     setB("isosurfacePropertySmoothing", isosurfacePropertySmoothing);
     setI("isosurfacePropertySmoothingPower", isosurfacePropertySmoothingPower);
+    setI("isosurfaceMotionTriangles", isosurfaceMotionTriangles);
     setB("jmolInJSpecView", jmolInJSpecView);
     setI("labelPointerWidth", labelPointerWidth);
     setB("justifyMeasurements", justifyMeasurements);
@@ -336,6 +337,7 @@ public class GlobalSettings {
     setB("navigationPeriodic", navigationPeriodic);
     setF("navigationSpeed", navigationSpeed);
     setB("nboCharges", nboCharges);
+    setB("occlusionCulling", occlusionCulling);
     setB("noDelay", noDelay);
     setO("nmrPredictFormat", nmrPredictFormat);
     setO("nmrUrlFormat", nmrUrlFormat);
@@ -353,6 +355,7 @@ public class GlobalSettings {
     setO("propertyColorScheme", propertyColorScheme);
     setO("quaternionFrame", quaternionFrame);
     setB("rangeSelected", rangeSelected);
+    setI("renderMetricsInterval", renderMetricsInterval);
     setI("repaintWaitMs", repaintWaitMs);
     setI("ribbonAspectRatio", ribbonAspectRatio);
     setB("ribbonBorder", ribbonBorder);
@@ -546,8 +549,10 @@ public class GlobalSettings {
   boolean isosurfaceKey = false;
   boolean isosurfacePropertySmoothing = true;
   int isosurfacePropertySmoothingPower = 7;
+  int isosurfaceMotionTriangles = 0; // 0 for all triangles
   int platformSpeed = 10; // 1 (slow) to 10 (fast)
   public int repaintWaitMs = 1000;
+  public int renderMetricsInterval = 0; // frames between log reports; 0 for none
   boolean showHiddenSelectionHalos = false;
   boolean showKeyStrokes = true;
   boolean showMeasurements = true;
@@ -704,6 +709,7 @@ public class GlobalSettings {
   boolean navigationMode = false;
   //boolean navigateSurface = false;
   boolean navigationPeriodic = false;
+  public boolean occlusionCulling = true; // skip spacefill atom blocks hidden in the z-buffer
   double navigationSpeed = 5;
   boolean showNavigationPointAlways = false;
   String stereoState = null;
@@ -24,8 +24,10 @@
  */
 package org.jmol.viewer;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Properties;
@@ -34,8 +36,10 @@ import org.jmol.i18n.GT;
 import org.jmol.script.T;
 import org.jmol.util.Elements;
 import org.jmol.util.Logger;
+import org.jmol.util.StartupProfile;
 
 import javajs.util.PT;
+import javajs.util.SB;
 import javajs.util.V3d;
 
 public final class JC {
@@ -424,16 +428,26 @@ public final class JC {
     //     *            tmpVersion = Jmol.___JmolVersion; tmpDate = Jmol.___JmolDate;
     //     */
     //    {
-    BufferedInputStream bis = null;
+    long t = StartupProfile.start();
+    BufferedReader br = null;
     InputStream is = null;
     try {
       // Reading version from resource   inside jar
       is = JC.class.getClassLoader().getResourceAsStream(
           /** @j2sNative "core/Jmol.properties" || */
           "org/jmol/viewer/Jmol.properties");
-      bis = new BufferedInputStream(is);
+      // Jmol.properties is mostly release notes; the date and version are at
+      // the top, so we need not parse the rest
+      br = new BufferedReader(new InputStreamReader(is, "ISO-8859-1"));
+      SB header = new SB();
+      String line;
+      while ((line = br.readLine()) != null) {
+        header.append(line).appendC('\n');
+        if (line.startsWith("Jmol.___JmolVersion"))
+          break;
+      }
       Properties props = new Properties();
-      props.load(bis);
+      props.load(new StringReader(header.toString()));
       String s = props.getProperty("Jmol.___JmolVersion", tmpVersion);
       if (s != null && s.lastIndexOf("\"") > 0)
         s = s.substring(0, s.lastIndexOf("\"") + 1);
@@ -442,9 +456,9 @@ public final class JC {
     } catch (Exception e) {
       // Nothing to do
     } finally {
-      if (bis != null) {
+      if (br != null) {
         try {
-          bis.close();
+          br.close();
         } catch (Exception e) {
           // Nothing to do
         }
@@ -468,6 +482,7 @@ public final class JC {
     version = (tmpVersion != null ? tmpVersion : "(Unknown_version)");
     majorVersion = (tmpVersion != null ? tmpVersion : "(Unknown_version)");
     date = (tmpDate != null ? tmpDate : "");
+    StartupProfile.end("JC version", t);
     // 11.9.999 --> 1109999
     int v = -1;
     if (tmpVersion != null)
@@ -553,7 +568,7 @@ public final class JC {
 
   //note: Eval.write() processing requires drivers to be first-letter-capitalized.
   //do not capitalize any other letter in the word. Separate by semicolon.
-  public final static String EXPORT_DRIVER_LIST = "Idtf;Maya;Povray;Vrml;X3d;Stl;Tachyon;Obj";
+  public final static String EXPORT_DRIVER_LIST = "Idtf;Maya;Povray;Vrml;X3d;Stl;Tachyon;Obj;Glb";
 
   public final static V3d center = V3d.new3(0, 0, 0);
   public final static V3d axisX = V3d.new3(1, 0, 0);
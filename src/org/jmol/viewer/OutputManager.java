@@ -70,7 +70,13 @@ abstract class OutputManager {
     try {
       if (!vwr.checkPrivateKey(privateKey))
         return "ERROR: SECURITY";
-      if (bytes != null) {
+      if (out == null && fileName != null && fileName.startsWith("cache://")
+          && (bytes != null || text != null && !type.equals("ZIPDATA")
+              && !type.equals("BINARY"))) {
+        // for a later LOAD or SCRIPT of the same name
+        vwr.cachePut(fileName, bytes == null ? text : bytes);
+        len = (bytes == null ? text.length() : bytes.length);
+      } else if (bytes != null) {
         if (out == null)
           out = openOutputChannel(privateKey, fileName, false, false);
         out.write(bytes, 0, bytes.length);
@@ -55,6 +55,7 @@ import org.jmol.util.Edge;
 import org.jmol.util.Escape;
 import org.jmol.util.JmolMolecule;
 import org.jmol.util.Logger;
+import org.jmol.util.StartupProfile;
 import org.jmol.viewer.binding.Binding;
 
 import javajs.util.AU;
@@ -173,6 +174,8 @@ public class PropertyManager implements JmolPropertyManager {
     "CIFInfo"        , "<filename>", "",
     "modelkitInfo", "<key>","data",
     "unitcellInfo"   , "", "",
+    "renderMetrics"  , "<'reset'>", "",
+    "startupProfile" , "", "",
   };
 
   private final static int PROP_APPLET_INFO = 0;
@@ -229,7 +232,9 @@ public class PropertyManager implements JmolPropertyManager {
   private final static int PROP_CIF_INFO = 45;
   private final static int PROP_MODELKIT_INFO = 46;
   private final static int PROP_UNITCELL_INFO = 47;
-  private final static int PROP_COUNT = 48;
+  private final static int PROP_RENDER_METRICS = 48;
+  private final static int PROP_STARTUP_PROFILE = 49;
+  private final static int PROP_COUNT = 50;
 
   //// static methods used by Eval and Viewer ////
 
@@ -829,6 +834,11 @@ public class PropertyManager implements JmolPropertyManager {
     switch (id) {
     case PROP_UNITCELL_INFO :
       return getUnitCellInfo();
+    case PROP_RENDER_METRICS:
+      return (vwr.rm == null ? null
+          : vwr.rm.getRenderMetrics("reset".equalsIgnoreCase(myParam.toString())));
+    case PROP_STARTUP_PROFILE:
+      return StartupProfile.getInfo();
     case PROP_MODELKIT_INFO:
       return vwr.getModelkitPropertySafely(myParam.toString());
     case PROP_APPLET_INFO:
@@ -35,6 +35,7 @@ import org.jmol.modelset.Group;
 import org.jmol.modelset.ModelSet;
 import org.jmol.script.T;
 import org.jmol.shape.Shape;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Edge;
 import org.jmol.util.GData;
@@ -356,6 +357,11 @@ public class ShapeManager {
 
   public final BS bsRenderableAtoms, bsSlabbedInternal;
 
+  /**
+   * screen bounds of blocks of atoms, for culling by the renderers
+   */
+  public final AtomScreenBlocks atomBlocks = new AtomScreenBlocks();
+
   public Shape getShape(int i) {
     //RepaintManager
     return (shapes == null ? null : shapes[i]);
@@ -446,6 +452,88 @@ public class ShapeManager {
 
   private final int[] navMinMax = new int[4];
 
+  private final static int ATOM_BLOCK = 1024;
+  private AtomTransformer[] atomTransformers;
+
+  /**
+   * Set screen coordinates and diameters for the atoms in bsOK, with no
+   * vibrations, modulation, or internal slab to consider. Ranges of atoms are
+   * transformed as separate tasks, using TransformManager.transformPoints
+   * rather than the synchronized transformPt, and their AtomScreenBlocks
+   * bounds are measured at the same time.
+   * 
+   * @param bsOK
+   * @param atoms
+   * @param tm
+   */
+  private void transformAtoms(BS bsOK, Atom[] atoms, TransformManager tm) {
+    int ac = bsOK.length();
+    int n = ParallelTasks.getTaskCount(vwr, ac, 25000);
+    // whole blocks per task, so that each task has its own AtomScreenBlocks
+    int mask = ~((1 << AtomScreenBlocks.BLOCK_BITS) - 1);
+    if (atomTransformers == null || atomTransformers.length != n) {
+      atomTransformers = new AtomTransformer[n];
+      for (int i = 0; i < n; i++)
+        atomTransformers[i] = new AtomTransformer();
+    }
+    int dGlobal = (int) (vwr.getDouble(T.atoms) * 2000);
+    for (int i = 0; i < n; i++)
+      atomTransformers[i].set(bsOK, atoms, tm, dGlobal, (ac * i / n) & mask,
+          i == n - 1 ? ms.ac : (ac * (i + 1) / n) & mask);
+    ParallelTasks.run(vwr, atomTransformers);
+    for (int i = 0; i < n; i++)
+      atomTransformers[i].set(null, null, null, 0, 0, 0);
+  }
+
+  private class AtomTransformer implements Runnable {
+
+    private final int[] list = new int[ATOM_BLOCK];
+    private final int[] screen = new int[ATOM_BLOCK * 3];
+    private BS bs;
+    private Atom[] atoms;
+    private TransformManager tm;
+    private int dGlobal, i0, i1;
+
+    AtomTransformer() {
+    }
+
+    void set(BS bs, Atom[] atoms, TransformManager tm, int dGlobal, int i0,
+             int i1) {
+      this.bs = bs;
+      this.atoms = atoms;
+      this.tm = tm;
+      this.dGlobal = dGlobal;
+      this.i0 = i0;
+      this.i1 = i1;
+    }
+
+    @Override
+    public void run() {
+      AtomScreenBlocks blocks = atomBlocks;
+      blocks.clear(i0, i1);
+      int i = bs.nextSetBit(i0);
+      while (i >= 0 && i < i1) {
+        int n = 0;
+        do {
+          list[n++] = i;
+          i = bs.nextSetBit(i + 1);
+        } while (n < ATOM_BLOCK && i >= 0 && i < i1);
+        tm.transformPoints(atoms, list, n, screen);
+        for (int k = 0, j = 0; k < n; k++) {
+          Atom atom = atoms[list[k]];
+          atom.sX = screen[j++];
+          atom.sY = screen[j++];
+          int z = atom.sZ = screen[j++];
+          int d = Math.abs(atom.madAtom);
+          if (d == Atom.MAD_GLOBAL)
+            d = dGlobal;
+          atom.sD = (short) tm.scaleToScreen(z, d);
+          blocks.add(list[k], atom);
+        }
+      }
+    }
+  }
+
   public int[] finalizeAtoms(BS bsTranslateSelected, boolean finalizeParams) {
     Viewer vwr = this.vwr;
     TransformManager tm = vwr.tm;
@@ -473,43 +561,52 @@ public class ShapeManager {
     boolean haveMods = false;
     BS bsSlabbed = bsSlabbedInternal;
     bsSlabbed.clearAll();
-    for (int i = bsOK.nextSetBit(0); i >= 0; i = bsOK.nextSetBit(i + 1)) {
-      // note that this vibration business is not compatible with
-      // PDB objects such as cartoons and traces, which 
-      // use Cartesian coordinates, not screen coordinates
-      Atom atom = atoms[i];
-      P3i screen = (vibsOn && atom.hasVibration() ? tm.transformPtVib(atom,
-          vibrationVectors[i]) : tm.transformPt(atom));
-      if (screen.z == 1 && tm.internalSlab && tm.xyzIsSlabbedInternal(atom)) {
-        bsSlabbed.set(i);
-      }
-      atom.sX = screen.x;
-      atom.sY = screen.y;
-      atom.sZ = screen.z;
-      int d = Math.abs(atom.madAtom);
-      if (d == Atom.MAD_GLOBAL)
-        d = (int) (vwr.getDouble(T.atoms) * 2000);
-      atom.sD = (short) vwr.tm.scaleToScreen(screen.z, d);
-      if (checkOccupancy
-          && vibrationVectors[i] != null
-          && (occ = vibrationVectors[i].getOccupancy100(vibsOn)) != Integer.MIN_VALUE) {
-        //System.out.println(atom + " " + occ);
-        haveMods = true;
-        atom.setShapeVisibility(Atom.ATOM_VISSET, false);
-        if (occ >= 0 && occ < 50)
-          atom.setShapeVisibility(Atom.ATOM_NOTHIDDEN | JC.VIS_BALLS_FLAG,
-              false);
-        else
-          atom.setShapeVisibility(Atom.ATOM_NOTHIDDEN
-              | (atom.madAtom > 0 ? JC.VIS_BALLS_FLAG : 0), true);
-        ms.occupancies[atom.i] = Math.abs(occ);
+    AtomScreenBlocks blocks = atomBlocks;
+    blocks.reset(ms.ac);
+    if (!vibsOn && !checkOccupancy && tm.canTransformPoints()) {
+      transformAtoms(bsOK, atoms, tm);
+    } else {
+      blocks.clear(0, ms.ac);
+      for (int i = bsOK.nextSetBit(0); i >= 0; i = bsOK.nextSetBit(i + 1)) {
+        // note that this vibration business is not compatible with
+        // PDB objects such as cartoons and traces, which 
+        // use Cartesian coordinates, not screen coordinates
+        Atom atom = atoms[i];
+        P3i screen = (vibsOn && atom.hasVibration() ? tm.transformPtVib(atom,
+            vibrationVectors[i]) : tm.transformPt(atom));
+        if (screen.z == 1 && tm.internalSlab && tm.xyzIsSlabbedInternal(atom)) {
+          bsSlabbed.set(i);
+        }
+        atom.sX = screen.x;
+        atom.sY = screen.y;
+        atom.sZ = screen.z;
+        int d = Math.abs(atom.madAtom);
+        if (d == Atom.MAD_GLOBAL)
+          d = (int) (vwr.getDouble(T.atoms) * 2000);
+        atom.sD = (short) vwr.tm.scaleToScreen(screen.z, d);
+        blocks.add(i, atom);
+        if (checkOccupancy
+            && vibrationVectors[i] != null
+            && (occ = vibrationVectors[i].getOccupancy100(vibsOn)) != Integer.MIN_VALUE) {
+          //System.out.println(atom + " " + occ);
+          haveMods = true;
+          atom.setShapeVisibility(Atom.ATOM_VISSET, false);
+          if (occ >= 0 && occ < 50)
+            atom.setShapeVisibility(Atom.ATOM_NOTHIDDEN | JC.VIS_BALLS_FLAG,
+                false);
+          else
+            atom.setShapeVisibility(Atom.ATOM_NOTHIDDEN
+                | (atom.madAtom > 0 ? JC.VIS_BALLS_FLAG : 0), true);
+          ms.occupancies[atom.i] = Math.abs(occ);
+        }
       }
     }
     if (haveMods)
       setShapeVis();
     GData gdata = vwr.gdata;
+    boolean slabByMolecule = false;
     if (tm.slabEnabled) {
-      boolean slabByMolecule = vwr.getBoolean(T.slabbymolecule);
+      slabByMolecule = vwr.getBoolean(T.slabbymolecule);
       boolean slabByAtom = vwr.getBoolean(T.slabbyatom);
       int minZ = gdata.slab;
       int maxZ = gdata.depth;
@@ -548,6 +645,8 @@ public class ShapeManager {
         }
       }
     }
+    // slabByMolecule has moved some atoms since their blocks were measured
+    blocks.setValid(!slabByMolecule);
     if (ms.ac == 0 || !vwr.getShowNavigationPoint())
       return null;
     // set min/max for navigation crosshair rendering
@@ -97,14 +97,23 @@ public class StateCreator extends JmolStateCreator {
 
 
   private boolean undoWorking = false;
-  private final static int MAX_ACTION_UNDO = 100;
 
-  final Lst<String> actionStates;
-  final Lst<String> actionStatesRedo;
+  /**
+   * undo and redo states are limited by memory, in bytes, rather than number;
+   * the most recent undo state is always kept
+   */
+  private final static int MAX_ACTION_UNDO_MEMORY = 1 << 24;
+
+  /**
+   * undo and redo states, most recent first; each a script String or, for
+   * coordinates, UndoCoords
+   */
+  final Lst<Object> actionStates;
+  final Lst<Object> actionStatesRedo;
   
   public StateCreator() {
-    actionStates = new Lst<String>();
-    actionStatesRedo = new Lst<String>();
+    actionStates = new Lst<Object>();
+    actionStatesRedo = new Lst<Object>();
   }
 
   private Viewer vwr;
@@ -1722,9 +1731,8 @@ public class StateCreator extends JmolStateCreator {
         n = Integer.MAX_VALUE;
         //$FALL-THROUGH$
       default:
-        if (n > MAX_ACTION_UNDO)
-          n = (action == T.undomove ? actionStates
-              : actionStatesRedo).size();
+        n = Math.min(n, (action == T.undomove ? actionStates
+            : actionStatesRedo).size());
         for (int i = 0; i < n; i++)
           undoMoveActionClear(0, action, true);
       }
@@ -1747,9 +1755,8 @@ public class StateCreator extends JmolStateCreator {
       // CTRL-Z: type = 1 UNDO
       // CTRL-Y: type = -1 REDO
       vwr.stopMinimization();
-      String s = "";
-      Lst<String> list1;
-      Lst<String> list2;
+      Lst<Object> list1;
+      Lst<Object> list2;
       switch (type) {
       default:
       case T.undomove:
@@ -1767,18 +1774,26 @@ public class StateCreator extends JmolStateCreator {
         return;
       undoWorking = true;
       list2.add(0, list1.removeItemAt(0));
-      s = actionStatesRedo.get(0);
+      Object state = actionStatesRedo.get(0);
+      String s = (state instanceof String ? (String) state : null);
       if (type == T.undomove && list2.size() == 1) {
         // must save current state, coord, etc.
         // but this destroys actionStatesRedo
-        int[] pt = new int[] { 1 };
-        type = PT.parseIntNext(s, pt);
-        taintedAtom = PT.parseIntNext(s, pt);
+        if (s == null) {
+          type = ((UndoCoords) state).type;
+          taintedAtom = ((UndoCoords) state).taintedAtom;
+        } else {
+          int[] pt = new int[] { 1 };
+          type = PT.parseIntNext(s, pt);
+          taintedAtom = PT.parseIntNext(s, pt);
+        }
         undoMoveActionClear(taintedAtom, type, false);
       }
       //System.out.println("redo type = " + type + " size=" + actionStates.size()
       //    + " " + +actionStatesRedo.size());
-      if (vwr.ms.am[modelIndex].isModelKit
+      if (s == null) {
+        ((UndoCoords) state).restore(vwr);
+      } else if (vwr.ms.am[modelIndex].isModelKit
           || s.indexOf("zap ") < 0) {
         if (Logger.debugging)
           vwr.log(s);
@@ -1795,11 +1810,16 @@ public class StateCreator extends JmolStateCreator {
       undoWorking = true;
       BS bs;
       SB sb = new SB();
+      Object entry = null;
       sb.append("#" + type + " " + taintedAtom + " " + (new Date()) + "\n");
       if (taintedAtom >= 0) {
         bs = vwr.getModelUndeletedAtomsBitSet(modelIndex);
         vwr.ms.taintAtoms(bs, type);
-        sb.append(getAtomicPropertyState(-1, null));
+        if (type == AtomCollection.TAINT_COORD) {
+          entry = getUndoCoords(type, taintedAtom, bs);
+        } else {
+          sb.append(getAtomicPropertyState(-1, null));
+        }
       } else {
         bs = vwr.getModelUndeletedAtomsBitSet(modelIndex);
         sb.append("zap ");
@@ -1812,17 +1832,72 @@ public class StateCreator extends JmolStateCreator {
             "set refreshing true;");
 
       }
+      if (entry == null)
+        entry = sb.toString();
       if (clearRedo) {
-        actionStates.add(0, sb.toString());
+        actionStates.add(0, entry);
         actionStatesRedo.clear();
       } else {
-        actionStatesRedo.add(1, sb.toString());
-      }
-      if (actionStates.size() == MAX_ACTION_UNDO) {
-        actionStates.removeItemAt(MAX_ACTION_UNDO - 1);
+        actionStatesRedo.add(1, entry);
       }
+      trimActionStates();
     }
     undoWorking = !clearRedo;
   }
 
+  /**
+   * Create a binary coordinate state, sharing reference coordinates with the
+   * most recent one. Other tainted atom properties, if any, are saved as a
+   * script, as for other states.
+   * 
+   * @param type
+   * @param taintedAtom
+   * @param bs
+   *        the atoms of the tainted atom's model
+   * @return new UndoCoords
+   */
+  private UndoCoords getUndoCoords(int type, int taintedAtom, BS bs) {
+    UndoCoords last = null;
+    for (int i = 0, n = actionStatesRedo.size() + actionStates.size(); i < n
+        && last == null; i++) {
+      Object o = (i < actionStatesRedo.size() ? actionStatesRedo.get(i)
+          : actionStates.get(i - actionStatesRedo.size()));
+      if (o instanceof UndoCoords)
+        last = (UndoCoords) o;
+    }
+    UndoCoords state = new UndoCoords(vwr, type, taintedAtom, bs, last);
+    SB sb = new SB();
+    for (int t = 0; t < AtomCollection.TAINT_MAX; t++)
+      if (t != AtomCollection.TAINT_COORD)
+        sb.append(getAtomicPropertyState(t, null));
+    if (sb.length() > 0)
+      state.script = sb.toString();
+    return state;
+  }
+
+  /**
+   * Drop the oldest undo states that exceed MAX_ACTION_UNDO_MEMORY.
+   */
+  private void trimActionStates() {
+    int bytes = 0;
+    UndoCoords last = null;
+    for (int i = 0, nRedo = actionStatesRedo.size(), n = nRedo
+        + actionStates.size(); i < n; i++) {
+      Object o = (i < nRedo ? actionStatesRedo.get(i) : actionStates.get(i
+          - nRedo));
+      if (o instanceof UndoCoords) {
+        UndoCoords u = (UndoCoords) o;
+        bytes += u.getMemory() + u.getReferenceMemory(last);
+        last = u;
+      } else {
+        bytes += ((String) o).length() * 2;
+      }
+      if (bytes > MAX_ACTION_UNDO_MEMORY && i > nRedo) {
+        for (int j = actionStates.size(); --j >= i - nRedo;)
+          actionStates.removeItemAt(j);
+        return;
+      }
+    }
+  }
+
 }
@@ -1683,6 +1683,87 @@ public class TransformManager {
     return iScrPt;
   }
 
+  /**
+   * Can transformPoints() be used in place of transformPt()? Not with an
+   * internal slab plane, which sets z = 1 for slabbed points.
+   * 
+   * @return true if so
+   */
+  public boolean canTransformPoints() {
+    return !internalSlab;
+  }
+
+  /**
+   * A lock-free, bulk version of transformPt() for ShapeManager.finalizeAtoms,
+   * giving exactly the same screen coordinates. It uses only local variables,
+   * so blocks of points can be transformed on several threads at once.
+   * 
+   * @param pts
+   * @param list
+   *        indices into pts
+   * @param n
+   *        number of indices in list to use
+   * @param screen
+   *        [x0 y0 z0 x1 y1 z1 ...], one triple for each index in list
+   */
+  public void transformPoints(T3d[] pts, int[] list, int n, int[] screen) {
+    M4d m = matrixTransform;
+    double m00 = m.m00, m01 = m.m01, m02 = m.m02, m03 = m.m03;
+    double m10 = m.m10, m11 = m.m11, m12 = m.m12, m13 = m.m13;
+    double m20 = m.m20, m21 = m.m21, m22 = m.m22, m23 = m.m23;
+    // shifts before and after the perspective factor, as in applyPerspective
+    double sx0 = 0, sy0 = 0, sx1, sy1;
+    switch (mode) {
+    case MODE_NAVIGATION:
+      sx0 = -navigationShiftXY.x;
+      sy0 = -navigationShiftXY.y;
+      sx1 = navigationOffset.x;
+      sy1 = navigationOffset.y;
+      break;
+    case MODE_PERSPECTIVE_PYMOL:
+      sx0 = perspectiveShiftXY.x;
+      sy0 = perspectiveShiftXY.y;
+      sx1 = fixedRotationOffset.x;
+      sy1 = fixedRotationOffset.y;
+      break;
+    default:
+      sx1 = fixedRotationOffset.x;
+      sy1 = fixedRotationOffset.y;
+      break;
+    }
+    boolean shift0 = (mode != MODE_STANDARD);
+    boolean isPymol = (mode == MODE_PERSPECTIVE_PYMOL);
+    boolean perspective = perspectiveDepth;
+    double ref = referencePlaneOffset;
+    for (int i = 0, j = 0; i < n; i++) {
+      T3d p = pts[list[i]];
+      double px = p.x, py = p.y, pz = p.z;
+      double x = m00 * px + m01 * py + m02 * pz + m03;
+      double y = m10 * px + m11 * py + m12 * pz + m13;
+      double z = m20 * px + m21 * py + m22 * pz + m23;
+      if (!(z > 0)) // also NaN
+        z = 1;
+      if (shift0) {
+        x += sx0;
+        y += sy0;
+      }
+      if (perspective) {
+        double factor = ref / z;
+        x *= factor;
+        y *= factor;
+      }
+      if (isPymol) {
+        x -= sx0;
+        y -= sy0;
+      }
+      x += sx1;
+      y += sy1;
+      screen[j++] = (int) x;
+      screen[j++] = (int) y;
+      screen[j++] = (int) z;
+    }
+  }
+
   public boolean xyzIsSlabbedInternal(T3d ptRef) {
     return (slabPlane != null
         && ptRef.x * slabPlane.x + ptRef.y * slabPlane.y + ptRef.z
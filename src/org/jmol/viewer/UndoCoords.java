@@ -0,0 +1,166 @@
+package org.jmol.viewer;
+
+import javajs.util.BS;
+
+import org.jmol.modelset.Atom;
+import org.jmol.modelset.AtomCollection;
+import org.jmol.modelset.ModelSet;
+
+/**
+ * A binary undo/redo state of atom coordinates, used by StateCreator in place
+ * of a DATA "coord set" script for mouse drags and ModelKit edits.
+ *
+ * Only the atoms of one model are covered, from the first to the last of them.
+ * Rather than all of their coordinates, a state holds only the atoms whose
+ * coordinates differ from a reference copy shared by a run of states, along
+ * with their coordinates. Restoring a state sets atom coordinates directly, changing only
+ * atoms that are not already in place.
+ *
+ */
+class UndoCoords {
+
+  /**
+   * the undo type and atom, as for a script state's "#type atom" header
+   */
+  int type;
+  int taintedAtom;
+
+  /**
+   * a DATA script for any other tainted atom properties, or null
+   */
+  String script;
+
+  /**
+   * the model set of the reference
+   */
+  private ModelSet ms;
+
+  /**
+   * the first atom covered; the reference has three coordinates per atom from
+   * there on
+   */
+  private int i0;
+
+  /**
+   * reference coordinates, three per atom
+   */
+  private double[] ref;
+
+  /**
+   * atoms whose coordinates differ from ref, in order, and their coordinates
+   */
+  private int[] atoms;
+  private double[] xyz;
+
+  /**
+   * @param vwr
+   * @param type
+   * @param taintedAtom
+   * @param bs
+   *        the model's atoms
+   * @param last
+   *        the last state recorded, possibly with a reference to share
+   */
+  UndoCoords(Viewer vwr, int type, int taintedAtom, BS bs, UndoCoords last) {
+    this.type = type;
+    this.taintedAtom = taintedAtom;
+    ms = vwr.ms;
+    Atom[] at = ms.at;
+    i0 = Math.max(bs.nextSetBit(0), 0);
+    int i1 = Math.min(bs.length(), ms.ac);
+    int ac = Math.max(i1 - i0, 0);
+    if (last != null && last.ms == ms && last.i0 == i0
+        && last.ref.length == ac * 3)
+      ref = last.ref;
+    int n = 0;
+    int[] list = null;
+    if (ref != null) {
+      list = new int[ac];
+      for (int i = i0, p = 0; i < i1; i++, p += 3) {
+        Atom a = at[i];
+        if (a != null
+            && (a.x != ref[p] || a.y != ref[p + 1] || a.z != ref[p + 2]))
+          list[n++] = i;
+      }
+      if (n > ac / 2) {
+        // more cheaply stored as a new reference
+        ref = null;
+      }
+    }
+    if (ref == null) {
+      ref = new double[ac * 3];
+      for (int i = i0, p = 0; i < i1; i++, p += 3) {
+        Atom a = at[i];
+        if (a != null) {
+          ref[p] = a.x;
+          ref[p + 1] = a.y;
+          ref[p + 2] = a.z;
+        }
+      }
+      n = 0;
+    }
+    atoms = new int[n];
+    xyz = new double[n * 3];
+    for (int j = 0, p = 0; j < n; j++) {
+      Atom a = at[atoms[j] = list[j]];
+      xyz[p++] = a.x;
+      xyz[p++] = a.y;
+      xyz[p++] = a.z;
+    }
+  }
+
+  /**
+   * @return approximate memory used, in bytes, not counting a shared
+   *         reference
+   */
+  int getMemory() {
+    return atoms.length * 28 + (script == null ? 0 : script.length() * 2);
+  }
+
+  /**
+   * @return the memory used by the reference, in bytes, if it is not shared
+   *         with the other state
+   * @param other
+   *        or null
+   */
+  int getReferenceMemory(UndoCoords other) {
+    return (other != null && other.ref == ref ? 0 : ref.length * 8);
+  }
+
+  /**
+   * Set atom coordinates to this state.
+   *
+   * @param vwr
+   */
+  void restore(Viewer vwr) {
+    if (vwr.ms != ms)
+      return;
+    Atom[] at = ms.at;
+    int i1 = Math.min(ms.ac, i0 + ref.length / 3);
+    int nChanged = 0;
+    for (int i = i0, j = 0, p = 0, np = atoms.length; i < i1; i++, p += 3) {
+      double x, y, z;
+      if (j < np && atoms[j] == i) {
+        int pj = j++ * 3;
+        x = xyz[pj];
+        y = xyz[pj + 1];
+        z = xyz[pj + 2];
+      } else {
+        x = ref[p];
+        y = ref[p + 1];
+        z = ref[p + 2];
+      }
+      Atom a = at[i];
+      if (a == null || AtomCollection.isDeleted(a) || a.x == x && a.y == y
+          && a.z == z)
+        continue;
+      ms.setAtomCoord(i, x, y, z);
+      nChanged++;
+    }
+    if (script != null)
+      vwr.evalStringQuiet(script);
+    if (nChanged > 0)
+      vwr.checkCoordinatesChanged(null);
+  }
+
+}
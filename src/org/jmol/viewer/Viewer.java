@@ -98,6 +98,7 @@ import org.jmol.script.SV;
 import org.jmol.script.ScriptContext;
 import org.jmol.script.ScriptEval;
 import org.jmol.script.T;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.thread.TimeoutThread;
 import org.jmol.util.BSUtil;
 import org.jmol.util.BoxInfo;
@@ -112,6 +113,7 @@ import org.jmol.util.Logger;
 import org.jmol.util.Node;
 import org.jmol.util.Parser;
 import org.jmol.util.Rectangle;
+import org.jmol.util.StartupProfile;
 import org.jmol.util.TempArray;
 import org.jmol.util.Triangulator;
 import org.jmol.viewer.binding.Binding;
@@ -357,6 +359,7 @@ public class Viewer extends JmolViewer
    **/
 
   public Viewer(Map<String, Object> info) {
+    long t = StartupProfile.start();
     commandHistory = new CommandHistory();
     dimScreen = new Dimension(0, 0);
     rd = new RadiusData(null, 0, null, null);
@@ -367,6 +370,7 @@ public class Viewer extends JmolViewer
     chainList = new Lst<String>();
     info.put("isJava", Boolean.TRUE);
     setOptions(info);
+    StartupProfile.end("Viewer", t);
   }
 
   public boolean haveAccess(ACCESS a) {
@@ -877,9 +881,11 @@ public class Viewer extends JmolViewer
         || rm == null)
       return;
     boolean antialias2 = antialiased && g.antialiasTranslucent;
+    rm.beginFrame();
     int[] navMinMax = shm.finalizeAtoms(tm.bsSelectedAtoms, true);
     if (isWebGL) {
       rm.renderExport(gdata, ms, jsParams);
+      rm.endFrame();
       notifyViewerRepaintDone();
       return;
     }
@@ -889,6 +895,7 @@ public class Viewer extends JmolViewer
       rm.render(gdata, ms, false, null);
       tm.setAntialias(antialiased);
     }
+    rm.endFrame();
   }
 
   /**
@@ -5829,6 +5836,8 @@ public class Viewer extends JmolViewer
       return g.labelPointerWidth;
     case T.meshscale:
       return g.meshScale;
+    case T.isosurfacemotiontriangles:
+      return g.isosurfaceMotionTriangles;
     case T.minimizationreportsteps:
       return g.minimizationReportSteps;
     case T.minpixelselradius:
@@ -5993,6 +6002,8 @@ public class Viewer extends JmolViewer
       return g.measurementLabels;
     case T.messagestylechime:
       return g.messageStyleChime;
+    case T.multiprocessor:
+      return g.multiProcessor;
     case T.mode2d:
       // 16.2.33
       return g.mode2d;
@@ -6004,6 +6015,8 @@ public class Viewer extends JmolViewer
       return g.navigationMode;
     case T.navigationperiodic:
       return g.navigationPeriodic;
+    case T.occlusionculling:
+      return g.occlusionCulling;
     case T.partialdots:
       return g.partialDots;
     case T.pdbaddhydrogens:
@@ -6682,6 +6695,10 @@ public class Viewer extends JmolViewer
     //    case T.pointgroupmaxatoms:
     //      g.pointGroupMaxAtoms = value;
     //      break;
+    case T.isosurfacemotiontriangles:
+      // 16.2.34
+      g.isosurfaceMotionTriangles = Math.max(value, 0);
+      break;
     case T.minimizationreportsteps:
       // 16.1.15 and 16.1.16
       g.minimizationReportSteps = Math.min(Math.max(value, 1), 20);
@@ -6739,6 +6756,10 @@ public class Viewer extends JmolViewer
       // 12.1.11
       g.isosurfacePropertySmoothingPower = value;
       break;
+    case T.rendermetricsinterval:
+      // 16.2.34
+      g.renderMetricsInterval = Math.max(value, 0);
+      break;
     case T.repaintwaitms:
       // 12.0.RC4
       g.repaintWaitMs = value;
@@ -7083,6 +7104,7 @@ public class Viewer extends JmolViewer
     case T.multiprocessor:
       // 12.0.RC6
       g.multiProcessor = value && (nProcessors > 1);
+      ParallelTasks.setSharedMultiProcessor(g.multiProcessor);
       break;
     case T.monitorenergy:
       // 12.0.RC6
@@ -7313,6 +7335,10 @@ public class Viewer extends JmolViewer
     case T.navigationperiodic:
       g.navigationPeriodic = value;
       break;
+    case T.occlusionculling:
+      // 16.2.34
+      g.occlusionCulling = value;
+      break;
     case T.zshade:
       tm.setZShadeEnabled(value);
       return;
@@ -10404,6 +10430,14 @@ public class Viewer extends JmolViewer
     }
   }
 
+  /**
+   * @return true if the model is being moved by the mouse, spinning,
+   *         vibrating, or animating
+   */
+  public boolean isMotionRendering() {
+    return (getInMotion(true) || tm.spinOn || tm.vibrationOn || am.animationOn);
+  }
+
   /**
    * check motion for rendering during mouse movement, spin, vibration, and
    * animation
@@ -10412,7 +10446,7 @@ public class Viewer extends JmolViewer
    * @return TRUE if allowed
    */
   public boolean checkMotionRendering(int tok) {
-    if (!getInMotion(true) && !tm.spinOn && !tm.vibrationOn && !am.animationOn)
+    if (!isMotionRendering())
       return true;
     if (g.wireframeRotation)
       return false;
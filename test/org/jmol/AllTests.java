@@ -33,8 +33,10 @@ public class AllTests {
     //$JUnit-BEGIN$
     suite.addTest(org.jmol.adapter.smarter.TestSmarterJmolAdapter.suite());
     suite.addTest(org.jmol.api.TestScripts.suite());
+    suite.addTestSuite(org.jmol.g3d.TestTextRenderer.class);
     suite.addTestSuite(org.jmol.smiles.TestSmilesParser.class);
     suite.addTest(org.jmol.util.AllTests.suite());
+    suite.addTestSuite(org.jmol.viewer.TestUndoCoords.class);
     //$JUnit-END$
     return suite;
   }
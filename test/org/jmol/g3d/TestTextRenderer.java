@@ -0,0 +1,104 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.g3d;
+
+import java.util.Arrays;
+
+import org.jmol.adapter.smarter.SmarterJmolAdapter;
+import org.jmol.api.JmolViewer;
+import org.jmol.util.Font;
+import org.jmol.viewer.Viewer;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for TextRenderer: a label composed from cached glyphs must be
+ * exactly the label drawn whole.
+ */
+public class TestTextRenderer extends TestCase {
+
+  private final static String[] texts = { "jiffy fjord Wolf", "fifty AWAY Tj",
+      "AVAToVaWe LT", "CA ALA 25", "N1 O2 H3'", "Hello, world!",
+      "1.23 Å (r=0.5)", "α-helix", "||ff//\\\\" };
+
+  private final static String[] faces = { "SansSerif", "Serif", "Monospaced" };
+
+  private final static String[] styles = { "Plain", "Bold", "Italic",
+      "BoldItalic" };
+
+  private final static int[] sizes = { 9, 13, 24, 40 };
+
+  private Viewer vwr;
+
+  /**
+   * Constructor for tests.
+   *
+   * @param arg0 Test name.
+   */
+  public TestTextRenderer(String arg0) {
+    super(arg0);
+  }
+
+  @Override
+  protected void setUp() {
+    vwr = (Viewer) JmolViewer.allocateViewer(null, new SmarterJmolAdapter());
+  }
+
+  @Override
+  protected void tearDown() {
+    vwr.dispose();
+    vwr = null;
+  }
+
+  /**
+   * Compare every string that can be composed with the same string drawn
+   * whole, in several faces, styles, and sizes.
+   */
+  public void testComposedText() {
+    Graphics3D g3d = (Graphics3D) vwr.gdata;
+    int nComposed = 0;
+    for (String face : faces)
+      for (String style : styles)
+        for (int size : sizes) {
+          Font font = vwr.getFont3D(face, style, size);
+          for (String text : texts) {
+            byte[] composed = TextRenderer.getTranslucencyMap(text, font, g3d,
+                true);
+            if (composed == null)
+              continue;
+            nComposed++;
+            byte[] whole = TextRenderer.getTranslucencyMap(text, font, g3d,
+                false);
+            assertTrue(face + " " + style + " " + size + " \"" + text + "\"",
+                Arrays.equals(whole, composed));
+          }
+        }
+    // most plain and bold text should be composed
+    assertTrue("composed " + nComposed,
+        nComposed > faces.length * sizes.length * texts.length);
+  }
+
+}
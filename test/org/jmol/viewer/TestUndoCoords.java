@@ -0,0 +1,128 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2026  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.viewer;
+
+import org.jmol.adapter.smarter.SmarterJmolAdapter;
+import org.jmol.api.JmolViewer;
+import org.jmol.modelset.Atom;
+import org.jmol.modelset.AtomCollection;
+import org.jmol.script.T;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit tests for UndoCoords: coordinate states recorded as a mouse drag
+ * records them, then restored by UNDOMOVE and REDOMOVE.
+ *
+ * Scripts cannot record these states themselves; only drags and ModelKit
+ * actions do.
+ */
+public class TestUndoCoords extends TestCase {
+
+  private Viewer vwr;
+
+  /**
+   * Constructor for tests.
+   *
+   * @param arg0 Test name.
+   */
+  public TestUndoCoords(String arg0) {
+    super(arg0);
+  }
+
+  @Override
+  protected void setUp() {
+    vwr = (Viewer) JmolViewer.allocateViewer(null, new SmarterJmolAdapter());
+    // two models; only the second is moved
+    vwr.scriptWait("load data/1crn.pdb; load append data/1crn.pdb; frame all");
+    assertEquals(2, vwr.ms.mc);
+  }
+
+  @Override
+  protected void tearDown() {
+    vwr.dispose();
+    vwr = null;
+  }
+
+  /**
+   * Move model 2 three times, then undo and redo every step.
+   */
+  public void testMoveUndoRedo() {
+    int first = vwr.ms.am[1].firstAtomIndex;
+    double[][] xyz = new double[4][];
+    xyz[0] = getModelCoords(1);
+    String[] moves = { "select 2.1; translateSelected {1 0 0}",
+        "select 2.1 and 20-25; translateSelected {0 0.5 -0.5}",
+        "select 2.1 and 20-25; rotateSelected {0 0 0} {1 1 1} 30" };
+    for (int i = 0; i < 3; i++) {
+      // as at the start of a drag
+      vwr.undoMoveActionClear(first + 100 * i, AtomCollection.TAINT_COORD,
+          true);
+      vwr.scriptWait(moves[i]);
+      xyz[i + 1] = getModelCoords(1);
+      assertFalse(same(xyz[i], xyz[i + 1]));
+    }
+    assertEquals(3, vwr.undoMoveAction(T.undomove, T.count));
+
+    // model 1 moves too, but it is not part of any state
+    vwr.scriptWait("select 1.1; translateSelected {0 0 2}");
+    double[] model1 = getModelCoords(0);
+
+    for (int i = 3; --i >= 0;) {
+      vwr.scriptWait("undoMove");
+      assertTrue("undo to step " + i, same(xyz[i], getModelCoords(1)));
+      assertTrue(same(model1, getModelCoords(0)));
+    }
+    for (int i = 1; i <= 3; i++) {
+      vwr.scriptWait("redoMove");
+      assertTrue("redo to step " + i, same(xyz[i], getModelCoords(1)));
+      assertTrue(same(model1, getModelCoords(0)));
+    }
+  }
+
+  private double[] getModelCoords(int modelIndex) {
+    int i0 = vwr.ms.am[modelIndex].firstAtomIndex;
+    int n = vwr.ms.am[modelIndex].act;
+    double[] xyz = new double[n * 3];
+    for (int i = 0, p = 0; i < n; i++) {
+      Atom a = vwr.ms.at[i0 + i];
+      xyz[p++] = a.x;
+      xyz[p++] = a.y;
+      xyz[p++] = a.z;
+    }
+    return xyz;
+  }
+
+  private static boolean same(double[] a, double[] b) {
+    if (a.length != b.length)
+      return false;
+    for (int i = a.length; --i >= 0;)
+      if (a[i] != b[i])
+        return false;
+    return true;
+  }
+
+}